@@ -219,7 +219,7 @@ public class Battery extends Item implements EnergyCarrier {
 	 * Variable registering the maximum amount of energy
 	 * that can be stored by a battery.
 	 */
-	private static final EnergyAmount maximumEnergy = new EnergyAmount(Double.MAX_VALUE, Unit.WATTSECOND);
+	private static final EnergyAmount maximumEnergy = EnergyAmount.MAXIMUM;
 
 	/**
 	 * Recharge this battery with the given amount of energy.
@@ -1,11 +1,16 @@
 package roborally;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import roborally.storage.ChunkedPieceStorage;
+import roborally.storage.PieceStorage;
 import roborally.util.AbstractIterator;
 import roborally.util.FilteredIterable;
 import roborally.util.FilteredIterator;
+import roborally.util.LongHashMap;
 import roborally.util.Predicate;
+import roborally.util.SparseBitGrid;
 
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Immutable;
@@ -49,10 +54,40 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 *			| !isValidWidth(width) || !isValidHeight(height)
 	 */
 	public Board(long width, long height) throws InvalidSizeException {
+		this(width, height, new ChunkedPieceStorage());
+	}
+
+	/**
+	 * Create a new board which stores its pieces
+	 * in the given piece storage.
+	 * 
+	 * @param width
+	 *			The width of this board.
+	 * @param height
+	 *			The height of this board.
+	 * @param storage
+	 * 			The piece storage for this board.
+	 * 
+	 * @post	The width of the new board equals the given width. 
+	 *			| new.getWidth() == width
+	 * @post	The height of the new board equals the given height. 
+	 *			| new.getHeight() == height
+	 * @throws	InvalidSizeException
+	 *			If the given width or height is not valid. 
+	 *			| !isValidWidth(width) || !isValidHeight(height)
+	 * @throws	IllegalArgumentException
+	 * 			If the given storage is not effective or not empty.
+	 * 			| storage == null || storage.size() != 0
+	 */
+	public Board(long width, long height, PieceStorage storage) throws InvalidSizeException,
+			IllegalArgumentException {
 		if (!isValidWidth(width) || !isValidHeight(height))
 			throw new InvalidSizeException(width, height);
+		if (storage == null || storage.size() != 0)
+			throw new IllegalArgumentException("Piece storage must be effective and empty.");
 		this.width = width;
 		this.height = height;
+		this.pieces = storage;
 	}
 
 	/*
@@ -146,25 +181,20 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 */
 
 	/**
-	 * Map mapping positions to sets of pieces placed on this board.
+	 * Storage holding the pieces placed on this board.
 	 * 
-	 * @invar	The map of piece sets is effective.
+	 * @invar	The piece storage is effective.
 	 * 			| pieces != null
-	 * @invar	Each set of pieces in the map is effective
-	 * 			and not empty.
-	 * 			| for each pieceSet in pieces.values() :
-	 * 			|   pieceSet != null && !pieceSet.isEmpty()
-	 * @invar	This board can have each piece in the map
+	 * @invar	This board can have each piece in the storage
 	 * 			and can have each piece at its position.
-	 * 			| for each pieceSet in pieces.values() :
-	 * 			|   for each piece in pieceSet :
-	 * 			|      canHaveAsPiece(piece)
-	 * 			|       && canHavePieceAt(piece, piece.getPosition())
-	 * @note	It is not guaranteed that each piece in the map
+	 * 			| for each piece in pieces :
+	 * 			|   canHaveAsPiece(piece)
+	 * 			|    && canHavePieceAt(piece, piece.getPosition())
+	 * @note	It is not guaranteed that each piece in the storage
 	 * 			has this board as its board. It is the responsibility
 	 * 			of Piece to maintain this relationship.
 	 */
-	private final Map<Vector, Set<Piece>> pieces = new HashMap<Vector, Set<Piece>>();
+	private final PieceStorage pieces;
 
 	/**
 	 * Check whether this board has proper pieces.
@@ -178,15 +208,13 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 * 			|    && canHavePieceAt(piece, piece.getPosition())
 	 */
 	public boolean hasProperPieces() {
-		for (Set<Piece> piecesAtPosition : pieces.values()) {
-			for (Piece piece : piecesAtPosition) {
-				if (!canHaveAsPiece(piece))
-					return false;
-				if (piece.getBoard() != this)
-					return false;
-				if (!canHavePieceAt(piece, piece.getPosition()))
-					return false;
-			}
+		for (Piece piece : pieces) {
+			if (!canHaveAsPiece(piece))
+				return false;
+			if (piece.getBoard() != this)
+				return false;
+			if (!canHavePieceAt(piece, piece.getPosition()))
+				return false;
 		}
 		return true;
 	}
@@ -212,6 +240,8 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 * @return	The resulting set contains all pieces with this board
 	 * 			as their board.
 	 * 			| result == {piece:Piece | piece.getBoard() == this}
+	 * @note	The resulting set is a read-only view on this board,
+	 * 			which reflects later changes to its pieces.
 	 */
 	public Set<Piece> getPieces() {
 		return getPieces(Piece.class);
@@ -230,19 +260,32 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 * 			| result ==
 	 * 			|	{piece:Piece | pieceType.isInstance(piece)
 	 * 			|                   && piece.getBoard() == this}
+	 * @note	The resulting set is a read-only view on this board,
+	 * 			which reflects later changes to its pieces. Its cost
+	 * 			only depends on the amount of pieces of the given type.
 	 */
 	public <T extends Piece> Set<T> getPieces(Class<T> pieceType) {
-		Set<T> typedPieces = new HashSet<T>();
-		for (Set<Piece> piecesAtPosition : pieces.values()) {
-			for (Piece piece : piecesAtPosition) {
-				if (pieceType.isInstance(piece)) {
-					typedPieces.add(pieceType.cast(piece));
-				}
-			}
-		}
-		return typedPieces;
+		return new TypedPieceSet<T>(pieceType);
 	}
 
+	/**
+	 * Map mapping concrete piece classes to the sets of pieces
+	 * of exactly that class placed on this board.
+	 * 
+	 * @invar	The map of piece sets is effective.
+	 * 			| piecesByType != null
+	 * @invar	Each set of pieces in the map is effective
+	 * 			and not empty.
+	 * 			| for each pieceSet in piecesByType.values() :
+	 * 			|   pieceSet != null && !pieceSet.isEmpty()
+	 * @invar	Each piece in the map is registered
+	 * 			under its own class.
+	 * 			| for each pieceType in piecesByType.keySet() :
+	 * 			|   for each piece in piecesByType.get(pieceType) :
+	 * 			|      piece.getClass() == pieceType
+	 */
+	private final Map<Class<?>, Set<Piece>> piecesByType = new HashMap<Class<?>, Set<Piece>>();
+
 	/**
 	 * Get a set of all the pieces on this board at the given position.
 	 * 
@@ -255,16 +298,11 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 *          |                           && piece.getPosition().equals(position)}
 	 */
 	public Set<Piece> getPiecesAt(Vector position) {
-		// Pieces at same position
-		Set<Piece> piecesAtPosition = pieces.get(position);
-
-		// If set is not effective, return empty set
-		if (piecesAtPosition == null) {
+		// No pieces at an ineffective position
+		if (position == null)
 			return Collections.emptySet();
-		}
 
-		// Return unmodifiable view of set
-		return Collections.unmodifiableSet(piecesAtPosition);
+		return pieces.getPiecesAt(position);
 	}
 
 	/**
@@ -326,9 +364,89 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 * 			| result == !getPiecesAt(position).isEmpty()
 	 */
 	public boolean hasPiecesAt(Vector position) {
-		return !getPiecesAt(position).isEmpty();
+		if (position == null)
+			return false;
+
+		return pieces.hasPiecesAt(position);
 	}
 
+	/**
+	 * Check whether this board has pieces at the position
+	 * with the given coordinates.
+	 * 
+	 * <p>Unlike {@link #hasPiecesAt(Vector)}, this check does not
+	 * need a vector, so searches can call it for every position
+	 * they visit without allocating.</p>
+	 * 
+	 * @param x
+	 * 			The X-coordinate of the position to check.
+	 * @param y
+	 * 			The Y-coordinate of the position to check.
+	 * 
+	 * @return	| result == hasPiecesAt(new Vector(x, y))
+	 */
+	public boolean hasPiecesAt(long x, long y) {
+		return occupied.get(x, y);
+	}
+
+	/**
+	 * Grid registering the positions with pieces on this board.
+	 * 
+	 * @invar	The occupied grid is effective.
+	 * 			| occupied != null
+	 * @invar	A bit is set if and only if there are pieces
+	 * 			on this board at the corresponding position.
+	 * 			| for each position:Vector :
+	 * 			|   hasPiecesAt(position) == occupied.get(position.getX(), position.getY())
+	 */
+	private final SparseBitGrid occupied = new SparseBitGrid();
+
+	/**
+	 * Check whether this board has an obstacle at the given position.
+	 * 
+	 * @param position
+	 * 			The position to check.
+	 * 
+	 * @return	True if and only if there is a piece at the given position
+	 * 			which is an obstacle.
+	 * 			| result == (for some piece in getPiecesAt(position) :
+	 * 			|              piece.isObstacle())
+	 */
+	public boolean hasObstacleAt(Vector position) {
+		if (position == null)
+			return false;
+
+		return hasObstacleAt(position.getX(), position.getY());
+	}
+
+	/**
+	 * Check whether this board has an obstacle at the position
+	 * with the given coordinates.
+	 * 
+	 * @param x
+	 * 			The X-coordinate of the position to check.
+	 * @param y
+	 * 			The Y-coordinate of the position to check.
+	 * 
+	 * @return	| result == hasObstacleAt(new Vector(x, y))
+	 */
+	public boolean hasObstacleAt(long x, long y) {
+		return obstacles.get(x, y);
+	}
+
+	/**
+	 * Grid registering the positions of the obstacles on this board.
+	 * 
+	 * @invar	The obstacle grid is effective.
+	 * 			| obstacles != null
+	 * @invar	A bit is set if and only if there is an obstacle
+	 * 			on this board at the corresponding position.
+	 * 			| for each piece in pieces :
+	 * 			|   piece.isObstacle() == obstacles.get(piece.getPosition().getX(),
+	 * 			|                                       piece.getPosition().getY())
+	 */
+	private final SparseBitGrid obstacles = new SparseBitGrid();
+
 	/**
 	 * Check whether this board can have the given piece
 	 * at the given position on the board.
@@ -344,6 +462,10 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 * @return	False if the piece is not effective or is terminated.
 	 * 			| else if (piece == null || piece.isTerminated())
 	 * 			|   result == false
+	 * @return	False if the piece is not an obstacle and
+	 * 			there is an obstacle at the given position.
+	 * 			| else if (!piece.isObstacle() && hasObstacleAt(position))
+	 * 			|   result == false
 	 * @return  Otherwise, true if and only if the piece can share its position
 	 * 			with all pieces at the given position.
 	 *			| else
@@ -356,6 +478,10 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 		if (piece == null || piece.isTerminated())
 			return false;
 
+		// Only the obstacle itself can be at the position of an obstacle
+		if (!piece.isObstacle() && hasObstacleAt(position))
+			return false;
+
 		return piece.canSharePositionWith(getPiecesAt(position));
 	}
 
@@ -403,12 +529,26 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 
 		// Add piece
 		Vector position = piece.getPosition();
-		Set<Piece> piecesAtPosition = pieces.get(position);
-		if (piecesAtPosition == null) {
-			piecesAtPosition = new HashSet<Piece>();
+		boolean wasOccupied = pieces.hasPiecesAt(position);
+		pieces.add(piece, position);
+		// Add to occupancy indexes
+		if (!wasOccupied) {
+			addToLine(occupiedRows, position.getY(), position.getX());
+			addToLine(occupiedColumns, position.getX(), position.getY());
+			occupied.set(position.getX(), position.getY());
+		}
+		// Add to type index
+		Set<Piece> piecesOfType = piecesByType.get(piece.getClass());
+		if (piecesOfType == null) {
+			piecesOfType = new HashSet<Piece>();
+			piecesByType.put(piece.getClass(), piecesOfType);
 		}
-		piecesAtPosition.add(piece);
-		pieces.put(position, piecesAtPosition);
+		piecesOfType.add(piece);
+		// Add to obstacle grid
+		if (piece.isObstacle())
+			obstacles.set(position.getX(), position.getY());
+		// Start a new epoch
+		addChange(position);
 	}
 
 	/**
@@ -421,6 +561,9 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 * 			or already placed on a board.
 	 *			| if (piece == null || piece.isPlaced())
 	 *			|   result == false
+	 * @return	False if this board is frozen.
+	 *			| else if (isFrozen())
+	 *			|   result == false
 	 * @return	False if the given piece doesn't have
 	 * 			a valid position.
 	 *			| else if (!isValidPosition(piece.getPosition()))
@@ -434,6 +577,9 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 		if (piece == null || piece.isPlaced())
 			return false;
 
+		if (isFrozen())
+			return false;
+
 		Vector position = piece.getPosition();
 		if (!isValidPosition(position))
 			return false;
@@ -459,14 +605,151 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 		assert canRemoveAsPiece(piece);
 
 		// Remove piece
-		Set<Piece> piecesAtPosition = pieces.get(piece.getPosition());
-		piecesAtPosition.remove(piece);
-		// Remove set from map if empty
-		if (piecesAtPosition.isEmpty()) {
-			pieces.remove(piece.getPosition());
+		Vector position = piece.getPosition();
+		pieces.remove(piece, position);
+		// Remove from occupancy indexes
+		if (!pieces.hasPiecesAt(position)) {
+			removeFromLine(occupiedRows, position.getY(), position.getX());
+			removeFromLine(occupiedColumns, position.getX(), position.getY());
+			occupied.clear(position.getX(), position.getY());
+		}
+		// Remove from type index
+		Set<Piece> piecesOfType = piecesByType.get(piece.getClass());
+		piecesOfType.remove(piece);
+		if (piecesOfType.isEmpty()) {
+			piecesByType.remove(piece.getClass());
+		}
+		// Remove from obstacle grid
+		if (piece.isObstacle())
+			obstacles.clear(position.getX(), position.getY());
+		// Start a new epoch
+		addChange(position);
+	}
+
+	/**
+	 * Get the modification epoch of this board.
+	 * 
+	 * <p>The epoch is increased whenever a piece is added to
+	 * or removed from this board, which includes moving a piece.
+	 * Results computed from the pieces on this board remain
+	 * valid as long as the epoch does not change.</p>
+	 */
+	@Basic
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Variable registering the modification epoch of this board.
+	 */
+	private long epoch;
+
+	/**
+	 * Get the positions at which pieces were added or removed
+	 * since the given epoch.
+	 * 
+	 * <p>Only the most recent changes are retained. Results computed
+	 * at an older epoch should be recomputed completely.</p>
+	 * 
+	 * @param epoch
+	 * 			The epoch since which to get the changed positions.
+	 * 
+	 * @return	If the changes since the given epoch are retained, the
+	 * 			positions changed in every later epoch, in order, with
+	 * 			one position per epoch.
+	 * 			| if (result != null)
+	 * 			|   result.size() == getEpoch() - epoch
+	 * @return	Otherwise, null.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given epoch is negative or lies in the future.
+	 * 			| epoch < 0 || epoch > getEpoch()
+	 */
+	public List<Vector> getChangedPositions(long epoch) throws IllegalArgumentException {
+		if (epoch < 0 || epoch > getEpoch())
+			throw new IllegalArgumentException("Invalid epoch: " + epoch);
+		if (epoch < firstChangeEpoch)
+			return null;
+
+		int from = (int) (epoch - firstChangeEpoch);
+		return Collections.unmodifiableList(new ArrayList<Vector>(changes.subList(from, changes.size())));
+	}
+
+	/**
+	 * Register a change at the given position and start a new epoch.
+	 */
+	private void addChange(Vector position) {
+		// Forget the oldest half of the changes when full
+		if (changes.size() == maxNbChanges) {
+			changes.subList(0, maxNbChanges / 2).clear();
+			firstChangeEpoch += maxNbChanges / 2;
+		}
+		changes.add(position);
+		epoch++;
+	}
+
+	/**
+	 * List registering the positions of the most recent changes.
+	 * 
+	 * @invar	Every retained epoch has exactly one change.
+	 * 			| firstChangeEpoch + changes.size() == getEpoch()
+	 */
+	private final List<Vector> changes = new ArrayList<Vector>();
+
+	/**
+	 * Variable registering the epoch before the first retained change.
+	 */
+	private long firstChangeEpoch;
+
+	/**
+	 * The maximum number of retained changes.
+	 */
+	private static final int maxNbChanges = 1024;
+
+	/**
+	 * Check whether this board is frozen.
+	 * 
+	 * <p>Pieces cannot be added to or removed from a frozen board,
+	 * so its pieces can safely be inspected by multiple threads.</p>
+	 */
+	public boolean isFrozen() {
+		return freezeCount.get() > 0;
+	}
+
+	/**
+	 * Freeze this board.
+	 * 
+	 * <p>A board can be frozen multiple times, and remains
+	 * frozen until it is unfrozen as many times.</p>
+	 * 
+	 * @post	| new.isFrozen()
+	 */
+	public void freeze() {
+		freezeCount.incrementAndGet();
+	}
+
+	/**
+	 * Undo one freeze of this board.
+	 * 
+	 * @throws	IllegalStateException
+	 * 			If this board is not frozen.
+	 * 			| !isFrozen()
+	 */
+	public void unfreeze() throws IllegalStateException {
+		while (true) {
+			int count = freezeCount.get();
+			if (count == 0)
+				throw new IllegalStateException("Board is not frozen.");
+			if (freezeCount.compareAndSet(count, count - 1))
+				return;
 		}
 	}
 
+	/**
+	 * Variable registering the number of times this board is frozen.
+	 */
+	private final AtomicInteger freezeCount = new AtomicInteger();
+
 	/**
 	 * Check whether the given piece can be removed from this board.
 	 * 
@@ -480,6 +763,9 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	 * 			or still placed on a board.
 	 *			| if (piece == null || piece.isPlaced())
 	 *			|   result == false
+	 * @return	False if this board is frozen.
+	 *			| if (isFrozen())
+	 *			|   result == false
 	 * @return	False if the given piece doesn't have
 	 * 			a valid position.
 	 *			| if (!isValidPosition(piece.getPosition()))
@@ -496,6 +782,9 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 		if (piece == null || piece.isPlaced())
 			return false;
 
+		if (isFrozen())
+			return false;
+
 		if (!isValidPosition(piece.getPosition()))
 			return false;
 
@@ -504,7 +793,7 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 
 	@Override
 	public Iterator<Piece> iterator() {
-		return new Itr();
+		return pieces.iterator();
 	}
 
 	@Override
@@ -548,7 +837,7 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 			throw new IllegalArgumentException("Board must be effective and not terminated.");
 
 		// Collect all pieces on other board
-		Set<Piece> boardPieces = board.getPieces();
+		Set<Piece> boardPieces = new HashSet<Piece>(board.getPieces());
 		for (Piece piece : boardPieces) {
 			// Position of this piece on the other board
 			Vector position = piece.getPosition();
@@ -622,6 +911,109 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 		return isValidPosition(nextPosition) ? nextPosition : null;
 	}
 
+	/**
+	 * Get the first occupied position from a given position
+	 * in a given direction. If there is no such position,
+	 * null is returned.
+	 * 
+	 * @param position
+	 * 			The position from where to start.
+	 * @param orientation
+	 * 			The direction in which to search.
+	 * 
+	 * @return	If there are occupied positions in the given direction,
+	 * 			the result is the closest of these positions
+	 * 			to the given position.
+	 * 			| let
+	 * 			|   candidates = {target:Vector | hasPiecesAt(target)
+	 * 			|      && orientation == Orientation.fromVector(target.subtract(position))
+	 * 			|      && !target.equals(position)}
+	 * 			|
+	 * 			| if (!candidates.isEmpty())
+	 * 			|   result in candidates
+	 * 			|    && for each target in candidates :
+	 * 			|         result.manhattanDistance(position) <= target.manhattanDistance(position)
+	 * @return	Otherwise, null is returned.
+	 * 			| else
+	 * 			|   result == null
+	 * 
+	 * @note	The occupied positions are looked up in sorted
+	 * 			indexes per row and per column, so this takes
+	 * 			logarithmic time regardless of the distance
+	 * 			to the occupied position.
+	 */
+	public Vector getNextOccupiedPosition(Vector position, Orientation orientation) {
+		long x = position.getX(), y = position.getY();
+		TreeSet<Long> line;
+		Long found;
+		switch (orientation) {
+		case LEFT:
+			line = occupiedRows.get(y);
+			found = (line == null) ? null : line.lower(x);
+			return (found == null) ? null : new Vector(found, y);
+		case RIGHT:
+			line = occupiedRows.get(y);
+			found = (line == null) ? null : line.higher(x);
+			return (found == null) ? null : new Vector(found, y);
+		case UP:
+			line = occupiedColumns.get(x);
+			found = (line == null) ? null : line.lower(y);
+			return (found == null) ? null : new Vector(x, found);
+		case DOWN:
+			line = occupiedColumns.get(x);
+			found = (line == null) ? null : line.higher(y);
+			return (found == null) ? null : new Vector(x, found);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Map mapping Y-coordinates to the sorted set of X-coordinates
+	 * of the occupied positions on that row.
+	 * 
+	 * @invar	An X-coordinate is registered on a row if and only if
+	 * 			there are pieces on this board at that position.
+	 * 			| for each position:Vector :
+	 * 			|   hasPiecesAt(position) == (occupiedRows.get(position.getY()) != null
+	 * 			|      && occupiedRows.get(position.getY()).contains(position.getX()))
+	 */
+	private final LongHashMap<TreeSet<Long>> occupiedRows = new LongHashMap<TreeSet<Long>>();
+
+	/**
+	 * Map mapping X-coordinates to the sorted set of Y-coordinates
+	 * of the occupied positions on that column.
+	 * 
+	 * @invar	A Y-coordinate is registered on a column if and only if
+	 * 			there are pieces on this board at that position.
+	 * 			| for each position:Vector :
+	 * 			|   hasPiecesAt(position) == (occupiedColumns.get(position.getX()) != null
+	 * 			|      && occupiedColumns.get(position.getX()).contains(position.getY()))
+	 */
+	private final LongHashMap<TreeSet<Long>> occupiedColumns = new LongHashMap<TreeSet<Long>>();
+
+	/**
+	 * Register an occupied offset on a line of an occupancy index.
+	 */
+	private static void addToLine(LongHashMap<TreeSet<Long>> lines, long line, long offset) {
+		TreeSet<Long> offsets = lines.get(line);
+		if (offsets == null) {
+			offsets = new TreeSet<Long>();
+			lines.put(line, offsets);
+		}
+		offsets.add(offset);
+	}
+
+	/**
+	 * Unregister an occupied offset from a line of an occupancy index.
+	 */
+	private static void removeFromLine(LongHashMap<TreeSet<Long>> lines, long line, long offset) {
+		TreeSet<Long> offsets = lines.get(line);
+		offsets.remove(offset);
+		if (offsets.isEmpty())
+			lines.remove(line);
+	}
+
 	/**
 	 * @effect	All the pieces placed on this board are terminated.
 	 * 			| for each piece in getPieces() :
@@ -630,7 +1022,7 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 	@Override
 	public void terminate() {
 		// Terminate all pieces
-		for (Piece piece : getPieces()) {
+		for (Piece piece : new HashSet<Piece>(getPieces())) {
 			piece.terminate();
 		}
 
@@ -690,38 +1082,82 @@ public class Board extends Terminatable implements FilteredIterable<Piece> {
 		return pos;
 	}
 
-	private class Itr extends AbstractIterator<Piece> {
+	/**
+	 * A read-only view on the pieces of this board
+	 * which are instances of a given type.
+	 * 
+	 * <p>The view looks up the concrete classes matching its type
+	 * in the type index each time it is queried, so it also reflects
+	 * pieces of classes which were not yet on the board
+	 * when the view was created.</p>
+	 */
+	private class TypedPieceSet<T extends Piece> extends AbstractSet<T> {
 
-		private Itr() {
-			setItr = pieces.values().iterator();
+		private TypedPieceSet(Class<T> pieceType) {
+			this.pieceType = pieceType;
 		}
 
 		/**
-		 * Variable representing the piece sets iterator.
+		 * Variable registering the type of pieces in this view.
 		 */
-		private final Iterator<Set<Piece>> setItr;
+		private final Class<T> pieceType;
 
 		/**
-		 * Variable representing the current piece iterator.
+		 * Get the sets of pieces from the type index
+		 * with a class matching the type of this view.
 		 */
-		private Iterator<Piece> pieceItr;
+		private List<Set<Piece>> getMatchingSets() {
+			List<Set<Piece>> matching = new ArrayList<Set<Piece>>(piecesByType.size());
+			for (Map.Entry<Class<?>, Set<Piece>> entry : piecesByType.entrySet()) {
+				if (pieceType.isAssignableFrom(entry.getKey()))
+					matching.add(entry.getValue());
+			}
+			return matching;
+		}
 
 		@Override
-		protected Piece computeNext() {
-			// If there is no piece iterator yet
-			// or the piece iterator is at its end
-			if (pieceItr == null || !pieceItr.hasNext()) {
-				// If the set iterator is not at its end
-				if (setItr.hasNext()) {
-					// Get the next piece iterator
-					pieceItr = setItr.next().iterator();
-				} else {
-					// No more pieces to return
-					return endOfData();
+		public Iterator<T> iterator() {
+			final Iterator<Set<Piece>> setItr = getMatchingSets().iterator();
+			return new AbstractIterator<T>() {
+				private Iterator<Piece> pieceItr;
+
+				@Override
+				protected T computeNext() {
+					// Advance to the next non-exhausted piece iterator
+					while (pieceItr == null || !pieceItr.hasNext()) {
+						if (!setItr.hasNext())
+							return endOfData();
+						pieceItr = setItr.next().iterator();
+					}
+					return pieceType.cast(pieceItr.next());
 				}
+			};
+		}
+
+		@Override
+		public int size() {
+			int size = 0;
+			for (Set<Piece> piecesOfType : getMatchingSets()) {
+				size += piecesOfType.size();
 			}
-			// Get the next piece to return
-			return pieceItr.next();
+			return size;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			for (Map.Entry<Class<?>, Set<Piece>> entry : piecesByType.entrySet()) {
+				if (pieceType.isAssignableFrom(entry.getKey()))
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!pieceType.isInstance(o))
+				return false;
+			Set<Piece> piecesOfType = piecesByType.get(o.getClass());
+			return piecesOfType != null && piecesOfType.contains(o);
 		}
 
 	}
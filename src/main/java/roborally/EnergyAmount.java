@@ -7,6 +7,21 @@ import be.kuleuven.cs.som.annotate.Value;
 /**
  * A value class of energy amounts.
  * 
+ * <p>Energy amounts are stored as a whole number of micro-watt-seconds,
+ * so adding and subtracting amounts is exact and repeated transfers
+ * of energy do not accumulate rounding errors. The unit of an energy
+ * amount is only used to express its amount.</p>
+ * 
+ * <p>The largest amount, {@link #MAXIMUM}, stands for an unbounded
+ * amount of energy, such as the maximum energy of a battery. Adding
+ * or subtracting finite amounts leaves it unchanged, and its amount
+ * is <code>Double.MAX_VALUE</code> watt-seconds.</p>
+ * 
+ * <p>Finite amounts are clamped between {@link #LARGEST} and its
+ * opposite, which is about 9.2 million megawatt-seconds either way.
+ * A finite amount which is too large thus remains finite, and never
+ * turns into the unbounded amount.</p>
+ * 
  * @invar	This energy amount has a valid unit.
  * 			| canHaveAsUnit(getUnit())
  * 
@@ -22,7 +37,21 @@ import be.kuleuven.cs.som.annotate.Value;
 @Value
 public class EnergyAmount implements Comparable<EnergyAmount> {
 
-	public static final EnergyAmount ZERO = new EnergyAmount(0.0d, Unit.WATTSECOND);
+	public static final EnergyAmount ZERO = new EnergyAmount(Unit.WATTSECOND, 0L);
+
+	/**
+	 * The largest energy amount, standing for an unbounded amount.
+	 * 
+	 * @return	| MAXIMUM.getAmount(Unit.WATTSECOND) == Double.MAX_VALUE
+	 */
+	public static final EnergyAmount MAXIMUM = new EnergyAmount(Unit.WATTSECOND, Long.MAX_VALUE);
+
+	/**
+	 * The largest finite energy amount.
+	 * 
+	 * @return	| LARGEST.getMicroWattSeconds() == Long.MAX_VALUE - 1
+	 */
+	public static final EnergyAmount LARGEST = new EnergyAmount(Unit.WATTSECOND, Long.MAX_VALUE - 1);
 
 	/**
 	 * Create a new energy amount with the given amount and unit.
@@ -31,32 +60,203 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	 * 			| canHaveAsUnit(unit)
 	 * 
 	 * @post	The amount of the new energy amount expressed
-	 * 			in the given unit is equal to the given amount.
-	 * 			| new.getAmount(unit) == amount
+	 * 			in the given unit is equal to the given amount,
+	 * 			rounded to a whole number of micro-watt-seconds.
+	 * 			| new.getMicroWattSeconds()
+	 * 			|   == toMicroWattSeconds(amount, unit)
 	 * @post	This energy amount's unit is set to the given unit.
 	 * 			| new.getUnit() == unit
 	 */
 	public EnergyAmount(double amount, Unit unit) {
+		this(unit, toMicroWattSeconds(amount, unit));
+	}
+
+	/**
+	 * Create a new energy amount with the given unit and
+	 * amount in micro-watt-seconds.
+	 * 
+	 * @param unit
+	 * 			The unit for this new energy amount.
+	 * @param microWattSeconds
+	 * 			The amount in micro-watt-seconds.
+	 * 
+	 * @pre		The given unit must be valid.
+	 * 			| canHaveAsUnit(unit)
+	 * 
+	 * @post	| new.getMicroWattSeconds() == microWattSeconds
+	 * @post	| new.getUnit() == unit
+	 */
+	private EnergyAmount(Unit unit, long microWattSeconds) {
 		assert canHaveAsUnit(unit);
 
-		this.amount = amount;
+		this.microWattSeconds = microWattSeconds;
 		this.unit = unit;
 	}
 
 	/**
-	 * Get the amount of this energy amount
-	 * expressed in the unit of this energy amount.
+	 * Get an energy amount with the given amount and unit.
+	 * 
+	 * <p>Amounts of a whole number of watt-seconds up to the maximum
+	 * energy of a robot are cached, so these are not allocated again.</p>
+	 * 
+	 * @param amount
+	 * 			The amount of the energy amount.
+	 * @param unit
+	 * 			The unit of the energy amount.
+	 * 
+	 * @pre		The given unit must be valid.
+	 * 			| canHaveAsUnit(unit)
+	 * 
+	 * @return	| result.equals(new EnergyAmount(amount, unit))
+	 * 			|  && result.getUnit() == unit
+	 */
+	public static EnergyAmount valueOf(double amount, Unit unit) {
+		return valueOf(unit, toMicroWattSeconds(amount, unit));
+	}
+
+	/**
+	 * Get an energy amount in watt-seconds with the given
+	 * amount in micro-watt-seconds.
+	 * 
+	 * @param microWattSeconds
+	 * 			The amount in micro-watt-seconds.
+	 * 
+	 * @return	| result.getMicroWattSeconds() == microWattSeconds
+	 * 			|  && result.getUnit() == Unit.WATTSECOND
+	 */
+	public static EnergyAmount fromMicroWattSeconds(long microWattSeconds) {
+		return valueOf(Unit.WATTSECOND, microWattSeconds);
+	}
+
+	/**
+	 * Get an energy amount with the given unit and
+	 * amount in micro-watt-seconds.
+	 * 
+	 * @return	| result.getMicroWattSeconds() == microWattSeconds
+	 * 			|  && result.getUnit() == unit
+	 */
+	private static EnergyAmount valueOf(Unit unit, long microWattSeconds) {
+		if (unit != Unit.WATTSECOND || microWattSeconds < 0 || microWattSeconds % MICRO_PER_UNIT != 0
+				|| microWattSeconds / MICRO_PER_UNIT >= cache.length)
+			return new EnergyAmount(unit, microWattSeconds);
+
+		int index = (int) (microWattSeconds / MICRO_PER_UNIT);
+		EnergyAmount result = cache[index];
+		if (result == null) {
+			// Racing threads may both create an amount,
+			// which is harmless for immutable values
+			result = (index == 0) ? ZERO : new EnergyAmount(unit, microWattSeconds);
+			cache[index] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Cached amounts of whole numbers of watt-seconds.
+	 */
+	private static final EnergyAmount[] cache = new EnergyAmount[20001];
+
+	/**
+	 * Convert the given amount in the given unit
+	 * to a whole number of micro-watt-seconds.
+	 * 
+	 * @param amount
+	 * 			The amount to convert.
+	 * @param unit
+	 * 			The unit of the amount.
+	 * 
+	 * @return	If the given amount is the amount of the maximum energy
+	 * 			amount in the given unit or positive infinity, the amount
+	 * 			of the maximum energy amount.
+	 * 			| if (amount == MAXIMUM.getAmount(unit)
+	 * 			|     || amount == Double.POSITIVE_INFINITY)
+	 * 			|   result == MAXIMUM.getMicroWattSeconds()
+	 * @return	Otherwise, the amount expressed in watt-seconds times
+	 * 			one million, rounded to the nearest long integer and
+	 * 			clamped to the range of finite amounts.
+	 * 			| else
+	 * 			|   result == clamp(Math.round(unit.convertTo(amount, Unit.WATTSECOND) * 1000000))
+	 */
+	public static long toMicroWattSeconds(double amount, Unit unit) {
+		if (amount == Double.POSITIVE_INFINITY || amount == Unit.WATTSECOND.convertTo(Double.MAX_VALUE, unit))
+			return Long.MAX_VALUE;
+		return clamp(Math.round(unit.convertTo(amount, Unit.WATTSECOND) * MICRO_PER_UNIT));
+	}
+
+	/**
+	 * Clamp the given amount in micro-watt-seconds
+	 * to the range of finite amounts.
+	 * 
+	 * @return	| result == Math.max(-LARGEST.getMicroWattSeconds(),
+	 * 			|   Math.min(microWattSeconds, LARGEST.getMicroWattSeconds()))
+	 */
+	private static long clamp(long microWattSeconds) {
+		if (microWattSeconds == Long.MAX_VALUE)
+			return Long.MAX_VALUE - 1;
+		if (microWattSeconds == Long.MIN_VALUE)
+			return Long.MIN_VALUE + 1;
+		return microWattSeconds;
+	}
+
+	/**
+	 * Convert the given amount in micro-watt-seconds to watt-seconds.
+	 * 
+	 * @param microWattSeconds
+	 * 			The amount to convert.
+	 * 
+	 * @return	If the given amount is the amount of the maximum
+	 * 			energy amount, <code>Double.MAX_VALUE</code>.
+	 * 			| if (microWattSeconds == MAXIMUM.getMicroWattSeconds())
+	 * 			|   result == Double.MAX_VALUE
+	 * @return	Otherwise, the given amount divided by one million.
+	 * 			| else
+	 * 			|   result == microWattSeconds / 1000000.0
+	 */
+	public static double toWattSeconds(long microWattSeconds) {
+		if (microWattSeconds == Long.MAX_VALUE)
+			return Double.MAX_VALUE;
+		return (double) microWattSeconds / MICRO_PER_UNIT;
+	}
+
+	/**
+	 * The number of micro-watt-seconds in one watt-second.
+	 */
+	private static final long MICRO_PER_UNIT = 1000000L;
+
+	/**
+	 * Get the amount of this energy amount in micro-watt-seconds.
 	 */
 	@Basic
 	@Immutable
-	public double getAmount() {
-		return this.amount;
+	public long getMicroWattSeconds() {
+		return microWattSeconds;
 	}
 
 	/**
-	 * Variable representing the amount of this energy amount.
+	 * Variable registering the amount of this energy amount
+	 * in micro-watt-seconds.
+	 */
+	private final long microWattSeconds;
+
+	/**
+	 * Check whether this energy amount is the unbounded maximum amount.
+	 * 
+	 * @return	| result == equals(MAXIMUM)
 	 */
-	private double amount;
+	public boolean isUnbounded() {
+		return microWattSeconds == Long.MAX_VALUE;
+	}
+
+	/**
+	 * Get the amount of this energy amount
+	 * expressed in the unit of this energy amount.
+	 * 
+	 * @return	| result == getAmount(getUnit())
+	 */
+	@Immutable
+	public double getAmount() {
+		return getAmount(getUnit());
+	}
 
 	/**
 	 * Get the amount of this energy amount
@@ -65,13 +265,20 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	 * @param unit
 	 * 			The unit to express the amount in.
 	 * 
-	 * @return	The result is the amount of this energy amount
-	 * 			converted from this energy amount's unit
-	 * 			to the given unit.
-	 * 			| result == getUnit().convertTo(getAmount(), unit)
+	 * @return	If this is the maximum amount, the result is
+	 * 			<code>Double.MAX_VALUE</code> watt-seconds
+	 * 			converted to the given unit.
+	 * 			| if (equals(MAXIMUM))
+	 * 			|   result == Unit.WATTSECOND.convertTo(Double.MAX_VALUE, unit)
+	 * @return	Otherwise, the result is the amount of this energy
+	 * 			amount converted from watt-seconds to the given unit.
+	 * 			| else
+	 * 			|   result == Unit.WATTSECOND.convertTo(
+	 * 			|      getMicroWattSeconds() / 1000000.0, unit)
 	 */
 	public double getAmount(Unit unit) {
-		return getUnit().convertTo(getAmount(), unit);
+		double wattSeconds = toWattSeconds(microWattSeconds);
+		return (unit == Unit.WATTSECOND) ? wattSeconds : Unit.WATTSECOND.convertTo(wattSeconds, unit);
 	}
 
 	/**
@@ -89,7 +296,7 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	 * @invar	The unit is effective.
 	 * 			| unit != null
 	 */
-	private Unit unit;
+	private final Unit unit;
 
 	/**
 	 * Check whether the given unit is valid for this energy amount.
@@ -120,7 +327,7 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	 * 			| result.getAmount() == this.getAmount(unit)
 	 */
 	public EnergyAmount convertTo(Unit unit) {
-		return new EnergyAmount(getAmount(unit), unit);
+		return valueOf(unit, microWattSeconds);
 	}
 
 	@Override
@@ -141,7 +348,7 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	 * 			| result.getUnit() == this.getUnit()
 	 */
 	public EnergyAmount add(double term) {
-		return new EnergyAmount(getAmount() + term, getUnit());
+		return valueOf(getUnit(), add(microWattSeconds, toMicroWattSeconds(term, getUnit())));
 	}
 
 	/**
@@ -162,7 +369,22 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	public EnergyAmount add(EnergyAmount amount) {
 		if (amount == null)
 			return this;
-		return add(amount.getAmount(getUnit()));
+		return valueOf(getUnit(), add(microWattSeconds, amount.microWattSeconds));
+	}
+
+	/**
+	 * Add two amounts in micro-watt-seconds, clamping
+	 * the sum of finite amounts to the range of finite amounts.
+	 * The maximum amount is never changed by the other term.
+	 */
+	private static long add(long first, long second) {
+		if (first == Long.MAX_VALUE || second == Long.MAX_VALUE)
+			return Long.MAX_VALUE;
+		long sum = first + second;
+		// Overflow if both have the same sign and the sum has another sign
+		if (((first ^ sum) & (second ^ sum)) < 0)
+			return (first < 0) ? Long.MIN_VALUE + 1 : Long.MAX_VALUE - 1;
+		return clamp(sum);
 	}
 
 	/**
@@ -197,7 +419,7 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	public EnergyAmount subtract(EnergyAmount amount) {
 		if (amount == null)
 			return this;
-		return add(-amount.getAmount(getUnit()));
+		return valueOf(getUnit(), add(microWattSeconds, -amount.microWattSeconds));
 	}
 
 	/**
@@ -207,13 +429,22 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	 * 			The factor to multiply with.
 	 * 
 	 * @return	The resulting amount has the product of this amount
-	 * 			and the given factor as its amount.
-	 * 			| result.getAmount() == this.getAmount() * term
+	 * 			and the given factor as its amount, rounded to
+	 * 			a whole number of micro-watt-seconds and clamped
+	 * 			to the range of finite amounts.
+	 * 			| result.getMicroWattSeconds()
+	 * 			|   == clamp(Math.round(this.getMicroWattSeconds() * factor))
+	 * @return	The maximum amount multiplied with a positive factor
+	 * 			remains the maximum amount.
+	 * 			| if (equals(MAXIMUM) && factor > 0)
+	 * 			|   result.equals(MAXIMUM)
 	 * @return	The resulting amount has the same unit as this amount.
 	 * 			| result.getUnit() == this.getUnit()
 	 */
 	public EnergyAmount multiply(double factor) {
-		return new EnergyAmount(getAmount() * factor, getUnit());
+		if (microWattSeconds == Long.MAX_VALUE && factor > 0)
+			return valueOf(getUnit(), Long.MAX_VALUE);
+		return valueOf(getUnit(), clamp(Math.round(microWattSeconds * factor)));
 	}
 
 	/**
@@ -234,7 +465,7 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	public double asFractionOf(EnergyAmount amount) {
 		if (amount == null || amount.equals(EnergyAmount.ZERO))	
 			throw new IllegalArgumentException("Amount must be effective and non-zero.");
-		return getAmount() / amount.getAmount(getUnit());
+		return (double) microWattSeconds / amount.microWattSeconds;
 	}
 
 	/**
@@ -247,23 +478,22 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	 * 			this amount is compared to the zero amount.
 	 * 			| if (other == null)
 	 * 			|   result == compareTo(EnergyAmount.ZERO)
-	 * @return	Otherwise, the amount of this energy amount
-	 * 			is compared to the amount of the other energy amount
-	 * 			expressed in this amount's unit.
+	 * @return	Otherwise, the amounts in micro-watt-seconds
+	 * 			of both energy amounts are compared.
 	 * 			| else
-	 * 			|   result == Double.compare(
-	 * 			|      this.getAmount(),
-	 * 			|      other.getAmount(this.getUnit())
+	 * 			|   result == Long.compare(
+	 * 			|      this.getMicroWattSeconds(),
+	 * 			|      other.getMicroWattSeconds()
 	 * 			|   )
 	 * 
-	 * @see Double#compare(double, double)
+	 * @see Long#compare(long, long)
 	 */
 	@Override
 	public int compareTo(EnergyAmount other) {
 		if (other == null)
 			return compareTo(EnergyAmount.ZERO);
 
-		return Double.compare(getAmount(), other.getAmount(getUnit()));
+		return Long.compare(microWattSeconds, other.microWattSeconds);
 	}
 
 	/**
@@ -408,8 +638,7 @@ public class EnergyAmount implements Comparable<EnergyAmount> {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		long temp = Double.doubleToLongBits(getAmount());
-		result = prime * result + (int) (temp ^ (temp >>> 32));
+		result = prime * result + (int) (microWattSeconds ^ (microWattSeconds >>> 32));
 		return result;
 	}
 
@@ -201,12 +201,23 @@ public abstract class EnergyProperty {
 	 * Get the maximum amount of energy that
 	 * can be recharged by this robot.
 	 * 
-	 * @return	The maximum recharge amount is the maximum amount
-	 * 			of energy minus the current amount of energy.
-	 * 			| result.equals(getMaximumAmount().subtract(getAmount()))
+	 * @return	If the maximum amount of energy is unbounded and the
+	 * 			current amount of energy is finite, the maximum recharge
+	 * 			amount is the largest finite amount minus the current
+	 * 			amount of energy.
+	 * 			| if (getMaximumAmount().isUnbounded() && !getAmount().isUnbounded())
+	 * 			|   result.equals(EnergyAmount.LARGEST.subtract(getAmount()))
+	 * @return	Otherwise, the maximum recharge amount is the maximum
+	 * 			amount of energy minus the current amount of energy.
+	 * 			| else
+	 * 			|   result.equals(getMaximumAmount().subtract(getAmount()))
 	 */
 	public EnergyAmount getFreeAmount() {
-		return getMaximumAmount().subtract(getAmount());
+		EnergyAmount maximumAmount = getMaximumAmount();
+		// Finite amounts cannot grow beyond the largest finite amount
+		if (maximumAmount.isUnbounded() && !getAmount().isUnbounded())
+			maximumAmount = EnergyAmount.LARGEST;
+		return maximumAmount.subtract(getAmount());
 	}
 
 	/**
@@ -240,6 +251,9 @@ public abstract class EnergyProperty {
 	 * @return	False if the given extra amount is negative.
 	 * 			| else if (amount.isLessThan(EnergyAmount.ZERO))
 	 * 			|   result == false
+	 * @return	False if the given extra amount exceeds the free amount.
+	 * 			| else if (amount.isGreaterThan(getFreeAmount()))
+	 * 			|   result == false
 	 * @return	False if the new amount of energy would be invalid.
 	 * 			| else if (!isValidEnergy(getAmount().add(amount)))
 	 * 			|   result == false
@@ -249,6 +263,8 @@ public abstract class EnergyProperty {
 			return false;
 		if (amount.isLessThan(EnergyAmount.ZERO))
 			return false;
+		if (amount.isGreaterThan(getFreeAmount()))
+			return false;
 		if (!isValidAmount(getAmount().add(amount)))
 			return false;
 		return true;
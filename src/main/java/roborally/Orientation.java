@@ -260,4 +260,60 @@ public enum Orientation {
 		return difference;
 	}
 
+	/**
+	 * Get the minimum amount of turns needed to travel
+	 * over the given offset when starting in this orientation.
+	 * 
+	 * <p>Travelling along an axis requires facing in the direction
+	 * of the offset along that axis. Every path covering the offset
+	 * requires at least this amount of turns, regardless of
+	 * the orientation at the end of the path.</p>
+	 * 
+	 * @param dx
+	 * 			The horizontal offset.
+	 * @param dy
+	 * 			The vertical offset.
+	 * 
+	 * @return	Zero if the offset is zero or lies straight
+	 * 			ahead of this orientation.
+	 * 			| let
+	 * 			|   ahead = getVector().getX() * signum(dx) + getVector().getY() * signum(dy)
+	 * 			| if ((dx == 0 && dy == 0) || (ahead > 0 && (dx == 0 || dy == 0)))
+	 * 			|   result == 0
+	 * @return	Otherwise, one if the offset lies on a line perpendicular
+	 * 			to this orientation, or if it has a component in this
+	 * 			orientation and a perpendicular component.
+	 * 			| else if (ahead == 0 || (ahead > 0 && dx != 0 && dy != 0))
+	 * 			|   result == 1
+	 * @return	Otherwise, two. The offset has a component opposite
+	 * 			to this orientation, which requires turning around.
+	 * 			| else
+	 * 			|   result == 2
+	 */
+	public int getMinimalTurns(long dx, long dy) {
+		if (dx == 0 && dy == 0)
+			return 0;
+		// Component of the offset direction along this orientation
+		long ahead = getVector().getX() * Long.signum(dx) + getVector().getY() * Long.signum(dy);
+		if (ahead < 0)
+			return 2;
+		if (ahead == 0)
+			return 1;
+		// Turn once more if the offset is not straight ahead
+		return (dx == 0 || dy == 0) ? 0 : 1;
+	}
+
+	/**
+	 * Get the minimum amount of turns needed to travel
+	 * over the given offset when starting in this orientation.
+	 * 
+	 * @param offset
+	 * 			The offset to travel.
+	 * 
+	 * @return	| result == getMinimalTurns(offset.getX(), offset.getY())
+	 */
+	public int getMinimalTurns(Vector offset) {
+		return getMinimalTurns(offset.getX(), offset.getY());
+	}
+
 }
@@ -1,6 +1,7 @@
 package roborally;
 
 import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
 
@@ -177,6 +178,9 @@ public abstract class Piece extends Terminatable {
 	 * @throws	IllegalStateException
 	 * 			If this piece is already placed on a board.
 	 * 			| isPlaced()
+	 * @throws	IllegalStateException
+	 * 			If the given board is frozen.
+	 * 			| board.isFrozen()
 	 * @throws	InvalidPositionException
 	 * 			If the given position is not a valid position on the given board.
 	 * 			| !board.isValidPosition(position)
@@ -192,6 +196,8 @@ public abstract class Piece extends Terminatable {
 			throw new IllegalArgumentException("Invalid board for this piece.");
 		if (isPlaced())
 			throw new IllegalStateException("Piece cannot be placed on two boards at the same time.");
+		if (board.isFrozen())
+			throw new IllegalStateException("Piece cannot be placed on a frozen board.");
 
 		if (!board.isValidPosition(position))
 			throw new InvalidPositionException(board, position);
@@ -222,10 +228,15 @@ public abstract class Piece extends Terminatable {
 	 * @throws	IllegalStateException
 	 * 			If this piece is not placed on a board.
 	 * 			| !isPlaced()
+	 * @throws	IllegalStateException
+	 * 			If the board of this piece is frozen.
+	 * 			| getBoard().isFrozen()
 	 */
 	public void removeFromBoard() throws IllegalStateException {
 		if (!isPlaced())
 			throw new IllegalStateException("Piece cannot be removed when it is not placed.");
+		if (getBoard().isFrozen())
+			throw new IllegalStateException("Piece cannot be removed from a frozen board.");
 
 		Board formerBoard = getBoard();
 		// Destroy association on this piece
@@ -337,6 +348,27 @@ public abstract class Piece extends Terminatable {
 	 */
 	public abstract boolean canSharePositionWith(Piece piece);
 
+	/**
+	 * Check whether this piece is an obstacle.
+	 * 
+	 * <p>An obstacle never moves and cannot share its position
+	 * with any other piece. Boards keep track of the positions
+	 * of obstacles separately, so they can reject pieces at those
+	 * positions without inspecting the obstacles themselves.</p>
+	 * 
+	 * @return	False by default.
+	 * 			| result == false
+	 * @note	If this method returns true, then this piece
+	 * 			cannot share its position with any other piece.
+	 * 			| if (result)
+	 * 			|   for each piece:Piece :
+	 * 			|      piece == this || !canSharePositionWith(piece)
+	 */
+	@Immutable
+	public boolean isObstacle() {
+		return false;
+	}
+
 	/**
 	 * Check whether this piece can share its position
 	 * with all pieces in the given collection.
@@ -205,7 +205,7 @@ public class RepairKit extends Item implements CapacityCarrier {
 	 * Variable registering the maximum amount of capacity
 	 * that can be stored by a repair kit.
 	 */
-	private static final EnergyAmount maximumCapacity = new EnergyAmount(Double.MAX_VALUE, Unit.WATTSECOND);
+	private static final EnergyAmount maximumCapacity = EnergyAmount.MAXIMUM;
 
 	/**
 	 * @pre		The given amount can be transferred from this
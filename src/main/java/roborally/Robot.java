@@ -3,16 +3,31 @@ package roborally;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 import roborally.Piece;
 import roborally.EnergyAmount.Unit;
+import roborally.path.ClusterGraph;
+import roborally.path.DStarLite;
+import roborally.path.HierarchicalAStar;
+import roborally.path.MeetingPointSearch;
 import roborally.path.MinimalCostAStar;
+import roborally.path.PackedBidirectionalAStar;
+import roborally.path.PackedCostTree;
+import roborally.path.PackedReachAStar;
+import roborally.path.PackedRobotAStar;
 import roborally.path.ReachAStar;
 import roborally.path.ReachNode;
 import roborally.path.RobotNode;
+import roborally.program.CompiledProgram;
 import roborally.program.Program;
+import roborally.program.ProgramCounter;
 import roborally.program.command.Command;
 import roborally.util.Function;
+import roborally.util.LongHashMap;
+import roborally.util.Parallel;
 import roborally.util.SortedList;
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Immutable;
@@ -743,15 +758,42 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 	 * 			| isTerminated()
 	 */
 	public BigInteger getPossessionsWeight() throws IllegalStateException {
-		BigDecimal weight = getTotalFromPossessions(new Function<Item, BigDecimal>() {
-			@Override
-			public BigDecimal apply(Item item) {
-				return BigDecimal.valueOf(item.getWeight());
-			}
-		});
-		return weight.toBigInteger();
+		if (isTerminated())
+			throw new IllegalStateException("Robot must not be terminated.");
+		return BigInteger.valueOf(possessionsWeight);
+	}
+
+	/**
+	 * Add the given weight to the total weight of
+	 * the possessions of this robot.
+	 * 
+	 * @param weight
+	 * 			The weight to add, negative when
+	 * 			a possession is removed.
+	 * 
+	 * @post	The total weight of possessions
+	 * 			is incremented with the given weight.
+	 * 			| new.getPossessionsWeight().equals(
+	 * 			|   getPossessionsWeight().add(BigInteger.valueOf(weight)))
+	 * @effect	The step cost is updated to the new weight.
+	 * 			| updateStepCost()
+	 */
+	private void addPossessionsWeight(long weight) {
+		possessionsWeight += weight;
+		updateStepCost();
 	}
 
+	/**
+	 * Variable registering the total weight in grams
+	 * of all possessions of this robot.
+	 * 
+	 * @invar	The total weight is the sum of the weights
+	 * 			of all possessions.
+	 * 			| possessionsWeight ==
+	 * 			|   sum({ possession in possessions : possession.getWeight()})
+	 */
+	private long possessionsWeight = 0;
+
 	/**
 	 * Pick up a given item and add it as a possession.
 	 * 
@@ -912,6 +954,7 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 			throw new IllegalArgumentException("Cannot add placed items as possessions.");
 
 		possessions.add(item);
+		addPossessionsWeight(item.getWeight());
 	}
 
 	/**
@@ -943,6 +986,7 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 			throw new IllegalArgumentException("Robot does not possess this item.");
 
 		possessions.remove(item);
+		addPossessionsWeight(-item.getWeight());
 	}
 
 	/**
@@ -1017,6 +1061,7 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 			}
 			// Remove item from this robot
 			it.remove();
+			addPossessionsWeight(-item.getWeight());
 		}
 	}
 
@@ -1097,17 +1142,56 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 	public EnergyAmount getStepCost() throws IllegalStateException {
 		if (isTerminated())
 			throw new IllegalStateException("Robot must not be terminated.");
+		return currentStepCost;
+	}
 
-		// Base step cost of a robot
-		EnergyAmount cost = getBaseStepCost();
+	/**
+	 * Get the energy cost for one step forward
+	 * expressed in the given unit.
+	 * 
+	 * @param unit
+	 * 			The unit in which to express the step cost.
+	 * 
+	 * @return	The step cost expressed in the given unit.
+	 * 			| result == getStepCost().getAmount(unit)
+	 * 
+	 * @throws 	IllegalStateException
+	 * 			If this robot is already terminated.
+	 * 			| isTerminated()
+	 */
+	public double getStepCost(Unit unit) throws IllegalStateException {
+		if (isTerminated())
+			throw new IllegalStateException("Robot must not be terminated.");
+		if (unit == Unit.WATTSECOND)
+			return currentStepCostInWattSeconds;
+		return currentStepCost.getAmount(unit);
+	}
+
+	/**
+	 * Update the step cost of this robot to
+	 * the current weight of its possessions.
+	 * 
+	 * @post	The step cost is the sum of the base step cost
+	 * 			and the total weight of possessions in kilogram,
+	 * 			rounded down, times the extra step cost per kilogram.
+	 * 			| new.getStepCost().equals(getBaseStepCost().add(
+	 * 			|   getStepCostPerKilogram().multiply(possessionsWeight / 1000)))
+	 */
+	private void updateStepCost() {
 		// Weight of possessions in kilogram, rounded down
-		BigInteger weight = getPossessionsWeight();
-		long weightInKilogram = weight.divide(BigInteger.valueOf(1000)).longValue();
+		long weightInKilogram = possessionsWeight / 1000;
 		// Add an extra cost for every kilogram of possessions
-		cost = cost.add(getStepCostPerKilogram().multiply(weightInKilogram));
-		return cost;
+		currentStepCost = getBaseStepCost().add(getStepCostPerKilogram().multiply(weightInKilogram));
+		currentStepCostInWattSeconds = currentStepCost.getAmount(Unit.WATTSECOND);
 	}
 
+	/**
+	 * Variables registering the current step cost of this robot,
+	 * as an energy amount and in watt-seconds.
+	 */
+	private EnergyAmount currentStepCost = stepCost;
+	private double currentStepCostInWattSeconds = stepCost.getAmount(Unit.WATTSECOND);
+
 	/**
 	 * Get the base step cost of this robot,
 	 * i.e. the step cost if this robot had no possessions.
@@ -1235,6 +1319,21 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 	 * 			as found by running the A* path finding algorithm
 	 * 			for minimal robot energy costs.
 	 * 			| result == new MinimalCostAStar(this, position).getCost()
+	 * @note	On boards whose positions can be packed, the cost is looked
+	 * 			up in a cached {@link PackedCostTree} of this robot instead.
+	 * 			This tree is reused until this robot or its board changes,
+	 * 			so repeated queries for the same robot are answered
+	 * 			without searching again. Positions further away than
+	 * 			{@link #BIDIRECTIONAL_THRESHOLD} which are not in the tree
+	 * 			yet are searched with a {@link PackedBidirectionalAStar}.
+	 * 			Its costs are cached for as long as the cost tree.
+	 * @note	To follow the minimal cost to the same position while this
+	 * 			robot moves or pieces are added to or removed from the board,
+	 * 			keep a {@link DStarLite} planner for that position instead.
+	 * 			Its runs only repair the results of its previous run.
+	 * @note	On larger boards, the cost is found by a
+	 * 			{@link HierarchicalAStar} on a cached {@link ClusterGraph}
+	 * 			of this robot, which finds the same minimal cost.
 	 * 
 	 * @throws	IllegalStateException
 	 * 			If this robot is not placed on any board.
@@ -1256,10 +1355,93 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 		if (!canMoveTo(position))
 			throw new UnreachablePositionException(this, position);
 
-		// Run A* for minimal cost finding
-		return new MinimalCostAStar(this, position).getCost();
+		if (PackedRobotAStar.canSearch(getBoard())) {
+			// Search distant positions from both ends, unless already known
+			PackedCostTree costTree = getCostTree();
+			if (!costTree.hasCost(position) && getPosition().manhattanDistance(position) > BIDIRECTIONAL_THRESHOLD) {
+				long key = position.pack();
+				EnergyAmount cost = distantCosts.get(key);
+				if (cost == null) {
+					cost = new PackedBidirectionalAStar(this, position).getCost();
+					distantCosts.put(key, cost);
+				}
+				return cost;
+			}
+
+			// Look up in cached cost tree
+			long cost = costTree.getMicroWattSeconds(position);
+			if (cost == Long.MAX_VALUE)
+				throw new UnreachablePositionException(this, position);
+			return EnergyAmount.fromMicroWattSeconds(cost);
+		}
+
+		// Search the cached cluster graph on larger boards
+		return new HierarchicalAStar(getClusterGraph(), position).getCost();
+	}
+
+	/**
+	 * The Manhattan distance above which the minimal cost to reach
+	 * a position is searched bidirectionally, rather than by growing
+	 * the cached cost tree up to that position.
+	 */
+	public static final long BIDIRECTIONAL_THRESHOLD = 32;
+
+	/**
+	 * Get the tree of minimal costs for this robot
+	 * to reach positions on its board.
+	 * 
+	 * <p>The cached tree is reused as long as it is valid for
+	 * this robot, and replaced by a new tree otherwise.</p>
+	 * 
+	 * <p>The cached costs of distant positions are only valid
+	 * as long as the tree, and are discarded with it.</p>
+	 * 
+	 * @pre		| isPlaced() && PackedRobotAStar.canSearch(getBoard())
+	 * @return	| result.isValidFor(this)
+	 */
+	@Model
+	private PackedCostTree getCostTree() {
+		if (costTree == null || !costTree.isValidFor(this)) {
+			costTree = new PackedCostTree(this);
+			distantCosts.clear();
+		}
+		return costTree;
+	}
+
+	/**
+	 * Variable registering the cached tree of minimal costs.
+	 */
+	private PackedCostTree costTree;
+
+	/**
+	 * Variable registering the cached minimal costs of distant
+	 * positions which are not in the cost tree, by packed position.
+	 */
+	private final LongHashMap<EnergyAmount> distantCosts = new LongHashMap<EnergyAmount>();
+
+	/**
+	 * Get the graph of clusters for this robot on its board.
+	 * 
+	 * <p>The cached graph is reused as long as it is valid for
+	 * this robot, and replaced by a new graph otherwise. Changes to
+	 * the board only discard the clusters in which they occurred.</p>
+	 * 
+	 * @pre		| isPlaced()
+	 * @return	| result.isValidFor(this)
+	 */
+	@Model
+	private ClusterGraph getClusterGraph() {
+		if (clusterGraph == null || !clusterGraph.isValidFor(this)) {
+			clusterGraph = new ClusterGraph(this);
+		}
+		return clusterGraph;
 	}
 
+	/**
+	 * Variable registering the cached graph of clusters.
+	 */
+	private ClusterGraph clusterGraph;
+
 	/**
 	 * Check whether this robot could reach the given position
 	 * if given enough energy.
@@ -1440,8 +1622,38 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 	 * @throws	IllegalArgumentException
 	 * 			If the other robot is placed on a different board.
 	 * 			| otherRobot.getBoard() != this.getBoard()
+	 * @throws	IllegalStateException
+	 * 			If the board is frozen.
+	 * 			| getBoard().isFrozen()
 	 */
-	public void moveNextTo(Robot otherRobot) throws IllegalArgumentException {
+	public void moveNextTo(Robot otherRobot) throws IllegalStateException, IllegalArgumentException {
+		moveNextTo(otherRobot, false);
+	}
+
+	/**
+	 * Move this robot and the given other robot as close as possible
+	 * to each other, taking into account energy restrictions
+	 * of both robots, optionally searching in parallel.
+	 * 
+	 * <p>In parallel mode, the reachable positions of both robots
+	 * and the closest pair of these positions are searched on the
+	 * shared fork/join pool. The board is frozen during the search,
+	 * so it cannot be modified until the robots are moved.</p>
+	 * 
+	 * @param otherRobot
+	 * 			The other robot.
+	 * @param parallel
+	 * 			Whether to search in parallel.
+	 * 
+	 * @effect	The robots move to the same positions in parallel
+	 * 			and sequential mode.
+	 * 			| moveNextTo(otherRobot)
+	 * @throws	IllegalStateException
+	 * 			If the board is frozen.
+	 * 			| getBoard().isFrozen()
+	 */
+	public void moveNextTo(Robot otherRobot, boolean parallel) throws IllegalStateException,
+			IllegalArgumentException {
 		if (isTerminated() || !isPlaced())
 			throw new IllegalStateException("Robot must be placed on a board.");
 		if (otherRobot == null || !otherRobot.isPlaced())
@@ -1450,49 +1662,139 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 			throw new IllegalArgumentException("Other robot cannot equal this robot.");
 		if (otherRobot.getBoard() != getBoard())
 			throw new IllegalArgumentException("Other robot must be on the same board as this robot.");
+		if (getBoard().isFrozen())
+			throw new IllegalStateException("Board must not be frozen.");
 
-		// Run A* for retrieving the reachable positions of both robots
-		ReachAStar thisAstar = new ReachAStar(this);
-		Map<Vector, ReachNode> thisReachable = thisAstar.getReachable();
+		// Freeze the board until the search is finished
+		RobotNode[] bestNodes;
+		getBoard().freeze();
+		try {
+			// Use packed positions if possible
+			if (PackedRobotAStar.canSearch(getBoard())) {
+				bestNodes = searchNextToPacked(otherRobot, parallel);
+			} else {
+				bestNodes = searchNextTo(otherRobot, parallel);
+			}
+		} finally {
+			getBoard().unfreeze();
+		}
 
-		ReachAStar otherAstar = new ReachAStar(otherRobot);
-		Map<Vector, ReachNode> otherReachable = otherAstar.getReachable();
+		// Move to positions
+		this.moveTo(bestNodes[0]);
+		otherRobot.moveTo(bestNodes[1]);
+	}
+
+	/**
+	 * Search the nodes to which this robot and the given other robot
+	 * move when moving next to each other.
+	 * 
+	 * @param otherRobot
+	 * 			The other robot.
+	 * @param parallel
+	 * 			Whether to search in parallel.
+	 * 
+	 * @return	The node for this robot and the node for the other robot.
+	 */
+	private RobotNode[] searchNextTo(Robot otherRobot, boolean parallel) {
+		// Run A* for retrieving the reachable positions of both robots
+		ForkJoinTask<Map<Vector, ReachNode>> thisTask = getReachableTask(new ReachAStar(this));
+		ForkJoinTask<Map<Vector, ReachNode>> otherTask = getReachableTask(new ReachAStar(otherRobot));
+		Parallel.invokeAll(parallel, thisTask, otherTask);
+		Map<Vector, ReachNode> thisReachable = thisTask.join();
+		Map<Vector, ReachNode> otherReachable = otherTask.join();
 
 		// Initialize on current positions
 		ReachNode bestThisNode = thisReachable.get(this.getPosition());
 		ReachNode bestOtherNode = otherReachable.get(otherRobot.getPosition());
 		long bestDistance = this.getPosition().manhattanDistance(otherRobot.getPosition());
-		EnergyAmount bestCost = bestThisNode.getG().add(bestOtherNode.getG());
 
-		// Check all reachable nodes for this robot
+		// Find the closest and cheapest pair of reachable positions
+		MeetingPointSearch search = new MeetingPointSearch();
 		for (ReachNode thisNode : thisReachable.values()) {
-			Vector thisPosition = thisNode.getPosition();
-			// Check all distances between one and the current best distance
-			for (long distance = 1; distance <= bestDistance; ++distance) {
-				// Check all neighbours at the current distance
-				for (Vector otherPosition : thisPosition.getNeighbours(distance)) {
-					// Get reachable node at this position from other robot
-					ReachNode otherNode = otherReachable.get(otherPosition);
-					// If not reachable by other robot, skip
-					if (otherNode == null)
-						continue;
-					// Get the total cost to reach these positions
-					EnergyAmount cost = thisNode.getG().add(otherNode.getG());
-					// If the distance is lower or the cost is lower
-					// for the same best distance, store as current best
-					if (distance < bestDistance || cost.isLessThan(bestCost)) {
-						bestThisNode = thisNode;
-						bestOtherNode = otherNode;
-						bestDistance = distance;
-						bestCost = cost;
-					}
-				}
-			}
+			search.addFirst(thisNode.getPosition(), thisNode.getGKey());
+		}
+		for (ReachNode otherNode : otherReachable.values()) {
+			search.addSecond(otherNode.getPosition(), otherNode.getGKey());
+		}
+		// Only move when the robots can get closer
+		if (search.run(parallel) && search.getDistance() < bestDistance) {
+			bestThisNode = thisReachable.get(search.getFirstPosition());
+			bestOtherNode = otherReachable.get(search.getSecondPosition());
 		}
 
-		// Move to positions
-		this.moveTo(bestThisNode);
-		otherRobot.moveTo(bestOtherNode);
+		return new RobotNode[] { bestThisNode, bestOtherNode };
+	}
+
+	/**
+	 * Search the nodes to which this robot and the given other robot
+	 * move when moving next to each other, using packed A* algorithms.
+	 * 
+	 * @param otherRobot
+	 * 			The other robot.
+	 * @param parallel
+	 * 			Whether to search in parallel.
+	 * 
+	 * @pre		| PackedRobotAStar.canSearch(getBoard())
+	 * @return	The same nodes as {@link #searchNextTo(Robot, boolean)}.
+	 */
+	private RobotNode[] searchNextToPacked(Robot otherRobot, boolean parallel) {
+		assert PackedRobotAStar.canSearch(getBoard());
+
+		// Run A* for retrieving the reachable positions of both robots
+		PackedReachAStar thisAstar = new PackedReachAStar(this);
+		PackedReachAStar otherAstar = new PackedReachAStar(otherRobot);
+		Parallel.invokeAll(parallel, getRunTask(thisAstar), getRunTask(otherAstar));
+
+		// Initialize on current positions
+		Vector bestThisPosition = this.getPosition();
+		Vector bestOtherPosition = otherRobot.getPosition();
+		long bestDistance = bestThisPosition.manhattanDistance(bestOtherPosition);
+
+		// Find the closest and cheapest pair of reachable positions
+		MeetingPointSearch search = new MeetingPointSearch();
+		PackedRobotAStar<ReachNode>.Cursor thisCursor = thisAstar.cursor();
+		while (thisCursor.next()) {
+			search.addFirst(thisCursor.getPosition(), thisCursor.getG());
+		}
+		PackedRobotAStar<ReachNode>.Cursor otherCursor = otherAstar.cursor();
+		while (otherCursor.next()) {
+			search.addSecond(otherCursor.getPosition(), otherCursor.getG());
+		}
+		// Only move when the robots can get closer
+		if (search.run(parallel) && search.getDistance() < bestDistance) {
+			bestThisPosition = search.getFirstPosition();
+			bestOtherPosition = search.getSecondPosition();
+		}
+
+		return new RobotNode[] { thisAstar.getNode(bestThisPosition), otherAstar.getNode(bestOtherPosition) };
+	}
+
+	/**
+	 * Get a task retrieving the reachable nodes with the given algorithm.
+	 */
+	private static ForkJoinTask<Map<Vector, ReachNode>> getReachableTask(final ReachAStar astar) {
+		return new RecursiveTask<Map<Vector, ReachNode>>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected Map<Vector, ReachNode> compute() {
+				return astar.getReachable();
+			}
+		};
+	}
+
+	/**
+	 * Get a task running the given packed algorithm.
+	 */
+	private static ForkJoinTask<?> getRunTask(final PackedReachAStar astar) {
+		return new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				astar.run();
+			}
+		};
 	}
 
 	/*
@@ -1564,16 +1866,10 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 		if (!isPlaced())
 			return Collections.emptySet();
 
-		Orientation direction = getOrientation();
-		Vector position = getPosition();
-		Board board = getBoard();
-
 		// Get the first position in the direction this robot is facing
 		// where another piece is located
-		Vector target = position;
-		do {
-			target = board.getNextPosition(target, direction);
-		} while (target != null && !board.hasPiecesAt(target));
+		Board board = getBoard();
+		Vector target = board.getNextOccupiedPosition(getPosition(), getOrientation());
 
 		// Return pieces at the target position
 		return board.getPiecesAt(target);
@@ -1661,6 +1957,11 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 	 *
 	 * @post	The new program equals the given program.
 	 *			| new.getProgram() == program
+	 * @post	If the given program is effective, the new program
+	 * 			counter is set to a new program counter at the start
+	 * 			of the compiled program of the given program.
+	 * 			| if (program != null)
+	 * 			|   new.getProgramCounter().getProgram() == program.getCompiledProgram()
 	 * @throws	IllegalArgumentException
 	 *			If the given program is not valid.
 	 *			| !isValidProgram(program)
@@ -1670,6 +1971,9 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 		if (!isValidProgram(program))
 			throw new IllegalArgumentException("Invalid program for this robot.");
 		this.program = program;
+		// Create the program counter up front, so robots sharing
+		// a program can be stepped from several threads
+		this.programCounter = (program == null) ? null : new ProgramCounter(program.getCompiledProgram());
 	}
 
 	/**
@@ -1767,6 +2071,102 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 		}
 	}
 
+	/**
+	 * Execute the given amount of steps in the compiled program
+	 * of this robot.
+	 * 
+	 * <p>The compiled program executes the same basic commands
+	 * in the same steps as {@link #stepProgram(int)}, but this robot
+	 * keeps its own position in the program instead of storing it
+	 * in the commands of the program.</p>
+	 * 
+	 * @param steps
+	 * 			The amount of steps to execute.
+	 * 
+	 * @effect	The compiled program of the robot's program
+	 * 			is stepped at most <code>steps</code> times.
+	 * 			The execution stops earlier when the end
+	 * 			of the program is reached.
+	 * 			| let
+	 * 			|   compiled = getProgram().getCompiledProgram()
+	 * 			|
+	 * 			| for i in 1..steps :
+	 * 			|   if (!compiled.step(getProgramCounter(), this))
+	 * 			|      break
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given amount of steps is negative.
+	 * 			| steps < 0
+	 * @throws	IllegalStateException
+	 * 			If this robot has no program.
+	 * 			| !hasProgram()
+	 * 
+	 * @note	The compiled program and the command tree keep
+	 * 			separate execution states, so a robot should
+	 * 			use either this method or {@link #stepProgram(int)}.
+	 */
+	public void runProgram(int steps) throws IllegalArgumentException, IllegalStateException {
+		if (steps < 0)
+			throw new IllegalArgumentException("Amount of steps must be non-negative.");
+		if (!hasProgram())
+			throw new IllegalStateException("Robot has no program to run.");
+
+		CompiledProgram compiled = getProgram().getCompiledProgram();
+		ProgramCounter counter = getProgramCounter();
+		while ((steps-- > 0) && compiled.step(counter, this)) {
+			// Every step executes one basic command
+		}
+	}
+
+	/**
+	 * Advance the compiled program of this robot to its
+	 * next basic command, without executing it.
+	 * 
+	 * <p>This lets a scheduler look up the next commands of
+	 * many robots before any of them acts. The returned command
+	 * should be executed by this robot before its program
+	 * is advanced again.</p>
+	 * 
+	 * @return	The next basic command in the compiled program
+	 * 			of this robot's program, or null if the end
+	 * 			of the program was reached.
+	 * 			| result == getProgram().getCompiledProgram()
+	 * 			|   .next(getProgramCounter(), this)
+	 * 
+	 * @throws	IllegalStateException
+	 * 			If this robot has no program.
+	 * 			| !hasProgram()
+	 * 
+	 * @see #runProgram(int)
+	 */
+	public Command nextProgramCommand() throws IllegalStateException {
+		if (!hasProgram())
+			throw new IllegalStateException("Robot has no program to run.");
+
+		return getProgram().getCompiledProgram().next(getProgramCounter(), this);
+	}
+
+	/**
+	 * Get the program counter of this robot in
+	 * the compiled program of its program.
+	 * 
+	 * @throws	IllegalStateException
+	 * 			If this robot has no program.
+	 * 			| !hasProgram()
+	 */
+	@Model
+	private ProgramCounter getProgramCounter() throws IllegalStateException {
+		if (!hasProgram())
+			throw new IllegalStateException("Robot has no program.");
+		return programCounter;
+	}
+
+	/**
+	 * Variable registering the program counter of this robot
+	 * in the compiled program of its program.
+	 */
+	private ProgramCounter programCounter;
+
 	/**
 	 * @effect	All the possessions of this robot are terminated.
 	 * 			| for each possession in getPossessions() :
@@ -1783,10 +2183,15 @@ public class Robot extends Piece implements EnergyCarrier, CapacityCarrier {
 			possession.terminate();
 		}
 		possessions.clear();
+		possessionsWeight = 0;
 
 		// Remove program
 		setProgram(null);
 
+		// Release cached cost tree
+		costTree = null;
+		distantCosts.clear();
+
 		super.terminate();
 	}
 
@@ -131,7 +131,7 @@ public class SurpriseBox extends Item {
 		terminate();
 
 		// All pieces on all adjacent position are hit
-		for (Vector target : pos.getNeighbours()) {
+		for (Vector target : pos.getRing(1, board)) {
 			for (Piece piece : board.getPiecesAt(target)) {
 				piece.hit();
 			}
@@ -2,8 +2,11 @@ package roborally;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
+import roborally.util.AbstractIterator;
+
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Value;
@@ -52,6 +55,45 @@ public class Vector {
 		this.y = y;
 	}
 
+	/**
+	 * Get a vector with the given X- and Y-coordinates.
+	 * 
+	 * <p>Vectors with both coordinates between zero and
+	 * {@link #MAX_INTERNED_COORDINATE} are interned in a bounded
+	 * cache, so these are not allocated again.</p>
+	 * 
+	 * @param x
+	 * 			The X-coordinate of the vector.
+	 * @param y
+	 * 			The Y-coordinate of the vector.
+	 * 
+	 * @return	| result.equals(new Vector(x, y))
+	 */
+	public static Vector valueOf(long x, long y) {
+		if (x < 0 || x > MAX_INTERNED_COORDINATE || y < 0 || y > MAX_INTERNED_COORDINATE)
+			return new Vector(x, y);
+
+		int index = (int) (x * (MAX_INTERNED_COORDINATE + 1) + y);
+		Vector result = interned[index];
+		if (result == null) {
+			// Racing threads may both create a vector,
+			// which is harmless for immutable values
+			result = new Vector(x, y);
+			interned[index] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * The largest coordinate of interned vectors.
+	 */
+	public static final long MAX_INTERNED_COORDINATE = 127;
+
+	/**
+	 * Cache of interned vectors, indexed by their coordinates.
+	 */
+	private static final Vector[] interned = new Vector[(int) ((MAX_INTERNED_COORDINATE + 1) * (MAX_INTERNED_COORDINATE + 1))];
+
 	/**
 	 * Get the X-coordinate of this vector.
 	 */
@@ -111,7 +153,7 @@ public class Vector {
 	public Vector add(long dx, long dy) {
 		long x = getX() + dx;
 		long y = getY() + dy;
-		return new Vector(x, y);
+		return valueOf(x, y);
 	}
 
 	/**
@@ -269,24 +311,309 @@ public class Vector {
 			return Collections.singleton(this);
 
 		Set<Vector> neighbours = new HashSet<Vector>();
-		long y = 0, dy = 1;
-		for (long x = -distance; x <= distance; ++x) {
-			// Add neighbours
-			if (y == 0) {
-				neighbours.add(this.add(x, 0));
-			} else {
-				neighbours.add(this.add(x, y));
-				neighbours.add(this.add(x, -y));
-			}
-			// Step Y
-			y += dy;
-			// Invert at central axis
-			if (y == distance)
-				dy *= -1;
+		for (Vector neighbour : getRing(distance)) {
+			neighbours.add(neighbour);
 		}
 		return neighbours;
 	}
 
+	/**
+	 * Get the ring of vectors at the given Manhattan distance
+	 * from this vector.
+	 * 
+	 * <p>The vectors are produced lazily, in a fixed order walking
+	 * around the ring: starting at this vector moved right by the
+	 * given distance and continuing downwards and to the left.
+	 * No collection of the vectors is built.</p>
+	 * 
+	 * @param distance
+	 * 			The Manhattan distance between this vector
+	 * 			and each vector in the ring.
+	 * 
+	 * @return	The resulting ring contains the same vectors
+	 * 			as the set of neighbours at the given distance,
+	 * 			each exactly once.
+	 * 			| for each neighbour in getNeighbours(distance) :
+	 * 			|   #{vector in result | vector.equals(neighbour)} == 1
+	 * 			|  && for each vector in result :
+	 * 			|   getNeighbours(distance).contains(vector)
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given distance is negative.
+	 * 			| distance < 0
+	 */
+	public Iterable<Vector> getRing(long distance) throws IllegalArgumentException {
+		if (distance < 0)
+			throw new IllegalArgumentException("Distance to neighbour must be non-negative");
+		return new Ring(this, distance);
+	}
+
+	/**
+	 * Get the ring of positions on the given board at the given
+	 * Manhattan distance from this vector.
+	 * 
+	 * <p>The positions are produced in the same order as
+	 * {@link #getRing(long)}, but positions outside the board
+	 * are skipped without producing them.</p>
+	 * 
+	 * @param distance
+	 * 			The Manhattan distance between this vector
+	 * 			and each vector in the ring.
+	 * @param board
+	 * 			The board to clip the ring to.
+	 * 
+	 * @return	The resulting ring contains the vectors of the full
+	 * 			ring which are valid positions on the given board.
+	 * 			| for each vector in getRing(distance) :
+	 * 			|   (#{position in result | position.equals(vector)} == 1)
+	 * 			|     == board.isValidPosition(vector)
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given distance is negative.
+	 * 			| distance < 0
+	 * @throws	IllegalArgumentException
+	 * 			If the given board is not effective.
+	 * 			| board == null
+	 */
+	public Iterable<Vector> getRing(long distance, Board board) throws IllegalArgumentException {
+		if (distance < 0)
+			throw new IllegalArgumentException("Distance to neighbour must be non-negative");
+		if (board == null)
+			throw new IllegalArgumentException("Board must be effective.");
+		return new Ring(this, distance, 0, 0, board.getWidth() - 1, board.getHeight() - 1);
+	}
+
+	/**
+	 * A ring of vectors at a fixed Manhattan distance from a center,
+	 * optionally clipped to a rectangle.
+	 * 
+	 * <p>The ring is walked along its four diagonal sides, each starting
+	 * at a corner and ending just before the next corner. On every side,
+	 * the steps which lie inside the rectangle are computed up front,
+	 * so vectors outside the rectangle are never visited.</p>
+	 */
+	private static class Ring implements Iterable<Vector> {
+
+		private Ring(Vector center, long distance) {
+			this(center, distance, false, 0, 0, 0, 0);
+		}
+
+		private Ring(Vector center, long distance, long minX, long minY, long maxX, long maxY) {
+			this(center, distance, true, minX, minY, maxX, maxY);
+		}
+
+		private Ring(Vector center, long distance, boolean isClipped, long minX, long minY, long maxX, long maxY) {
+			this.center = center;
+			this.distance = distance;
+			this.isClipped = isClipped;
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+		}
+
+		private final Vector center;
+		private final long distance;
+
+		/**
+		 * Whether the ring is clipped to the rectangle between the
+		 * given minimum and maximum coordinates. Coordinates of an
+		 * unclipped ring wrap around at the range of long integers.
+		 */
+		private final boolean isClipped;
+		private final long minX, minY, maxX, maxY;
+
+		/**
+		 * The directions in which the sides of the ring are walked,
+		 * starting from the right corner.
+		 */
+		private static final long[] SIDE_X = { -1, -1, 1, 1 }, SIDE_Y = { 1, -1, -1, 1 };
+
+		@Override
+		public Iterator<Vector> iterator() {
+			return new AbstractIterator<Vector>() {
+
+				/**
+				 * The current side, the offset from the center to the start
+				 * of the current side and the next and last step on the
+				 * current side.
+				 */
+				private int side = -1;
+				private long startX, startY;
+				private long step, lastStep = -1;
+
+				@Override
+				protected Vector computeNext() {
+					if (distance == 0) {
+						// The ring only consists of the center
+						if (side++ >= 0 || !contains(center.getX(), center.getY()))
+							return endOfData();
+						return center;
+					}
+					while (step > lastStep) {
+						if (++side == SIDE_X.length)
+							return endOfData();
+						startSide();
+					}
+					long x = center.getX() + (startX + step * SIDE_X[side]);
+					long y = center.getY() + (startY + step * SIDE_Y[side]);
+					step++;
+					return valueOf(x, y);
+				}
+
+				/**
+				 * Start walking the current side, clipped to the rectangle.
+				 */
+				private void startSide() {
+					// The offset of the corner at which the current side starts
+					startX = (side == 0) ? distance : (side == 2) ? -distance : 0;
+					startY = (side == 1) ? distance : (side == 3) ? -distance : 0;
+					step = 0;
+					lastStep = distance - 1;
+					if (isClipped) {
+						clip(startX, SIDE_X[side], clampedDifference(minX, center.getX()),
+								clampedDifference(maxX, center.getX()));
+						clip(startY, SIDE_Y[side], clampedDifference(minY, center.getY()),
+								clampedDifference(maxY, center.getY()));
+					}
+				}
+
+				/**
+				 * Restrict the steps on the current side such that the
+				 * offset starting at the given start and moving in the
+				 * given direction stays between the given bounds.
+				 */
+				private void clip(long start, long direction, long min, long max) {
+					if (direction > 0) {
+						step = Math.max(step, clampedDifference(min, start));
+						lastStep = Math.min(lastStep, clampedDifference(max, start));
+					} else {
+						step = Math.max(step, clampedDifference(start, max));
+						lastStep = Math.min(lastStep, clampedDifference(start, min));
+					}
+				}
+
+				private boolean contains(long x, long y) {
+					return !isClipped || ((minX <= x && x <= maxX) && (minY <= y && y <= maxY));
+				}
+
+			};
+		}
+
+		/**
+		 * Get the difference of the given numbers,
+		 * clamped to the range of long integers.
+		 */
+		private static long clampedDifference(long first, long second) {
+			long difference = first - second;
+			// Overflow if the operands have different signs and
+			// the difference has another sign than the first operand
+			if (((first ^ second) & (first ^ difference)) < 0)
+				return (first < 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+			return difference;
+		}
+
+	}
+
+	/**
+	 * The largest coordinate of vectors which can be packed.
+	 */
+	public static final long MAX_PACKED_COORDINATE = Integer.MAX_VALUE;
+
+	/**
+	 * Check whether a vector with the given coordinates
+	 * can be packed into a single long integer.
+	 * 
+	 * @param x
+	 * 			The X-coordinate of the vector.
+	 * @param y
+	 * 			The Y-coordinate of the vector.
+	 * 
+	 * @return	True if and only if both coordinates lie between zero
+	 * 			and {@link #MAX_PACKED_COORDINATE}.
+	 * 			| result == (0 <= x && x <= MAX_PACKED_COORDINATE
+	 * 			|    && 0 <= y && y <= MAX_PACKED_COORDINATE)
+	 */
+	public static boolean canPack(long x, long y) {
+		return (0 <= x && x <= MAX_PACKED_COORDINATE) && (0 <= y && y <= MAX_PACKED_COORDINATE);
+	}
+
+	/**
+	 * Check whether this vector can be packed into a single long integer.
+	 * 
+	 * @return	| result == canPack(getX(), getY())
+	 */
+	public boolean canPack() {
+		return canPack(getX(), getY());
+	}
+
+	/**
+	 * Pack a vector with the given coordinates into a single long integer.
+	 * 
+	 * <p>The X-coordinate is stored in the upper and the Y-coordinate
+	 * in the lower half of the key, so keys of distinct packable
+	 * vectors are distinct.</p>
+	 * 
+	 * @param x
+	 * 			The X-coordinate of the vector.
+	 * @param y
+	 * 			The Y-coordinate of the vector.
+	 * 
+	 * @return	| unpackX(result) == x && unpackY(result) == y
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| !canPack(x, y)
+	 */
+	public static long pack(long x, long y) throws IllegalArgumentException {
+		if (!canPack(x, y))
+			throw new IllegalArgumentException("Coordinates cannot be packed: (" + x + ", " + y + ")");
+		return (x << 32) | y;
+	}
+
+	/**
+	 * Pack this vector into a single long integer.
+	 * 
+	 * @return	| result == pack(getX(), getY())
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| !canPack()
+	 */
+	public long pack() throws IllegalArgumentException {
+		return pack(getX(), getY());
+	}
+
+	/**
+	 * Get the X-coordinate of a packed vector.
+	 * 
+	 * @param key
+	 * 			The packed vector.
+	 */
+	public static long unpackX(long key) {
+		return key >>> 32;
+	}
+
+	/**
+	 * Get the Y-coordinate of a packed vector.
+	 * 
+	 * @param key
+	 * 			The packed vector.
+	 */
+	public static long unpackY(long key) {
+		return key & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Get the vector packed into the given long integer.
+	 * 
+	 * @param key
+	 * 			The packed vector.
+	 * 
+	 * @return	| result.equals(new Vector(unpackX(key), unpackY(key)))
+	 */
+	public static Vector unpack(long key) {
+		return valueOf(unpackX(key), unpackY(key));
+	}
+
 	/**
 	 * @return	True if the given object reference equals this object reference.
 	 * 			| if (this == obj)
@@ -315,13 +642,15 @@ public class Vector {
 		return getX() == other.getX() && getY() == other.getY();
 	}
 
+	/**
+	 * @return	The coordinates are mixed so that nearby vectors
+	 * 			spread well over the buckets of hash tables.
+	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 0;
-		result = prime * result + Long.valueOf(getX()).hashCode();
-		result = prime * result + Long.valueOf(getY()).hashCode();
-		return result;
+		long hash = getX() * 0x9E3779B97F4A7C15L + getY();
+		hash = (hash ^ (hash >>> 32)) * 0xD6E8FEB86659FD93L;
+		return (int) (hash ^ (hash >>> 32));
 	}
 
 	@Override
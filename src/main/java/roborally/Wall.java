@@ -34,6 +34,16 @@ public class Wall extends Piece {
 		return (piece == this);
 	}
 
+	/**
+	 * @return	Always true, since walls never move and cannot
+	 * 			share their positions with other pieces.
+	 * 			| result == true
+	 */
+	@Override
+	public boolean isObstacle() {
+		return true;
+	}
+
 	/*
 	 * Shooting
 	 */
@@ -0,0 +1,79 @@
+package roborally.batch;
+
+import java.io.*;
+import java.text.ParseException;
+
+/**
+ * The entry point of the headless batch mode.
+ *
+ * <p>Usage: <code>RoboRallyBatch &lt;world&gt; &lt;ticks&gt; [&lt;output&gt;]</code></p>
+ *
+ * <p>Loads the given world script, runs the given amount of ticks
+ * and writes the final statistics to the given output file,
+ * or to the standard output if no output file is given.
+ * No graphical user interface is used, so this runs
+ * on machines without a display.</p>
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ *
+ * @see Simulation
+ */
+public class RoboRallyBatch {
+
+	public static void main(String[] args) {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("usage: RoboRallyBatch <world> <ticks> [<output>]");
+			System.exit(1);
+		}
+
+		int ticks;
+		try {
+			ticks = Integer.parseInt(args[1]);
+		} catch (NumberFormatException e) {
+			ticks = -1;
+		}
+		if (ticks < 0) {
+			System.err.println("non-negative integer expected but found " + args[1]);
+			System.exit(1);
+		}
+
+		Simulation simulation;
+		try {
+			simulation = Simulation.load(new File(args[0]));
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+			return;
+		} catch (ParseException e) {
+			System.err.println(args[0] + ": " + e.getMessage());
+			System.exit(2);
+			return;
+		}
+
+		simulation.run(ticks);
+
+		if (args.length == 3) {
+			PrintStream out = null;
+			try {
+				out = new PrintStream(new FileOutputStream(args[2]));
+				simulation.writeStatistics(out);
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				System.exit(2);
+			} finally {
+				if (out != null)
+					out.close();
+			}
+		} else {
+			simulation.writeStatistics(System.out);
+		}
+	}
+
+}
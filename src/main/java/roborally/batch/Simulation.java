@@ -0,0 +1,462 @@
+package roborally.batch;
+
+import java.io.*;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+import roborally.*;
+import roborally.EnergyAmount.Unit;
+import roborally.Vector;
+import roborally.program.Program;
+import roborally.program.ProgramScheduler;
+import roborally.util.Parallel;
+
+/**
+ * A game world which runs the programs of its robots
+ * without a graphical user interface.
+ *
+ * <p>A world is described by a script in the same command language
+ * as the console of the graphical user interface. Every line holds
+ * one command:</p>
+ * <ul>
+ * <li><code>board &lt;width&gt; &lt;height&gt;</code>, which must come
+ * before any other command. When omitted, the board is 10 by 10.</li>
+ * <li><code>addrobot &lt;name&gt; &lt;x&gt; &lt;y&gt; [&lt;energy&gt;]</code></li>
+ * <li><code>addbattery &lt;name&gt; &lt;x&gt; &lt;y&gt; [&lt;energy&gt; [&lt;weight&gt;]]</code></li>
+ * <li><code>addrepair &lt;name&gt; &lt;x&gt; &lt;y&gt; &lt;capacity&gt;</code></li>
+ * <li><code>addsurprise &lt;name&gt; &lt;x&gt; &lt;y&gt; &lt;weight&gt;</code></li>
+ * <li><code>addwall &lt;x&gt; &lt;y&gt;</code></li>
+ * <li><code>loadprogram &lt;rname&gt; &lt;path&gt;</code>, where a relative
+ * path is resolved against the directory of the script.</li>
+ * </ul>
+ * <p>Empty lines and lines starting with <code>#</code> are ignored.</p>
+ *
+ * <p>Every tick executes one round of the {@link ProgramScheduler}
+ * on all robots in the order of their names, the same order as
+ * the <code>executeall</code> console command. Unlike the console,
+ * ticks are not slowed down to be followed on screen.</p>
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class Simulation {
+
+	/**
+	 * Create a new simulation on the given board,
+	 * running on the shared fork/join pool.
+	 *
+	 * @param board
+	 * 			The board for the new simulation.
+	 *
+	 * @effect	| this(board, Parallel.getPool())
+	 */
+	public Simulation(Board board) throws IllegalArgumentException {
+		this(board, Parallel.getPool());
+	}
+
+	/**
+	 * Create a new simulation on the given board,
+	 * running on the given fork/join pool.
+	 *
+	 * @param board
+	 * 			The board for the new simulation.
+	 * @param pool
+	 * 			The pool on which the robots are stepped.
+	 *
+	 * @post	The new simulation's board is set to the given board.
+	 * 			| new.getBoard() == board
+	 * @post	The new simulation has no robots.
+	 * 			| new.getRobots().isEmpty()
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given board or pool is not effective.
+	 * 			| board == null || pool == null
+	 */
+	public Simulation(Board board, ForkJoinPool pool) throws IllegalArgumentException {
+		if (board == null)
+			throw new IllegalArgumentException("Board must be effective.");
+		if (pool == null)
+			throw new IllegalArgumentException("Pool must be effective.");
+		this.board = board;
+		this.scheduler = new ProgramScheduler(pool) {
+			@Override
+			protected void handleFailure(Robot robot, RuntimeException exception) {
+				nbFailures++;
+			}
+		};
+	}
+
+	/**
+	 * Get the board of this simulation.
+	 */
+	@Basic
+	@Immutable
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Variable registering the board of this simulation.
+	 */
+	private final Board board;
+
+	/**
+	 * Get the robots of this simulation, ordered by their names.
+	 */
+	@Basic
+	public SortedMap<String, Robot> getRobots() {
+		return Collections.unmodifiableSortedMap(robots);
+	}
+
+	/**
+	 * Add a robot with the given name to this simulation.
+	 *
+	 * @param name
+	 * 			The name of the robot.
+	 * @param robot
+	 * 			The robot to add.
+	 *
+	 * @post	The given robot is added under the given name.
+	 * 			| new.getRobots().get(name) == robot
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given name or robot is not effective,
+	 * 			or if a robot with the given name already exists.
+	 * 			| name == null || robot == null
+	 * 			|   || getRobots().containsKey(name)
+	 */
+	public void addRobot(String name, Robot robot) throws IllegalArgumentException {
+		if (name == null || robot == null)
+			throw new IllegalArgumentException("Name and robot must be effective.");
+		if (robots.containsKey(name))
+			throw new IllegalArgumentException("Robot named " + name + " already exists.");
+		robots.put(name, robot);
+	}
+
+	/**
+	 * Variable registering the robots of this simulation by their names.
+	 */
+	private final SortedMap<String, Robot> robots = new TreeMap<String, Robot>();
+
+	/**
+	 * Get the number of ticks executed by this simulation.
+	 */
+	@Basic
+	public long getNbTicks() {
+		return nbTicks;
+	}
+
+	/**
+	 * Variable registering the number of ticks executed by this simulation.
+	 */
+	private long nbTicks = 0;
+
+	/**
+	 * Get the number of failed commands in this simulation.
+	 */
+	@Basic
+	public long getNbFailures() {
+		return nbFailures;
+	}
+
+	/**
+	 * Variable registering the number of failed commands in this simulation.
+	 */
+	private long nbFailures = 0;
+
+	/**
+	 * Get the time spent running ticks in this simulation, in nanoseconds.
+	 */
+	@Basic
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Variable registering the time spent running ticks
+	 * in this simulation, in nanoseconds.
+	 */
+	private long elapsedTime = 0;
+
+	/**
+	 * Run the given amount of ticks on this simulation.
+	 *
+	 * <p>A failed command is counted and does not stop the simulation.</p>
+	 *
+	 * @param ticks
+	 * 			The amount of ticks to run.
+	 *
+	 * @effect	The scheduler executes the given amount of rounds
+	 * 			on the robots of this simulation.
+	 * 			| new ProgramScheduler(pool).step(
+	 * 			|   new ArrayList<Robot>(getRobots().values()), ticks)
+	 * @post	| new.getNbTicks() == getNbTicks() + ticks
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given amount of ticks is negative.
+	 * 			| ticks < 0
+	 */
+	public void run(int ticks) throws IllegalArgumentException {
+		if (ticks < 0)
+			throw new IllegalArgumentException("Amount of ticks must be non-negative.");
+
+		List<Robot> orderedRobots = new ArrayList<Robot>(robots.values());
+		long start = System.nanoTime();
+		scheduler.step(orderedRobots, ticks);
+		elapsedTime += System.nanoTime() - start;
+		nbTicks += ticks;
+	}
+
+	/**
+	 * The scheduler counting the failures of this simulation.
+	 */
+	private final ProgramScheduler scheduler;
+
+	/**
+	 * Write the statistics of this simulation to the given stream.
+	 *
+	 * <p>A summary is followed by one tab separated line
+	 * per robot, so the output can easily be compared
+	 * between runs.</p>
+	 *
+	 * @param out
+	 * 			The stream to write to.
+	 */
+	public void writeStatistics(PrintStream out) {
+		int nbAlive = 0;
+		double totalEnergy = 0;
+		for (Robot robot : robots.values()) {
+			if (!robot.isTerminated()) {
+				nbAlive++;
+				totalEnergy += robot.getEnergyAmount(Unit.WATTSECOND);
+			}
+		}
+		double seconds = elapsedTime / 1e9;
+
+		out.println("ticks\t" + nbTicks);
+		out.println("seconds\t" + String.format(Locale.ROOT, "%.3f", seconds));
+		out.println("ticks/s\t" + ((seconds > 0) ? String.format(Locale.ROOT, "%.1f", nbTicks / seconds) : "-"));
+		out.println("failures\t" + nbFailures);
+		out.println("robots\t" + robots.size());
+		out.println("alive\t" + nbAlive);
+		out.println("energy\t" + totalEnergy);
+		out.println("items\t" + board.getPieces(Item.class).size());
+		out.println();
+		out.println("name\tx\ty\torientation\tenergy\tpossessions");
+		for (Map.Entry<String, Robot> entry : robots.entrySet()) {
+			Robot robot = entry.getValue();
+			if (robot.isTerminated() || !robot.isPlaced()) {
+				out.println(entry.getKey() + "\t-\t-\t-\t-\t-");
+			} else {
+				Vector position = robot.getPosition();
+				out.println(entry.getKey() + "\t" + position.getX() + "\t" + position.getY() + "\t"
+						+ robot.getOrientation() + "\t" + robot.getEnergyAmount(Unit.WATTSECOND) + "\t"
+						+ robot.getNbPossessions());
+			}
+		}
+	}
+
+	/**
+	 * Load a simulation from the given world script.
+	 *
+	 * @param file
+	 * 			The world script.
+	 *
+	 * @return	The loaded simulation.
+	 *
+	 * @throws	IOException
+	 * 			If the world script or one of its programs
+	 * 			could not be read.
+	 * @throws	ParseException
+	 * 			If the world script or one of its programs
+	 * 			could not be parsed.
+	 */
+	public static Simulation load(File file) throws IOException, ParseException {
+		Reader reader = new InputStreamReader(new FileInputStream(file));
+		try {
+			return load(reader, file.getAbsoluteFile().getParentFile());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Load a simulation from the world script read from the given reader.
+	 *
+	 * @param reader
+	 * 			The reader of the world script.
+	 * @param directory
+	 * 			The directory against which relative program paths
+	 * 			are resolved, or null to use the working directory.
+	 *
+	 * @return	The loaded simulation.
+	 *
+	 * @throws	IOException
+	 * 			If the world script or one of its programs
+	 * 			could not be read.
+	 * @throws	ParseException
+	 * 			If the world script or one of its programs
+	 * 			could not be parsed. The error offset is
+	 * 			the number of the offending line.
+	 */
+	public static Simulation load(Reader reader, File directory) throws IOException, ParseException {
+		BufferedReader lines = new BufferedReader(reader);
+		Loader loader = new Loader(directory);
+		String line;
+		while ((line = lines.readLine()) != null) {
+			loader.process(line.trim());
+		}
+		return loader.getSimulation();
+	}
+
+	/**
+	 * A loader processing a world script line by line.
+	 */
+	private static class Loader {
+
+		public Loader(File directory) {
+			this.directory = directory;
+		}
+
+		private final File directory;
+		private Simulation simulation;
+		private int lineNumber = 0;
+
+		/**
+		 * Programs by their canonical path, so robots
+		 * running the same file share its compiled form.
+		 */
+		private final Map<String, Program> programs = new HashMap<String, Program>();
+		private final Set<String> itemNames = new HashSet<String>();
+
+		public Simulation getSimulation() {
+			if (simulation == null) {
+				try {
+					simulation = new Simulation(new Board(DEFAULT_SIZE, DEFAULT_SIZE));
+				} catch (InvalidSizeException e) {
+					throw new AssertionError(e);
+				}
+			}
+			return simulation;
+		}
+
+		public void process(String line) throws IOException, ParseException {
+			lineNumber++;
+			if (line.isEmpty() || line.startsWith("#"))
+				return;
+
+			String[] words = line.split("\\s+");
+			try {
+				if (words[0].equals("board") && words.length == 3) {
+					if (simulation != null)
+						throw error("board must be the first command");
+					simulation = new Simulation(new Board(parseLong(words[1]), parseLong(words[2])));
+				} else if (words[0].equals("addrobot") && 4 <= words.length && words.length <= 5) {
+					double energy = (words.length >= 5) ? parseDouble(words[4]) : 10000;
+					Robot robot = new Robot(Orientation.RIGHT, energy);
+					getSimulation().addRobot(words[1], robot);
+					robot.placeOnBoard(getSimulation().getBoard(), parsePosition(words[2], words[3]));
+				} else if (words[0].equals("addbattery") && 4 <= words.length && words.length <= 6) {
+					double energy = (words.length >= 5) ? parseDouble(words[4]) : 1000;
+					int weight = (words.length >= 6) ? parseInt(words[5]) : 1500;
+					placeItem(words[1], new Battery(weight, energy), words[2], words[3]);
+				} else if (words[0].equals("addrepair") && words.length == 5) {
+					placeItem(words[1], new RepairKit(1000, parseDouble(words[4])), words[2], words[3]);
+				} else if (words[0].equals("addsurprise") && words.length == 5) {
+					placeItem(words[1], new SurpriseBox(parseInt(words[4])), words[2], words[3]);
+				} else if (words[0].equals("addwall") && words.length == 3) {
+					new Wall().placeOnBoard(getSimulation().getBoard(), parsePosition(words[1], words[2]));
+				} else if (words[0].equals("loadprogram") && words.length == 3) {
+					Robot robot = getSimulation().getRobots().get(words[1]);
+					if (robot == null)
+						throw error("robot named " + words[1] + " does not exist");
+					robot.setProgram(loadProgram(words[2]));
+				} else {
+					throw error("unknown command: " + line);
+				}
+			} catch (IllegalArgumentException e) {
+				throw error(e.getMessage());
+			} catch (IllegalStateException e) {
+				throw error(e.getMessage());
+			} catch (InvalidSizeException e) {
+				throw error(e.getMessage());
+			} catch (InvalidPositionException e) {
+				throw error(e.getMessage());
+			}
+		}
+
+		private void placeItem(String name, Item item, String x, String y) throws ParseException,
+				InvalidPositionException {
+			if (!itemNames.add(name))
+				throw error("item named " + name + " already exists");
+			item.placeOnBoard(getSimulation().getBoard(), parsePosition(x, y));
+		}
+
+		private Program loadProgram(String path) throws IOException, ParseException {
+			File file = new File(path);
+			if (!file.isAbsolute() && directory != null)
+				file = new File(directory, path);
+			String key = file.getCanonicalPath();
+			Program program = programs.get(key);
+			if (program == null) {
+				try {
+					program = Program.load(file);
+				} catch (ParseException e) {
+					throw error(file + ": " + e.getMessage());
+				}
+				programs.put(key, program);
+			}
+			return program;
+		}
+
+		private Vector parsePosition(String x, String y) throws ParseException {
+			return new Vector(parseLong(x), parseLong(y));
+		}
+
+		private long parseLong(String word) throws ParseException {
+			try {
+				return Long.parseLong(word);
+			} catch (NumberFormatException e) {
+				throw error("integer expected but found " + word);
+			}
+		}
+
+		private int parseInt(String word) throws ParseException {
+			try {
+				return Integer.parseInt(word);
+			} catch (NumberFormatException e) {
+				throw error("integer expected but found " + word);
+			}
+		}
+
+		private double parseDouble(String word) throws ParseException {
+			try {
+				return Double.parseDouble(word);
+			} catch (NumberFormatException e) {
+				throw error("double expected but found " + word);
+			}
+		}
+
+		private ParseException error(String message) {
+			return new ParseException("line " + lineNumber + ": " + message, lineNumber);
+		}
+
+	}
+
+	/**
+	 * The width and height of the board when
+	 * a world script does not specify them.
+	 */
+	private static final long DEFAULT_SIZE = 10;
+
+}
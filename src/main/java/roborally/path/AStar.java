@@ -3,6 +3,7 @@ package roborally.path;
 import java.util.*;
 
 import roborally.Vector;
+import roborally.util.HeapQueue;
 import be.kuleuven.cs.som.annotate.Basic;
 
 /**
@@ -70,16 +71,28 @@ public abstract class AStar<N extends Node<V>, V extends Comparable<? super V>>
 	 * 			|           == last{bestPathTo(node)}
 	 * 			|      else
 	 * 			|         !getNodeMap().containsKey(node.getPosition())
+	 * 
+	 * @note	If the node budget is exhausted before the search
+	 * 			finishes, the search is truncated and the node map
+	 * 			only retains the nodes expanded so far.
+	 * 			See {@link #isTruncated()}.
 	 */
 	protected N run() {
 		reset();
 		N current = getStart();
 
 		while (!openSet.isEmpty()) {
+			// Stop when the node budget is exhausted
+			if (nbExpandedNodes >= getNodeBudget()) {
+				truncate();
+				break;
+			}
+
 			// Remove from open set and add to closed set
 			current = openSet.poll();
 			closedSet.add(current.getPosition());
 			nodeMap.put(current.getPosition(), current);
+			nbExpandedNodes++;
 
 			// If this is the target, we're finished
 			if (isTarget(current)) {
@@ -87,48 +100,55 @@ public abstract class AStar<N extends Node<V>, V extends Comparable<? super V>>
 				break;
 			}
 
-			// Inspect all neighbours of current node
-			Iterable<Node<V>> neighbours = current.getNeighbours();
-			for (Node<V> neighbourNode : neighbours) {
-				@SuppressWarnings("unchecked")
-				N neighbour = (N) neighbourNode;
-				Vector neighbourPosition = neighbour.getPosition();
-				// If neighbour position is in closed set, don't check it again
-				if (closedSet.contains(neighbourPosition)) {
-					continue;
-				}
-
-				// Get old neighbour as it is stored in the node map
-				Node<V> oldNeighbour = getNodeByPosition(neighbourPosition);
-				boolean isBetterNeighbour = false;
-
-				if (oldNeighbour == null) {
-					// If no node at this position yet, add it
-					isBetterNeighbour = true;
-				} else {
-					// If there is already a node at this position,
-					// replace it if it has a higher G-score
-					V oldG = oldNeighbour.getG();
-					V newG = neighbour.getG();
-					isBetterNeighbour = (newG.compareTo(oldG) < 0);
-				}
-
-				// If the new neighbour is better
-				if (isBetterNeighbour) {
-					// Calculate its H-score
-					neighbour.calculateH(getTarget());
-					// Remove the old one and add the new one
-					openSet.remove(oldNeighbour);
-					openSet.offer(neighbour);
-					// Store in node map
-					nodeMap.put(neighbour.getPosition(), neighbour);
-				}
-			}
+			// Inspect all better neighbours of current node
+			current.visitNeighbours(neighbourVisitor);
 		}
 
 		return current;
 	}
 
+	/**
+	 * Visitor of the neighbours of the current node, which only
+	 * accepts neighbours with a lower G-score than the node
+	 * at their position in the node map.
+	 */
+	private final NeighbourVisitor<V> neighbourVisitor = new NeighbourVisitor<V>() {
+
+		@Override
+		public boolean accepts(Vector position, double g) {
+			// Accept if no node at this position yet, or if
+			// the node at this position has a higher G-score
+			Node<V> oldNeighbour = nodeMap.get(position);
+			return oldNeighbour == null || g < oldNeighbour.getGKey();
+		}
+
+		@Override
+		public void visit(Node<V> neighbourNode) {
+			@SuppressWarnings("unchecked")
+			N neighbour = (N) neighbourNode;
+			Vector neighbourPosition = neighbour.getPosition();
+			N oldNeighbour = nodeMap.get(neighbourPosition);
+
+			// Calculate its H-score
+			neighbour.calculateH(getTarget());
+			if (oldNeighbour == null) {
+				// Add the new one
+				openSet.offer(neighbour);
+			} else if (closedSet.remove(neighbourPosition)) {
+				// Reopen the closed position, since a heuristic
+				// depending on more than the position can close
+				// a position before its cheapest path is found
+				openSet.offer(neighbour);
+			} else {
+				// Replace the old one by decreasing its key
+				openSet.decreaseKey(oldNeighbour, neighbour);
+			}
+			// Store in node map
+			nodeMap.put(neighbourPosition, neighbour);
+		}
+
+	};
+
 	/**
 	 * Reset the algorithm to its inital state.
 	 * 
@@ -141,6 +161,8 @@ public abstract class AStar<N extends Node<V>, V extends Comparable<? super V>>
 	 * 			| new.getClosedSet().isEmpty()
 	 * @post	The node map is cleared.
 	 * 			| new.getNodeMap().isEmpty()
+	 * @post	The search is not truncated.
+	 * 			| !new.isTruncated()
 	 * 
 	 * @throws	NullPointerException
 	 * 			If the open set is not effective.
@@ -151,6 +173,8 @@ public abstract class AStar<N extends Node<V>, V extends Comparable<? super V>>
 		nodeMap.clear();
 		closedSet.clear();
 		openSet.clear();
+		nbExpandedNodes = 0;
+		truncated = false;
 
 		// Reset start node and add to open set
 		getStart().resetG();
@@ -298,6 +322,85 @@ public abstract class AStar<N extends Node<V>, V extends Comparable<? super V>>
 		return closedSet;
 	}
 
+	/**
+	 * Get the number of nodes expanded in the last run,
+	 * including positions which were expanded again
+	 * after being reopened.
+	 */
+	public int getNbExpandedNodes() {
+		return nbExpandedNodes;
+	}
+
+	/**
+	 * Variable registering the number of nodes expanded in the last run.
+	 */
+	private int nbExpandedNodes;
+
+	/**
+	 * Get the maximum number of nodes expanded in a single run.
+	 */
+	@Basic
+	public int getNodeBudget() {
+		return nodeBudget;
+	}
+
+	/**
+	 * Set the maximum number of nodes expanded in a single run.
+	 * 
+	 * @param nodeBudget
+	 * 			The new node budget.
+	 * 
+	 * @post	| new.getNodeBudget() == nodeBudget
+	 * @throws	IllegalArgumentException
+	 * 			If the given budget is not positive.
+	 * 			| nodeBudget <= 0
+	 */
+	public void setNodeBudget(int nodeBudget) throws IllegalArgumentException {
+		if (nodeBudget <= 0)
+			throw new IllegalArgumentException("Node budget must be positive.");
+		this.nodeBudget = nodeBudget;
+	}
+
+	/**
+	 * Variable registering the maximum number of nodes expanded in a single run.
+	 * 
+	 * <p>By default, the number of expanded nodes is not limited.</p>
+	 */
+	private int nodeBudget = Integer.MAX_VALUE;
+
+	/**
+	 * Check whether the last run was truncated because
+	 * its node budget was exhausted.
+	 * 
+	 * <p>The results of a truncated run only contain the nodes
+	 * which were expanded before the budget was exhausted.
+	 * Their costs are minimal, but other nodes may have been
+	 * reachable as well.</p>
+	 */
+	@Basic
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Truncate the current run, discarding all nodes
+	 * which have not been expanded yet.
+	 * 
+	 * @post	| new.isTruncated()
+	 * @post	| new.getOpenSet().isEmpty()
+	 * @post	| new.getNodeMap().keySet().equals(getClosedSet())
+	 */
+	private void truncate() {
+		truncated = true;
+		openSet.clear();
+		nodeMap.keySet().retainAll(closedSet);
+	}
+
+	/**
+	 * Variable registering whether the last run was truncated.
+	 */
+	private boolean truncated;
+
 	/**
 	 * Set of closed nodes.
 	 * 
@@ -310,7 +413,7 @@ public abstract class AStar<N extends Node<V>, V extends Comparable<? super V>>
 	 * Get the open set of this algorithm.
 	 */
 	@Basic
-	protected Queue<N> getOpenSet() {
+	protected HeapQueue<N> getOpenSet() {
 		return openSet;
 	}
 
@@ -323,14 +426,14 @@ public abstract class AStar<N extends Node<V>, V extends Comparable<? super V>>
 	 * @post	The open set is set to the given set.
 	 * 			| new.getOpenSet() == openSet
 	 */
-	protected void setOpenSet(Queue<N> openSet) {
+	protected void setOpenSet(HeapQueue<N> openSet) {
 		this.openSet = openSet;
 	}
 
 	/**
 	 * Set of open nodes.
 	 */
-	private Queue<N> openSet;
+	private HeapQueue<N> openSet;
 
 	/**
 	 * Get the map of nodes which have been visited
@@ -0,0 +1,524 @@
+package roborally.path;
+
+import java.util.*;
+
+import roborally.*;
+import roborally.Vector;
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * An abstract graph of the paths a robot can take through
+ * square clusters of positions on its board.
+ *
+ * <p>The board is split into clusters of a fixed size. The robot
+ * enters a cluster with a step from a neighbouring cluster, and
+ * leaves it with a step into a neighbouring cluster. For every
+ * cluster, the graph stores the minimal cost of every path from
+ * an entry to an exit which stays within the cluster, as implied
+ * by the step and turn costs of the robot. These costs are exact,
+ * since every position on the border of a cluster has its own entries
+ * and exits, so searching this graph yields the same minimal costs
+ * as searching the board itself.</p>
+ *
+ * <p>Clusters are only computed when a search first visits them.
+ * Clusters without any pieces share the costs of a single empty
+ * cluster of the same size. When pieces are added to or removed from
+ * the board, only the clusters containing the changed positions are
+ * computed again, as registered by the changes since the epoch of
+ * the board at the last update.</p>
+ *
+ * <p>All costs are exact amounts in micro-watt-seconds, with
+ * {@link #UNREACHED} for exits which cannot be reached.</p>
+ *
+ * @invar	| getClusterSize() > 0
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class ClusterGraph {
+
+	/**
+	 * Create a new cluster graph for the given robot
+	 * with the default cluster size.
+	 *
+	 * @param robot
+	 * 			The robot for this new graph.
+	 *
+	 * @effect	| this(robot, DEFAULT_CLUSTER_SIZE)
+	 */
+	public ClusterGraph(Robot robot) throws IllegalArgumentException {
+		this(robot, DEFAULT_CLUSTER_SIZE);
+	}
+
+	/**
+	 * Create a new cluster graph for the given robot.
+	 *
+	 * @param robot
+	 * 			The robot for this new graph.
+	 * @param clusterSize
+	 * 			The width and height of the clusters.
+	 *
+	 * @post	| new.getRobot() == robot
+	 * @post	| new.getClusterSize() == clusterSize
+	 * @post	| new.isValidFor(robot)
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| robot == null || !robot.isPlaced()
+	 * @throws	IllegalArgumentException
+	 * 			| clusterSize <= 0 || clusterSize > MAX_CLUSTER_SIZE
+	 */
+	public ClusterGraph(Robot robot, int clusterSize) throws IllegalArgumentException {
+		if (robot == null || !robot.isPlaced())
+			throw new IllegalArgumentException("Robot must be effective and placed on a board.");
+		if (clusterSize <= 0 || clusterSize > MAX_CLUSTER_SIZE)
+			throw new IllegalArgumentException("Invalid cluster size: " + clusterSize);
+
+		this.robot = robot;
+		this.board = robot.getBoard();
+		this.clusterSize = clusterSize;
+		this.stepCost = robot.getStepCost().getMicroWattSeconds();
+		this.turnCost = robot.getTurnCost().getMicroWattSeconds();
+		this.epoch = board.getEpoch();
+	}
+
+	/**
+	 * The default width and height of the clusters.
+	 */
+	public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+	/**
+	 * The maximum width and height of the clusters.
+	 */
+	public static final int MAX_CLUSTER_SIZE = 64;
+
+	/**
+	 * Get the robot of this graph.
+	 */
+	@Basic
+	@Immutable
+	public Robot getRobot() {
+		return robot;
+	}
+
+	private final Robot robot;
+
+	/**
+	 * Get the board of this graph.
+	 */
+	@Basic
+	@Immutable
+	public Board getBoard() {
+		return board;
+	}
+
+	private final Board board;
+
+	/**
+	 * Get the width and height of the clusters of this graph.
+	 */
+	@Basic
+	@Immutable
+	public int getClusterSize() {
+		return clusterSize;
+	}
+
+	private final int clusterSize;
+
+	/**
+	 * Get the step cost in micro-watt-seconds of this graph.
+	 */
+	long getStepCost() {
+		return stepCost;
+	}
+
+	/**
+	 * Get the turn cost in micro-watt-seconds of this graph.
+	 */
+	long getTurnCost() {
+		return turnCost;
+	}
+
+	private final long stepCost;
+	private final long turnCost;
+
+	/**
+	 * Check whether this graph can be used for the given robot.
+	 *
+	 * @return	True if and only if the given robot is the robot of this
+	 * 			graph, it is still on the same board and its step cost and
+	 * 			turn cost are unchanged.
+	 *
+	 * @note	Changes to the board, including moves of the robot itself,
+	 * 			are handled by {@link #update()}.
+	 */
+	public boolean isValidFor(Robot robot) {
+		if (robot != getRobot() || robot.isTerminated())
+			return false;
+		return robot.getBoard() == board && stepCost == robot.getStepCost().getMicroWattSeconds()
+				&& turnCost == robot.getTurnCost().getMicroWattSeconds();
+	}
+
+	/*
+	 * Updating
+	 */
+
+	/**
+	 * Discard all clusters which changed since the last update.
+	 *
+	 * <p>If the changes since the last update are no longer
+	 * known by the board, all clusters are discarded.</p>
+	 */
+	public void update() {
+		if (board.getEpoch() == epoch)
+			return;
+
+		List<Vector> changes = board.getChangedPositions(epoch);
+		if (changes == null) {
+			clusters.clear();
+		} else {
+			for (Vector change : changes) {
+				clusters.remove(getClusterKey(change.getX(), change.getY()));
+			}
+		}
+		epoch = board.getEpoch();
+	}
+
+	/**
+	 * Variable registering the board epoch at the last update.
+	 */
+	private long epoch;
+
+	/*
+	 * Clusters
+	 */
+
+	/**
+	 * Get the key of the cluster containing the given position.
+	 */
+	Vector getClusterKey(long x, long y) {
+		return new Vector(x / clusterSize, y / clusterSize);
+	}
+
+	/**
+	 * Get the cluster with the given key, computing it if needed.
+	 */
+	Cluster getCluster(Vector key) {
+		Cluster cluster = clusters.get(key);
+		if (cluster == null) {
+			cluster = createCluster(key);
+			clusters.put(key, cluster);
+		}
+		return cluster;
+	}
+
+	/**
+	 * Get the number of clusters computed by this graph so far.
+	 */
+	public int getNbComputedClusters() {
+		return nbComputedClusters;
+	}
+
+	private int nbComputedClusters;
+
+	/**
+	 * Map mapping cluster keys to the computed clusters.
+	 */
+	private final Map<Vector, Cluster> clusters = new HashMap<Vector, Cluster>();
+
+	private Cluster createCluster(Vector key) {
+		long x = key.getX() * clusterSize, y = key.getY() * clusterSize;
+		int width = (int) Math.min(clusterSize, board.getWidth() - x);
+		int height = (int) Math.min(clusterSize, board.getHeight() - y);
+
+		if (isEmpty(x, y, width, height)) {
+			// Share the costs of an empty cluster of the same size
+			Cluster empty = emptyClusters.get(new Vector(width, height));
+			if (empty == null) {
+				empty = new Cluster(this, 0, 0, width, height, (boolean[]) null);
+				empty.computeCosts();
+				emptyClusters.put(new Vector(width, height), empty);
+				nbComputedClusters++;
+			}
+			return new Cluster(this, x, y, width, height, empty.costs);
+		}
+
+		Cluster cluster = new Cluster(this, x, y, width, height, new boolean[width * height]);
+		for (int cell = 0; cell < cluster.valid.length; cell++) {
+			cluster.valid[cell] = robot.canMoveTo(new Vector(x + cell % width, y + cell / width));
+		}
+		cluster.computeCosts();
+		nbComputedClusters++;
+		return cluster;
+	}
+
+	/**
+	 * Check whether the given rectangle of positions has no pieces.
+	 */
+	private boolean isEmpty(long x, long y, int width, int height) {
+		for (int row = 0; row < height; row++) {
+			Vector next = board.getNextOccupiedPosition(new Vector(x - 1, y + row), Orientation.RIGHT);
+			if (next != null && next.getX() < x + width)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Map mapping sizes to the computed empty clusters of that size.
+	 */
+	private final Map<Vector, Cluster> emptyClusters = new HashMap<Vector, Cluster>();
+
+	/**
+	 * A rectangle of positions on the board, together with the minimal
+	 * costs to travel from every entry to every exit.
+	 *
+	 * <p>Entries and exits are numbered by the orientation of the step
+	 * into or out of the cluster and the offset of the position along
+	 * the side of the cluster. An exit of a cluster has the same number
+	 * as the entry of the neighbouring cluster it leads to.</p>
+	 */
+	static class Cluster {
+
+		private Cluster(ClusterGraph graph, long x, long y, int width, int height, boolean[] valid) {
+			this.graph = graph;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.valid = valid;
+			this.nbEntries = ORIENTATIONS.length * graph.getClusterSize();
+		}
+
+		private Cluster(ClusterGraph graph, long x, long y, int width, int height, long[] costs) {
+			this(graph, x, y, width, height, (boolean[]) null);
+			this.costs = costs;
+		}
+
+		final ClusterGraph graph;
+		final long x, y;
+		final int width, height;
+
+		/**
+		 * The valid positions of this cluster by cell,
+		 * or null if all positions are valid.
+		 */
+		private final boolean[] valid;
+
+		/**
+		 * The number of entries and exits of every cluster.
+		 */
+		final int nbEntries;
+
+		/**
+		 * The minimal costs from every entry to every exit.
+		 */
+		private long[] costs;
+
+		/**
+		 * Get the minimal cost to travel from the given entry to the given exit.
+		 */
+		long getCost(int entry, int exit) {
+			return costs[entry * nbEntries + exit];
+		}
+
+		/**
+		 * Get the cell with the given coordinates relative to this cluster.
+		 */
+		int getCell(int column, int row) {
+			return row * width + column;
+		}
+
+		long getX(int cell) {
+			return x + cell % width;
+		}
+
+		long getY(int cell) {
+			return y + cell / width;
+		}
+
+		/**
+		 * Check whether the robot can stand on the given cell.
+		 */
+		boolean isValid(int cell) {
+			return valid == null || valid[cell];
+		}
+
+		/**
+		 * Get the cell at which the given entry enters this cluster,
+		 * or -1 if the entry does not exist.
+		 */
+		int getEntryCell(int entry) {
+			int orientation = entry / graph.getClusterSize(), offset = entry % graph.getClusterSize();
+			switch (ORIENTATIONS[orientation]) {
+			case RIGHT:
+				return (offset < height) ? getCell(0, offset) : -1;
+			case LEFT:
+				return (offset < height) ? getCell(width - 1, offset) : -1;
+			case DOWN:
+				return (offset < width) ? getCell(offset, 0) : -1;
+			default:
+				return (offset < width) ? getCell(offset, height - 1) : -1;
+			}
+		}
+
+		/**
+		 * Get the cell from which the given exit leaves this cluster,
+		 * or -1 if the exit does not exist.
+		 */
+		int getExitCell(int exit) {
+			// Leaving in an orientation starts from the side where
+			// entering in the opposite orientation arrives
+			return getEntryCell(getOpposite(exit));
+		}
+
+		/**
+		 * Get the entry on the opposite side at the same offset.
+		 */
+		int getOpposite(int entry) {
+			int size = graph.getClusterSize();
+			return ((entry / size + 2) % ORIENTATIONS.length) * size + entry % size;
+		}
+
+		/**
+		 * Get the orientation of the step through the given entry or exit.
+		 */
+		int getOrientation(int entry) {
+			return entry / graph.getClusterSize();
+		}
+
+		private void computeCosts() {
+			costs = new long[nbEntries * nbEntries];
+			Arrays.fill(costs, UNREACHED);
+			long[] g = new long[width * height * ORIENTATIONS.length];
+			for (int entry = 0; entry < nbEntries; entry++) {
+				int cell = getEntryCell(entry);
+				if (cell < 0 || !isValid(cell))
+					continue;
+				search(cell, getOrientation(entry), false, g, null);
+				for (int exit = 0; exit < nbEntries; exit++) {
+					costs[entry * nbEntries + exit] = getExitCost(g, exit);
+				}
+			}
+		}
+
+		/**
+		 * Get the minimal cost to leave through the given exit,
+		 * given the minimal costs to reach all states of this cluster.
+		 */
+		long getExitCost(long[] g, int exit) {
+			int cell = getExitCell(exit);
+			if (cell < 0)
+				return UNREACHED;
+			int orientation = getOrientation(exit);
+			long best = UNREACHED;
+			for (int i = 0; i < ORIENTATIONS.length; i++) {
+				long cost = RobotNode.add(g[cell * ORIENTATIONS.length + i],
+						RobotNode.getCost(0L, 0L, TURNS[i][orientation], graph.getTurnCost()));
+				best = Math.min(best, cost);
+			}
+			return RobotNode.add(best, graph.getStepCost());
+		}
+
+		/**
+		 * Search the minimal costs within this cluster.
+		 *
+		 * <p>A forward search finds the minimal cost to reach every state
+		 * from the state at the given cell and orientation. A backward
+		 * search finds the minimal cost to reach the given cell, in any
+		 * orientation, from every state.</p>
+		 *
+		 * @param g
+		 * 			The array in which to store the minimal costs by state.
+		 * @param parents
+		 * 			The array in which to store the previous state of
+		 * 			every state in a forward search, or null.
+		 */
+		void search(int cell, int orientation, boolean backward, long[] g, int[] parents) {
+			Arrays.fill(g, UNREACHED);
+			PackedOpenSet openSet = new PackedOpenSet();
+			int nbOrientations = ORIENTATIONS.length;
+			for (int i = 0; i < nbOrientations; i++) {
+				if (backward || i == orientation) {
+					int state = cell * nbOrientations + i;
+					g[state] = 0L;
+					if (parents != null)
+						parents[state] = -1;
+					openSet.push(state, 0.0d, 0L);
+				}
+			}
+
+			long stepCost = graph.getStepCost(), turnCost = graph.getTurnCost();
+			while (!openSet.isEmpty()) {
+				int state = (int) openSet.peekKey();
+				long stateG = openSet.peekG();
+				openSet.pop();
+				if (stateG != g[state])
+					continue;
+
+				int stateCell = state / nbOrientations, stateOrientation = state % nbOrientations;
+				int column = stateCell % width, row = stateCell / width;
+				for (int i = 0; i < nbOrientations; i++) {
+					// Forward steps go in any orientation, backward steps
+					// undo the step in the orientation of the state
+					int nextColumn, nextRow;
+					if (backward) {
+						nextColumn = column - (int) DELTA_X[stateOrientation];
+						nextRow = row - (int) DELTA_Y[stateOrientation];
+					} else {
+						nextColumn = column + (int) DELTA_X[i];
+						nextRow = row + (int) DELTA_Y[i];
+					}
+					if (nextColumn < 0 || nextColumn >= width || nextRow < 0 || nextRow >= height)
+						continue;
+					int nextCell = getCell(nextColumn, nextRow);
+					if (!isValid(nextCell))
+						continue;
+
+					int next = nextCell * nbOrientations + i;
+					int turns = backward ? TURNS[i][stateOrientation] : TURNS[stateOrientation][i];
+					long nextG = RobotNode.add(stateG, RobotNode.getCost(1L, stepCost, turns, turnCost));
+					if (nextG < g[next]) {
+						g[next] = nextG;
+						if (parents != null)
+							parents[next] = state;
+						openSet.push(next, (double) nextG, nextG);
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * The cost of states and exits which cannot be reached.
+	 */
+	static final long UNREACHED = Long.MAX_VALUE;
+
+	/**
+	 * The orientations in the order of their ordinals.
+	 */
+	static final Orientation[] ORIENTATIONS = Orientation.values();
+
+	/**
+	 * The horizontal and vertical steps of all orientations.
+	 */
+	static final long[] DELTA_X = new long[ORIENTATIONS.length], DELTA_Y = new long[ORIENTATIONS.length];
+
+	/**
+	 * The number of turns between each pair of orientations.
+	 */
+	static final int[][] TURNS = new int[ORIENTATIONS.length][ORIENTATIONS.length];
+
+	static {
+		for (Orientation from : ORIENTATIONS) {
+			DELTA_X[from.ordinal()] = from.getVector().getX();
+			DELTA_Y[from.ordinal()] = from.getVector().getY();
+			for (Orientation to : ORIENTATIONS) {
+				TURNS[from.ordinal()][to.ordinal()] = to.getDifference(from);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,470 @@
+package roborally.path;
+
+import java.util.List;
+
+import roborally.*;
+import roborally.Vector;
+import roborally.util.LongHashMap;
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * An incremental D* Lite algorithm to find the minimal energy cost
+ * for a robot to reach a target position.
+ *
+ * <p>The algorithm searches backwards from the target to the robot,
+ * on states of a position and the orientation in which the robot
+ * arrived there. Every state has its minimal cost to reach the
+ * target, as well as a one-step lookahead of this cost based on
+ * the costs of its successors. A state whose two costs differ is
+ * inconsistent, and only inconsistent states are expanded.</p>
+ *
+ * <p>The search state is kept between runs. When pieces are added to
+ * or removed from the board, as registered by the changes since the
+ * epoch of the board at the last run, only the states at and next to
+ * the changed positions become inconsistent. The next run only repairs
+ * the costs which depend on these states, which is usually far less
+ * work than searching again from scratch. The robot may move between
+ * runs, in which case all keys are raised by a bound on the change of
+ * the heuristic instead of rebuilding the open set.</p>
+ *
+ * <p>Costs are summed exactly in micro-watt-seconds, with
+ * {@link Long#MAX_VALUE} for states which cannot reach the target.
+ * Only the priorities, which merely order the open set,
+ * are approximated as doubles.</p>
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class DStarLite {
+
+	/**
+	 * Create a new D* Lite algorithm.
+	 *
+	 * @param robot
+	 * 			The robot for this new algorithm.
+	 * @param target
+	 * 			The target position for this new algorithm.
+	 *
+	 * @post	| new.getRobot() == robot
+	 * @post	| new.getTarget().equals(target)
+	 * @post	| new.isValidFor(robot)
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| robot == null || !robot.isPlaced()
+	 * @throws	IllegalArgumentException
+	 * 			| !PackedRobotAStar.canSearch(robot.getBoard())
+	 * @throws	IllegalArgumentException
+	 * 			| target == null
+	 */
+	public DStarLite(Robot robot, Vector target) throws IllegalArgumentException {
+		if (robot == null || !robot.isPlaced())
+			throw new IllegalArgumentException("Robot must be effective and placed on a board.");
+		if (!PackedRobotAStar.canSearch(robot.getBoard()))
+			throw new IllegalArgumentException("Board is too large for packed positions.");
+		if (target == null)
+			throw new IllegalArgumentException("Target position must be effective.");
+
+		this.robot = robot;
+		this.board = robot.getBoard();
+		this.target = target;
+		this.stepCost = robot.getStepCost().getMicroWattSeconds();
+		this.turnCost = robot.getTurnCost().getMicroWattSeconds();
+	}
+
+	/**
+	 * Get the robot of this algorithm.
+	 */
+	@Basic
+	@Immutable
+	public Robot getRobot() {
+		return robot;
+	}
+
+	private final Robot robot;
+
+	private final Board board;
+
+	/**
+	 * Get the target position of this algorithm.
+	 */
+	@Basic
+	@Immutable
+	public Vector getTarget() {
+		return target;
+	}
+
+	private final Vector target;
+
+	private final long stepCost;
+	private final long turnCost;
+
+	/**
+	 * Check whether this algorithm can still be run for the given robot.
+	 *
+	 * @return	True if and only if the given robot is the robot of this
+	 * 			algorithm, it is still on the same board and its step cost
+	 * 			and turn cost are unchanged.
+	 *
+	 * @note	Changes to the board, including moves of the robot itself,
+	 * 			are repaired by the next run.
+	 */
+	public boolean isValidFor(Robot robot) {
+		if (robot != getRobot() || robot.isTerminated())
+			return false;
+		return robot.getBoard() == board && stepCost == robot.getStepCost().getMicroWattSeconds()
+				&& turnCost == robot.getTurnCost().getMicroWattSeconds();
+	}
+
+	/*
+	 * Packing
+	 */
+
+	/**
+	 * Pack the given state into a single key.
+	 */
+	private static long pack(long x, long y, int orientation) {
+		return (x << 33) | (y << 2) | orientation;
+	}
+
+	private static long unpackX(long key) {
+		return key >>> 33;
+	}
+
+	private static long unpackY(long key) {
+		return (key >>> 2) & 0x7FFFFFFFL;
+	}
+
+	private static int unpackOrientation(long key) {
+		return (int) (key & 3L);
+	}
+
+	/*
+	 * Searching
+	 */
+
+	/**
+	 * Run the pathfinding algorithm, repairing the results of
+	 * the previous run.
+	 *
+	 * @return	True if and only if the target can be reached.
+	 *
+	 * @throws	IllegalStateException
+	 * 			If this algorithm is no longer valid for its robot.
+	 * 			| !isValidFor(getRobot())
+	 */
+	public boolean run() throws IllegalStateException {
+		if (!isValidFor(robot))
+			throw new IllegalStateException("Robot changed since the last run.");
+		nbExpandedNodes = 0;
+
+		long startX = robot.getPosition().getX(), startY = robot.getPosition().getY();
+		List<Vector> changes = isStarted ? board.getChangedPositions(epoch) : null;
+		if (changes == null) {
+			// Start from scratch at the target
+			states.clear();
+			openSet.clear();
+			keyModifier = 0.0d;
+			this.startX = startX;
+			this.startY = startY;
+			for (int i = 0; i < ORIENTATIONS.length; i++) {
+				update(pack(target.getX(), target.getY(), i));
+			}
+			isStarted = true;
+		} else {
+			// Raise all priorities by the largest change of the heuristic
+			if (startX != this.startX || startY != this.startY) {
+				keyModifier += (double) stepCost * (Math.abs(startX - this.startX) + Math.abs(startY - this.startY))
+						+ (double) turnCost * 2;
+				this.startX = startX;
+				this.startY = startY;
+			}
+			// Update the states at and next to the changed positions
+			for (Vector change : changes) {
+				long x = change.getX(), y = change.getY();
+				for (int i = 0; i < ORIENTATIONS.length; i++) {
+					update(pack(x, y, i));
+					updatePredecessors(x, y, i);
+				}
+			}
+		}
+		epoch = board.getEpoch();
+
+		if (!board.isValidPosition(target))
+			return false;
+		long startKey = pack(startX, startY, robot.getOrientation().ordinal());
+		computeCosts(startKey);
+		State start = states.get(startKey);
+		cost = (start == null) ? UNREACHED : start.rhs;
+		return cost != UNREACHED;
+	}
+
+	/**
+	 * Expand inconsistent states until the cost of the given
+	 * start state is known.
+	 */
+	private void computeCosts(long startKey) {
+		while (!openSet.isEmpty()) {
+			long key = openSet.peekKey();
+			double oldKey = openSet.peekF();
+			long oldMinimum = openSet.peekG();
+			State state = states.get(key);
+			// Skip outdated entries
+			if (!state.isQueued || state.key != oldKey || Math.min(state.g, state.rhs) != oldMinimum) {
+				openSet.pop();
+				continue;
+			}
+
+			// Stop when no inconsistent state can lower the start's cost
+			State start = states.get(startKey);
+			long startG = (start == null) ? UNREACHED : start.g;
+			long startRhs = (start == null) ? UNREACHED : start.rhs;
+			long startMinimum = Math.min(startG, startRhs);
+			if (!isBefore(oldKey, oldMinimum, getPriority(startKey, startG, startRhs), startMinimum)
+					&& !(startRhs > startG))
+				break;
+
+			openSet.pop();
+			double newKey = getPriority(key, state.g, state.rhs);
+			if (oldKey < newKey) {
+				// Heuristic changed since the state was queued
+				enqueue(key, state, newKey);
+				continue;
+			}
+
+			nbExpandedNodes++;
+			state.isQueued = false;
+			long x = unpackX(key), y = unpackY(key);
+			int orientation = unpackOrientation(key);
+			if (state.g > state.rhs) {
+				// Overconsistent, settle its cost
+				state.g = state.rhs;
+			} else {
+				// Underconsistent, raise its cost and update it as well
+				state.g = UNREACHED;
+				update(key);
+			}
+			updatePredecessors(x, y, orientation);
+		}
+	}
+
+	/**
+	 * Update all states from which the given state is reached with one step.
+	 */
+	private void updatePredecessors(long x, long y, int orientation) {
+		long previousX = x - DELTA_X[orientation], previousY = y - DELTA_Y[orientation];
+		if (!isOnBoard(previousX, previousY))
+			return;
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			update(pack(previousX, previousY, i));
+		}
+	}
+
+	/**
+	 * Recompute the lookahead cost of the given state,
+	 * and queue it if and only if it is inconsistent.
+	 */
+	private void update(long key) {
+		State state = states.get(key);
+		if (state == null) {
+			state = new State();
+			states.put(key, state);
+		}
+		state.rhs = getLookahead(key);
+		if (state.g != state.rhs)
+			enqueue(key, state, getPriority(key, state.g, state.rhs));
+		else
+			state.isQueued = false;
+	}
+
+	private void enqueue(long key, State state, double priority) {
+		state.isQueued = true;
+		state.key = priority;
+		openSet.push(key, priority, Math.min(state.g, state.rhs));
+	}
+
+	/**
+	 * Get the minimal cost to reach the target with one step
+	 * from the given state, using the costs of its successors.
+	 */
+	private long getLookahead(long key) {
+		long x = unpackX(key), y = unpackY(key);
+		if (!isValid(x, y))
+			return UNREACHED;
+		if (x == target.getX() && y == target.getY())
+			return 0L;
+
+		int orientation = unpackOrientation(key);
+		long best = UNREACHED;
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			long nextX = x + DELTA_X[i], nextY = y + DELTA_Y[i];
+			if (!isOnBoard(nextX, nextY))
+				continue;
+			State next = states.get(pack(nextX, nextY, i));
+			if (next == null || next.g == UNREACHED)
+				continue;
+			best = Math.min(best, RobotNode.add(next.g, RobotNode.getCost(1L, stepCost, TURNS[orientation][i], turnCost)));
+		}
+		return best;
+	}
+
+	/**
+	 * Check whether the first pair of priority and minimal cost
+	 * comes before the second pair.
+	 */
+	private static boolean isBefore(double priority, long minimum, double otherPriority, long otherMinimum) {
+		if (priority != otherPriority)
+			return priority < otherPriority;
+		return minimum < otherMinimum;
+	}
+
+	/**
+	 * Get the priority of the given state in the open set.
+	 * Ties are broken on the minimum of both its costs.
+	 */
+	private double getPriority(long key, long g, long rhs) {
+		return (double) Math.min(g, rhs) + estimateFromStart(unpackX(key), unpackY(key), unpackOrientation(key))
+				+ keyModifier;
+	}
+
+	/**
+	 * Estimate the cost to reach the given state from the robot.
+	 */
+	private double estimateFromStart(long x, long y, int orientation) {
+		// Arriving in an orientation from the robot takes as many turns
+		// as leaving in the opposite orientation towards the robot
+		long dx = startX - x, dy = startY - y;
+		Orientation opposite = ORIENTATIONS[(orientation + 2) % ORIENTATIONS.length];
+		return (double) stepCost * (Math.abs(dx) + Math.abs(dy)) + (double) turnCost * opposite.getMinimalTurns(dx, dy);
+	}
+
+	/**
+	 * Check whether the given coordinates lie on the board.
+	 */
+	private boolean isOnBoard(long x, long y) {
+		return (0 <= x && x < board.getWidth()) && (0 <= y && y < board.getHeight());
+	}
+
+	/**
+	 * Check whether the robot can stand at the given position.
+	 */
+	private boolean isValid(long x, long y) {
+		return PackedRobotAStar.canStandAt(robot, x, y);
+	}
+
+	/**
+	 * The costs of a state.
+	 */
+	private static class State {
+
+		/**
+		 * The minimal cost to reach the target.
+		 */
+		private long g = UNREACHED;
+
+		/**
+		 * The minimal cost to reach the target with one step
+		 * to a successor.
+		 */
+		private long rhs = UNREACHED;
+
+		/**
+		 * Whether this state is in the open set, and with which priority.
+		 */
+		private boolean isQueued;
+		private double key;
+
+	}
+
+	private final LongHashMap<State> states = new LongHashMap<State>();
+	private final PackedOpenSet openSet = new PackedOpenSet(true);
+
+	/**
+	 * Variable registering whether the first run has started.
+	 */
+	private boolean isStarted;
+
+	/**
+	 * Variable registering the board epoch at the last run.
+	 */
+	private long epoch;
+
+	/**
+	 * Variable registering the amount by which all priorities are raised
+	 * to account for the moves of the robot.
+	 */
+	private double keyModifier;
+
+	/**
+	 * The position of the robot in the last run.
+	 */
+	private long startX, startY;
+
+	/*
+	 * Results
+	 */
+
+	/**
+	 * Get the minimal energy cost to reach the target position.
+	 *
+	 * @return	The minimal cost found after running the algorithm.
+	 *
+	 * @throws	UnreachablePositionException
+	 * 			If the target cannot be reached.
+	 * 			| !run()
+	 * @throws	IllegalStateException
+	 * 			If this algorithm is no longer valid for its robot.
+	 * 			| !isValidFor(getRobot())
+	 */
+	public EnergyAmount getCost() throws UnreachablePositionException, IllegalStateException {
+		if (!run())
+			throw new UnreachablePositionException(getRobot(), getTarget());
+		return EnergyAmount.fromMicroWattSeconds(cost);
+	}
+
+	/**
+	 * Variable registering the cost in micro-watt-seconds found in the last run.
+	 */
+	private long cost = UNREACHED;
+
+	/**
+	 * The cost of states which cannot reach the target.
+	 */
+	private static final long UNREACHED = Long.MAX_VALUE;
+
+	/**
+	 * Get the number of states expanded in the last run.
+	 */
+	public int getNbExpandedNodes() {
+		return nbExpandedNodes;
+	}
+
+	private int nbExpandedNodes;
+
+	/**
+	 * The orientations in the order of their ordinals.
+	 */
+	private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+	/**
+	 * The horizontal and vertical steps of all orientations.
+	 */
+	private static final long[] DELTA_X = new long[ORIENTATIONS.length], DELTA_Y = new long[ORIENTATIONS.length];
+
+	/**
+	 * The number of turns between each pair of orientations.
+	 */
+	private static final int[][] TURNS = new int[ORIENTATIONS.length][ORIENTATIONS.length];
+
+	static {
+		for (Orientation from : ORIENTATIONS) {
+			DELTA_X[from.ordinal()] = from.getVector().getX();
+			DELTA_Y[from.ordinal()] = from.getVector().getY();
+			for (Orientation to : ORIENTATIONS) {
+				TURNS[from.ordinal()][to.ordinal()] = to.getDifference(from);
+			}
+		}
+	}
+
+}
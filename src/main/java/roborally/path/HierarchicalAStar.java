@@ -0,0 +1,462 @@
+package roborally.path;
+
+import java.util.*;
+
+import roborally.*;
+import roborally.Vector;
+import roborally.path.ClusterGraph.Cluster;
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * A hierarchical A* algorithm to find the minimal energy cost
+ * for a robot to reach a target position.
+ *
+ * <p>The algorithm first searches the abstract graph of entries into
+ * the clusters of a {@link ClusterGraph}, moving from one cluster to
+ * the next at the precomputed cost of crossing a cluster. Only the
+ * clusters of the robot and of the target are searched position by
+ * position, to leave the first cluster and to reach the target in the
+ * last cluster. The path through the abstract graph is then refined
+ * into a path of positions by searching each cluster on the path
+ * locally.</p>
+ *
+ * <p>The abstract graph is guided by the same consistent heuristic as
+ * {@link MinimalCostAStar}, and its costs are exact. Therefore, this
+ * algorithm finds the same minimal costs, while the costs of clusters
+ * are reused by every search on the same graph.</p>
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class HierarchicalAStar {
+
+	/**
+	 * Create a new hierarchical A* algorithm with a new cluster graph.
+	 *
+	 * @param robot
+	 * 			The robot for this new algorithm.
+	 * @param target
+	 * 			The target position for this new algorithm.
+	 *
+	 * @effect	| this(new ClusterGraph(robot), target)
+	 */
+	public HierarchicalAStar(Robot robot, Vector target) throws IllegalArgumentException {
+		this(new ClusterGraph(robot), target);
+	}
+
+	/**
+	 * Create a new hierarchical A* algorithm on the given cluster graph.
+	 *
+	 * @param graph
+	 * 			The cluster graph for this new algorithm.
+	 * @param target
+	 * 			The target position for this new algorithm.
+	 *
+	 * @post	| new.getGraph() == graph
+	 * @post	| new.getTarget().equals(target)
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| graph == null || !graph.isValidFor(graph.getRobot())
+	 * @throws	IllegalArgumentException
+	 * 			| target == null
+	 */
+	public HierarchicalAStar(ClusterGraph graph, Vector target) throws IllegalArgumentException {
+		if (graph == null || !graph.isValidFor(graph.getRobot()))
+			throw new IllegalArgumentException("Graph must be effective and valid for its robot.");
+		if (target == null)
+			throw new IllegalArgumentException("Target position must be effective.");
+
+		this.graph = graph;
+		this.target = target;
+	}
+
+	/**
+	 * Get the cluster graph of this algorithm.
+	 */
+	@Basic
+	@Immutable
+	public ClusterGraph getGraph() {
+		return graph;
+	}
+
+	private final ClusterGraph graph;
+
+	/**
+	 * Get the robot of this algorithm.
+	 *
+	 * @return	| result == getGraph().getRobot()
+	 */
+	public Robot getRobot() {
+		return graph.getRobot();
+	}
+
+	/**
+	 * Get the target position of this algorithm.
+	 */
+	@Basic
+	@Immutable
+	public Vector getTarget() {
+		return target;
+	}
+
+	private final Vector target;
+
+	/*
+	 * Searching
+	 */
+
+	/**
+	 * Run the pathfinding algorithm.
+	 *
+	 * @effect	The cluster graph is updated with the changes
+	 * 			to its board.
+	 * 			| getGraph().update()
+	 * @return	True if and only if the target was reached.
+	 */
+	public boolean run() {
+		graph.update();
+		clearNodes();
+		nbExpandedNodes = 0;
+		cost = UNREACHED;
+
+		Robot robot = getRobot();
+		Board board = robot.getBoard();
+		stepCost = graph.getStepCost();
+		turnCost = graph.getTurnCost();
+		targetX = target.getX();
+		targetY = target.getY();
+
+		if (!board.isValidPosition(target) || !robot.canMoveTo(target))
+			return false;
+		if (robot.getPosition().equals(target)) {
+			cost = 0L;
+			return true;
+		}
+
+		// Minimal costs to reach the target from its cluster
+		Vector startKey = getClusterKey(robot.getPosition()), targetKey = getClusterKey(target);
+		Cluster targetCluster = graph.getCluster(targetKey);
+		targetCosts = new long[targetCluster.width * targetCluster.height * ORIENTATIONS.length];
+		targetCluster.search(getCell(targetCluster, targetX, targetY), 0, true, targetCosts, null);
+
+		// Leave the cluster of the robot
+		Cluster startCluster = graph.getCluster(startKey);
+		long[] startCosts = new long[startCluster.width * startCluster.height * ORIENTATIONS.length];
+		startCluster.search(getCell(startCluster, robot.getPosition().getX(), robot.getPosition().getY()), robot
+				.getOrientation().ordinal(), false, startCosts, null);
+		if (startKey.equals(targetKey))
+			relaxTarget(getTargetCost(startCosts, targetCluster), NO_PARENT);
+		for (int exit = 0; exit < startCluster.nbEntries; exit++) {
+			relaxEntry(startCluster, exit, startCluster.getExitCost(startCosts, exit), NO_PARENT);
+		}
+
+		while (!openSet.isEmpty()) {
+			int node = (int) openSet.peekKey();
+			long g = openSet.peekG();
+			openSet.pop();
+			if (nodeClosed[node] || g != nodeG[node])
+				continue;
+			nodeClosed[node] = true;
+
+			// If this is the target, we're finished
+			if (node == TARGET) {
+				cost = g;
+				return true;
+			}
+			nbExpandedNodes++;
+
+			// Reach the target or cross the cluster
+			Cluster cluster = graph.getCluster(nodeClusters[node]);
+			int entry = nodeEntries[node];
+			if (nodeClusters[node].equals(targetKey)) {
+				int state = cluster.getEntryCell(entry) * ORIENTATIONS.length + cluster.getOrientation(entry);
+				relaxTarget(RobotNode.add(g, targetCosts[state]), node);
+			}
+			for (int exit = 0; exit < cluster.nbEntries; exit++) {
+				long exitCost = cluster.getCost(entry, exit);
+				if (exitCost != UNREACHED)
+					relaxEntry(cluster, exit, RobotNode.add(g, exitCost), node);
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Store the given G-score for the target if it improves on its
+	 * current G-score.
+	 */
+	private void relaxTarget(long g, int parent) {
+		if (g < nodeG[TARGET]) {
+			nodeG[TARGET] = g;
+			nodeParents[TARGET] = parent;
+			openSet.push(TARGET, (double) g, g);
+		}
+	}
+
+	/**
+	 * Store the given G-score for the entry of the neighbouring cluster
+	 * reached through the given exit, if the robot can stand at that
+	 * entry and it improves on its current G-score.
+	 */
+	private void relaxEntry(Cluster cluster, int exit, long g, int parent) {
+		if (g == UNREACHED)
+			return;
+		int cell = cluster.getExitCell(exit), orientation = cluster.getOrientation(exit);
+		long x = cluster.getX(cell) + DELTA_X[orientation], y = cluster.getY(cell) + DELTA_Y[orientation];
+		Vector position = new Vector(x, y);
+		if (!getRobot().getBoard().isValidPosition(position))
+			return;
+
+		Vector key = getClusterKey(x, y);
+		int[] entries = nodesByCluster.get(key);
+		int node = (entries == null) ? -1 : entries[exit];
+		if (node < 0) {
+			// New entry, which must be a valid position
+			if (!getRobot().canMoveTo(position))
+				return;
+			if (entries == null) {
+				entries = new int[cluster.nbEntries];
+				Arrays.fill(entries, -1);
+				nodesByCluster.put(key, entries);
+			}
+			node = addNode(key, exit);
+			entries[exit] = node;
+		} else if (nodeClosed[node] || !(g < nodeG[node])) {
+			return;
+		}
+
+		nodeG[node] = g;
+		nodeParents[node] = parent;
+		openSet.push(node, (double) g + estimateToTarget(x, y, orientation), g);
+	}
+
+	/**
+	 * Get the minimal cost to reach the target, given the minimal
+	 * costs to reach all states of its cluster.
+	 */
+	private long getTargetCost(long[] g, Cluster targetCluster) {
+		int cell = getCell(targetCluster, targetX, targetY);
+		long best = UNREACHED;
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			best = Math.min(best, g[cell * ORIENTATIONS.length + i]);
+		}
+		return best;
+	}
+
+	/**
+	 * Estimate the cost to reach the target from the given state.
+	 */
+	private double estimateToTarget(long x, long y, int orientation) {
+		long dx = targetX - x, dy = targetY - y;
+		// Sum the distances as doubles, since they may not fit in a long
+		double distance = (double) Math.abs(dx) + (double) Math.abs(dy);
+		return (double) stepCost * distance + (double) turnCost * ORIENTATIONS[orientation].getMinimalTurns(dx, dy);
+	}
+
+	private Vector getClusterKey(Vector position) {
+		return getClusterKey(position.getX(), position.getY());
+	}
+
+	private Vector getClusterKey(long x, long y) {
+		return graph.getClusterKey(x, y);
+	}
+
+	private static int getCell(Cluster cluster, long x, long y) {
+		return cluster.getCell((int) (x - cluster.x), (int) (y - cluster.y));
+	}
+
+	private long stepCost, turnCost;
+	private long targetX, targetY;
+
+	/**
+	 * The minimal costs to reach the target from all states of its cluster.
+	 */
+	private long[] targetCosts;
+
+	/*
+	 * Abstract nodes
+	 */
+
+	/**
+	 * Remove all abstract nodes except for the target.
+	 */
+	private void clearNodes() {
+		nodesByCluster.clear();
+		openSet.clear();
+		nbNodes = 1;
+		nodeG[TARGET] = UNREACHED;
+		nodeParents[TARGET] = NO_PARENT;
+		nodeClosed[TARGET] = false;
+	}
+
+	/**
+	 * Add an abstract node for the given entry of the given cluster.
+	 *
+	 * @return	The index of the new node.
+	 */
+	private int addNode(Vector clusterKey, int entry) {
+		if (nbNodes == nodeG.length) {
+			int capacity = nbNodes * 2;
+			nodeClusters = Arrays.copyOf(nodeClusters, capacity);
+			nodeEntries = Arrays.copyOf(nodeEntries, capacity);
+			nodeG = Arrays.copyOf(nodeG, capacity);
+			nodeParents = Arrays.copyOf(nodeParents, capacity);
+			nodeClosed = Arrays.copyOf(nodeClosed, capacity);
+		}
+		int node = nbNodes++;
+		nodeClusters[node] = clusterKey;
+		nodeEntries[node] = entry;
+		nodeG[node] = UNREACHED;
+		nodeParents[node] = NO_PARENT;
+		nodeClosed[node] = false;
+		return node;
+	}
+
+	/**
+	 * The index of the abstract node of the target.
+	 */
+	private static final int TARGET = 0;
+
+	/**
+	 * The parent index of nodes reached directly from the robot.
+	 */
+	private static final int NO_PARENT = -1;
+
+	private int nbNodes;
+	private Vector[] nodeClusters = new Vector[64];
+	private int[] nodeEntries = new int[64];
+	private long[] nodeG = new long[64];
+	private int[] nodeParents = new int[64];
+	private boolean[] nodeClosed = new boolean[64];
+
+	/**
+	 * Map mapping cluster keys to the node indices of their entries.
+	 */
+	private final Map<Vector, int[]> nodesByCluster = new HashMap<Vector, int[]>();
+
+	private final PackedOpenSet openSet = new PackedOpenSet();
+
+	/*
+	 * Results
+	 */
+
+	/**
+	 * Get the minimal energy cost to reach the target position.
+	 *
+	 * @return	The cost of the best path found after running
+	 * 			the algorithm.
+	 *
+	 * @throws	UnreachablePositionException
+	 * 			If no path to the target was found.
+	 * 			| !run()
+	 */
+	public EnergyAmount getCost() throws UnreachablePositionException {
+		if (!run())
+			throw new UnreachablePositionException(getRobot(), getTarget());
+		return EnergyAmount.fromMicroWattSeconds(cost);
+	}
+
+	/**
+	 * Variable registering the cost in micro-watt-seconds of the best path
+	 * found in the last run.
+	 */
+	private long cost = UNREACHED;
+
+	/**
+	 * Get the positions on the best path to the target position.
+	 *
+	 * <p>The abstract path is refined by searching the best path
+	 * within each cluster on the path.</p>
+	 *
+	 * @return	A list of positions starting at the robot's position and
+	 * 			ending at the target position, in which every position
+	 * 			neighbours the previous position.
+	 *
+	 * @throws	UnreachablePositionException
+	 * 			If no path to the target was found.
+	 * 			| !run()
+	 */
+	public List<Vector> getPath() throws UnreachablePositionException {
+		if (!run())
+			throw new UnreachablePositionException(getRobot(), getTarget());
+
+		Robot robot = getRobot();
+		List<Vector> path = new ArrayList<Vector>();
+		path.add(robot.getPosition());
+		if (cost == 0L)
+			return path;
+
+		// Collect the entries on the abstract path
+		LinkedList<Integer> nodes = new LinkedList<Integer>();
+		for (int node = nodeParents[TARGET]; node != NO_PARENT; node = nodeParents[node]) {
+			nodes.addFirst(node);
+		}
+
+		// Refine the path from the robot through every entry to the target
+		Cluster cluster = graph.getCluster(getClusterKey(robot.getPosition()));
+		int cell = getCell(cluster, robot.getPosition().getX(), robot.getPosition().getY());
+		int orientation = robot.getOrientation().ordinal();
+		for (Integer node : nodes) {
+			refine(cluster, cell, orientation, nodeEntries[node], path);
+			cluster = graph.getCluster(nodeClusters[node]);
+			cell = cluster.getEntryCell(nodeEntries[node]);
+			orientation = cluster.getOrientation(nodeEntries[node]);
+			path.add(new Vector(cluster.getX(cell), cluster.getY(cell)));
+		}
+		refine(cluster, cell, orientation, -1, path);
+		return path;
+	}
+
+	/**
+	 * Add the positions on the best path within the given cluster from
+	 * the given state to the given exit, or to the target if the exit
+	 * is negative. The position of the given state is not added.
+	 */
+	private void refine(Cluster cluster, int cell, int orientation, int exit, List<Vector> path) {
+		int nbStates = cluster.width * cluster.height * ORIENTATIONS.length;
+		long[] g = new long[nbStates];
+		int[] parents = new int[nbStates];
+		cluster.search(cell, orientation, false, g, parents);
+
+		// Find the best final state
+		int endCell = (exit < 0) ? getCell(cluster, targetX, targetY) : cluster.getExitCell(exit);
+		int best = -1;
+		long bestCost = UNREACHED;
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			int state = endCell * ORIENTATIONS.length + i;
+			long stateCost = g[state];
+			if (exit >= 0)
+				stateCost = RobotNode.add(stateCost,
+						RobotNode.getCost(0L, 0L, TURNS[i][cluster.getOrientation(exit)], turnCost));
+			if (stateCost < bestCost) {
+				bestCost = stateCost;
+				best = state;
+			}
+		}
+
+		LinkedList<Vector> positions = new LinkedList<Vector>();
+		for (int state = best; parents[state] >= 0; state = parents[state]) {
+			int stateCell = state / ORIENTATIONS.length;
+			positions.addFirst(new Vector(cluster.getX(stateCell), cluster.getY(stateCell)));
+		}
+		path.addAll(positions);
+	}
+
+	/**
+	 * Get the number of abstract nodes expanded in the last run.
+	 */
+	public int getNbExpandedNodes() {
+		return nbExpandedNodes;
+	}
+
+	private int nbExpandedNodes;
+
+	private static final Orientation[] ORIENTATIONS = ClusterGraph.ORIENTATIONS;
+	private static final long[] DELTA_X = ClusterGraph.DELTA_X, DELTA_Y = ClusterGraph.DELTA_Y;
+	private static final int[][] TURNS = ClusterGraph.TURNS;
+	private static final long UNREACHED = ClusterGraph.UNREACHED;
+
+}
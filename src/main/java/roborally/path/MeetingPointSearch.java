@@ -0,0 +1,409 @@
+package roborally.path;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import roborally.Vector;
+import roborally.util.Parallel;
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * An algorithm to find a closest pair of distinct positions
+ * from two sets of positions with an energy cost.
+ *
+ * <p>The first set holds the positions reachable by one robot,
+ * the second set those reachable by another robot. The resulting
+ * pair has the smallest Manhattan distance greater than zero,
+ * and the smallest total cost of all pairs at that distance.</p>
+ *
+ * <p>The plane around every first position is split into four
+ * half-open quadrants. Within a quadrant, the Manhattan distance
+ * to a second position equals the difference of their coordinate
+ * sums, so the closest and cheapest second position is found
+ * with a sweep over the first coordinate and a Fenwick tree over
+ * the second coordinate. The search takes O(n log n) time for
+ * n positions in total, regardless of the distance between
+ * both sets.</p>
+ *
+ * <p>The four quadrants are swept independently, and can
+ * be swept in parallel.</p>
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class MeetingPointSearch {
+
+	/**
+	 * Create a new meeting point search with empty sets.
+	 */
+	public MeetingPointSearch() {
+	}
+
+	/**
+	 * Add a position with its cost to the first set.
+	 *
+	 * @param position
+	 * 			The position to add.
+	 * @param cost
+	 * 			The cost to reach the given position.
+	 */
+	public void addFirst(Vector position, double cost) {
+		first.add(position.getX(), position.getY(), cost);
+	}
+
+	/**
+	 * Add a position with its cost to the second set.
+	 *
+	 * @param position
+	 * 			The position to add.
+	 * @param cost
+	 * 			The cost to reach the given position.
+	 */
+	public void addSecond(Vector position, double cost) {
+		second.add(position.getX(), position.getY(), cost);
+	}
+
+	private final PositionSet first = new PositionSet();
+	private final PositionSet second = new PositionSet();
+
+	/**
+	 * Run the search for the best pair of positions.
+	 *
+	 * @return	| result == run(false)
+	 */
+	public boolean run() {
+		return run(false);
+	}
+
+	/**
+	 * Run the search for the best pair of positions.
+	 *
+	 * @param parallel
+	 * 			Whether to sweep the four quadrants in parallel
+	 * 			on the shared fork/join pool.
+	 *
+	 * @return	True if and only if a pair of distinct positions was found.
+	 * 			The same pair is found in parallel and sequential mode.
+	 */
+	public boolean run(boolean parallel) {
+		bestDistance = Long.MAX_VALUE;
+		bestCost = Double.POSITIVE_INFINITY;
+		bestFirst = -1;
+		bestSecond = -1;
+
+		if (first.size == 0 || second.size == 0)
+			return false;
+
+		Sweep[] sweeps = new Sweep[4];
+		for (int rotation = 0; rotation < sweeps.length; rotation++) {
+			sweeps[rotation] = new Sweep(rotation);
+		}
+		Parallel.invokeAll(parallel, sweeps);
+
+		// Merge in a fixed order, so ties are broken as in a single sweep
+		for (Sweep sweep : sweeps) {
+			if (sweep.bestFirst >= 0)
+				consider(sweep.bestDistance, sweep.bestCost, sweep.bestFirst, sweep.bestSecond);
+		}
+		return isFound();
+	}
+
+	/**
+	 * A sweep finding the best second position in one quadrant
+	 * for all first positions.
+	 *
+	 * <p>Both sets are rotated such that the quadrant contains
+	 * the second positions with a strictly greater A-coordinate
+	 * and a greater or equal B-coordinate. The four rotations
+	 * together cover the whole plane except for the first
+	 * position itself.</p>
+	 */
+	private class Sweep extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int rotation;
+		private long bestDistance = Long.MAX_VALUE;
+		private double bestCost = Double.POSITIVE_INFINITY;
+		private int bestFirst = -1, bestSecond = -1;
+
+		private Sweep(int rotation) {
+			this.rotation = rotation;
+		}
+
+		@Override
+		protected void compute() {
+			long[] firstA = new long[first.size], firstB = new long[first.size];
+			long[] secondA = new long[second.size], secondB = new long[second.size];
+			first.rotate(rotation, firstA, firstB);
+			second.rotate(rotation, secondA, secondB);
+
+			// Compress the B-coordinates of the second set
+			long[] bs = Arrays.copyOf(secondB, second.size);
+			Arrays.sort(bs);
+			int nbBs = unique(bs);
+
+			// Suffix minima of the second positions over their B-coordinates,
+			// ordered by their coordinate sum and then by their cost
+			long[] treeSum = new long[nbBs + 1];
+			double[] treeCost = new double[nbBs + 1];
+			int[] treeIndex = new int[nbBs + 1];
+			Arrays.fill(treeIndex, -1);
+
+			// Sweep both sets from high to low A-coordinates, querying the first
+			// positions before inserting the second positions with the same
+			// A-coordinate so only strictly greater A-coordinates are found
+			int[] firstOrder = sortDescending(firstA);
+			int[] secondOrder = sortDescending(secondA);
+			int j = 0;
+			for (int f : firstOrder) {
+				long a = firstA[f], b = firstB[f];
+				while (j < secondOrder.length && secondA[secondOrder[j]] > a) {
+					int s = secondOrder[j++];
+					int pos = Arrays.binarySearch(bs, 0, nbBs, secondB[s]);
+					update(treeSum, treeCost, treeIndex, nbBs - pos, secondA[s] + secondB[s], second.costs[s], s);
+				}
+
+				int pos = lowerBound(bs, nbBs, b);
+				if (pos == nbBs)
+					continue;
+				int index = -1;
+				long sum = 0L;
+				double cost = 0.0d;
+				for (int i = nbBs - pos; i > 0; i -= i & -i) {
+					if (isBetter(treeSum[i], treeCost[i], treeIndex[i], sum, cost, index)) {
+						sum = treeSum[i];
+						cost = treeCost[i];
+						index = treeIndex[i];
+					}
+				}
+				if (index >= 0)
+					consider(sum - (a + b), first.costs[f] + cost, f, index);
+			}
+		}
+
+		/**
+		 * Store the given pair if it is closer than the best pair
+		 * of this sweep, or as close but cheaper.
+		 */
+		private void consider(long distance, double cost, int firstIndex, int secondIndex) {
+			if (distance < bestDistance || (distance == bestDistance && cost < bestCost)) {
+				bestDistance = distance;
+				bestCost = cost;
+				bestFirst = firstIndex;
+				bestSecond = secondIndex;
+			}
+		}
+
+	}
+
+	private static void update(long[] treeSum, double[] treeCost, int[] treeIndex, int position, long sum,
+			double cost, int index) {
+		for (int i = position; i < treeSum.length; i += i & -i) {
+			if (isBetter(sum, cost, index, treeSum[i], treeCost[i], treeIndex[i])) {
+				treeSum[i] = sum;
+				treeCost[i] = cost;
+				treeIndex[i] = index;
+			}
+		}
+	}
+
+	/**
+	 * Check whether the first entry has a smaller coordinate sum than
+	 * the second entry, or an equal sum and a smaller cost.
+	 * An entry without an index is worse than any other entry.
+	 */
+	private static boolean isBetter(long sum, double cost, int index, long otherSum, double otherCost,
+			int otherIndex) {
+		if (index < 0)
+			return false;
+		if (otherIndex < 0)
+			return true;
+		return sum < otherSum || (sum == otherSum && cost < otherCost);
+	}
+
+	/**
+	 * Store the given pair if it is closer than the current best pair,
+	 * or as close but cheaper.
+	 */
+	private void consider(long distance, double cost, int firstIndex, int secondIndex) {
+		if (distance < bestDistance || (distance == bestDistance && cost < bestCost)) {
+			bestDistance = distance;
+			bestCost = cost;
+			bestFirst = firstIndex;
+			bestSecond = secondIndex;
+		}
+	}
+
+	/**
+	 * Remove duplicates from the given sorted array.
+	 *
+	 * @return	The number of distinct values, which are
+	 * 			stored at the start of the array.
+	 */
+	private static int unique(long[] values) {
+		int size = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (size == 0 || values[size - 1] != values[i])
+				values[size++] = values[i];
+		}
+		return size;
+	}
+
+	/**
+	 * Get the index of the first value in the given sorted array
+	 * which is greater than or equal to the given key.
+	 */
+	private static int lowerBound(long[] values, int size, long key) {
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] < key)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Get the indices of the given keys, sorted from high to low keys.
+	 * The sort is stable, so indices with equal keys remain in order.
+	 */
+	private static int[] sortDescending(long[] keys) {
+		int[] order = new int[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		mergeSort(keys, order, new int[order.length], 0, order.length);
+		return order;
+	}
+
+	private static void mergeSort(long[] keys, int[] order, int[] buffer, int from, int to) {
+		if (to - from < 2)
+			return;
+		int mid = (from + to) >>> 1;
+		mergeSort(keys, order, buffer, from, mid);
+		mergeSort(keys, order, buffer, mid, to);
+		int i = from, j = mid, k = from;
+		while (i < mid && j < to) {
+			buffer[k++] = (keys[order[j]] > keys[order[i]]) ? order[j++] : order[i++];
+		}
+		while (i < mid) {
+			buffer[k++] = order[i++];
+		}
+		while (j < to) {
+			buffer[k++] = order[j++];
+		}
+		System.arraycopy(buffer, from, order, from, to - from);
+	}
+
+	/*
+	 * Results
+	 */
+
+	/**
+	 * Check whether the last run found a pair of distinct positions.
+	 */
+	public boolean isFound() {
+		return bestFirst >= 0;
+	}
+
+	/**
+	 * Get the position from the first set in the best pair.
+	 *
+	 * @throws	IllegalStateException
+	 * 			| !isFound()
+	 */
+	public Vector getFirstPosition() throws IllegalStateException {
+		if (!isFound())
+			throw new IllegalStateException("No pair was found.");
+		return new Vector(first.xs[bestFirst], first.ys[bestFirst]);
+	}
+
+	/**
+	 * Get the position from the second set in the best pair.
+	 *
+	 * @throws	IllegalStateException
+	 * 			| !isFound()
+	 */
+	public Vector getSecondPosition() throws IllegalStateException {
+		if (!isFound())
+			throw new IllegalStateException("No pair was found.");
+		return new Vector(second.xs[bestSecond], second.ys[bestSecond]);
+	}
+
+	/**
+	 * Get the Manhattan distance between the positions in the best pair.
+	 */
+	@Basic
+	public long getDistance() {
+		return bestDistance;
+	}
+
+	/**
+	 * Get the total cost of the positions in the best pair.
+	 */
+	@Basic
+	public double getCost() {
+		return bestCost;
+	}
+
+	private long bestDistance = Long.MAX_VALUE;
+	private double bestCost = Double.POSITIVE_INFINITY;
+	private int bestFirst = -1, bestSecond = -1;
+
+	/**
+	 * A growable set of positions with their costs,
+	 * together with their rotated coordinates.
+	 */
+	private static class PositionSet {
+
+		private long[] xs = new long[16], ys = new long[16];
+		private double[] costs = new double[16];
+		private int size;
+
+		private void add(long x, long y, double cost) {
+			if (size == xs.length) {
+				xs = Arrays.copyOf(xs, size * 2);
+				ys = Arrays.copyOf(ys, size * 2);
+				costs = Arrays.copyOf(costs, size * 2);
+			}
+			xs[size] = x;
+			ys[size] = y;
+			costs[size] = cost;
+			size++;
+		}
+
+		/**
+		 * Compute the rotated coordinates of all positions,
+		 * rotating the plane clockwise the given number of times.
+		 */
+		private void rotate(int rotation, long[] a, long[] b) {
+			for (int i = 0; i < size; i++) {
+				long x = xs[i], y = ys[i];
+				switch (rotation) {
+				case 0:
+					a[i] = x;
+					b[i] = y;
+					break;
+				case 1:
+					a[i] = y;
+					b[i] = -x;
+					break;
+				case 2:
+					a[i] = -x;
+					b[i] = -y;
+					break;
+				default:
+					a[i] = -y;
+					b[i] = x;
+					break;
+				}
+			}
+		}
+
+	}
+
+}
@@ -42,21 +42,33 @@ public class MinimalCostNode extends RobotNode {
 	}
 
 	/**
-	 * @effect	The estimated remaining cost is set to the product of
-	 * 			this robot's step cost and the Manhattan distance
-	 * 			between this node and the target.
+	 * @effect	The estimated remaining cost is set to the sum of
+	 * 			the product of this robot's step cost and the Manhattan
+	 * 			distance between this node and the target, and the product
+	 * 			of this robot's turn cost and the minimal amount of turns
+	 * 			needed to travel from this node to the target.
 	 * 			| let
 	 * 			|   amountOfSteps = getPosition().manhattanDistance(target.getPosition())
-	 * 			| setH(getRobot().getStepCost().multiply(amountOfSteps))
+	 * 			|   amountOfTurns = getOrientation().getMinimalTurns(
+	 * 			|      target.getPosition().subtract(getPosition()))
+	 * 			| setH(getRobot().getStepCost().multiply(amountOfSteps)
+	 * 			|   .add(getRobot().getTurnCost().multiply(amountOfTurns)))
+	 * @note	This estimate never exceeds the actual remaining cost,
+	 * 			since every path to the target takes at least as many steps
+	 * 			as the Manhattan distance and at least as many turns
+	 * 			as the minimal amount of turns.
 	 */
 	@Override
 	public void calculateH(Node<EnergyAmount> target) throws IllegalArgumentException {
 		if (target == null)
 			throw new IllegalArgumentException("Target must be not effective.");
 
-		long amountOfSteps = getPosition().manhattanDistance(target.getPosition());
-		EnergyAmount h = getRobot().getStepCost().multiply(amountOfSteps);
-		setH(h);
+		Vector targetPosition = target.getPosition();
+		long amountOfSteps = getPosition().manhattanDistance(targetPosition);
+		int amountOfTurns = getOrientation().getMinimalTurns(targetPosition.getX() - getPosition().getX(),
+				targetPosition.getY() - getPosition().getY());
+		setH(getCost(amountOfSteps, getRobot().getStepCost().getMicroWattSeconds(), amountOfTurns, getRobot()
+				.getTurnCost().getMicroWattSeconds()));
 	}
 
 	@Override
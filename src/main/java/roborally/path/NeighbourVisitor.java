@@ -0,0 +1,44 @@
+package roborally.path;
+
+import roborally.Vector;
+
+/**
+ * A visitor of the neighbour nodes of a node.
+ *
+ * <p>Before a neighbour node is created, the visitor is asked
+ * whether it accepts a neighbour at its position with the sorting
+ * key of its actual cost. Nodes are only created and visited for
+ * accepted neighbours.</p>
+ *
+ * @param <V>
+ * 			The cost value type.
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public interface NeighbourVisitor<V extends Comparable<? super V>> {
+
+	/**
+	 * Check whether this visitor accepts a neighbour node
+	 * at the given position with the given actual cost.
+	 *
+	 * @param position
+	 * 			The position of the neighbour node.
+	 * @param g
+	 * 			The actual cost from the start node to the neighbour node,
+	 * 			as a sorting key.
+	 *
+	 * @see Node#getGKey()
+	 */
+	boolean accepts(Vector position, double g);
+
+	/**
+	 * Visit the given neighbour node.
+	 *
+	 * @param neighbour
+	 * 			The neighbour node.
+	 */
+	void visit(Node<V> neighbour);
+
+}
@@ -87,6 +87,14 @@ public abstract class Node<V extends Comparable<? super V>> implements Comparabl
 		this.g = g;
 	}
 	
+	/**
+	 * Get the actual cost from the start node to this node
+	 * as a sorting key.
+	 * 
+	 * <p>Nodes at the same position are compared on this key.</p>
+	 */
+	public abstract double getGKey();
+
 	/**
 	 * Reset the actual cost from the start node to this node
 	 * to zero.
@@ -221,6 +229,27 @@ public abstract class Node<V extends Comparable<? super V>> implements Comparabl
 	 */
 	public abstract Collection<Node<V>> getNeighbours();
 
+	/**
+	 * Visit the neighbour nodes of this node which
+	 * are accepted by the given visitor.
+	 *
+	 * @param visitor
+	 * 			The visitor of the neighbour nodes.
+	 *
+	 * @effect	| for each neighbour in getNeighbours() :
+	 * 			|   if (visitor.accepts(neighbour.getPosition(), neighbour.getGKey()))
+	 * 			|     visitor.visit(neighbour)
+	 *
+	 * @note	Subclasses should override this method to check
+	 * 			whether a neighbour is accepted before creating it.
+	 */
+	public void visitNeighbours(NeighbourVisitor<V> visitor) {
+		for (Node<V> neighbour : getNeighbours()) {
+			if (visitor.accepts(neighbour.getPosition(), neighbour.getGKey()))
+				visitor.visit(neighbour);
+		}
+	}
+
 	/**
 	 * @return	The total estimated cost is used
 	 * 			as sorting key.
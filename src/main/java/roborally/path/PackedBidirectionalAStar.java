@@ -0,0 +1,448 @@
+package roborally.path;
+
+import roborally.*;
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * A bidirectional A* algorithm to find the minimal energy cost
+ * for a robot to reach a target position.
+ *
+ * <p>A forward search starts from the position and orientation
+ * of the robot, and works on states of a position and the orientation
+ * in which the robot arrived there. A backward search starts next to
+ * the target position, and works on states of a position and the
+ * orientation in which the robot leaves it. Both searches need these
+ * orientations, since the cost of a step depends on the orientation
+ * in which the previous step was taken. A path is found whenever a
+ * state reached by one search meets a state at the same position
+ * reached by the other search, at the cost of the turns between
+ * both orientations.</p>
+ *
+ * <p>Each search is guided by its own consistent heuristic, estimating
+ * the steps and turns to the target or from the robot respectively.
+ * The search stops as soon as either search can no longer find a path
+ * cheaper than the best path found so far. States which cannot be
+ * cheaper than a settled state at the same position with another
+ * orientation are neither stored nor expanded.</p>
+ *
+ * <p>This algorithm finds the same minimal costs as
+ * {@link MinimalCostAStar}. It settles at most about twice as many
+ * states as the cheaper of both searches on its own, which makes it
+ * robust against a target hidden in a dead end, and it evaluates far
+ * fewer states than a full flood for distant targets.</p>
+ *
+ * <p>Costs are accumulated as whole numbers of micro-watt-seconds,
+ * like the costs of {@link PackedRobotAStar}.</p>
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class PackedBidirectionalAStar {
+
+	/**
+	 * Create a new packed bidirectional A* algorithm.
+	 *
+	 * @param robot
+	 * 			The robot for this new algorithm.
+	 * @param target
+	 * 			The target position for this new algorithm.
+	 *
+	 * @post	| new.getRobot() == robot
+	 * @post	| new.getTarget().equals(target)
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| robot == null || !robot.isPlaced()
+	 * @throws	IllegalArgumentException
+	 * 			| !PackedRobotAStar.canSearch(robot.getBoard())
+	 * @throws	IllegalArgumentException
+	 * 			| target == null
+	 */
+	public PackedBidirectionalAStar(Robot robot, Vector target) throws IllegalArgumentException {
+		if (robot == null || !robot.isPlaced())
+			throw new IllegalArgumentException("Robot must be effective and placed on a board.");
+		if (!PackedRobotAStar.canSearch(robot.getBoard()))
+			throw new IllegalArgumentException("Board is too large for packed positions.");
+		if (target == null)
+			throw new IllegalArgumentException("Target position must be effective.");
+
+		this.robot = robot;
+		this.board = robot.getBoard();
+		this.target = target;
+	}
+
+	/**
+	 * Get the robot of this algorithm.
+	 */
+	@Basic
+	@Immutable
+	public Robot getRobot() {
+		return robot;
+	}
+
+	private final Robot robot;
+
+	private final Board board;
+
+	/**
+	 * Get the target position of this algorithm.
+	 */
+	@Basic
+	@Immutable
+	public Vector getTarget() {
+		return target;
+	}
+
+	private final Vector target;
+
+	/*
+	 * Packing
+	 */
+
+	/**
+	 * Pack the given state into a single key.
+	 *
+	 * <p>Coordinates on a board that can be searched fit in
+	 * 31 bits, which leaves two bits for the orientation.</p>
+	 */
+	private static long pack(long x, long y, int orientation) {
+		return (x << 33) | (y << 2) | orientation;
+	}
+
+	private static long unpackX(long key) {
+		return key >>> 33;
+	}
+
+	private static long unpackY(long key) {
+		return (key >>> 2) & 0x7FFFFFFFL;
+	}
+
+	private static int unpackOrientation(long key) {
+		return (int) (key & 3L);
+	}
+
+	/*
+	 * Searching
+	 */
+
+	/**
+	 * Run the pathfinding algorithm.
+	 *
+	 * @return	True if and only if the target was reached.
+	 */
+	public boolean run() {
+		forward.clear();
+		forwardOpenSet.clear();
+		backward.clear();
+		backwardOpenSet.clear();
+		validPositions.clear();
+		nbExpandedNodes = 0;
+		cost = NO_PATH;
+
+		// Cost parameters in micro-watt-seconds
+		stepCost = robot.getStepCost().getMicroWattSeconds();
+		turnCost = robot.getTurnCost().getMicroWattSeconds();
+		startX = robot.getPosition().getX();
+		startY = robot.getPosition().getY();
+		targetX = target.getX();
+		targetY = target.getY();
+
+		if (!board.isValidPosition(target) || !isValid(targetX, targetY))
+			return false;
+		if (startX == targetX && startY == targetY) {
+			cost = 0L;
+			return true;
+		}
+
+		// Start forward from the robot's state
+		int startOrientation = robot.getOrientation().ordinal();
+		long startKey = pack(startX, startY, startOrientation);
+		forward.set(forward.insert(startKey), 0L, PackedNodeTable.NO_PARENT, startOrientation);
+		forwardOpenSet.push(startKey, estimateToTarget(startX, startY, startOrientation), 0L);
+
+		// Start backward from all states leaving towards the target
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			long previousX = targetX - DELTA_X[i], previousY = targetY - DELTA_Y[i];
+			if (isOnBoard(previousX, previousY))
+				relaxBackward(previousX, previousY, i, stepCost, PackedNodeTable.NO_PARENT);
+		}
+
+		while (true) {
+			skipOutdated(forward, forwardOpenSet);
+			skipOutdated(backward, backwardOpenSet);
+			if (forwardOpenSet.isEmpty() || backwardOpenSet.isEmpty())
+				break;
+
+			// Stop when either search cannot find a cheaper path
+			if (forwardOpenSet.peekF() >= cost || backwardOpenSet.peekF() >= cost)
+				break;
+
+			// Expand the search with the fewest states, keeping both balanced
+			if (forward.size() <= backward.size()) {
+				long key = forwardOpenSet.peekKey();
+				forwardOpenSet.pop();
+				expandForward(key);
+			} else {
+				long key = backwardOpenSet.peekKey();
+				backwardOpenSet.pop();
+				expandBackward(key);
+			}
+		}
+
+		return cost != NO_PATH;
+	}
+
+	/**
+	 * Remove all outdated entries from the top of the given open set.
+	 */
+	private static void skipOutdated(PackedNodeTable nodes, PackedOpenSet openSet) {
+		while (!openSet.isEmpty()) {
+			int index = nodes.indexOf(openSet.peekKey());
+			if (!nodes.isClosed(index) && nodes.getG(index) == openSet.peekG())
+				return;
+			openSet.pop();
+		}
+	}
+
+	/**
+	 * Settle the given state in the forward search and
+	 * inspect all states reachable with one step.
+	 */
+	private void expandForward(long key) {
+		int index = forward.indexOf(key);
+		forward.close(index);
+		nbExpandedNodes++;
+
+		// The last step was taken in the orientation of this state
+		long g = forward.getG(index);
+		long x = unpackX(key), y = unpackY(key);
+		int orientation = unpackOrientation(key);
+		if (isDominated(forward, x, y, orientation, g))
+			return;
+
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			long nextX = x + DELTA_X[i], nextY = y + DELTA_Y[i];
+			if (!isOnBoard(nextX, nextY))
+				continue;
+
+			long nextG = (g + stepCost) + turnCost * TURNS[orientation][i];
+			long nextKey = pack(nextX, nextY, i);
+			if (!relax(forward, nextKey, nextG, key, i, nextX, nextY))
+				continue;
+			forwardOpenSet.push(nextKey, (double) nextG + estimateToTarget(nextX, nextY, i), nextG);
+
+			// Meet the target or the backward search
+			if (nextX == targetX && nextY == targetY)
+				cost = Math.min(cost, nextG);
+			for (int j = 0; j < ORIENTATIONS.length; j++) {
+				int other = backward.indexOf(pack(nextX, nextY, j));
+				if (other >= 0)
+					cost = Math.min(cost, nextG + turnCost * TURNS[i][j] + backward.getG(other));
+			}
+		}
+	}
+
+	/**
+	 * Settle the given state in the backward search and
+	 * inspect all states from which it is reached with one step.
+	 */
+	private void expandBackward(long key) {
+		int index = backward.indexOf(key);
+		backward.close(index);
+		nbExpandedNodes++;
+
+		// The next step is taken in the orientation of this state
+		long g = backward.getG(index);
+		long x = unpackX(key), y = unpackY(key);
+		int orientation = unpackOrientation(key);
+		if (isDominated(backward, x, y, orientation, g))
+			return;
+
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			long previousX = x - DELTA_X[i], previousY = y - DELTA_Y[i];
+			if (isOnBoard(previousX, previousY))
+				relaxBackward(previousX, previousY, i, (g + stepCost) + turnCost * TURNS[i][orientation], key);
+		}
+	}
+
+	/**
+	 * Store the given G-score for the given backward state if it
+	 * improves on its current G-score, and meet the forward search.
+	 */
+	private void relaxBackward(long x, long y, int orientation, long g, long parent) {
+		long key = pack(x, y, orientation);
+		if (!relax(backward, key, g, parent, orientation, x, y))
+			return;
+		backwardOpenSet.push(key, (double) g + estimateFromStart(x, y, orientation), g);
+
+		for (int j = 0; j < ORIENTATIONS.length; j++) {
+			int other = forward.indexOf(pack(x, y, j));
+			if (other >= 0)
+				cost = Math.min(cost, forward.getG(other) + turnCost * TURNS[j][orientation] + g);
+		}
+	}
+
+	/**
+	 * Check whether the given state is dominated by a settled state
+	 * at the same position with another orientation.
+	 *
+	 * <p>A step from or towards a state costs at most the turns between
+	 * its orientation and another orientation more than the same step
+	 * from or towards a state with that other orientation. Thus, a state
+	 * whose G-score is not lower than that of a settled state plus the cost
+	 * of these turns cannot lead to a cheaper path, and need not be
+	 * expanded.</p>
+	 */
+	private boolean isDominated(PackedNodeTable nodes, long x, long y, int orientation, long g) {
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			if (i == orientation)
+				continue;
+			int index = nodes.indexOf(pack(x, y, i));
+			if (index >= 0 && nodes.isClosed(index) && nodes.getG(index) + turnCost * TURNS[i][orientation] <= g)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Store the given G-score for the given state if it is valid,
+	 * improves on its current G-score and is not dominated.
+	 *
+	 * @return	True if and only if the state was updated.
+	 */
+	private boolean relax(PackedNodeTable nodes, long key, long g, long parent, int orientation, long x, long y) {
+		int index = nodes.indexOf(key);
+		// Settled states have their final G-score, since the heuristics are consistent
+		if (index >= 0 && (nodes.isClosed(index) || !(g < nodes.getG(index))))
+			return false;
+		if (index < 0 && !isValid(x, y))
+			return false;
+		if (isDominated(nodes, x, y, orientation, g))
+			return false;
+
+		index = nodes.insert(key);
+		nodes.set(index, g, parent, orientation);
+		return true;
+	}
+
+	/**
+	 * Estimate the cost to reach the target from the given state
+	 * in the forward search.
+	 */
+	private long estimateToTarget(long x, long y, int orientation) {
+		long dx = targetX - x, dy = targetY - y;
+		return RobotNode.getCost(Math.abs(dx) + Math.abs(dy), stepCost,
+				ORIENTATIONS[orientation].getMinimalTurns(dx, dy), turnCost);
+	}
+
+	/**
+	 * Estimate the cost to reach the given state in the backward
+	 * search from the robot.
+	 */
+	private long estimateFromStart(long x, long y, int orientation) {
+		// Leaving in an orientation after arriving from the robot takes as
+		// many turns as leaving in the opposite orientation towards the robot
+		long dx = startX - x, dy = startY - y;
+		Orientation opposite = ORIENTATIONS[(orientation + 2) % ORIENTATIONS.length];
+		return RobotNode.getCost(Math.abs(dx) + Math.abs(dy), stepCost, opposite.getMinimalTurns(dx, dy), turnCost);
+	}
+
+	/**
+	 * Check whether the given coordinates lie on the board.
+	 */
+	private boolean isOnBoard(long x, long y) {
+		return (0 <= x && x < board.getWidth()) && (0 <= y && y < board.getHeight());
+	}
+
+	/**
+	 * Check whether the robot can stand at the given position.
+	 */
+	private boolean isValid(long x, long y) {
+		if (x == startX && y == startY)
+			return true;
+		// Both searches check each position for up to four orientations
+		long key = pack(x, y, 0);
+		int index = validPositions.indexOf(key);
+		if (index < 0) {
+			index = validPositions.insert(key);
+			validPositions.set(index, PackedRobotAStar.canStandAt(robot, x, y) ? 1L : 0L, PackedNodeTable.NO_PARENT, 0);
+		}
+		return validPositions.getG(index) != 0L;
+	}
+
+	private long stepCost, turnCost;
+	private long startX, startY, targetX, targetY;
+
+	private final PackedNodeTable forward = new PackedNodeTable(64);
+	private final PackedOpenSet forwardOpenSet = new PackedOpenSet();
+	private final PackedNodeTable backward = new PackedNodeTable(64);
+	private final PackedOpenSet backwardOpenSet = new PackedOpenSet();
+	private final PackedNodeTable validPositions = new PackedNodeTable(64);
+
+	/*
+	 * Results
+	 */
+
+	/**
+	 * Get the minimal energy cost to reach the target position.
+	 *
+	 * @return	The cost of the best path found after running
+	 * 			the algorithm.
+	 *
+	 * @throws	UnreachablePositionException
+	 * 			If no path to the target was found.
+	 * 			| !run()
+	 */
+	public EnergyAmount getCost() throws UnreachablePositionException {
+		if (!run())
+			throw new UnreachablePositionException(getRobot(), getTarget());
+		return EnergyAmount.fromMicroWattSeconds(cost);
+	}
+
+	/**
+	 * Variable registering the cost in micro-watt-seconds of the best
+	 * path found in the last run.
+	 */
+	private long cost = NO_PATH;
+
+	/**
+	 * The cost in micro-watt-seconds when no path was found.
+	 */
+	private static final long NO_PATH = Long.MAX_VALUE;
+
+	/**
+	 * Get the number of states settled by both searches in the last run.
+	 */
+	public int getNbExpandedNodes() {
+		return nbExpandedNodes;
+	}
+
+	private int nbExpandedNodes;
+
+	/**
+	 * The orientations in the order of their ordinals.
+	 */
+	private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+	/**
+	 * The horizontal and vertical steps of all orientations.
+	 */
+	private static final long[] DELTA_X = new long[ORIENTATIONS.length], DELTA_Y = new long[ORIENTATIONS.length];
+
+	/**
+	 * The number of turns between each pair of orientations.
+	 */
+	private static final int[][] TURNS = new int[ORIENTATIONS.length][ORIENTATIONS.length];
+
+	static {
+		for (Orientation from : ORIENTATIONS) {
+			DELTA_X[from.ordinal()] = from.getVector().getX();
+			DELTA_Y[from.ordinal()] = from.getVector().getY();
+			for (Orientation to : ORIENTATIONS) {
+				TURNS[from.ordinal()][to.ordinal()] = to.getDifference(from);
+			}
+		}
+	}
+
+}
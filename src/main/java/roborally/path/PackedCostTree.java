@@ -0,0 +1,161 @@
+package roborally.path;
+
+import roborally.*;
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * A tree of minimal energy costs for a robot to reach
+ * the positions on its board.
+ * 
+ * <p>The tree is grown by Dijkstra's algorithm, starting from the
+ * position and orientation of the robot at the time the tree was
+ * created. It is only grown as far as needed: asking the cost of
+ * a position which has not been settled yet resumes the search
+ * until that position is settled or all reachable positions are
+ * found. Costs of settled positions are returned immediately.</p>
+ * 
+ * <p>The tree remains valid for its robot as long as the robot's
+ * position, orientation, step cost and turn cost do not change and
+ * no pieces are added to or removed from its board, as registered
+ * by the board's epoch.</p>
+ * 
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class PackedCostTree extends PackedRobotAStar<MinimalCostNode> {
+
+	/**
+	 * Create a new cost tree for the given robot.
+	 * 
+	 * @param robot
+	 * 			The robot for this new tree.
+	 * 
+	 * @effect	| super(robot)
+	 * @post	| new.isValidFor(robot)
+	 */
+	public PackedCostTree(Robot robot) throws IllegalArgumentException {
+		super(robot);
+
+		this.board = robot.getBoard();
+		this.epoch = board.getEpoch();
+		this.position = robot.getPosition();
+		this.orientation = robot.getOrientation();
+		this.stepCost = robot.getStepCost().getMicroWattSeconds();
+		this.turnCost = robot.getTurnCost().getMicroWattSeconds();
+		reset();
+	}
+
+	/**
+	 * Get the board epoch at the creation of this tree.
+	 */
+	@Basic
+	@Immutable
+	public long getEpoch() {
+		return epoch;
+	}
+
+	private final Board board;
+	private final long epoch;
+	private final Vector position;
+	private final Orientation orientation;
+	private final long stepCost;
+	private final long turnCost;
+
+	/**
+	 * Check whether this tree is still valid for the given robot.
+	 * 
+	 * @return	True if and only if the given robot is the robot of this
+	 * 			tree, it is still on the same board, its position,
+	 * 			orientation, step cost and turn cost are unchanged and
+	 * 			the board's epoch equals the epoch of this tree.
+	 */
+	public boolean isValidFor(Robot robot) {
+		if (robot != getRobot() || robot.isTerminated())
+			return false;
+		return robot.getBoard() == board && board.getEpoch() == epoch
+				&& position.equals(robot.getPosition()) && orientation == robot.getOrientation()
+				&& stepCost == robot.getStepCost().getMicroWattSeconds()
+				&& turnCost == robot.getTurnCost().getMicroWattSeconds();
+	}
+
+	/**
+	 * Get the minimal cost in watt-seconds to reach the given position.
+	 * 
+	 * @param position
+	 * 			The position to reach.
+	 * 
+	 * @return	The minimal cost to reach the given position,
+	 * 			or positive infinity if it cannot be reached.
+	 * 			| let cost = getMicroWattSeconds(position) in
+	 * 			|   result == (cost == Long.MAX_VALUE) ? Double.POSITIVE_INFINITY
+	 * 			|     : EnergyAmount.toWattSeconds(cost)
+	 */
+	public double getCost(Vector position) {
+		long cost = getMicroWattSeconds(position);
+		return (cost == Long.MAX_VALUE) ? Double.POSITIVE_INFINITY : EnergyAmount.toWattSeconds(cost);
+	}
+
+	/**
+	 * Get the exact minimal cost in micro-watt-seconds
+	 * to reach the given position.
+	 * 
+	 * @param position
+	 * 			The position to reach.
+	 * 
+	 * @return	The minimal cost to reach the given position,
+	 * 			or <code>Long.MAX_VALUE</code> if it cannot be reached.
+	 */
+	public long getMicroWattSeconds(Vector position) {
+		long x = position.getX(), y = position.getY();
+		if (!board.isValidPosition(position))
+			return Long.MAX_VALUE;
+
+		// Grow the tree until the position is settled
+		if (!isClosed(x, y) && !isExhausted()) {
+			targetKey = pack(x, y);
+			resume();
+			targetKey = PackedNodeTable.NO_PARENT;
+		}
+
+		if (!isClosed(x, y))
+			return Long.MAX_VALUE;
+		return getMicroWattSeconds(x, y);
+	}
+
+	/**
+	 * Check whether the minimal cost to reach the given position
+	 * is known without growing the tree.
+	 * 
+	 * @param position
+	 * 			The position to check.
+	 */
+	public boolean hasCost(Vector position) {
+		return board.isValidPosition(position) && isClosed(position.getX(), position.getY());
+	}
+
+	/**
+	 * The packed position at which the growing tree should stop.
+	 */
+	private long targetKey = PackedNodeTable.NO_PARENT;
+
+	@Override
+	protected boolean isTarget(long key) {
+		return key == targetKey;
+	}
+
+	/**
+	 * @return	| result == 0
+	 */
+	@Override
+	protected long calculateH(long x, long y, Orientation orientation) {
+		return 0L;
+	}
+
+	@Override
+	protected MinimalCostNode createNode(Vector position, Orientation orientation) {
+		return new MinimalCostNode(getRobot(), position, orientation);
+	}
+
+}
@@ -0,0 +1,113 @@
+package roborally.path;
+
+import roborally.*;
+
+/**
+ * A packed A* algorithm to find the minimal energy cost for a robot
+ * to reach a target position.
+ * 
+ * <p>This algorithm finds the same minimal costs as
+ * {@link MinimalCostAStar}.</p>
+ * 
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class PackedMinimalCostAStar extends PackedRobotAStar<MinimalCostNode> {
+
+	/**
+	 * Create a new packed minimal cost A* algorithm.
+	 * 
+	 * @param robot
+	 * 			The robot for this new algorithm.
+	 * @param target
+	 * 			The target position for this new algorithm.
+	 * 
+	 * @effect	| super(robot)
+	 * @post	| new.getTarget().equals(target)
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| target == null
+	 */
+	public PackedMinimalCostAStar(Robot robot, Vector target) throws IllegalArgumentException {
+		super(robot);
+
+		if (target == null)
+			throw new IllegalArgumentException("Target position must be effective.");
+
+		this.target = target;
+		// Positions outside the board never match a packed key
+		this.targetKey = robot.getBoard().isValidPosition(target) ? pack(target) : PackedNodeTable.NO_PARENT;
+	}
+
+	/**
+	 * Get the target position of this algorithm.
+	 */
+	public Vector getTarget() {
+		return target;
+	}
+
+	private final Vector target;
+
+	private final long targetKey;
+
+	/**
+	 * Get the minimal energy cost to reach the target position.
+	 * 
+	 * @return	The cost of the target node after running
+	 * 			the A* algorithm.
+	 * 
+	 * @throws	UnreachablePositionException
+	 * 			If the A* algorithm has exhausted the open set
+	 * 			and could not find any path to the target.
+	 * 			| !run()
+	 */
+	public EnergyAmount getCost() throws UnreachablePositionException {
+		// If the target was not reached, it is unreachable
+		if (!run())
+			throw new UnreachablePositionException(getRobot(), getTarget());
+		// Else, return the cost to reach the target
+		return EnergyAmount.fromMicroWattSeconds(getMicroWattSeconds(getTarget().getX(), getTarget().getY()));
+	}
+
+	@Override
+	protected boolean isTarget(long key) {
+		return key == targetKey;
+	}
+
+	/**
+	 * @return	The step cost of the robot for every step in the Manhattan
+	 * 			distance to the target, plus the turn cost of the robot for
+	 * 			every turn needed to travel to the target.
+	 * 			| result == getRobot().getStepCost().getMicroWattSeconds()
+	 * 			|     * getTarget().manhattanDistance(new Vector(x, y))
+	 * 			|   + getRobot().getTurnCost().getMicroWattSeconds()
+	 * 			|     * orientation.getMinimalTurns(getTarget().subtract(x, y))
+	 */
+	@Override
+	protected long calculateH(long x, long y, Orientation orientation) {
+		long dx = target.getX() - x, dy = target.getY() - y;
+		long amountOfSteps = Math.abs(dx) + Math.abs(dy);
+		int amountOfTurns = orientation.getMinimalTurns(dx, dy);
+		return RobotNode.getCost(amountOfSteps, stepCost, amountOfTurns, turnCost);
+	}
+
+	@Override
+	public boolean run() {
+		stepCost = getRobot().getStepCost().getMicroWattSeconds();
+		turnCost = getRobot().getTurnCost().getMicroWattSeconds();
+		return super.run();
+	}
+
+	/**
+	 * The step and turn cost in micro-watt-seconds of the robot
+	 * at the start of the last run.
+	 */
+	private long stepCost, turnCost;
+
+	@Override
+	protected MinimalCostNode createNode(Vector position, Orientation orientation) {
+		return new MinimalCostNode(getRobot(), position, orientation);
+	}
+
+}
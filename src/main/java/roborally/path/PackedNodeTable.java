@@ -0,0 +1,165 @@
+package roborally.path;
+
+import roborally.util.LongHashMap;
+
+/**
+ * A table of search nodes keyed by packed positions.
+ *
+ * <p>The table uses open addressing with linear probing and
+ * stores every node attribute in its own primitive column,
+ * so inserting or updating a node allocates no objects.
+ * G-scores are stored in micro-watt-seconds.
+ * Entries are never removed during a search.</p>
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+class PackedNodeTable {
+
+	/**
+	 * Parent key of nodes without a previous node.
+	 */
+	static final long NO_PARENT = -1L;
+
+	private long[] keys;
+	private boolean[] used;
+	private long[] g;
+	private long[] parents;
+	private byte[] orientations;
+	private boolean[] closed;
+	private int size;
+	private int mask;
+
+	PackedNodeTable(int initialCapacity) {
+		int capacity = 16;
+		while (capacity < initialCapacity * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		used = new boolean[capacity];
+		g = new long[capacity];
+		parents = new long[capacity];
+		orientations = new byte[capacity];
+		closed = new boolean[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Get the slot of the given key.
+	 *
+	 * @return	The slot holding the key, or the bitwise complement
+	 * 			of the free slot where it would be inserted.
+	 */
+	int indexOf(long key) {
+		int index = LongHashMap.hash(key) & mask;
+		while (used[index]) {
+			if (keys[index] == key)
+				return index;
+			index = (index + 1) & mask;
+		}
+		return ~index;
+	}
+
+	/**
+	 * Get the slot of the given key, inserting a new
+	 * open entry if it is not in this table yet.
+	 */
+	int insert(long key) {
+		int index = indexOf(key);
+		if (index >= 0)
+			return index;
+
+		// Grow when more than half full
+		if ((size + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+			index = indexOf(key);
+		}
+		index = ~index;
+		used[index] = true;
+		keys[index] = key;
+		parents[index] = NO_PARENT;
+		size++;
+		return index;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		boolean[] oldUsed = used;
+		long[] oldG = g;
+		long[] oldParents = parents;
+		byte[] oldOrientations = orientations;
+		boolean[] oldClosed = closed;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int index = ~indexOf(oldKeys[i]);
+				used[index] = true;
+				keys[index] = oldKeys[i];
+				g[index] = oldG[i];
+				parents[index] = oldParents[i];
+				orientations[index] = oldOrientations[i];
+				closed[index] = oldClosed[i];
+			}
+		}
+	}
+
+	void clear() {
+		for (int i = 0; i < used.length; i++) {
+			used[i] = false;
+			closed[i] = false;
+		}
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return keys.length;
+	}
+
+	boolean isUsed(int index) {
+		return used[index];
+	}
+
+	long getKey(int index) {
+		return keys[index];
+	}
+
+	long getG(int index) {
+		return g[index];
+	}
+
+	long getParent(int index) {
+		return parents[index];
+	}
+
+	int getOrientation(int index) {
+		return orientations[index];
+	}
+
+	boolean isClosed(int index) {
+		return closed[index];
+	}
+
+	void close(int index) {
+		closed[index] = true;
+	}
+
+	void reopen(int index) {
+		closed[index] = false;
+	}
+
+	void set(int index, long g, long parent, int orientation) {
+		this.g[index] = g;
+		this.parents[index] = parent;
+		this.orientations[index] = (byte) orientation;
+	}
+
+}
@@ -0,0 +1,145 @@
+package roborally.path;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of packed search nodes, ordered by F-score.
+ *
+ * <p>Instead of removing a node when a better path to it
+ * is found, the better node is simply pushed again.
+ * Every entry remembers the G-score it was pushed with,
+ * so outdated entries can be recognized and skipped
+ * when they are polled. G-scores are exact amounts in
+ * micro-watt-seconds, while F-scores only order the entries.</p>
+ *
+ * <p>Entries with equal F-scores are polled in any order, unless
+ * the open set breaks ties on the lowest G-score.</p>
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+class PackedOpenSet {
+
+	private double[] f = new double[16];
+	private long[] g = new long[16];
+	private long[] keys = new long[16];
+	private int size;
+
+	/**
+	 * Create a new open set which polls entries with
+	 * equal F-scores in any order.
+	 */
+	PackedOpenSet() {
+		this(false);
+	}
+
+	/**
+	 * Create a new open set.
+	 *
+	 * @param lowestGFirst
+	 * 			Whether entries with equal F-scores are polled
+	 * 			in order of their G-scores.
+	 */
+	PackedOpenSet(boolean lowestGFirst) {
+		this.lowestGFirst = lowestGFirst;
+	}
+
+	private final boolean lowestGFirst;
+
+	/**
+	 * Check whether an entry with the given scores
+	 * is polled before an entry at the given index.
+	 */
+	private boolean isBefore(double f, long g, int index) {
+		if (f != this.f[index])
+			return f < this.f[index];
+		return lowestGFirst && g < this.g[index];
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	void push(long key, double f, long g) {
+		if (size == keys.length) {
+			int capacity = keys.length * 2;
+			this.f = Arrays.copyOf(this.f, capacity);
+			this.g = Arrays.copyOf(this.g, capacity);
+			this.keys = Arrays.copyOf(this.keys, capacity);
+		}
+		// Sift up
+		int index = size++;
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (!isBefore(f, g, parent))
+				break;
+			move(parent, index);
+			index = parent;
+		}
+		this.f[index] = f;
+		this.g[index] = g;
+		this.keys[index] = key;
+	}
+
+	/**
+	 * Get the key of the entry with the lowest F-score.
+	 */
+	long peekKey() {
+		return keys[0];
+	}
+
+	/**
+	 * Get the lowest F-score.
+	 */
+	double peekF() {
+		return f[0];
+	}
+
+	/**
+	 * Get the G-score of the entry with the lowest F-score.
+	 */
+	long peekG() {
+		return g[0];
+	}
+
+	/**
+	 * Remove the entry with the lowest F-score.
+	 */
+	void pop() {
+		assert size > 0;
+		size--;
+		if (size == 0)
+			return;
+
+		// Sift the last entry down from the root
+		double lastF = f[size];
+		long lastG = g[size];
+		long lastKey = keys[size];
+		int index = 0;
+		int half = size >>> 1;
+		while (index < half) {
+			int child = 2 * index + 1;
+			if (child + 1 < size && isBefore(f[child + 1], g[child + 1], child))
+				child++;
+			if (!isBefore(f[child], g[child], size))
+				break;
+			move(child, index);
+			index = child;
+		}
+		f[index] = lastF;
+		g[index] = lastG;
+		keys[index] = lastKey;
+	}
+
+	private void move(int from, int to) {
+		f[to] = f[from];
+		g[to] = g[from];
+		keys[to] = keys[from];
+	}
+
+}
@@ -0,0 +1,73 @@
+package roborally.path;
+
+import roborally.*;
+
+/**
+ * A packed A* algorithm to find all reachable positions for a robot
+ * with its current amount of energy.
+ * 
+ * <p>This algorithm finds the same reachable positions and costs
+ * as {@link ReachAStar}.</p>
+ * 
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public class PackedReachAStar extends PackedRobotAStar<ReachNode> {
+
+	/**
+	 * Create a new packed reach A* algorithm.
+	 * 
+	 * @param robot
+	 * 			The robot for this new algorithm.
+	 * 
+	 * @effect	| super(robot)
+	 */
+	public PackedReachAStar(Robot robot) throws IllegalArgumentException {
+		super(robot);
+	}
+
+	/**
+	 * @return	Always false, all reachable positions are evaluated.
+	 * 			| result == false
+	 */
+	@Override
+	protected boolean isTarget(long key) {
+		return false;
+	}
+
+	/**
+	 * @return	| result == 0
+	 */
+	@Override
+	protected long calculateH(long x, long y, Orientation orientation) {
+		return 0L;
+	}
+
+	/**
+	 * @return	| result == super.isValid(x, y, g)
+	 * 			|   && g <= getRobot().getEnergyAmount().getMicroWattSeconds()
+	 */
+	@Override
+	protected boolean isValid(long x, long y, long g) {
+		return g <= energy && super.isValid(x, y, g);
+	}
+
+	@Override
+	public boolean run() {
+		energy = getRobot().getEnergyAmount().getMicroWattSeconds();
+		return super.run();
+	}
+
+	/**
+	 * The energy of the robot in micro-watt-seconds
+	 * at the start of the last run.
+	 */
+	private long energy;
+
+	@Override
+	protected ReachNode createNode(Vector position, Orientation orientation) {
+		return new ReachNode(getRobot(), position, orientation);
+	}
+
+}
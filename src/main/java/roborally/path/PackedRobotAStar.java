@@ -0,0 +1,608 @@
+package roborally.path;
+
+import java.util.LinkedList;
+
+import roborally.*;
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * An A* algorithm for robots working on primitive values.
+ *
+ * <p>This algorithm explores the same nodes in the same way as
+ * {@link RobotAStar}, but never creates node objects while searching.
+ * Positions are packed into a single long, and the G-score,
+ * previous position and orientation of every evaluated position
+ * are stored in primitive tables. Energy costs are accumulated
+ * as whole numbers of micro-watt-seconds, exactly like the energy
+ * of the robot itself. Node objects are only created when a path
+ * is reconstructed.</p>
+ *
+ * <p>Only positions on boards whose width and height do not exceed
+ * {@link #getMaximumDimension()} can be packed.</p>
+ *
+ * @invar	The board of the robot can be searched.
+ * 			| canSearch(getRobot().getBoard())
+ *
+ * @param <N>
+ * 			The node type of reconstructed paths.
+ *
+ * @author Mattias Buelens
+ * @author Thomas Goossens
+ * @version 3.0
+ */
+public abstract class PackedRobotAStar<N extends RobotNode> {
+
+	/**
+	 * Create a new packed A* algorithm for the given robot.
+	 *
+	 * @param robot
+	 * 			The robot for this new algorithm.
+	 *
+	 * @post	| new.getRobot() == robot
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| robot == null || !robot.isPlaced()
+	 * @throws	IllegalArgumentException
+	 * 			| !canSearch(robot.getBoard())
+	 */
+	@Raw
+	@Model
+	protected PackedRobotAStar(Robot robot) throws IllegalArgumentException {
+		if (robot == null || !robot.isPlaced())
+			throw new IllegalArgumentException("Robot must be effective and placed on a board.");
+		if (!canSearch(robot.getBoard()))
+			throw new IllegalArgumentException("Board is too large for packed positions.");
+
+		this.robot = robot;
+		this.board = robot.getBoard();
+		this.startKey = pack(robot.getPosition());
+	}
+
+	/**
+	 * Get the robot of this algorithm.
+	 */
+	@Basic
+	@Immutable
+	public Robot getRobot() {
+		return robot;
+	}
+
+	/**
+	 * Variable registering the robot of this algorithm.
+	 */
+	private final Robot robot;
+
+	/**
+	 * Variable registering the board of the robot.
+	 */
+	private final Board board;
+
+	/**
+	 * Check whether the positions on the given board can be packed.
+	 *
+	 * @param board
+	 * 			The board to check.
+	 *
+	 * @return	| result == (board != null
+	 * 			|   && board.getWidth() <= getMaximumDimension()
+	 * 			|   && board.getHeight() <= getMaximumDimension())
+	 */
+	public static boolean canSearch(Board board) {
+		if (board == null)
+			return false;
+		return board.getWidth() <= getMaximumDimension() && board.getHeight() <= getMaximumDimension();
+	}
+
+	/**
+	 * Get the maximum width and height of a board whose
+	 * positions can be packed.
+	 */
+	@Immutable
+	public static long getMaximumDimension() {
+		return 1L << 31;
+	}
+
+	/*
+	 * Packing
+	 */
+
+	/**
+	 * Pack the given coordinates into a single key.
+	 */
+	static long pack(long x, long y) {
+		return (x << 32) | y;
+	}
+
+	static long pack(Vector position) {
+		return pack(position.getX(), position.getY());
+	}
+
+	static long unpackX(long key) {
+		return key >>> 32;
+	}
+
+	static long unpackY(long key) {
+		return key & 0xFFFFFFFFL;
+	}
+
+	static Vector unpack(long key) {
+		return Vector.valueOf(unpackX(key), unpackY(key));
+	}
+
+	/**
+	 * Check whether the given coordinates lie on the board
+	 * of this algorithm.
+	 */
+	private boolean isOnBoard(long x, long y) {
+		return (0 <= x && x < board.getWidth()) && (0 <= y && y < board.getHeight());
+	}
+
+	/*
+	 * Searching
+	 */
+
+	/**
+	 * Run the pathfinding algorithm.
+	 *
+	 * <p>If there exists a path to the target, the search stops
+	 * as soon as the target is evaluated. Otherwise, all reachable
+	 * positions are evaluated and stored with their minimal cost.</p>
+	 *
+	 * @return	True if and only if the target was reached.
+	 */
+	public boolean run() {
+		reset();
+		return resume();
+	}
+
+	/**
+	 * Reset the algorithm to its initial state, with only
+	 * the start node in the open set.
+	 */
+	protected void reset() {
+		nodes.clear();
+		openSet.clear();
+		nbExpandedNodes = 0;
+		truncated = false;
+		suspendedKey = PackedNodeTable.NO_PARENT;
+
+		// Cost parameters in micro-watt-seconds
+		stepCost = robot.getStepCost().getMicroWattSeconds();
+		turnCost = robot.getTurnCost().getMicroWattSeconds();
+
+		// Add start node with its F-score equal to its G-score
+		int startIndex = nodes.insert(startKey);
+		nodes.set(startIndex, 0L, PackedNodeTable.NO_PARENT, robot.getOrientation().ordinal());
+		openSet.push(startKey, 0.0d, 0L);
+	}
+
+	/**
+	 * Continue the pathfinding algorithm until a target
+	 * is evaluated or the open set is exhausted.
+	 *
+	 * <p>When a target is evaluated, the search is suspended
+	 * before its neighbours are inspected. Resuming the search
+	 * inspects these neighbours first, so a search can be
+	 * continued towards other targets.</p>
+	 *
+	 * <p>When the node budget is exhausted, the search is truncated
+	 * and only the positions in the closed set are retained.</p>
+	 *
+	 * @return	True if and only if a target was reached.
+	 */
+	protected boolean resume() {
+		if (suspendedKey != PackedNodeTable.NO_PARENT) {
+			long key = suspendedKey;
+			suspendedKey = PackedNodeTable.NO_PARENT;
+			expand(key);
+		}
+
+		while (!openSet.isEmpty()) {
+			// Stop when the node budget is exhausted
+			if (nbExpandedNodes >= nodeBudget) {
+				truncated = true;
+				return false;
+			}
+
+			long key = openSet.peekKey();
+			long g = openSet.peekG();
+			openSet.pop();
+
+			// Skip outdated entries
+			int index = nodes.indexOf(key);
+			if (nodes.isClosed(index) || nodes.getG(index) != g)
+				continue;
+
+			// Add to closed set
+			nodes.close(index);
+			nbExpandedNodes++;
+
+			// If this is the target, we're finished
+			if (isTarget(key)) {
+				suspendedKey = key;
+				return true;
+			}
+
+			expand(key);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Inspect all neighbours of the node at the given packed position.
+	 */
+	private void expand(long key) {
+		PackedNodeTable nodes = this.nodes;
+		int index = nodes.indexOf(key);
+		long g = nodes.getG(index);
+		long x = unpackX(key), y = unpackY(key);
+		int orientation = nodes.getOrientation(index);
+		for (int i = 0; i < ORIENTATIONS.length; i++) {
+			long neighbourX = x + DELTA_X[i], neighbourY = y + DELTA_Y[i];
+			if (!isOnBoard(neighbourX, neighbourY))
+				continue;
+
+			long neighbourKey = pack(neighbourX, neighbourY);
+			int neighbourIndex = nodes.indexOf(neighbourKey);
+
+			// Calculate the G-score from the current node
+			long neighbourG = (g + stepCost) + turnCost * TURNS[orientation][i];
+			// Only replace an existing node with a lower G-score
+			if (neighbourIndex >= 0 && !(neighbourG < nodes.getG(neighbourIndex)))
+				continue;
+			if (!isValid(neighbourX, neighbourY, neighbourG))
+				continue;
+
+			// Store in node table and add to open set,
+			// reopening the position if it was closed
+			neighbourIndex = nodes.insert(neighbourKey);
+			nodes.reopen(neighbourIndex);
+			nodes.set(neighbourIndex, neighbourG, key, i);
+			openSet.push(neighbourKey, (double) neighbourG + calculateH(neighbourX, neighbourY, ORIENTATIONS[i]),
+					neighbourG);
+		}
+	}
+
+	/**
+	 * The step and turn cost in micro-watt-seconds of the robot
+	 * at the start of the last run.
+	 */
+	private long stepCost, turnCost;
+
+	/**
+	 * The packed position of the target at which the search
+	 * was suspended, if any.
+	 */
+	private long suspendedKey = PackedNodeTable.NO_PARENT;
+
+	/**
+	 * Check whether the node at the given position has been
+	 * added to the closed set, and thus has its final cost.
+	 */
+	protected boolean isClosed(long x, long y) {
+		if (!isOnBoard(x, y))
+			return false;
+		int index = nodes.indexOf(pack(x, y));
+		return index >= 0 && nodes.isClosed(index);
+	}
+
+	/**
+	 * Check whether the open set is exhausted.
+	 */
+	protected boolean isExhausted() {
+		return openSet.isEmpty() && suspendedKey == PackedNodeTable.NO_PARENT;
+	}
+
+	/**
+	 * Check whether the node at the given packed position is the target.
+	 */
+	protected abstract boolean isTarget(long key);
+
+	/**
+	 * Calculate the H-score in micro-watt-seconds of the node
+	 * at the given position with the given orientation.
+	 */
+	protected abstract long calculateH(long x, long y, Orientation orientation);
+
+	/**
+	 * Check whether a node at the given position reached with the
+	 * given G-score in micro-watt-seconds is valid.
+	 *
+	 * @return	| result == getRobot().canMoveTo(new Vector(x, y))
+	 */
+	protected boolean isValid(long x, long y, long g) {
+		return canStandAt(robot, x, y);
+	}
+
+	/**
+	 * Check whether the given placed robot can stand at the position
+	 * with the given coordinates on its board.
+	 *
+	 * <p>Most positions are either empty or hold an obstacle, which is
+	 * checked on the coordinates alone. Only positions with other pieces
+	 * are checked on a new vector.</p>
+	 *
+	 * @pre		| robot != null && robot.isPlaced()
+	 * @return	| result == robot.canMoveTo(new Vector(x, y))
+	 */
+	static boolean canStandAt(Robot robot, long x, long y) {
+		Board board = robot.getBoard();
+		if (!(0 <= x && x < board.getWidth()) || !(0 <= y && y < board.getHeight()))
+			return false;
+		if (board.hasObstacleAt(x, y))
+			return false;
+		if (!board.hasPiecesAt(x, y))
+			return !board.isTerminated();
+		return robot.canMoveTo(new Vector(x, y));
+	}
+
+	/**
+	 * Create a new node for reconstructed paths.
+	 */
+	protected abstract N createNode(Vector position, Orientation orientation);
+
+	/*
+	 * Results
+	 */
+
+	/**
+	 * Get the number of positions evaluated in the last run.
+	 */
+	public int getNbNodes() {
+		return nodes.size();
+	}
+
+	/**
+	 * Get the number of positions added to the closed set
+	 * in the last run.
+	 */
+	public int getNbExpandedNodes() {
+		return nbExpandedNodes;
+	}
+
+	/**
+	 * Variable registering the number of positions added
+	 * to the closed set in the last run.
+	 */
+	private int nbExpandedNodes;
+
+	/**
+	 * Get the maximum number of positions added to the closed set
+	 * in a single run.
+	 */
+	@Basic
+	public int getNodeBudget() {
+		return nodeBudget;
+	}
+
+	/**
+	 * Set the maximum number of positions added to the closed set
+	 * in a single run.
+	 *
+	 * @param nodeBudget
+	 * 			The new node budget.
+	 *
+	 * @post	| new.getNodeBudget() == nodeBudget
+	 * @throws	IllegalArgumentException
+	 * 			| nodeBudget <= 0
+	 */
+	public void setNodeBudget(int nodeBudget) throws IllegalArgumentException {
+		if (nodeBudget <= 0)
+			throw new IllegalArgumentException("Node budget must be positive.");
+		this.nodeBudget = nodeBudget;
+	}
+
+	/**
+	 * Variable registering the maximum number of positions added
+	 * to the closed set in a single run, unlimited by default.
+	 */
+	private int nodeBudget = Integer.MAX_VALUE;
+
+	/**
+	 * Check whether the last run was truncated because its
+	 * node budget was exhausted.
+	 *
+	 * <p>The results of a truncated run only contain the positions
+	 * in the closed set. Their costs are minimal, but other positions
+	 * may have been reachable as well.</p>
+	 */
+	@Basic
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Variable registering whether the last run was truncated.
+	 */
+	private boolean truncated;
+
+	/**
+	 * Check whether the node at the given slot is part of the results,
+	 * which excludes open nodes after a truncated run.
+	 */
+	private boolean isResult(int index) {
+		return !truncated || nodes.isClosed(index);
+	}
+
+	/**
+	 * Get the cost in watt-seconds to reach the given position
+	 * as found in the last run.
+	 *
+	 * @return	The cost to reach the node at the given position,
+	 * 			or positive infinity if no node was found at that position.
+	 */
+	public double getG(long x, long y) {
+		long g = getMicroWattSeconds(x, y);
+		return (g == UNREACHED) ? Double.POSITIVE_INFINITY : EnergyAmount.toWattSeconds(g);
+	}
+
+	/**
+	 * Get the exact cost in micro-watt-seconds to reach the given
+	 * position as found in the last run.
+	 *
+	 * @return	The cost to reach the node at the given position,
+	 * 			or <code>Long.MAX_VALUE</code> if no node was found
+	 * 			at that position.
+	 */
+	public long getMicroWattSeconds(long x, long y) {
+		if (!isOnBoard(x, y))
+			return UNREACHED;
+		int index = nodes.indexOf(pack(x, y));
+		if (index < 0 || !isResult(index))
+			return UNREACHED;
+		return nodes.getG(index);
+	}
+
+	/**
+	 * The cost in micro-watt-seconds of positions not found in the last run.
+	 */
+	private static final long UNREACHED = Long.MAX_VALUE;
+
+	/**
+	 * Get the cost in watt-seconds to reach the given position
+	 * as found in the last run.
+	 *
+	 * @return	| result == getG(position.getX(), position.getY())
+	 */
+	public double getG(Vector position) {
+		return getG(position.getX(), position.getY());
+	}
+
+	/**
+	 * Reconstruct the path to the given position as found
+	 * in the last run.
+	 *
+	 * @param position
+	 * 			The last position in the path.
+	 *
+	 * @return	The list of nodes starting at the robot's position
+	 * 			and ending at the given position, in which every node
+	 * 			has the preceding node as its previous node.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If no node was found at the given position.
+	 * 			| getG(position) == Double.POSITIVE_INFINITY
+	 */
+	public LinkedList<N> reconstructPath(Vector position) throws IllegalArgumentException {
+		if (position == null || Double.isInfinite(getG(position)))
+			throw new IllegalArgumentException("Position must be reached.");
+
+		LinkedList<N> path = new LinkedList<N>();
+		long key = pack(position);
+		while (key != PackedNodeTable.NO_PARENT) {
+			int index = nodes.indexOf(key);
+			N node = createNode(unpack(key), ORIENTATIONS[nodes.getOrientation(index)]);
+			node.setG(nodes.getG(index));
+			if (!path.isEmpty())
+				path.getFirst().setPrevious(node);
+			path.offerFirst(node);
+			key = nodes.getParent(index);
+		}
+		return path;
+	}
+
+	/**
+	 * Get the node at the given position as found in the last run.
+	 *
+	 * @return	| result == reconstructPath(position).getLast()
+	 */
+	public N getNode(Vector position) throws IllegalArgumentException {
+		return reconstructPath(position).getLast();
+	}
+
+	/**
+	 * Get a cursor over all positions evaluated in the last run.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * A cursor over the evaluated positions of a packed A* algorithm.
+	 */
+	public class Cursor {
+
+		private int index = -1;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Advance to the next evaluated position.
+		 *
+		 * @return	True if and only if there was a next position.
+		 */
+		public boolean next() {
+			while (++index < nodes.capacity()) {
+				if (nodes.isUsed(index) && isResult(index))
+					return true;
+			}
+			return false;
+		}
+
+		public long getX() {
+			return unpackX(nodes.getKey(index));
+		}
+
+		public long getY() {
+			return unpackY(nodes.getKey(index));
+		}
+
+		public Vector getPosition() {
+			return unpack(nodes.getKey(index));
+		}
+
+		/**
+		 * Get the cost in watt-seconds to reach the current position.
+		 */
+		public double getG() {
+			return EnergyAmount.toWattSeconds(nodes.getG(index));
+		}
+
+	}
+
+	/**
+	 * The packed position of the robot.
+	 */
+	private final long startKey;
+
+	/**
+	 * The table of evaluated nodes.
+	 */
+	private final PackedNodeTable nodes = new PackedNodeTable(64);
+
+	/**
+	 * The open set.
+	 */
+	private final PackedOpenSet openSet = new PackedOpenSet();
+
+	/**
+	 * The orientations in the order of their ordinals.
+	 */
+	private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+	/**
+	 * The horizontal and vertical steps of all orientations.
+	 */
+	private static final long[] DELTA_X = new long[ORIENTATIONS.length], DELTA_Y = new long[ORIENTATIONS.length];
+
+	/**
+	 * The number of turns between each pair of orientations.
+	 */
+	private static final int[][] TURNS = new int[ORIENTATIONS.length][ORIENTATIONS.length];
+
+	static {
+		for (Orientation from : ORIENTATIONS) {
+			DELTA_X[from.ordinal()] = from.getVector().getX();
+			DELTA_Y[from.ordinal()] = from.getVector().getY();
+			for (Orientation to : ORIENTATIONS) {
+				TURNS[from.ordinal()][to.ordinal()] = to.getDifference(from);
+			}
+		}
+	}
+
+}
@@ -47,17 +47,18 @@ public class ReachNode extends RobotNode {
 	 */
 	@Override
 	public void calculateH(Node<EnergyAmount> destination) {
-		setH(EnergyAmount.ZERO);
+		setH(0L);
 	}
 
 	/**
-	 * @return	True if and only if this node is valid as a robot node
-	 * 			and this node's robot can reach this node.
-	 * 			| super.isValid() && canReachWithEnergy()
+	 * @return	True if and only if the node is valid as a robot node
+	 * 			and this node's robot can reach it with its energy.
+	 * 			| result == super.isValid(position, g)
+	 * 			|   && g <= getRobot().getEnergyAmount().getMicroWattSeconds()
 	 */
 	@Override
-	public boolean isValid() {
-		return super.isValid() && canReachWithEnergy();
+	protected boolean isValid(Vector position, long g) {
+		return super.isValid(position, g) && g <= getRobot().getEnergyAmount().getMicroWattSeconds();
 	}
 
 	@Override
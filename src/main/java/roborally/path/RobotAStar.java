@@ -5,7 +5,8 @@ import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
 import roborally.*;
-import roborally.util.FibonacciQueue;
+import roborally.util.HeapQueue;
+import roborally.util.HeapType;
 
 /**
  * An A* algorithm for a robot moving on a board.
@@ -27,8 +28,8 @@ public abstract class RobotAStar<N extends RobotNode> extends AStar<N, EnergyAmo
 	 * 
 	 * @post	This algorithm's robot is set to the given robot.
 	 * 			| new.getRobot() == robot
-	 * @post	A queue is created to use for the open set.
-	 * 			| new.getOpenSet() != null
+	 * @effect	A Fibonacci heap is used for the open set.
+	 * 			| setHeapType(HeapType.FIBONACCI)
 	 * 			
 	 * @throws	IllegalArgumentException
 	 * 		    If the given robot is not effective or is terminated.
@@ -41,9 +42,48 @@ public abstract class RobotAStar<N extends RobotNode> extends AStar<N, EnergyAmo
 			throw new IllegalArgumentException("Robot must be effective and not terminated.");
 
 		this.robot = robot;
-		setOpenSet(new FibonacciQueue<N>());
+		setHeapType(HeapType.FIBONACCI);
 	}
 
+	/**
+	 * Get the type of heap used for the open set of this algorithm.
+	 */
+	@Basic
+	public HeapType getHeapType() {
+		return heapType;
+	}
+
+	/**
+	 * Set the type of heap used for the open set of this algorithm.
+	 * 
+	 * <p>The radix heap requires monotone F-scores, which holds for
+	 * the consistent heuristics of the minimal cost and reach
+	 * algorithms.</p>
+	 * 
+	 * @param heapType
+	 * 			The new heap type.
+	 * 
+	 * @post	| new.getHeapType() == heapType
+	 * @post	A new empty queue backed by a heap of the given type
+	 * 			is used for the open set.
+	 * 			| new.getOpenSet().isEmpty()
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| heapType == null
+	 */
+	public void setHeapType(HeapType heapType) throws IllegalArgumentException {
+		if (heapType == null)
+			throw new IllegalArgumentException("Heap type must be effective.");
+
+		this.heapType = heapType;
+		setOpenSet(new HeapQueue<N>(heapType.<N> create()));
+	}
+
+	/**
+	 * Variable registering the type of heap used for the open set.
+	 */
+	private HeapType heapType;
+
 	/**
 	 * Get the robot this algorithm works on.
 	 */
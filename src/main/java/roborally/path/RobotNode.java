@@ -4,12 +4,15 @@ import java.util.*;
 
 import roborally.*;
 import roborally.Vector;
-import roborally.EnergyAmount.Unit;
 import be.kuleuven.cs.som.annotate.*;
 
 /**
  * A node in a path walked by a robot.
  * 
+ * <p>Costs are accumulated as whole numbers of micro-watt-seconds,
+ * the same representation as {@link EnergyAmount}, so the cost of
+ * a path is exactly the energy the robot needs to walk it.</p>
+ * 
  * @author Mattias Buelens
  * @author Thomas Goossens
  * @version 3.0
@@ -94,12 +97,63 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 	 * 
 	 * @return	The total estimated cost is sum of the
 	 * 			actual cost to this node and the estimated
-	 * 			remaining cost to the target.
-	 * 			| result.equals(getG().add(getH()))
+	 * 			remaining cost to the target, clamped to
+	 * 			<code>Long.MAX_VALUE</code> micro-watt-seconds.
+	 * 			| result.getMicroWattSeconds() ==
+	 * 			|   add(getGMicroWattSeconds(), getHMicroWattSeconds())
 	 */
 	@Override
 	public EnergyAmount getF() {
-		return getG().add(getH());
+		return EnergyAmount.fromMicroWattSeconds(add(g, h));
+	}
+
+	/**
+	 * Get the actual cost from the start node to this node.
+	 * 
+	 * @return	| result.getMicroWattSeconds() == getGMicroWattSeconds()
+	 */
+	@Override
+	public EnergyAmount getG() {
+		return EnergyAmount.fromMicroWattSeconds(g);
+	}
+
+	/**
+	 * @post	| new.getGMicroWattSeconds() == g.getMicroWattSeconds()
+	 */
+	@Override
+	protected void setG(EnergyAmount g) {
+		setG(g.getMicroWattSeconds());
+	}
+
+	/**
+	 * Set the actual cost from the start node to this node.
+	 * 
+	 * @param g
+	 * 			The new actual cost in micro-watt-seconds.
+	 * 
+	 * @post	| new.getGMicroWattSeconds() == g
+	 */
+	protected void setG(long g) {
+		this.g = g;
+	}
+
+	/**
+	 * Get the actual cost from the start node
+	 * to this node in micro-watt-seconds.
+	 */
+	@Basic
+	public long getGMicroWattSeconds() {
+		return g;
+	}
+
+	/**
+	 * @return	The actual cost in watt-seconds is used
+	 * 			as sorting key.
+	 * 			| result == EnergyAmount.toWattSeconds(getGMicroWattSeconds())
+	 */
+	@Override
+	public double getGKey() {
+		return EnergyAmount.toWattSeconds(g);
 	}
 
 	/**
@@ -108,9 +162,70 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 	 * 			| new.getG().equals(EnergyAmount.ZERO)
 	 */
 	public void resetG() {
-		setG(EnergyAmount.ZERO);
+		setG(0L);
+	}
+
+	/**
+	 * Variable registering the actual cost from the start node
+	 * to this node in micro-watt-seconds.
+	 */
+	private long g;
+
+	/**
+	 * Get the estimated remaining cost from this node to the target.
+	 * 
+	 * @return	| result.getMicroWattSeconds() == getHMicroWattSeconds()
+	 */
+	@Override
+	public EnergyAmount getH() {
+		return EnergyAmount.fromMicroWattSeconds(h);
+	}
+
+	/**
+	 * @post	| new.getHMicroWattSeconds() == h.getMicroWattSeconds()
+	 */
+	@Override
+	protected void setH(EnergyAmount h) {
+		setH(h.getMicroWattSeconds());
+	}
+
+	/**
+	 * Set the estimated remaining cost from this node to the target.
+	 * 
+	 * @param h
+	 * 			The new estimated remaining cost in micro-watt-seconds.
+	 * 
+	 * @post	| new.getHMicroWattSeconds() == h
+	 */
+	protected void setH(long h) {
+		this.h = h;
+	}
+
+	/**
+	 * Get the estimated remaining cost from this node
+	 * to the target in micro-watt-seconds.
+	 */
+	@Basic
+	public long getHMicroWattSeconds() {
+		return h;
+	}
+
+	/**
+	 * Get the estimated remaining cost from this node
+	 * to the target in watt-seconds.
+	 * 
+	 * @return	| result == EnergyAmount.toWattSeconds(getHMicroWattSeconds())
+	 */
+	public double getHKey() {
+		return EnergyAmount.toWattSeconds(h);
 	}
 
+	/**
+	 * Variable registering the estimated remaining cost from
+	 * this node to the target in micro-watt-seconds.
+	 */
+	private long h;
+
 	/**
 	 * Variable registering the orientation of this node.
 	 */
@@ -125,7 +240,7 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 	 * 			| result == getG().isLessThanOrEqual(getRobot().getEnergyAmount())
 	 */
 	public boolean canReachWithEnergy() {
-		return getG().isLessThanOrEqual(getRobot().getEnergyAmount());
+		return g <= getRobot().getEnergyAmount().getMicroWattSeconds();
 	}
 
 	/**
@@ -135,8 +250,24 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 	 * @return	| getRobot().canMoveTo(getPosition())
 	 */
 	public boolean isValid() {
+		return isValid(getPosition(), g);
+	}
+
+	/**
+	 * Check whether a node of this node's robot at the given position
+	 * and with the given actual cost is valid.
+	 * 
+	 * @param position
+	 * 			The position of the node.
+	 * @param g
+	 * 			The actual cost from the start node to the node
+	 * 			in micro-watt-seconds.
+	 * 
+	 * @return	| result == getRobot().canMoveTo(position)
+	 */
+	protected boolean isValid(Vector position, long g) {
 		// Position must be valid for this robot
-		return getRobot().canMoveTo(getPosition());
+		return getRobot().canMoveTo(position);
 	}
 
 	/**
@@ -192,8 +323,8 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 	 */
 	@Override
 	public Collection<Node<EnergyAmount>> getNeighbours() {
-		List<Node<EnergyAmount>> neighbours = new ArrayList<Node<EnergyAmount>>(Orientation.values().length);
-		for (Orientation orientation : Orientation.values()) {
+		List<Node<EnergyAmount>> neighbours = new ArrayList<Node<EnergyAmount>>(ORIENTATIONS.length);
+		for (Orientation orientation : ORIENTATIONS) {
 			// Get adjacent position in this orientation
 			Vector position = getPosition().add(orientation.getVector());
 			// Create a new neighbour node
@@ -205,6 +336,43 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 		return neighbours;
 	}
 
+	/**
+	 * Visit the neighbour nodes of this node which
+	 * are accepted by the given visitor.
+	 * 
+	 * <p>The position and actual cost of every neighbour are
+	 * checked for validity and offered to the visitor before
+	 * the neighbour node is created, so no nodes are created
+	 * for rejected neighbours.</p>
+	 * 
+	 * @effect	| for each neighbour in getNeighbours() :
+	 * 			|   if (visitor.accepts(neighbour.getPosition(), neighbour.getGKey()))
+	 * 			|     visitor.visit(neighbour)
+	 */
+	@Override
+	public void visitNeighbours(NeighbourVisitor<EnergyAmount> visitor) {
+		long stepCost = getRobot().getStepCost().getMicroWattSeconds();
+		long turnCost = getRobot().getTurnCost().getMicroWattSeconds();
+		for (Orientation orientation : ORIENTATIONS) {
+			// Get adjacent position in this orientation
+			Vector position = getPosition().add(orientation.getVector());
+			// Check the neighbour before creating it
+			long g = calculateG(orientation, stepCost, turnCost);
+			if (!isValid(position, g) || !visitor.accepts(position, EnergyAmount.toWattSeconds(g)))
+				continue;
+			// Create and visit the neighbour node
+			RobotNode neighbour = create(position, orientation);
+			neighbour.setPrevious(this);
+			neighbour.setG(g);
+			visitor.visit(neighbour);
+		}
+	}
+
+	/**
+	 * The orientations in the order of their ordinals.
+	 */
+	private static final Orientation[] ORIENTATIONS = Orientation.values();
+
 	/**
 	 * Calculate the actual cost of this node.
 	 * 
@@ -212,28 +380,82 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 	 * of the actual cost of the previous node and the cost
 	 * to move from the previous node to this node.</p>
 	 */
-	private EnergyAmount calculateG() {
+	private long calculateG() {
 		RobotNode previous = getPrevious();
 		assert (previous != null);
-		// Start from actual cost of previous node
-		EnergyAmount g = previous.getG();
-		// Add one step cost
-		g = g.add(getRobot().getStepCost());
+		return previous.calculateG(getOrientation(), getRobot().getStepCost().getMicroWattSeconds(),
+				getRobot().getTurnCost().getMicroWattSeconds());
+	}
+
+	/**
+	 * Calculate the actual cost in micro-watt-seconds of a neighbour
+	 * node of this node in the given orientation.
+	 * 
+	 * @param orientation
+	 * 			The orientation of the neighbour node.
+	 * @param stepCost
+	 * 			The step cost of this node's robot in micro-watt-seconds.
+	 * @param turnCost
+	 * 			The turn cost of this node's robot in micro-watt-seconds.
+	 */
+	private long calculateG(Orientation orientation, long stepCost, long turnCost) {
 		// Get the amount of turns
-		int amountOfTurns = getOrientation().getDifference(previous.getOrientation());
-		// Add turn costs
-		g = g.add(getRobot().getTurnCost().multiply(amountOfTurns));
-		return g;
+		int amountOfTurns = orientation.getDifference(getOrientation());
+		// Add one step cost and the turn costs to the actual cost of this node
+		return (g + stepCost) + turnCost * amountOfTurns;
 	}
 
 	/**
 	 * @return	The total estimated cost in Watt-seconds
 	 * 			is used as sorting key.
-	 * 			| result == getF().getAmount(Unit.WATTSECOND)
+	 * 			| result == getGKey() + getHKey()
 	 */
 	@Override
 	public double getKey() {
-		return getF().getAmount(Unit.WATTSECOND);
+		return getGKey() + getHKey();
+	}
+
+	/**
+	 * Calculate the cost in micro-watt-seconds of taking the given
+	 * amounts of steps and turns with the given costs.
+	 * 
+	 * <p>Costs too large for a long integer, such as the cost of crossing
+	 * a very large board, are clamped to <code>Long.MAX_VALUE</code>.</p>
+	 * 
+	 * @param amountOfSteps
+	 * 			The non-negative amount of steps.
+	 * @param stepCost
+	 * 			The non-negative cost of one step in micro-watt-seconds.
+	 * @param amountOfTurns
+	 * 			The non-negative amount of turns.
+	 * @param turnCost
+	 * 			The non-negative cost of one turn in micro-watt-seconds.
+	 * 
+	 * @return	| result == min(Long.MAX_VALUE,
+	 * 			|   amountOfSteps * stepCost + amountOfTurns * turnCost)
+	 */
+	static long getCost(long amountOfSteps, long stepCost, long amountOfTurns, long turnCost) {
+		long steps = multiply(amountOfSteps, stepCost);
+		long turns = multiply(amountOfTurns, turnCost);
+		return add(steps, turns);
+	}
+
+	/**
+	 * Add two non-negative costs in micro-watt-seconds,
+	 * clamping the sum to <code>Long.MAX_VALUE</code>.
+	 */
+	static long add(long first, long second) {
+		return (first > Long.MAX_VALUE - second) ? Long.MAX_VALUE : first + second;
+	}
+
+	/**
+	 * Multiply two non-negative long integers,
+	 * clamping the product to <code>Long.MAX_VALUE</code>.
+	 */
+	private static long multiply(long first, long second) {
+		if (first != 0 && second > Long.MAX_VALUE / first)
+			return Long.MAX_VALUE;
+		return first * second;
 	}
 
 	/**
@@ -243,7 +465,7 @@ public abstract class RobotNode extends Node<EnergyAmount> {
 	 */
 	@Override
 	public int compareTo(Node<EnergyAmount> node) {
-		return this.getF().compareTo(node.getF());
+		return Double.compare(this.getKey(), node.getKey());
 	}
 
 	/**
@@ -0,0 +1,359 @@
+package roborally.program;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+import roborally.Robot;
+import roborally.program.command.Command;
+import roborally.program.condition.Condition;
+
+/**
+ * A program lowered to a flat array of instructions.
+ *
+ * <p>Every sequence, if statement, while loop and basic command
+ * becomes a node in the array, consisting of an operation code
+ * followed by its operands. Composite nodes refer to their children
+ * by their offsets. Composed conditions are lowered to short-circuiting
+ * jumps. Only basic commands and basic conditions are kept as objects,
+ * referenced by their index in a constant pool.</p>
+ *
+ * <p>Stepping a compiled program follows the same rules as stepping
+ * the command tree, so both execute the same basic commands in the
+ * same steps. Unlike the command tree, a compiled program does not
+ * check its own construction and does not walk its conditions
+ * as objects on every step.</p>
+ *
+ * <p>A compiled program is immutable and can be shared by many robots.
+ * The execution state of a single robot is kept in a {@link ProgramCounter},
+ * holding one slot for every composite node.</p>
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ *
+ * @see ProgramCompiler
+ */
+public class CompiledProgram {
+
+	/**
+	 * A basic command, executed by the robot.
+	 * <br>Operands: command index.
+	 */
+	static final int BASIC = 0;
+
+	/**
+	 * A sequence of commands. Its slot holds the index of the
+	 * current command, counting from one, or zero before the first.
+	 * <br>Operands: slot, number of commands, command offsets.
+	 */
+	static final int SEQUENCE = 1;
+
+	/**
+	 * An if statement. Its slot holds zero outside a branch,
+	 * one in the then branch and two in the else branch.
+	 * <br>Operands: slot, condition offset, then offset, else offset.
+	 */
+	static final int IF = 2;
+
+	/**
+	 * A while loop. Its slot holds one inside an iteration
+	 * and zero otherwise.
+	 * <br>Operands: slot, condition offset, body offset.
+	 */
+	static final int WHILE = 3;
+
+	/**
+	 * Jump to the given offset in a condition.
+	 * <br>Operands: target offset.
+	 */
+	static final int JUMP = 4;
+
+	/**
+	 * Evaluate the basic condition at the given pool index
+	 * and jump to the given offset if it is false.
+	 * <br>Operands: condition index, target offset.
+	 */
+	static final int JUMP_IF_FALSE = 5;
+
+	/**
+	 * Evaluate the basic condition at the given pool index
+	 * and jump to the given offset if it is true.
+	 * <br>Operands: condition index, target offset.
+	 */
+	static final int JUMP_IF_TRUE = 6;
+
+	/**
+	 * End a condition with the given result.
+	 * <br>Operands: one if the condition holds, zero otherwise.
+	 */
+	static final int RETURN = 7;
+
+	/**
+	 * Create a new compiled program.
+	 *
+	 * @param code
+	 * 			The instructions of the new compiled program.
+	 * @param root
+	 * 			The offset of the node of the main command.
+	 * @param commands
+	 * 			The basic commands referenced by the instructions.
+	 * @param conditions
+	 * 			The basic conditions referenced by the instructions.
+	 * @param nbSlots
+	 * 			The number of composite nodes in the instructions.
+	 */
+	CompiledProgram(int[] code, int root, Command[] commands, Condition[] conditions, int nbSlots) {
+		this.code = code;
+		this.root = root;
+		this.commands = commands;
+		this.conditions = conditions;
+		this.nbSlots = nbSlots;
+	}
+
+	/**
+	 * Variable registering the instructions of this compiled program.
+	 */
+	private final int[] code;
+
+	/**
+	 * Variable registering the offset of the node
+	 * of the main command of this compiled program.
+	 */
+	private final int root;
+
+	/**
+	 * Variable registering the basic commands referenced
+	 * by the instructions of this compiled program.
+	 */
+	private final Command[] commands;
+
+	/**
+	 * Variable registering the basic conditions referenced
+	 * by the instructions of this compiled program.
+	 */
+	private final Condition[] conditions;
+
+	/**
+	 * Get the length of the instructions of this compiled program.
+	 */
+	@Basic
+	@Immutable
+	public int getLength() {
+		return code.length;
+	}
+
+	/**
+	 * Get the number of composite nodes in this compiled program,
+	 * each of which needs a slot in a program counter.
+	 */
+	@Basic
+	@Immutable
+	public int getNbSlots() {
+		return nbSlots;
+	}
+
+	/**
+	 * Variable registering the number of composite nodes
+	 * in this compiled program.
+	 */
+	private final int nbSlots;
+
+	/**
+	 * Execute one step of this compiled program.
+	 *
+	 * @param counter
+	 * 			The program counter of the robot.
+	 * @param robot
+	 * 			The robot running this program.
+	 *
+	 * @effect	The program counter is advanced to the next
+	 * 			basic command, which is executed by the robot.
+	 * 			| let
+	 * 			|   command = next(counter, robot)
+	 * 			| if (command != null)
+	 * 			|   command.execute(robot)
+	 * @return	True if and only if a basic command was executed.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given program counter is not effective
+	 * 			or does not belong to this compiled program.
+	 * 			| counter == null || counter.getProgram() != this
+	 */
+	public boolean step(ProgramCounter counter, Robot robot) throws IllegalArgumentException {
+		Command command = next(counter, robot);
+		if (command == null)
+			return false;
+		command.execute(robot);
+		return true;
+	}
+
+	/**
+	 * Advance the given program counter to the next basic command
+	 * of this compiled program, without executing it.
+	 *
+	 * <p>The main command is stepped as in {@link Command#step(Robot)}.
+	 * When it cannot step, the program counter is left in the state
+	 * in which the command tree would be left, so the program restarts
+	 * on the next step exactly like the command tree does.</p>
+	 *
+	 * <p>Only conditions are evaluated, so this method does not change
+	 * the robot or its board. Robots can therefore look up their next
+	 * commands in parallel, as long as no robot executes a command.</p>
+	 *
+	 * @param counter
+	 * 			The program counter of the robot.
+	 * @param robot
+	 * 			The robot running this program.
+	 *
+	 * @return	The next basic command for the robot to execute,
+	 * 			or null if the main command could not step.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given program counter is not effective
+	 * 			or does not belong to this compiled program.
+	 * 			| counter == null || counter.getProgram() != this
+	 */
+	public Command next(ProgramCounter counter, Robot robot) throws IllegalArgumentException {
+		if (counter == null || counter.getProgram() != this)
+			throw new IllegalArgumentException("Program counter must belong to this program.");
+
+		int[] slots = counter.slots;
+		if (!step(root, slots, robot))
+			return null;
+
+		// Follow the current commands down to the basic command
+		int node = root;
+		while (code[node] != BASIC) {
+			node = getCurrent(node, slots[code[node + 1]]);
+		}
+		return commands[code[node + 1]];
+	}
+
+	/**
+	 * Get the offset of the current child of the given composite node
+	 * in the given state, as in {@link Command#execute(Robot)}.
+	 */
+	private int getCurrent(int node, int state) {
+		switch (code[node]) {
+		case SEQUENCE:
+			return code[node + 2 + state];
+		case IF:
+			return code[node + 2 + state];
+		default:
+			return code[node + 3];
+		}
+	}
+
+	/**
+	 * Check whether the given node can stay as the current command,
+	 * as in {@link Command#canStayCurrent(Robot)}.
+	 */
+	private boolean canStayCurrent(int node, int[] slots, Robot robot) {
+		switch (code[node]) {
+		case BASIC:
+			return false;
+		case SEQUENCE:
+			return slots[code[node + 1]] <= code[node + 2];
+		case IF: {
+			int branch = slots[code[node + 1]];
+			return branch != 0 && canStayCurrent(code[node + 2 + branch], slots, robot);
+		}
+		case WHILE:
+			if (slots[code[node + 1]] != 0 && canStayCurrent(code[node + 3], slots, robot))
+				return true;
+			return evaluate(code[node + 2], robot);
+		default:
+			throw new IllegalStateException("Invalid node at offset " + node + ": " + code[node]);
+		}
+	}
+
+	/**
+	 * Move the given node one step forward,
+	 * as in {@link Command#step(Robot)}.
+	 */
+	private boolean step(int node, int[] slots, Robot robot) {
+		switch (code[node]) {
+		case BASIC:
+			return true;
+		case SEQUENCE: {
+			int slot = code[node + 1], nbCommands = code[node + 2];
+			int index = slots[slot];
+			// Move to the next command if the current one cannot stay
+			if (index == 0 || !canStayCurrent(code[node + 2 + index], slots, robot))
+				index++;
+			// Move on as long as the current command cannot step
+			while (index <= nbCommands && !step(code[node + 2 + index], slots, robot)) {
+				index++;
+			}
+			if (index > nbCommands) {
+				slots[slot] = 0;
+				return false;
+			}
+			slots[slot] = index;
+			return true;
+		}
+		case IF: {
+			int slot = code[node + 1];
+			int branch = slots[slot];
+			if (branch == 0) {
+				// Enter a branch
+				branch = evaluate(code[node + 2], robot) ? 1 : 2;
+			} else if (!canStayCurrent(code[node + 2 + branch], slots, robot)) {
+				// Exit the branch without entering another one
+				slots[slot] = 0;
+				return false;
+			}
+			if (step(code[node + 2 + branch], slots, robot)) {
+				slots[slot] = branch;
+				return true;
+			}
+			slots[slot] = 0;
+			return false;
+		}
+		case WHILE: {
+			int slot = code[node + 1], body = code[node + 3];
+			if (slots[slot] != 0 && step(body, slots, robot) && canStayCurrent(body, slots, robot))
+				return true;
+			// Try to enter a new iteration
+			if (evaluate(code[node + 2], robot) && step(body, slots, robot)) {
+				slots[slot] = 1;
+				return true;
+			}
+			slots[slot] = 0;
+			return false;
+		}
+		default:
+			throw new IllegalStateException("Invalid node at offset " + node + ": " + code[node]);
+		}
+	}
+
+	/**
+	 * Evaluate the condition starting at the given offset.
+	 */
+	private boolean evaluate(int pc, Robot robot) {
+		final int[] code = this.code;
+		while (true) {
+			switch (code[pc]) {
+			case JUMP:
+				pc = code[pc + 1];
+				break;
+			case JUMP_IF_FALSE:
+				pc = conditions[code[pc + 1]].evaluate(robot) ? pc + 3 : code[pc + 2];
+				break;
+			case JUMP_IF_TRUE:
+				pc = conditions[code[pc + 1]].evaluate(robot) ? code[pc + 2] : pc + 3;
+				break;
+			case RETURN:
+				return code[pc + 1] != 0;
+			default:
+				throw new IllegalStateException("Invalid instruction at offset " + pc + ": " + code[pc]);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package roborally.program;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.text.ParseException;
 
 import be.kuleuven.cs.som.annotate.Basic;
@@ -40,10 +42,36 @@ public class Parser {
 		if (source == null)
 			throw new IllegalArgumentException("Program source must be effective.");
 		this.source = source;
+		this.reader = null;
 	}
 
 	/**
-	 * Get the program source this parser operates on.
+	 * Create a new parser for the program source
+	 * read from the given reader.
+	 * 
+	 * <p>The source is read while it is parsed, so it is
+	 * never loaded in memory as a whole.</p>
+	 * 
+	 * @param reader
+	 * 			The reader of the program source.
+	 * 
+	 * @post	The new parser has no program source in memory.
+	 * 			| new.getSource() == null
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given reader is not effective.
+	 * 			| reader == null
+	 */
+	public Parser(Reader reader) throws IllegalArgumentException {
+		if (reader == null)
+			throw new IllegalArgumentException("Program reader must be effective.");
+		this.source = null;
+		this.reader = reader;
+	}
+
+	/**
+	 * Get the program source this parser operates on,
+	 * or null if the source is read from a reader.
 	 */
 	@Basic
 	@Immutable
@@ -56,12 +84,18 @@ public class Parser {
 	 */
 	private final CharSequence source;
 
+	/**
+	 * Variable registering the reader of the program source
+	 * of this parser, if it has no source in memory.
+	 */
+	private final Reader reader;
+
 	/**
 	 * Get the tokenizer this parser works with.
 	 */
 	private Tokenizer getTokenizer() {
 		if (tokenizer == null)
-			tokenizer = new Tokenizer(getSource());
+			tokenizer = (source != null) ? new Tokenizer(source) : new Tokenizer(reader);
 		return tokenizer;
 	}
 
@@ -79,8 +113,10 @@ public class Parser {
 	 * 
 	 * @throws	ParseException
 	 * 			If this parser's source is invalid.
+	 * @throws	IOException
+	 * 			If this parser's source could not be read.
 	 */
-	public Command parse() throws ParseException {
+	public Command parse() throws ParseException, IOException {
 		Tokenizer tokenizer = getTokenizer();
 		Stack<Statement> stack = new Stack<Statement>();
 
@@ -161,10 +197,13 @@ public class Parser {
 	 * 			The arguments to fill in the message.
 	 * 
 	 * @throws	ParseException
-	 * 			The requested parse exception.
+	 * 			The requested parse exception, at the index just after
+	 * 			the last token read, clamped to <code>Integer.MAX_VALUE</code>.
 	 */
 	private void doThrow(String message, Object... args) throws ParseException {
-		throw new ParseException(String.format(message, args), getTokenizer().getLastIndex());
+		// Parse exceptions only hold an int offset
+		int index = (int) Math.min(getTokenizer().getLastIndex(), Integer.MAX_VALUE);
+		throw new ParseException(String.format(message, args), index);
 	}
 
 	/**
@@ -1,13 +1,13 @@
 package roborally.program;
 
 import java.io.*;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.channels.FileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.text.ParseException;
 
 import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
 
 import roborally.program.command.Command;
 
@@ -34,6 +34,9 @@ public class Program {
 	 * @post	The new program's main command is set
 	 * 			to the given command.
 	 * 			| new.getCommand() == command
+	 * @post	The new program's compiled program is set
+	 * 			to the compiled form of the given command.
+	 * 			| new.getCompiledProgram() == new ProgramCompiler(command).compile()
 	 * 
 	 * @throws	IllegalArgumentException
 	 * 			If the given command is not effective
@@ -44,6 +47,7 @@ public class Program {
 		if (command == null || !command.isConstructed())
 			throw new IllegalArgumentException("Command must be effective and properly constructed.");
 		this.command = command;
+		this.compiledProgram = new ProgramCompiler(command).compile();
 	}
 
 	/**
@@ -62,6 +66,24 @@ public class Program {
 	 */
 	private final Command command;
 
+	/**
+	 * Get the compiled form of this program.
+	 *
+	 * <p>The main command is compiled once when this program
+	 * is created, so every robot running this program shares
+	 * the same compiled program, even across threads.</p>
+	 */
+	@Basic
+	@Immutable
+	public CompiledProgram getCompiledProgram() {
+		return compiledProgram;
+	}
+
+	/**
+	 * Variable registering the compiled form of this program.
+	 */
+	private final CompiledProgram compiledProgram;
+
 	/**
 	 * Get the source representation of this program.
 	 *
@@ -168,36 +190,91 @@ public class Program {
 		if (file == null)
 			throw new IllegalArgumentException("File must be effective.");
 
-		// Read the entire file contents into a buffer
-		CharBuffer buffer = readFile(file);
+		FileInputStream stream = new FileInputStream(file);
+		try {
+			return load(stream.getChannel());
+		} finally {
+			stream.close();
+		}
+	}
 
-		// Parse the file contents
-		Parser parser = new Parser(buffer);
-		Command command = parser.parse();
+	/**
+	 * Load the program source read from the given channel
+	 * and parse it into a program.
+	 * 
+	 * <p>The bytes are decoded with the default character set
+	 * while they are parsed. The channel is not closed.</p>
+	 * 
+	 * @param channel
+	 * 			The channel to read from.
+	 * 
+	 * @effect	| load(Channels.newReader(channel,
+	 * 			|   Charset.defaultCharset().newDecoder(), -1))
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given channel is not effective.
+	 * 			| channel == null
+	 */
+	public static Program load(ReadableByteChannel channel) throws IllegalArgumentException, IOException,
+			ParseException {
+		if (channel == null)
+			throw new IllegalArgumentException("Channel must be effective.");
 
-		return new Program(command);
+		return load(Channels.newReader(channel, Charset.defaultCharset().newDecoder(), -1));
 	}
 
 	/**
-	 * Read the entire file contents of the given file.
+	 * Load the program source read from the given input stream
+	 * and parse it into a program.
 	 * 
-	 * @param file
-	 * 			The file to read.
+	 * <p>The bytes are decoded with the default character set
+	 * while they are parsed. The stream is not closed.</p>
 	 * 
-	 * @return	A character buffer containing the file contents.
+	 * @param stream
+	 * 			The input stream to read from.
 	 * 
+	 * @effect	| load(new InputStreamReader(stream,
+	 * 			|   Charset.defaultCharset().newDecoder()))
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given stream is not effective.
+	 * 			| stream == null
+	 */
+	public static Program load(InputStream stream) throws IllegalArgumentException, IOException, ParseException {
+		if (stream == null)
+			throw new IllegalArgumentException("Stream must be effective.");
+
+		return load(new InputStreamReader(stream, Charset.defaultCharset().newDecoder()));
+	}
+
+	/**
+	 * Load the program source read from the given reader
+	 * and parse it into a program.
+	 * 
+	 * <p>The source is parsed while it is read, so it is never
+	 * loaded in memory as a whole. The reader is not closed.</p>
+	 * 
+	 * @param reader
+	 * 			The reader to read from.
+	 * 
+	 * @return	The loaded program.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the given reader is not effective.
+	 * 			| reader == null
 	 * @throws	IOException
-	 * 			If the given file could not be read.
+	 * 			If the program source could not be read.
+	 * @throws	ParseException
+	 * 			If the program source could not be
+	 * 			parsed into a program.
 	 */
-	private static CharBuffer readFile(File file) throws IOException {
-		FileChannel channel = null;
-		try {
-			channel = new FileInputStream(file).getChannel();
-			ByteBuffer byteBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
-			CharBuffer charBuffer = Charset.defaultCharset().newDecoder().decode(byteBuffer);
-			return charBuffer;
-		} finally {
-			channel.close();
-		}
+	public static Program load(Reader reader) throws IllegalArgumentException, IOException, ParseException {
+		if (reader == null)
+			throw new IllegalArgumentException("Reader must be effective.");
+
+		Parser parser = new Parser(reader);
+		Command command = parser.parse();
+
+		return new Program(command);
 	}
 }
@@ -0,0 +1,241 @@
+package roborally.program;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+import roborally.program.command.Command;
+import roborally.program.command.IfCommand;
+import roborally.program.command.SequenceCommand;
+import roborally.program.command.WhileCommand;
+import roborally.program.condition.AndCondition;
+import roborally.program.condition.ComposedCondition;
+import roborally.program.condition.Condition;
+import roborally.program.condition.NotCondition;
+import roborally.program.condition.OrCondition;
+import roborally.program.condition.TrueCondition;
+
+/**
+ * A compiler which lowers a command tree
+ * to a compiled program.
+ *
+ * <p>Sequences, if statements and while loops become
+ * composite nodes referring to their children, and composed
+ * conditions are lowered to short-circuiting jumps.
+ * All other commands and conditions are basic and are
+ * referenced from the instructions.</p>
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ *
+ * @see CompiledProgram
+ */
+public class ProgramCompiler {
+
+	/**
+	 * Create a new compiler for the given command.
+	 *
+	 * @param command
+	 * 			The main command to compile.
+	 *
+	 * @post	The new compiler's command is set to the given command.
+	 * 			| new.getCommand() == command
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given command is not effective
+	 * 			or is not properly constructed.
+	 * 			| command == null || !command.isConstructed()
+	 */
+	public ProgramCompiler(Command command) throws IllegalArgumentException {
+		if (command == null || !command.isConstructed())
+			throw new IllegalArgumentException("Command must be effective and properly constructed.");
+		this.command = command;
+	}
+
+	/**
+	 * Get the main command this compiler operates on.
+	 */
+	@Basic
+	@Immutable
+	public Command getCommand() {
+		return command;
+	}
+
+	/**
+	 * Variable registering the main command of this compiler.
+	 */
+	private final Command command;
+
+	/**
+	 * Compile this compiler's command.
+	 *
+	 * @return	The compiled program, executing the same
+	 * 			basic commands in the same steps as
+	 * 			this compiler's command.
+	 */
+	public CompiledProgram compile() {
+		length = 0;
+		commands.clear();
+		conditions.clear();
+		nbSlots = 0;
+
+		int root = compileCommand(getCommand());
+
+		return new CompiledProgram(Arrays.copyOf(code, length), root, commands.toArray(new Command[commands.size()]),
+				conditions.toArray(new Condition[conditions.size()]), nbSlots);
+	}
+
+	/**
+	 * Emit the node for the given command,
+	 * after the nodes of its children.
+	 *
+	 * @param command
+	 * 			The command to compile.
+	 *
+	 * @return	The offset of the emitted node.
+	 */
+	private int compileCommand(Command command) {
+		if (command instanceof SequenceCommand) {
+			SequenceCommand sequence = (SequenceCommand) command;
+			int nbCommands = sequence.getNbCommands();
+			int[] node = new int[3 + nbCommands];
+			node[0] = CompiledProgram.SEQUENCE;
+			node[1] = nbSlots++;
+			node[2] = nbCommands;
+			for (int i = 1; i <= nbCommands; ++i) {
+				node[2 + i] = compileCommand(sequence.getCommandAt(i));
+			}
+			return emit(node);
+		} else if (command instanceof IfCommand) {
+			IfCommand ifCommand = (IfCommand) command;
+			int slot = nbSlots++;
+			int condition = compileCondition(ifCommand.getCondition());
+			int thenCommand = compileCommand(ifCommand.getThenCommand());
+			int elseCommand = compileCommand(ifCommand.getElseCommand());
+			return emit(CompiledProgram.IF, slot, condition, thenCommand, elseCommand);
+		} else if (command instanceof WhileCommand) {
+			WhileCommand loop = (WhileCommand) command;
+			int slot = nbSlots++;
+			int condition = compileCondition(loop.getCondition());
+			int body = compileCommand(loop.getCommand());
+			return emit(CompiledProgram.WHILE, slot, condition, body);
+		} else {
+			commands.add(command);
+			return emit(CompiledProgram.BASIC, commands.size() - 1);
+		}
+	}
+
+	/**
+	 * Emit the instructions for evaluating the given condition,
+	 * ending with the result of the condition.
+	 *
+	 * @param condition
+	 * 			The condition to compile.
+	 *
+	 * @return	The offset of the first emitted instruction.
+	 */
+	private int compileCondition(Condition condition) {
+		int start = length;
+		List<Integer> toFalse = new ArrayList<Integer>();
+		compileCondition(condition, false, toFalse);
+		emit(CompiledProgram.RETURN, 1);
+		patch(toFalse, length);
+		emit(CompiledProgram.RETURN, 0);
+		return start;
+	}
+
+	/**
+	 * Emit the instructions for jumping when the given condition
+	 * evaluates to the given value, falling through otherwise.
+	 *
+	 * @param condition
+	 * 			The condition to compile.
+	 * @param jumpIf
+	 * 			The value on which to jump.
+	 * @param jumps
+	 * 			The list to which the offsets of the jump targets
+	 * 			are added, to be patched by the caller.
+	 */
+	private void compileCondition(Condition condition, boolean jumpIf, List<Integer> jumps) {
+		if (condition instanceof TrueCondition) {
+			if (jumpIf)
+				jumps.add(emit(CompiledProgram.JUMP, -1) + 1);
+		} else if (condition instanceof NotCondition) {
+			compileCondition(((NotCondition) condition).getConditionAt(1), !jumpIf, jumps);
+		} else if (condition instanceof AndCondition || condition instanceof OrCondition) {
+			// Conjunctions stop at the first false condition,
+			// disjunctions at the first true condition
+			ComposedCondition composed = (ComposedCondition) condition;
+			int nbConditions = composed.getNbConditions();
+			boolean stopIf = (condition instanceof OrCondition);
+			if (stopIf == jumpIf) {
+				// Every stop is a jump, passing all conditions falls through
+				for (int i = 1; i <= nbConditions; ++i) {
+					compileCondition(composed.getConditionAt(i), jumpIf, jumps);
+				}
+			} else {
+				// Every stop falls through, only the last condition can jump
+				List<Integer> toNext = new ArrayList<Integer>();
+				for (int i = 1; i < nbConditions; ++i) {
+					compileCondition(composed.getConditionAt(i), stopIf, toNext);
+				}
+				if (nbConditions > 0)
+					compileCondition(composed.getConditionAt(nbConditions), jumpIf, jumps);
+				else
+					jumps.add(emit(CompiledProgram.JUMP, -1) + 1);
+				patch(toNext, length);
+			}
+		} else {
+			conditions.add(condition);
+			int opcode = jumpIf ? CompiledProgram.JUMP_IF_TRUE : CompiledProgram.JUMP_IF_FALSE;
+			jumps.add(emit(opcode, conditions.size() - 1, -1) + 2);
+		}
+	}
+
+	/**
+	 * Set the jump targets at the given offsets to the given target.
+	 */
+	private void patch(List<Integer> jumps, int target) {
+		for (int offset : jumps) {
+			code[offset] = target;
+		}
+	}
+
+	/**
+	 * Append the given instruction to the code.
+	 *
+	 * @return	The offset of the appended instruction.
+	 */
+	private int emit(int... instruction) {
+		if (length + instruction.length > code.length)
+			code = Arrays.copyOf(code, Math.max(2 * code.length, length + instruction.length));
+		int offset = length;
+		System.arraycopy(instruction, 0, code, length, instruction.length);
+		length += instruction.length;
+		return offset;
+	}
+
+	/**
+	 * Variables registering the code emitted so far and its length.
+	 */
+	private int[] code = new int[64];
+	private int length;
+
+	/**
+	 * Variables registering the pools of basic commands and conditions
+	 * and the number of composite nodes emitted so far.
+	 */
+	private final List<Command> commands = new ArrayList<Command>();
+	private final List<Condition> conditions = new ArrayList<Condition>();
+	private int nbSlots;
+
+}
@@ -0,0 +1,68 @@
+package roborally.program;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * The execution state of a robot running a compiled program.
+ *
+ * <p>Every robot keeps its own program counter, so a compiled
+ * program can be shared between robots without them stepping
+ * through each other's execution.</p>
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class ProgramCounter {
+
+	/**
+	 * Create a new program counter for the given compiled program.
+	 *
+	 * @param program
+	 * 			The compiled program.
+	 *
+	 * @post	The new program counter belongs to the given program.
+	 * 			| new.getProgram() == program
+	 * @post	The new program counter is positioned
+	 * 			at the start of the program.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given program is not effective.
+	 * 			| program == null
+	 */
+	public ProgramCounter(CompiledProgram program) throws IllegalArgumentException {
+		if (program == null)
+			throw new IllegalArgumentException("Compiled program must be effective.");
+
+		this.program = program;
+		this.slots = new int[program.getNbSlots()];
+	}
+
+	/**
+	 * Get the compiled program of this program counter.
+	 */
+	@Basic
+	@Immutable
+	public CompiledProgram getProgram() {
+		return program;
+	}
+
+	/**
+	 * Variable registering the compiled program of this program counter.
+	 */
+	private final CompiledProgram program;
+
+	/**
+	 * Variable registering, for every composite node in the program,
+	 * the state of that node, such as the index of the current command
+	 * of a sequence. All states are zero at the start of the program.
+	 */
+	final int[] slots;
+
+}
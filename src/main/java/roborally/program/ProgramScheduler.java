@@ -0,0 +1,302 @@
+package roborally.program;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+import roborally.Board;
+import roborally.Robot;
+import roborally.program.command.Command;
+import roborally.program.command.TurnCommand;
+import roborally.util.Parallel;
+
+/**
+ * A scheduler which steps the programs of many robots together.
+ *
+ * <p>Every round executes one step in the program of every robot,
+ * in three phases:</p>
+ * <ol>
+ * <li>In the read phase, all robots advance their compiled programs
+ * to their next basic command in parallel. Only conditions are
+ * evaluated, while the boards of the robots are frozen, so every
+ * robot sees the boards as they were at the start of the round.</li>
+ * <li>In the local phase, the commands which only change the robot
+ * executing them, such as turns, are executed in parallel.</li>
+ * <li>In the commit phase, all other commands, such as moves, shots
+ * and picking up items, are executed one after the other in the
+ * order of the given robots. When robots compete for the same
+ * position or item, the robot which comes first wins.</li>
+ * </ol>
+ *
+ * <p>Since the parallel phases never change state shared between
+ * robots, the outcome of a round does not depend on the number
+ * of threads in the pool. Programs shared by many robots are
+ * compiled when they are created, and every robot creates its
+ * program counter when its program is set, so the read phase
+ * only reads the compiled programs.</p>
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class ProgramScheduler {
+
+	/**
+	 * Create a new scheduler on the shared fork/join pool.
+	 *
+	 * @effect	| this(Parallel.getPool())
+	 */
+	public ProgramScheduler() {
+		this(Parallel.getPool());
+	}
+
+	/**
+	 * Create a new scheduler on the given fork/join pool.
+	 *
+	 * @param pool
+	 * 			The pool for the new scheduler.
+	 *
+	 * @post	The new scheduler's pool is set to the given pool.
+	 * 			| new.getPool() == pool
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given pool is not effective.
+	 * 			| pool == null
+	 */
+	public ProgramScheduler(ForkJoinPool pool) throws IllegalArgumentException {
+		if (pool == null)
+			throw new IllegalArgumentException("Pool must be effective.");
+		this.pool = pool;
+	}
+
+	/**
+	 * Get the fork/join pool on which this scheduler
+	 * runs its parallel phases.
+	 */
+	@Basic
+	@Immutable
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Variable registering the pool of this scheduler.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Execute the given amount of rounds on the given robots.
+	 *
+	 * <p>Robots without a program are skipped. A robot whose
+	 * program reaches its end does nothing in that round,
+	 * and restarts its program in the next round.</p>
+	 *
+	 * @param robots
+	 * 			The robots to step, in the order in which
+	 * 			their conflicting commands are executed.
+	 * @param rounds
+	 * 			The amount of rounds to execute.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the given list of robots is not effective.
+	 * 			| robots == null
+	 * @throws	IllegalArgumentException
+	 * 			If the given amount of rounds is negative.
+	 * 			| rounds < 0
+	 */
+	public void step(List<Robot> robots, int rounds) throws IllegalArgumentException {
+		if (robots == null)
+			throw new IllegalArgumentException("Robots must be effective.");
+		if (rounds < 0)
+			throw new IllegalArgumentException("Amount of rounds must be non-negative.");
+
+		Round round = new Round(robots.toArray(new Robot[robots.size()]));
+		while (rounds-- > 0) {
+			round.run();
+		}
+	}
+
+	/**
+	 * Check whether the given command only changes
+	 * the robot executing it.
+	 *
+	 * @param command
+	 * 			The command to check.
+	 *
+	 * @return	True if and only if the given command
+	 * 			is a turn command.
+	 * 			| result == (command instanceof TurnCommand)
+	 */
+	protected boolean isLocal(Command command) {
+		return command instanceof TurnCommand;
+	}
+
+	/**
+	 * Handle the failure of a robot in the current round.
+	 *
+	 * <p>Failures are handled in the order of the robots
+	 * during the commit phase.</p>
+	 *
+	 * @param robot
+	 * 			The robot which failed.
+	 * @param exception
+	 * 			The exception thrown by the robot's program.
+	 *
+	 * @throws	RuntimeException
+	 * 			The given exception is thrown again.
+	 * 			| true
+	 */
+	protected void handleFailure(Robot robot, RuntimeException exception) throws RuntimeException {
+		throw exception;
+	}
+
+	/**
+	 * The state of the rounds executed on a fixed array of robots.
+	 */
+	private class Round {
+
+		public Round(Robot[] robots) {
+			this.robots = robots;
+			this.commands = new Command[robots.length];
+			this.failures = new RuntimeException[robots.length];
+		}
+
+		/**
+		 * The robots, their next commands and
+		 * their failures in the current round.
+		 */
+		private final Robot[] robots;
+		private final Command[] commands;
+		private final RuntimeException[] failures;
+
+		/**
+		 * Execute one round.
+		 */
+		public void run() {
+			// Read phase on frozen boards
+			List<Board> boards = getBoards();
+			for (Board board : boards) {
+				board.freeze();
+			}
+			try {
+				pool.invoke(new PhaseTask(false, 0, robots.length));
+			} finally {
+				for (Board board : boards) {
+					board.unfreeze();
+				}
+			}
+
+			// Local phase
+			pool.invoke(new PhaseTask(true, 0, robots.length));
+
+			// Commit phase, skipping robots destroyed earlier in this phase
+			for (int i = 0; i < robots.length; ++i) {
+				Command command = commands[i];
+				RuntimeException failure = failures[i];
+				commands[i] = null;
+				failures[i] = null;
+				if (failure == null && command != null && !isLocal(command) && !robots[i].isTerminated()) {
+					try {
+						command.execute(robots[i]);
+					} catch (RuntimeException e) {
+						failure = e;
+					}
+				}
+				if (failure != null)
+					handleFailure(robots[i], failure);
+			}
+		}
+
+		/**
+		 * Get the distinct boards on which the robots are placed.
+		 */
+		private List<Board> getBoards() {
+			Map<Board, Boolean> boards = new IdentityHashMap<Board, Boolean>();
+			for (Robot robot : robots) {
+				if (robot.isPlaced())
+					boards.put(robot.getBoard(), Boolean.TRUE);
+			}
+			return new ArrayList<Board>(boards.keySet());
+		}
+
+		/**
+		 * Advance the program of the robot at the given index
+		 * to its next command.
+		 */
+		private void read(int index) {
+			Robot robot = robots[index];
+			try {
+				if (robot.hasProgram())
+					commands[index] = robot.nextProgramCommand();
+			} catch (RuntimeException e) {
+				failures[index] = e;
+			}
+		}
+
+		/**
+		 * Execute the next command of the robot at the given index
+		 * if it only changes that robot.
+		 */
+		private void executeLocal(int index) {
+			Command command = commands[index];
+			if (command == null || !isLocal(command))
+				return;
+			try {
+				command.execute(robots[index]);
+			} catch (RuntimeException e) {
+				failures[index] = e;
+			}
+		}
+
+		/**
+		 * A task running a parallel phase on a range of robots.
+		 */
+		private class PhaseTask extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
+
+			public PhaseTask(boolean isLocal, int from, int to) {
+				this.isLocal = isLocal;
+				this.from = from;
+				this.to = to;
+			}
+
+			private final boolean isLocal;
+			private final int from, to;
+
+			@Override
+			protected void compute() {
+				if (to - from <= THRESHOLD) {
+					for (int i = from; i < to; ++i) {
+						if (isLocal)
+							executeLocal(i);
+						else
+							read(i);
+					}
+				} else {
+					int middle = (from + to) >>> 1;
+					invokeAll(new PhaseTask(isLocal, from, middle), new PhaseTask(isLocal, middle, to));
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * The maximum number of robots handled by a single task.
+	 */
+	private static final int THRESHOLD = 256;
+
+}
@@ -1,18 +1,26 @@
 package roborally.program;
 
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
 
 /**
  * A tokenizer which takes a program source
  * and produces a sequence of tokens representing
  * the individual components of the program.
- * 
+ *
+ * <p>The source is scanned character by character in a single
+ * pass, so every character is visited a constant number of times
+ * and tokenizing takes linear time in the length of the source.</p>
+ *
+ * <p>A tokenizer can also pull its source from a reader. Only
+ * a window of characters around the current token is kept, so
+ * the source does not need to be loaded in memory as a whole.</p>
+ *
  * @author	Mattias Buelens
  * @author	Thomas Goossens
  * @version	3.0
- * 
+ *
  * @note	This class is part of the 2012 project for
  * 			the course Object Oriented Programming in
  * 			the second phase of the Bachelor of Engineering
@@ -21,125 +29,199 @@ import java.util.regex.Pattern;
 public class Tokenizer {
 
 	public Tokenizer(CharSequence source) {
-		this.source = source;
+		this.reader = null;
+		this.buffer = source.toString().toCharArray();
+		this.limit = buffer.length;
 	}
 
-	private final CharSequence source;
-
-	public int getLastIndex() {
-		return lastIndex;
+	public Tokenizer(Reader reader) {
+		this.reader = reader;
+		this.buffer = new char[BUFFER_SIZE];
+		this.limit = 0;
 	}
 
-	private int lastIndex;
-
-	public Token nextToken() {
-		Token token = null;
-
-		// Check all token matchers for a match
-		for (TokenMatcher tokenMatcher : TokenMatcher.values()) {
-			Matcher matcher = tokenMatcher.matcher(source);
-			// Find a match starting at the last index
-			if (matcher.find(lastIndex) && lastIndex == matcher.start()) {
-				// Parse token
-				token = tokenMatcher.parse(matcher.toMatchResult());
-				// Move index after last match
-				lastIndex = matcher.end();
-				break;
-			}
-		}
-
-		return token;
-	}
+	/**
+	 * The reader to pull characters from,
+	 * or null if the whole source is in the buffer.
+	 */
+	private final Reader reader;
 
 	/**
-	 * An enumeration of matchers for program tokens.
+	 * The window of source characters, of which the characters
+	 * from the position up to the limit are not yet tokenized.
 	 */
-	enum TokenMatcher {
-
-		/**
-		 * Matches an open token, such as
-		 * {@code "(while"} or {@code "(at-robot"}.
-		 */
-		OPEN("\\s*\\(([a-z\\-]+)") {
-
-			@Override
-			public Token parse(MatchResult result) {
-				String name = result.group(1).toLowerCase();
-				return new OpenToken(name);
-			}
+	private char[] buffer;
+	private int position = 0;
+	private int limit;
 
-		},
+	/**
+	 * The index in the source of the first character in the buffer.
+	 */
+	private long offset = 0;
 
-		/**
-		 * Matches a close token {@code ")"}.
-		 */
-		CLOSE("\\s*\\)") {
+	/**
+	 * Get the index in the source just after the last token read.
+	 *
+	 * <p>The index is a long, since a source streamed from a reader
+	 * may be longer than <code>Integer.MAX_VALUE</code> characters.</p>
+	 */
+	public long getLastIndex() {
+		return offset + position;
+	}
 
-			@Override
-			public Token parse(MatchResult result) {
-				return new CloseToken();
+	/**
+	 * Read the next token from the source.
+	 *
+	 * <p>White space before a token is skipped. The following tokens
+	 * are recognized, in order of precedence:</p>
+	 * <ul>
+	 * <li>an open token, such as {@code "(while"} or {@code "(at-robot"},
+	 * whose name consists of letters and hyphens;</li>
+	 * <li>a close token {@code ")"};</li>
+	 * <li>an end-of-file token at the end of the source;</li>
+	 * <li>a value token, such as {@code 1000} or {@code clockwise},
+	 * which runs up to the next parenthesis.</li>
+	 * </ul>
+	 *
+	 * @return	The next token, or null if no token
+	 * 			could be read at the last index.
+	 *
+	 * @throws	IOException
+	 * 			If the source could not be read.
+	 */
+	public Token nextToken() throws IOException {
+		// Skip white space
+		int index = 0;
+		int c = peek(index);
+		while (isWhitespace(c)) {
+			if (index == BUFFER_SIZE) {
+				// Discard skipped white space, except for the last character
+				position += index - 1;
+				index = 1;
 			}
+			c = peek(++index);
+		}
 
-		},
+		// End of file, possibly before a final line terminator
+		if (c < 0 || (isLineTerminator(c) && peek(index + 1) < 0)) {
+			position += index;
+			return new EndOfFileToken();
+		}
 
-		/**
-		 * Matches an end-of-file token.
-		 */
-		EOF("\\s*$") {
-			@Override
-			public Token parse(MatchResult result) {
-				return new EndOfFileToken();
+		Token token;
+		if (c == '(') {
+			// Open token
+			int nameEnd = index + 1;
+			while (isNameCharacter(peek(nameEnd))) {
+				nameEnd++;
 			}
-		},
-
-		/**
-		 * Matches a value token, such as
-		 * {@code 1000} or {@code clockwise}.
-		 */
-		VALUE("\\s*([^\\(\\)]+)") {
-
-			@Override
-			public Token parse(MatchResult result) {
-				String value = result.group(1);
-				return new ValueToken(value);
+			if (nameEnd > index + 1) {
+				token = new OpenToken(getString(index + 1, nameEnd).toLowerCase());
+				position += nameEnd;
+			} else if (index > 0) {
+				// Parenthesis without a name, the last skipped
+				// white space character forms a value on its own
+				token = new ValueToken(getString(index - 1, index));
+				position += index;
+			} else {
+				token = null;
 			}
-
-		};
-
-		private TokenMatcher(Pattern pattern) {
-			this.pattern = pattern;
+		} else if (c == ')') {
+			// Close token
+			token = new CloseToken();
+			position += index + 1;
+		} else {
+			// Value token up to the next parenthesis
+			int valueEnd = index + 1;
+			while ((c = peek(valueEnd)) >= 0 && !isParenthesis(c)) {
+				valueEnd++;
+			}
+			token = new ValueToken(getString(index, valueEnd));
+			position += valueEnd;
 		}
+		return token;
+	}
 
-		private TokenMatcher(String regex) {
-			this(Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
+	/**
+	 * Get the character at the given index after the last index,
+	 * or -1 if the end of the source is reached before that index.
+	 */
+	private int peek(int index) throws IOException {
+		while (position + index >= limit) {
+			if (!fill())
+				return -1;
 		}
+		return buffer[position + index];
+	}
 
-		/**
-		 * Variable registering the pattern of this matcher.
-		 */
-		private final Pattern pattern;
-
-		/**
-		 * Get a pattern matcher for the given input.
-		 * 
-		 * @param input
-		 * 			The input to match on.
-		 * @return	A pattern matcher for this token matcher.
-		 */
-		public Matcher matcher(CharSequence input) {
-			return pattern.matcher(input);
+	/**
+	 * Get the characters between the given indices after the last index.
+	 */
+	private String getString(int from, int to) {
+		return new String(buffer, position + from, to - from);
+	}
+
+	/**
+	 * Read more characters from the reader into the buffer.
+	 *
+	 * <p>Tokenized characters are discarded first. The buffer
+	 * only grows if a single token does not fit in it.</p>
+	 *
+	 * @return	True if and only if characters were read.
+	 */
+	private boolean fill() throws IOException {
+		if (reader == null)
+			return false;
+
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			offset += position;
+			limit -= position;
+			position = 0;
+		} else if (limit == buffer.length) {
+			buffer = Arrays.copyOf(buffer, 2 * buffer.length);
 		}
 
-		/**
-		 * Parse a token from a pattern match result.
-		 * 
-		 * @param result
-		 * 			The pattern match result.
-		 * 
-		 * @return	The constructed token.
-		 */
-		public abstract Token parse(MatchResult result);
+		int read = reader.read(buffer, limit, buffer.length - limit);
+		if (read <= 0)
+			return false;
+		limit += read;
+		return true;
+	}
 
+	/**
+	 * Check whether the given character is white space.
+	 */
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
 	}
 
+	/**
+	 * Check whether the given character terminates a line,
+	 * without being white space itself.
+	 */
+	private static boolean isLineTerminator(int c) {
+		return c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+
+	/**
+	 * Check whether the given character can occur
+	 * in the name of an open token.
+	 */
+	private static boolean isNameCharacter(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-';
+	}
+
+	/**
+	 * Check whether the given character is a parenthesis.
+	 */
+	private static boolean isParenthesis(int c) {
+		return c == '(' || c == ')';
+	}
+
+	/**
+	 * The initial size of the buffer when reading from a reader.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
 }
@@ -0,0 +1,263 @@
+package roborally.storage;
+
+import java.util.*;
+
+import roborally.Piece;
+
+/**
+ * A square chunk of cells in a chunked piece storage.
+ * 
+ * <p>A chunk starts out sparse, storing only its occupied
+ * cells in two small sorted arrays. Once enough cells are
+ * occupied, it switches to a dense array with one slot per
+ * cell. When most cells are cleared again, it switches back.</p>
+ * 
+ * <p>Each occupied cell holds either the single piece at that
+ * cell, or a set of pieces if multiple pieces share the cell.
+ * This avoids a set per cell in the common case of walls.</p>
+ * 
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ * 
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+class Chunk {
+
+	/**
+	 * The number of bits in a local coordinate.
+	 */
+	static final int BITS = 6;
+
+	/**
+	 * The width and height of a chunk.
+	 */
+	static final int SIZE = 1 << BITS;
+
+	/**
+	 * The number of cells in a chunk.
+	 */
+	static final int CELLS = SIZE * SIZE;
+
+	/**
+	 * The number of occupied cells above which
+	 * a sparse chunk becomes dense.
+	 */
+	private static final int DENSE_THRESHOLD = CELLS / 8;
+
+	/**
+	 * The number of occupied cells below which
+	 * a dense chunk becomes sparse again.
+	 */
+	private static final int SPARSE_THRESHOLD = CELLS / 32;
+
+	/**
+	 * Sorted local indices of the occupied cells, when sparse.
+	 */
+	private short[] indices = new short[4];
+
+	/**
+	 * Contents of the occupied cells, parallel to the indices, when sparse.
+	 */
+	private Object[] cells = new Object[4];
+
+	/**
+	 * Contents of all cells, when dense.
+	 */
+	private Object[] dense;
+
+	/**
+	 * Variable registering the number of occupied cells.
+	 */
+	private int occupied;
+
+	/**
+	 * Variable registering the number of pieces in this chunk.
+	 */
+	private int size;
+
+	/**
+	 * Get the local index of the given coordinates.
+	 */
+	static int indexOf(long x, long y) {
+		return (int) (((y & (SIZE - 1)) << BITS) | (x & (SIZE - 1)));
+	}
+
+	boolean isEmpty() {
+		return occupied == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isDense() {
+		return dense != null;
+	}
+
+	private int search(int index) {
+		return Arrays.binarySearch(indices, 0, occupied, (short) index);
+	}
+
+	/**
+	 * Get the content of the cell at the given local index.
+	 */
+	private Object getCell(int index) {
+		if (dense != null)
+			return dense[index];
+		int pos = search(index);
+		return (pos >= 0) ? cells[pos] : null;
+	}
+
+	/**
+	 * Set the content of the cell at the given local index.
+	 * A null content clears the cell.
+	 */
+	private void setCell(int index, Object cell) {
+		if (dense != null) {
+			if (dense[index] == null && cell != null)
+				occupied++;
+			else if (dense[index] != null && cell == null)
+				occupied--;
+			dense[index] = cell;
+			if (occupied < SPARSE_THRESHOLD)
+				toSparse();
+			return;
+		}
+
+		int pos = search(index);
+		if (pos >= 0) {
+			if (cell != null) {
+				cells[pos] = cell;
+			} else {
+				// Shift the following cells to the left
+				System.arraycopy(indices, pos + 1, indices, pos, occupied - pos - 1);
+				System.arraycopy(cells, pos + 1, cells, pos, occupied - pos - 1);
+				cells[--occupied] = null;
+			}
+		} else if (cell != null) {
+			pos = -pos - 1;
+			if (occupied == indices.length) {
+				if (occupied >= DENSE_THRESHOLD) {
+					toDense();
+					setCell(index, cell);
+					return;
+				}
+				indices = Arrays.copyOf(indices, occupied * 2);
+				cells = Arrays.copyOf(cells, occupied * 2);
+			}
+			// Shift the following cells to the right
+			System.arraycopy(indices, pos, indices, pos + 1, occupied - pos);
+			System.arraycopy(cells, pos, cells, pos + 1, occupied - pos);
+			indices[pos] = (short) index;
+			cells[pos] = cell;
+			occupied++;
+		}
+	}
+
+	private void toDense() {
+		dense = new Object[CELLS];
+		for (int pos = 0; pos < occupied; pos++) {
+			dense[indices[pos]] = cells[pos];
+		}
+		indices = null;
+		cells = null;
+	}
+
+	private void toSparse() {
+		int capacity = Math.max(4, Integer.highestOneBit(occupied) * 2);
+		indices = new short[capacity];
+		cells = new Object[capacity];
+		int pos = 0;
+		for (int index = 0; index < CELLS; index++) {
+			if (dense[index] != null) {
+				indices[pos] = (short) index;
+				cells[pos] = dense[index];
+				pos++;
+			}
+		}
+		dense = null;
+	}
+
+	/**
+	 * Get the pieces at the given local index.
+	 */
+	@SuppressWarnings("unchecked")
+	Set<Piece> getPiecesAt(int index) {
+		Object cell = getCell(index);
+		if (cell == null)
+			return Collections.emptySet();
+		if (cell instanceof Piece)
+			return Collections.singleton((Piece) cell);
+		return Collections.unmodifiableSet((Set<Piece>) cell);
+	}
+
+	boolean hasPiecesAt(int index) {
+		return getCell(index) != null;
+	}
+
+	/**
+	 * Add a piece at the given local index.
+	 */
+	@SuppressWarnings("unchecked")
+	void add(int index, Piece piece) {
+		Object cell = getCell(index);
+		if (cell == null) {
+			setCell(index, piece);
+		} else if (cell instanceof Piece) {
+			if (cell == piece)
+				return;
+			// Promote to a set of pieces
+			Set<Piece> pieces = new HashSet<Piece>(4);
+			pieces.add((Piece) cell);
+			pieces.add(piece);
+			setCell(index, pieces);
+		} else if (!((Set<Piece>) cell).add(piece)) {
+			return;
+		}
+		size++;
+	}
+
+	/**
+	 * Remove a piece from the given local index.
+	 */
+	@SuppressWarnings("unchecked")
+	void remove(int index, Piece piece) {
+		Object cell = getCell(index);
+		if (cell == null) {
+			return;
+		} else if (cell instanceof Piece) {
+			if (cell != piece)
+				return;
+			setCell(index, null);
+		} else {
+			Set<Piece> pieces = (Set<Piece>) cell;
+			if (!pieces.remove(piece))
+				return;
+			// Demote to a single piece
+			if (pieces.size() == 1)
+				setCell(index, pieces.iterator().next());
+		}
+		size--;
+	}
+
+	/**
+	 * Add all pieces in this chunk to the given collection.
+	 */
+	@SuppressWarnings("unchecked")
+	void addAllTo(Collection<? super Piece> result) {
+		Object[] contents = (dense != null) ? dense : cells;
+		int length = (dense != null) ? CELLS : occupied;
+		for (int pos = 0; pos < length; pos++) {
+			Object cell = contents[pos];
+			if (cell instanceof Piece)
+				result.add((Piece) cell);
+			else if (cell != null)
+				result.addAll((Set<Piece>) cell);
+		}
+	}
+
+}
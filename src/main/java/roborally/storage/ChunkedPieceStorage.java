@@ -0,0 +1,204 @@
+package roborally.storage;
+
+import java.util.*;
+
+import roborally.Piece;
+import roborally.Vector;
+import roborally.util.AbstractIterator;
+import roborally.util.LongHashMap;
+
+/**
+ * A piece storage which divides the board into square chunks.
+ * 
+ * <p>Only chunks containing pieces are allocated, so sparse boards
+ * stay sparse. Chunks are looked up by their chunk coordinates packed
+ * into a single long, and each chunk stores its cells compactly
+ * (see {@link Chunk}).</p>
+ * 
+ * <p>Chunk coordinates which do not fit in 31 bits, which only happens
+ * on boards wider or higher than 2<sup>37</sup> cells, cannot be packed.
+ * These chunks are kept in a separate map keyed by vectors.</p>
+ * 
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ * 
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class ChunkedPieceStorage implements PieceStorage {
+
+	/**
+	 * Map mapping packed chunk coordinates to chunks.
+	 * 
+	 * @invar	No chunk in the map is empty.
+	 */
+	private final LongHashMap<Chunk> chunks = new LongHashMap<Chunk>();
+
+	/**
+	 * Map mapping unpackable chunk coordinates to chunks.
+	 * 
+	 * @invar	No chunk in the map is empty.
+	 */
+	private final Map<Vector, Chunk> farChunks = new HashMap<Vector, Chunk>();
+
+	/**
+	 * Variable registering the number of stored pieces.
+	 */
+	private int size;
+
+	/**
+	 * Get the chunk containing the given position.
+	 * 
+	 * @param create
+	 * 			Whether to create the chunk if it does not exist yet.
+	 */
+	private Chunk getChunk(Vector position, boolean create) {
+		long chunkX = position.getX() >> Chunk.BITS;
+		long chunkY = position.getY() >> Chunk.BITS;
+		Chunk chunk;
+		if (Vector.canPack(chunkX, chunkY)) {
+			long key = Vector.pack(chunkX, chunkY);
+			chunk = chunks.get(key);
+			if (chunk == null && create) {
+				chunk = new Chunk();
+				chunks.put(key, chunk);
+			}
+		} else {
+			Vector key = new Vector(chunkX, chunkY);
+			chunk = farChunks.get(key);
+			if (chunk == null && create) {
+				chunk = new Chunk();
+				farChunks.put(key, chunk);
+			}
+		}
+		return chunk;
+	}
+
+	/**
+	 * Remove the chunk containing the given position.
+	 */
+	private void removeChunk(Vector position) {
+		long chunkX = position.getX() >> Chunk.BITS;
+		long chunkY = position.getY() >> Chunk.BITS;
+		if (Vector.canPack(chunkX, chunkY)) {
+			chunks.remove(Vector.pack(chunkX, chunkY));
+		} else {
+			farChunks.remove(new Vector(chunkX, chunkY));
+		}
+	}
+
+	@Override
+	public Set<Piece> getPiecesAt(Vector position) {
+		Chunk chunk = getChunk(position, false);
+		if (chunk == null)
+			return Collections.emptySet();
+		return chunk.getPiecesAt(Chunk.indexOf(position.getX(), position.getY()));
+	}
+
+	@Override
+	public boolean hasPiecesAt(Vector position) {
+		Chunk chunk = getChunk(position, false);
+		return chunk != null && chunk.hasPiecesAt(Chunk.indexOf(position.getX(), position.getY()));
+	}
+
+	@Override
+	public void add(Piece piece, Vector position) {
+		Chunk chunk = getChunk(position, true);
+		int chunkSize = chunk.size();
+		chunk.add(Chunk.indexOf(position.getX(), position.getY()), piece);
+		size += chunk.size() - chunkSize;
+	}
+
+	@Override
+	public void remove(Piece piece, Vector position) {
+		Chunk chunk = getChunk(position, false);
+		if (chunk == null)
+			return;
+		int chunkSize = chunk.size();
+		chunk.remove(Chunk.indexOf(position.getX(), position.getY()), piece);
+		size += chunk.size() - chunkSize;
+		// Release empty chunks
+		if (chunk.isEmpty())
+			removeChunk(position);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the number of allocated chunks in this storage.
+	 */
+	public int getNbChunks() {
+		return chunks.size() + farChunks.size();
+	}
+
+	/**
+	 * Get the number of allocated chunks in this storage
+	 * which use a dense representation.
+	 */
+	public int getNbDenseChunks() {
+		int count = 0;
+		for (Chunk chunk : chunks) {
+			if (chunk.isDense())
+				count++;
+		}
+		for (Chunk chunk : farChunks.values()) {
+			if (chunk.isDense())
+				count++;
+		}
+		return count;
+	}
+
+	@Override
+	public Iterator<Piece> iterator() {
+		return new Itr();
+	}
+
+	private class Itr extends AbstractIterator<Piece> {
+
+		/**
+		 * Variable representing the iterator over packed chunks.
+		 */
+		private final Iterator<Chunk> chunkItr = chunks.iterator();
+
+		/**
+		 * Variable representing the iterator over far chunks.
+		 */
+		private final Iterator<Chunk> farChunkItr = farChunks.values().iterator();
+
+		/**
+		 * Variable representing the pieces in the current chunk.
+		 */
+		private final List<Piece> chunkPieces = new ArrayList<Piece>();
+
+		/**
+		 * Variable representing the index of the next piece in the current chunk.
+		 */
+		private int pieceIndex;
+
+		@Override
+		protected Piece computeNext() {
+			// Advance to the next chunk when the current one is exhausted
+			while (pieceIndex == chunkPieces.size()) {
+				Chunk chunk;
+				if (chunkItr.hasNext())
+					chunk = chunkItr.next();
+				else if (farChunkItr.hasNext())
+					chunk = farChunkItr.next();
+				else
+					return endOfData();
+				chunkPieces.clear();
+				chunk.addAllTo(chunkPieces);
+				pieceIndex = 0;
+			}
+			return chunkPieces.get(pieceIndex++);
+		}
+
+	}
+
+}
@@ -0,0 +1,113 @@
+package roborally.storage;
+
+import java.util.*;
+
+import roborally.Piece;
+import roborally.Vector;
+import roborally.util.AbstractIterator;
+
+/**
+ * A piece storage backed by a hash map from positions
+ * to sets of pieces.
+ * 
+ * <p>Every occupied position costs a map entry and a set,
+ * which makes this storage only suitable for small boards.</p>
+ * 
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ * 
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class HashPieceStorage implements PieceStorage {
+
+	/**
+	 * Map mapping positions to sets of pieces.
+	 * 
+	 * @invar	Each set of pieces in the map is effective
+	 * 			and not empty.
+	 * 			| for each pieceSet in pieces.values() :
+	 * 			|   pieceSet != null && !pieceSet.isEmpty()
+	 */
+	private final Map<Vector, Set<Piece>> pieces = new HashMap<Vector, Set<Piece>>();
+
+	/**
+	 * Variable registering the number of stored pieces.
+	 */
+	private int size;
+
+	@Override
+	public Set<Piece> getPiecesAt(Vector position) {
+		Set<Piece> piecesAtPosition = pieces.get(position);
+		if (piecesAtPosition == null)
+			return Collections.emptySet();
+		return Collections.unmodifiableSet(piecesAtPosition);
+	}
+
+	@Override
+	public boolean hasPiecesAt(Vector position) {
+		return pieces.containsKey(position);
+	}
+
+	@Override
+	public void add(Piece piece, Vector position) {
+		Set<Piece> piecesAtPosition = pieces.get(position);
+		if (piecesAtPosition == null) {
+			piecesAtPosition = new HashSet<Piece>();
+			pieces.put(position, piecesAtPosition);
+		}
+		if (piecesAtPosition.add(piece))
+			size++;
+	}
+
+	@Override
+	public void remove(Piece piece, Vector position) {
+		Set<Piece> piecesAtPosition = pieces.get(position);
+		if (piecesAtPosition == null || !piecesAtPosition.remove(piece))
+			return;
+		size--;
+		// Remove set from map if empty
+		if (piecesAtPosition.isEmpty()) {
+			pieces.remove(position);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<Piece> iterator() {
+		return new Itr();
+	}
+
+	private class Itr extends AbstractIterator<Piece> {
+
+		/**
+		 * Variable representing the piece sets iterator.
+		 */
+		private final Iterator<Set<Piece>> setItr = pieces.values().iterator();
+
+		/**
+		 * Variable representing the current piece iterator.
+		 */
+		private Iterator<Piece> pieceItr;
+
+		@Override
+		protected Piece computeNext() {
+			// Advance to the next non-exhausted piece iterator
+			while (pieceItr == null || !pieceItr.hasNext()) {
+				if (!setItr.hasNext())
+					return endOfData();
+				pieceItr = setItr.next().iterator();
+			}
+			return pieceItr.next();
+		}
+
+	}
+
+}
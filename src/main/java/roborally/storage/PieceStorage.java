@@ -0,0 +1,77 @@
+package roborally.storage;
+
+import java.util.Set;
+
+import roborally.Piece;
+import roborally.Vector;
+
+/**
+ * A storage engine for the pieces placed on a board.
+ * 
+ * <p>A piece storage maps positions to the pieces
+ * located at those positions. It does not validate
+ * positions or pieces, this is the responsibility
+ * of the board using the storage.</p>
+ * 
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ * 
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public interface PieceStorage extends Iterable<Piece> {
+
+	/**
+	 * Get a set of all the pieces stored at the given position.
+	 * 
+	 * @param position
+	 * 			The position to find pieces at.
+	 * 
+	 * @return	An unmodifiable set of all pieces stored at the
+	 * 			given position, or an empty set if there are none.
+	 */
+	Set<Piece> getPiecesAt(Vector position);
+
+	/**
+	 * Check whether any pieces are stored at the given position.
+	 * 
+	 * @param position
+	 * 			The position to check.
+	 * 
+	 * @return	| result == !getPiecesAt(position).isEmpty()
+	 */
+	boolean hasPiecesAt(Vector position);
+
+	/**
+	 * Store the given piece at the given position.
+	 * 
+	 * @param piece
+	 * 			The piece to store.
+	 * @param position
+	 * 			The position to store the piece at.
+	 * 
+	 * @post	| new.getPiecesAt(position).contains(piece)
+	 */
+	void add(Piece piece, Vector position);
+
+	/**
+	 * Remove the given piece from the given position.
+	 * 
+	 * @param piece
+	 * 			The piece to remove.
+	 * @param position
+	 * 			The position the piece is stored at.
+	 * 
+	 * @post	| !new.getPiecesAt(position).contains(piece)
+	 */
+	void remove(Piece piece, Vector position);
+
+	/**
+	 * Get the number of pieces in this storage.
+	 */
+	int size();
+
+}
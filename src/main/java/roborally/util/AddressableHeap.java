@@ -0,0 +1,83 @@
+package roborally.util;
+
+/**
+ * A priority heap which hands out a handle for every inserted element.
+ *
+ * <p>Handles can be used to decrease the key of an element
+ * or to delete it without searching the heap.</p>
+ *
+ * @param <E>
+ * 			The element type.
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public interface AddressableHeap<E> {
+
+	/**
+	 * Insert an element with the given key.
+	 *
+	 * @return	The handle of the inserted element.
+	 */
+	public Handle<E> insert(E data, double key);
+
+	/**
+	 * Get the handle of the element with the smallest key,
+	 * or null if this heap is empty.
+	 */
+	public Handle<E> min();
+
+	/**
+	 * Remove the element with the smallest key.
+	 *
+	 * @return	The removed element, or null if this heap is empty.
+	 */
+	public E removeMin();
+
+	/**
+	 * Decrease the key of the element with the given handle.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the handle does not belong to this heap
+	 * 			or the given key is larger than its current key.
+	 */
+	public void decreaseKey(Handle<E> handle, double key) throws IllegalArgumentException;
+
+	/**
+	 * Remove the element with the given handle.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the handle does not belong to this heap.
+	 */
+	public void delete(Handle<E> handle) throws IllegalArgumentException;
+
+	public boolean isEmpty();
+
+	public int size();
+
+	public void clear();
+
+	/**
+	 * A handle to an element in an addressable heap.
+	 */
+	public static interface Handle<E> {
+
+		public E getData();
+
+		/**
+		 * Replace the element of this handle,
+		 * without changing its key.
+		 */
+		public void setData(E data);
+
+		public double getKey();
+
+	}
+
+}
@@ -0,0 +1,199 @@
+package roborally.util;
+
+import java.util.Arrays;
+
+/**
+ * An indexed d-ary heap.
+ *
+ * <p>The elements are stored in an implicit tree in which every
+ * node has at most <code>d</code> children. Every handle remembers
+ * its index in the tree, so keys can be decreased and elements
+ * can be deleted in logarithmic time. A higher arity makes the
+ * tree shallower, which speeds up decrease-key at the cost of
+ * more comparisons when removing the minimum.</p>
+ *
+ * @param <E>
+ * 			The element type.
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class DaryHeap<E> implements AddressableHeap<E> {
+
+	private final int arity;
+	private Entry<E>[] entries;
+	private int size;
+
+	@SuppressWarnings("unchecked")
+	public DaryHeap(int arity) throws IllegalArgumentException {
+		if (arity < 2)
+			throw new IllegalArgumentException("Arity must be at least two.");
+
+		this.arity = arity;
+		this.entries = (Entry<E>[]) new Entry<?>[16];
+	}
+
+	public DaryHeap() {
+		this(4);
+	}
+
+	public int getArity() {
+		return arity;
+	}
+
+	@Override
+	public Handle<E> insert(E data, double key) {
+		if (size == entries.length) {
+			entries = Arrays.copyOf(entries, size * 2);
+		}
+		Entry<E> entry = new Entry<E>(data, key);
+		entries[size] = entry;
+		entry.index = size;
+		size++;
+		siftUp(entry.index);
+		return entry;
+	}
+
+	@Override
+	public Handle<E> min() {
+		return (size == 0) ? null : entries[0];
+	}
+
+	@Override
+	public E removeMin() {
+		if (size == 0)
+			return null;
+		Entry<E> min = entries[0];
+		removeAt(0);
+		return min.data;
+	}
+
+	@Override
+	public void decreaseKey(Handle<E> handle, double key) throws IllegalArgumentException {
+		Entry<E> entry = checkHandle(handle);
+		if (key > entry.key)
+			throw new IllegalArgumentException("New key must not be larger than the current key.");
+		entry.key = key;
+		siftUp(entry.index);
+	}
+
+	@Override
+	public void delete(Handle<E> handle) throws IllegalArgumentException {
+		removeAt(checkHandle(handle).index);
+	}
+
+	private Entry<E> checkHandle(Handle<E> handle) throws IllegalArgumentException {
+		if (!(handle instanceof Entry))
+			throw new IllegalArgumentException("Handle does not belong to this heap.");
+		Entry<E> entry = (Entry<E>) handle;
+		if (entry.index < 0 || entry.index >= size || entries[entry.index] != entry)
+			throw new IllegalArgumentException("Handle does not belong to this heap.");
+		return entry;
+	}
+
+	private void removeAt(int index) {
+		Entry<E> removed = entries[index];
+		Entry<E> last = entries[--size];
+		entries[size] = null;
+		if (index < size) {
+			// Move the last entry into the gap and restore the heap order
+			entries[index] = last;
+			last.index = index;
+			siftDown(index);
+			siftUp(last.index);
+		}
+		removed.index = -1;
+	}
+
+	private void siftUp(int index) {
+		Entry<E> entry = entries[index];
+		while (index > 0) {
+			int parent = (index - 1) / arity;
+			if (entries[parent].key <= entry.key)
+				break;
+			place(entries[parent], index);
+			index = parent;
+		}
+		place(entry, index);
+	}
+
+	private void siftDown(int index) {
+		Entry<E> entry = entries[index];
+		while (true) {
+			int first = arity * index + 1;
+			if (first >= size)
+				break;
+			// Find the child with the smallest key
+			int min = first;
+			int end = Math.min(first + arity, size);
+			for (int child = first + 1; child < end; child++) {
+				if (entries[child].key < entries[min].key)
+					min = child;
+			}
+			if (entry.key <= entries[min].key)
+				break;
+			place(entries[min], index);
+			index = min;
+		}
+		place(entry, index);
+	}
+
+	private void place(Entry<E> entry, int index) {
+		entries[index] = entry;
+		entry.index = index;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			entries[i].index = -1;
+			entries[i] = null;
+		}
+		size = 0;
+	}
+
+	private static class Entry<E> implements Handle<E> {
+
+		private E data;
+		private double key;
+		private int index;
+
+		private Entry(E data, double key) {
+			this.data = data;
+			this.key = key;
+		}
+
+		@Override
+		public E getData() {
+			return data;
+		}
+
+		@Override
+		public void setData(E data) {
+			this.data = data;
+		}
+
+		@Override
+		public double getKey() {
+			return key;
+		}
+
+	}
+
+}
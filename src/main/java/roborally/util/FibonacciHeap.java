@@ -56,7 +56,7 @@ import java.util.Stack;
  * 			the second phase of the Bachelor of Engineering
  * 			at KU Leuven, Belgium.
  */
-public class FibonacciHeap<E> {
+public class FibonacciHeap<E> implements AddressableHeap<E> {
 	/** Points to the minimum node in the heap. */
 	protected Node<E> min;
 	/** Number of nodes in the heap. */
@@ -242,6 +242,20 @@ public class FibonacciHeap<E> {
 		}
 	} // decreaseKey
 
+	/**
+	 * Decreases the key value for the heap node with the given handle.
+	 *
+	 * @param  handle  handle of the node to decrease the key of
+	 * @param  k       new key value for the node
+	 * @exception  IllegalArgumentException
+	 *             Thrown if the handle is not a node of a Fibonacci heap,
+	 *             or if k is larger than its key value.
+	 */
+	@Override
+	public void decreaseKey(Handle<E> handle, double k) {
+		decreaseKey(toNode(handle), k);
+	} // decreaseKey
+
 	/**
 	 * Deletes a node from the heap given the reference to the node.
 	 * The trees in the heap will be consolidated, if necessary. This
@@ -259,6 +273,24 @@ public class FibonacciHeap<E> {
 		removeMin();
 	} // delete
 
+	/**
+	 * Deletes the heap node with the given handle.
+	 *
+	 * @param  handle  handle of the node to remove from heap
+	 * @exception  IllegalArgumentException
+	 *             Thrown if the handle is not a node of a Fibonacci heap.
+	 */
+	@Override
+	public void delete(Handle<E> handle) {
+		delete(toNode(handle));
+	} // delete
+
+	private Node<E> toNode(Handle<E> handle) {
+		if (!(handle instanceof Node))
+			throw new IllegalArgumentException("Handle does not belong to this heap.");
+		return (Node<E>) handle;
+	}
+
 	/**
 	 * Tests if the Fibonacci heap is empty or not. Returns true if
 	 * the heap is empty, false otherwise.
@@ -480,7 +512,7 @@ public class FibonacciHeap<E> {
 	 *
 	 * @author  Nathan Fiedler
 	 */
-	public static class Node<E> {
+	public static class Node<E> implements Handle<E> {
 		/** the data object for this node, holds the key value */
 		private E data;
 		/** key value for this node */
@@ -514,10 +546,17 @@ public class FibonacciHeap<E> {
 			left = this;
 		} // Node
 
+		@Override
 		public E getData() {
 			return data;
 		} // getData
 
+		@Override
+		public void setData(E data) {
+			this.data = data;
+		} // setData
+
+		@Override
 		public double getKey() {
 			return key;
 		} // getKey
@@ -0,0 +1,138 @@
+package roborally.util;
+
+import java.util.AbstractQueue;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import roborally.util.AddressableHeap.Handle;
+
+/**
+ * A priority queue backed by an addressable heap.
+ * 
+ * <p>The queue remembers the heap handle of every element,
+ * so that elements can be removed and their keys can be
+ * decreased without searching the heap.</p>
+ * 
+ * @param <E>
+ * 			The element type.
+ * 
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ * 
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class HeapQueue<E extends Sortable> extends AbstractQueue<E> {
+
+	private final AddressableHeap<E> heap;
+	private final Map<E, Handle<E>> handles;
+
+	public HeapQueue(AddressableHeap<E> heap) {
+		if (heap == null || !heap.isEmpty())
+			throw new IllegalArgumentException("Heap must be effective and empty.");
+
+		this.heap = heap;
+		this.handles = new HashMap<E, Handle<E>>();
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (e == null)
+			return false;
+
+		Handle<E> handle = heap.insert(e, e.getKey());
+		handles.put(handle.getData(), handle);
+		return true;
+	}
+
+	@Override
+	public E peek() {
+		return (heap.isEmpty()) ? null : heap.min().getData();
+	}
+
+	@Override
+	public E poll() {
+		if (isEmpty())
+			return null;
+
+		handles.remove(heap.min().getData());
+		return heap.removeMin();
+	}
+
+	/**
+	 * Replace an element in this queue with a replacement
+	 * element with a smaller or equal key.
+	 * 
+	 * <p>The key of the element's heap handle is decreased
+	 * in place, rather than removing the element and
+	 * offering the replacement.</p>
+	 * 
+	 * @param element
+	 * 			The element to replace.
+	 * @param replacement
+	 * 			The replacement element.
+	 * 
+	 * @return	True if and only if the element was in this queue.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			If the replacement is not effective or its key
+	 * 			is larger than the key of the element.
+	 */
+	public boolean decreaseKey(E element, E replacement) throws IllegalArgumentException {
+		if (replacement == null)
+			throw new IllegalArgumentException("Replacement must be effective.");
+
+		Handle<E> handle = handles.get(element);
+		if (handle == null)
+			return false;
+
+		heap.decreaseKey(handle, replacement.getKey());
+		handles.remove(element);
+		handle.setData(replacement);
+		handles.put(replacement, handle);
+		return true;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int size() {
+		return heap.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return handles.containsKey(o);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Handle<E> handle = handles.remove(o);
+		if (handle == null)
+			return false;
+		heap.delete(handle);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		heap.clear();
+		handles.clear();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		buf.append(getClass().getSimpleName());
+		buf.append(heap);
+		return buf.toString();
+	}
+
+}
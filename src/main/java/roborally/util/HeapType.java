@@ -0,0 +1,83 @@
+package roborally.util;
+
+/**
+ * An enumeration of addressable heap implementations.
+ * 
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ * 
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public enum HeapType {
+
+	/**
+	 * A Fibonacci heap.
+	 */
+	FIBONACCI {
+
+		@Override
+		public <E> AddressableHeap<E> create() {
+			return new FibonacciHeap<E>();
+		}
+
+	},
+
+	/**
+	 * An indexed binary heap.
+	 */
+	BINARY {
+
+		@Override
+		public <E> AddressableHeap<E> create() {
+			return new DaryHeap<E>(2);
+		}
+
+	},
+
+	/**
+	 * An indexed 4-ary heap.
+	 */
+	QUATERNARY {
+
+		@Override
+		public <E> AddressableHeap<E> create() {
+			return new DaryHeap<E>(4);
+		}
+
+	},
+
+	/**
+	 * A pairing heap.
+	 */
+	PAIRING {
+
+		@Override
+		public <E> AddressableHeap<E> create() {
+			return new PairingHeap<E>();
+		}
+
+	},
+
+	/**
+	 * A radix heap, which only supports monotone
+	 * sequences of non-negative keys.
+	 */
+	RADIX {
+
+		@Override
+		public <E> AddressableHeap<E> create() {
+			return new RadixHeap<E>();
+		}
+
+	};
+
+	/**
+	 * Create a new empty heap of this type.
+	 */
+	public abstract <E> AddressableHeap<E> create();
+
+}
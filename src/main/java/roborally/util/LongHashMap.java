@@ -0,0 +1,367 @@
+package roborally.util;
+
+import java.util.Iterator;
+
+/**
+ * A hash map with primitive long keys.
+ *
+ * <p>The map uses open addressing with linear probing,
+ * so no entry objects or boxed keys are allocated.
+ * Null values are not permitted, since a null value
+ * marks an empty slot.</p>
+ *
+ * <p>Every key is stored in the first free slot from its home slot
+ * onwards, wrapping around at the end of the table. Removing an entry
+ * shifts the following entries of its probe run backwards, so every
+ * key stays reachable from its home slot without passing an empty
+ * slot, and no tombstones are needed.</p>
+ *
+ * @invar	The table is never more than half full.
+ * 			| size() * 2 <= capacity
+ * @invar	No empty slot lies between the home slot of a key
+ * 			and the slot where that key is stored.
+ *
+ * @param <V>
+ * 			The value type.
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class LongHashMap<V> implements Iterable<V> {
+
+	private long[] keys;
+	private Object[] values;
+	private int size;
+	private int mask;
+
+	/**
+	 * Create a new empty map with room for the given number of entries.
+	 *
+	 * @param initialCapacity
+	 * 			The number of entries the map can hold before growing.
+	 *
+	 * @post	| new.isEmpty()
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| initialCapacity < 0
+	 */
+	public LongHashMap(int initialCapacity) {
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("Initial capacity must be non-negative.");
+
+		int capacity = 4;
+		while (capacity < initialCapacity * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * Create a new empty map with a default initial capacity.
+	 *
+	 * @effect	| this(8)
+	 */
+	public LongHashMap() {
+		this(8);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Spread the bits of the given key over the whole hash.
+	 *
+	 * @note	This is the finalization step of MurmurHash3,
+	 * 			which makes neighbouring keys land in
+	 * 			well separated slots.
+	 */
+	public static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	/**
+	 * Get the slot holding the given key, or the one's complement
+	 * of the free slot where it would be inserted.
+	 */
+	private int indexOf(long key) {
+		int index = hash(key) & mask;
+		while (values[index] != null) {
+			if (keys[index] == key)
+				return index;
+			index = (index + 1) & mask;
+		}
+		return ~index;
+	}
+
+	/**
+	 * Get the number of entries in this map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check whether this map has no entries.
+	 *
+	 * @return	| result == (size() == 0)
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check whether this map has an entry for the given key.
+	 *
+	 * @param key
+	 * 			The key to look up.
+	 *
+	 * @return	| result == (get(key) != null)
+	 */
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * Get the value mapped to the given key.
+	 *
+	 * @param key
+	 * 			The key to look up.
+	 *
+	 * @return	The value of the entry for the given key,
+	 * 			or null if this map has no such entry.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int index = indexOf(key);
+		return (index >= 0) ? (V) values[index] : null;
+	}
+
+	/**
+	 * Map the given key to the given value.
+	 *
+	 * @param key
+	 * 			The key of the entry.
+	 * @param value
+	 * 			The new value of the entry.
+	 *
+	 * @post	| new.get(key) == value
+	 * @post	| new.size() == (containsKey(key) ? size() : size() + 1)
+	 * @return	The previous value of the entry for the given key,
+	 * 			or null if this map had no such entry.
+	 * 			| result == get(key)
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| value == null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null)
+			throw new IllegalArgumentException("Value must be effective.");
+
+		int index = indexOf(key);
+		if (index >= 0) {
+			// Replace existing value
+			V oldValue = (V) values[index];
+			values[index] = value;
+			return oldValue;
+		}
+
+		// Insert at free slot
+		index = ~index;
+		keys[index] = key;
+		values[index] = value;
+		// Grow when more than half full
+		if (++size * 2 > values.length) {
+			rehash(values.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Remove the entry for the given key, if any.
+	 *
+	 * @param key
+	 * 			The key of the entry to remove.
+	 *
+	 * @post	| !new.containsKey(key)
+	 * @post	| new.size() == (containsKey(key) ? size() - 1 : size())
+	 * @return	The removed value, or null if this map
+	 * 			had no entry for the given key.
+	 * 			| result == get(key)
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int index = indexOf(key);
+		if (index < 0)
+			return null;
+
+		V oldValue = (V) values[index];
+		deleteAt(index);
+		return oldValue;
+	}
+
+	/**
+	 * Delete the entry at the given slot and shift
+	 * following entries of the same probe run backwards,
+	 * so that no tombstones are needed.
+	 *
+	 * <p>An entry further along the run moves into the freed slot
+	 * unless its home slot lies cyclically after the freed slot,
+	 * since it would then be stored before its home slot. This
+	 * keeps every key reachable from its home slot without
+	 * passing an empty slot.</p>
+	 */
+	private void deleteAt(int index) {
+		int free = index;
+		int current = (index + 1) & mask;
+		while (values[current] != null) {
+			int home = hash(keys[current]) & mask;
+			// Move the entry if its home slot does not lie
+			// cyclically in (free, current]
+			boolean move = (free <= current) ? (home <= free || home > current) : (home <= free && home > current);
+			if (move) {
+				keys[free] = keys[current];
+				values[free] = values[current];
+				free = current;
+			}
+			current = (current + 1) & mask;
+		}
+		keys[free] = 0L;
+		values[free] = null;
+		size--;
+	}
+
+	/**
+	 * Move all entries into a new table with the given capacity.
+	 */
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int index = ~indexOf(oldKeys[i]);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries from this map, keeping its capacity.
+	 *
+	 * @post	| new.isEmpty()
+	 */
+	public void clear() {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Get an iterator over the values of this map.
+	 *
+	 * <p>The values are returned in slot order, rather than in the
+	 * order in which they were added. The iterator does not support
+	 * removal, and must not be used after this map changes.</p>
+	 */
+	@Override
+	public Iterator<V> iterator() {
+		return new Itr();
+	}
+
+	/**
+	 * Get a cursor over the entries of this map.
+	 *
+	 * <p>The cursor visits the entries in the same order as
+	 * {@link #iterator()}, and must not be used after this map
+	 * changes.</p>
+	 *
+	 * @return	A cursor positioned before the first entry.
+	 */
+	public Cursor<V> cursor() {
+		return new Cursor<V>(this);
+	}
+
+	/**
+	 * A cursor over the entries of a long hash map.
+	 *
+	 * <p>The cursor exposes the primitive key of the current
+	 * entry without boxing it.</p>
+	 */
+	public static class Cursor<V> {
+
+		private final LongHashMap<V> map;
+		private int index = -1;
+
+		private Cursor(LongHashMap<V> map) {
+			this.map = map;
+		}
+
+		/**
+		 * Advance to the next entry.
+		 *
+		 * @return	True if and only if there was a next entry.
+		 */
+		public boolean next() {
+			Object[] values = map.values;
+			while (++index < values.length) {
+				if (values[index] != null)
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Get the key of the current entry.
+		 *
+		 * @pre		The last call to next() returned true.
+		 */
+		public long key() {
+			return map.keys[index];
+		}
+
+		/**
+		 * Get the value of the current entry.
+		 *
+		 * @pre		The last call to next() returned true.
+		 */
+		@SuppressWarnings("unchecked")
+		public V value() {
+			return (V) map.values[index];
+		}
+
+	}
+
+	private class Itr extends AbstractIterator<V> {
+
+		private int index = -1;
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected V computeNext() {
+			while (++index < values.length) {
+				if (values[index] != null)
+					return (V) values[index];
+			}
+			return endOfData();
+		}
+
+	}
+
+}
@@ -0,0 +1,210 @@
+package roborally.util;
+
+/**
+ * A pairing heap.
+ *
+ * <p>The heap is a single tree in which every node keeps its
+ * children in a linked list. Inserting and decreasing a key
+ * simply link a tree below the root, while removing the minimum
+ * merges the children of the root in two passes.</p>
+ *
+ * @param <E>
+ * 			The element type.
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class PairingHeap<E> implements AddressableHeap<E> {
+
+	private Node<E> root;
+	private int size;
+
+	/**
+	 * The token identifying the handles of this heap.
+	 * A new token is used after every clear.
+	 */
+	private Object owner = new Object();
+
+	@Override
+	public Handle<E> insert(E data, double key) {
+		Node<E> node = new Node<E>(owner, data, key);
+		root = link(root, node);
+		size++;
+		return node;
+	}
+
+	@Override
+	public Handle<E> min() {
+		return root;
+	}
+
+	@Override
+	public E removeMin() {
+		if (root == null)
+			return null;
+		Node<E> min = root;
+		root = mergePairs(min.child);
+		min.child = null;
+		min.owner = null;
+		size--;
+		return min.data;
+	}
+
+	@Override
+	public void decreaseKey(Handle<E> handle, double key) throws IllegalArgumentException {
+		Node<E> node = checkHandle(handle);
+		if (key > node.key)
+			throw new IllegalArgumentException("New key must not be larger than the current key.");
+		node.key = key;
+		if (node != root) {
+			// Cut the subtree and link it below the root again
+			cut(node);
+			root = link(root, node);
+		}
+	}
+
+	@Override
+	public void delete(Handle<E> handle) throws IllegalArgumentException {
+		Node<E> node = checkHandle(handle);
+		if (node == root) {
+			removeMin();
+			return;
+		}
+		// Cut the subtree and link its children below the root
+		cut(node);
+		root = link(root, mergePairs(node.child));
+		node.child = null;
+		node.owner = null;
+		size--;
+	}
+
+	private Node<E> checkHandle(Handle<E> handle) throws IllegalArgumentException {
+		if (!(handle instanceof Node) || ((Node<E>) handle).owner != owner)
+			throw new IllegalArgumentException("Handle does not belong to this heap.");
+		return (Node<E>) handle;
+	}
+
+	/**
+	 * Detach the given non-root node from its parent and siblings.
+	 */
+	private static <E> void cut(Node<E> node) {
+		if (node.previous.child == node) {
+			// First child of its parent
+			node.previous.child = node.next;
+		} else {
+			node.previous.next = node.next;
+		}
+		if (node.next != null)
+			node.next.previous = node.previous;
+		node.previous = null;
+		node.next = null;
+	}
+
+	/**
+	 * Link two detached trees, making the root with
+	 * the larger key the first child of the other root.
+	 */
+	private static <E> Node<E> link(Node<E> first, Node<E> second) {
+		if (first == null)
+			return second;
+		if (second == null)
+			return first;
+		if (second.key < first.key) {
+			Node<E> temp = first;
+			first = second;
+			second = temp;
+		}
+		second.previous = first;
+		second.next = first.child;
+		if (first.child != null)
+			first.child.previous = second;
+		first.child = second;
+		return first;
+	}
+
+	/**
+	 * Merge a list of sibling trees into a single tree.
+	 */
+	private static <E> Node<E> mergePairs(Node<E> first) {
+		// Link pairs from left to right, stacking the results
+		Node<E> stack = null;
+		while (first != null) {
+			Node<E> a = first, b = first.next;
+			first = (b == null) ? null : b.next;
+			a.previous = a.next = null;
+			if (b != null)
+				b.previous = b.next = null;
+			Node<E> pair = link(a, b);
+			pair.next = stack;
+			stack = pair;
+		}
+		// Link the stacked pairs from right to left
+		Node<E> result = null;
+		while (stack != null) {
+			Node<E> next = stack.next;
+			stack.next = null;
+			result = link(stack, result);
+			stack = next;
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		root = null;
+		size = 0;
+		owner = new Object();
+	}
+
+	private static class Node<E> implements Handle<E> {
+
+		private Object owner;
+		private E data;
+		private double key;
+		private Node<E> child;
+		/**
+		 * The previous sibling, or the parent for a first child.
+		 */
+		private Node<E> previous;
+		private Node<E> next;
+
+		private Node(Object owner, E data, double key) {
+			this.owner = owner;
+			this.data = data;
+			this.key = key;
+		}
+
+		@Override
+		public E getData() {
+			return data;
+		}
+
+		@Override
+		public void setData(E data) {
+			this.data = data;
+		}
+
+		@Override
+		public double getKey() {
+			return key;
+		}
+
+	}
+
+}
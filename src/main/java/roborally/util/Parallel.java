@@ -0,0 +1,75 @@
+package roborally.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Helper methods for running tasks on a shared fork/join pool.
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class Parallel {
+
+	private Parallel() {
+	}
+
+	/**
+	 * Get the fork/join pool shared by all parallel algorithms.
+	 *
+	 * <p>The pool is created on first use, with one worker thread
+	 * for every available processor.</p>
+	 */
+	public static ForkJoinPool getPool() {
+		return PoolHolder.POOL;
+	}
+
+	/**
+	 * Run the given tasks and wait for all of them to complete.
+	 *
+	 * <p>In parallel mode, the tasks are forked on the shared pool,
+	 * or on the current pool if called from within a fork/join task.
+	 * Otherwise, the tasks are run one after the other on the
+	 * current thread.</p>
+	 *
+	 * @param parallel
+	 * 			Whether to run the tasks in parallel.
+	 * @param tasks
+	 * 			The tasks to run.
+	 */
+	public static void invokeAll(boolean parallel, final ForkJoinTask<?>... tasks) {
+		if (!parallel) {
+			for (ForkJoinTask<?> task : tasks) {
+				task.invoke();
+			}
+		} else if (ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			getPool().invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Lazily initialized holder of the shared pool.
+	 */
+	private static class PoolHolder {
+
+		private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	}
+
+}
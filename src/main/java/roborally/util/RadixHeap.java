@@ -0,0 +1,255 @@
+package roborally.util;
+
+import java.util.Arrays;
+
+/**
+ * A radix heap for monotone priority queues.
+ *
+ * <p>A radix heap only accepts keys which are not smaller than
+ * the last removed minimum, as is the case for the F-scores
+ * of a search with a consistent heuristic. Elements are kept in
+ * buckets according to the highest bit in which their key differs
+ * from the last removed minimum. Only when the lowest bucket
+ * is exhausted, the next non-empty bucket is redistributed
+ * over the lower buckets.</p>
+ *
+ * <p>Keys must be non-negative. They are compared by their
+ * bit representation, which preserves the order of non-negative
+ * doubles, so fractional energy amounts are supported as well.</p>
+ *
+ * @param <E>
+ * 			The element type.
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class RadixHeap<E> implements AddressableHeap<E> {
+
+	/**
+	 * The number of buckets, one for equal keys
+	 * and one for every differing bit.
+	 */
+	private static final int NB_BUCKETS = Long.SIZE + 1;
+
+	private final Bucket<E>[] buckets;
+	private long last;
+	private int size;
+
+	/**
+	 * The token identifying the handles of this heap.
+	 * A new token is used after every clear.
+	 */
+	private Object owner = new Object();
+
+	@SuppressWarnings("unchecked")
+	public RadixHeap() {
+		buckets = (Bucket<E>[]) new Bucket<?>[NB_BUCKETS];
+		for (int i = 0; i < NB_BUCKETS; i++) {
+			buckets[i] = new Bucket<E>(i);
+		}
+	}
+
+	/**
+	 * Get the bit representation of the given key.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			If the key is negative or not a number, or if it is
+	 * 			smaller than the last removed minimum.
+	 */
+	private long toBits(double key) throws IllegalArgumentException {
+		if (!(key >= 0.0d))
+			throw new IllegalArgumentException("Key must be non-negative.");
+		// Adding zero turns negative zero into positive zero
+		long bits = Double.doubleToLongBits(key + 0.0d);
+		if (bits < last)
+			throw new IllegalArgumentException("Key must not be smaller than the last removed minimum.");
+		return bits;
+	}
+
+	private int bucketOf(long bits) {
+		return (bits == last) ? 0 : Long.SIZE - Long.numberOfLeadingZeros(bits ^ last);
+	}
+
+	@Override
+	public Handle<E> insert(E data, double key) throws IllegalArgumentException {
+		Entry<E> entry = new Entry<E>(owner, data, key, toBits(key));
+		buckets[bucketOf(entry.bits)].add(entry);
+		size++;
+		return entry;
+	}
+
+	@Override
+	public Handle<E> min() {
+		if (size == 0)
+			return null;
+		if (buckets[0].size == 0)
+			redistribute();
+		return buckets[0].get(buckets[0].size - 1);
+	}
+
+	/**
+	 * Redistribute the first non-empty bucket around its minimum,
+	 * so that the minimum ends up in the lowest bucket.
+	 */
+	private void redistribute() {
+		int index = 1;
+		while (buckets[index].size == 0) {
+			index++;
+		}
+		Bucket<E> bucket = buckets[index];
+		long min = bucket.get(0).bits;
+		for (int i = 1; i < bucket.size; i++) {
+			min = Math.min(min, bucket.get(i).bits);
+		}
+		last = min;
+		// All entries move to strictly lower buckets
+		for (int i = 0; i < bucket.size; i++) {
+			Entry<E> entry = bucket.get(i);
+			buckets[bucketOf(entry.bits)].add(entry);
+		}
+		bucket.clear();
+	}
+
+	@Override
+	public E removeMin() {
+		Handle<E> min = min();
+		if (min == null)
+			return null;
+		remove((Entry<E>) min);
+		return min.getData();
+	}
+
+	@Override
+	public void decreaseKey(Handle<E> handle, double key) throws IllegalArgumentException {
+		Entry<E> entry = checkHandle(handle);
+		if (key > entry.key)
+			throw new IllegalArgumentException("New key must not be larger than the current key.");
+		long bits = toBits(key);
+		buckets[entry.bucket].remove(entry);
+		entry.key = key;
+		entry.bits = bits;
+		buckets[bucketOf(bits)].add(entry);
+	}
+
+	@Override
+	public void delete(Handle<E> handle) throws IllegalArgumentException {
+		remove(checkHandle(handle));
+	}
+
+	private void remove(Entry<E> entry) {
+		buckets[entry.bucket].remove(entry);
+		entry.owner = null;
+		size--;
+	}
+
+	private Entry<E> checkHandle(Handle<E> handle) throws IllegalArgumentException {
+		if (!(handle instanceof Entry) || ((Entry<E>) handle).owner != owner)
+			throw new IllegalArgumentException("Handle does not belong to this heap.");
+		return (Entry<E>) handle;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (Bucket<E> bucket : buckets) {
+			bucket.clear();
+		}
+		last = 0L;
+		size = 0;
+		owner = new Object();
+	}
+
+	/**
+	 * An unordered bucket of entries.
+	 */
+	private static class Bucket<E> {
+
+		private final int index;
+		private Entry<?>[] entries = new Entry<?>[4];
+		private int size;
+
+		private Bucket(int index) {
+			this.index = index;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Entry<E> get(int i) {
+			return (Entry<E>) entries[i];
+		}
+
+		private void add(Entry<E> entry) {
+			if (size == entries.length)
+				entries = Arrays.copyOf(entries, size * 2);
+			entries[size] = entry;
+			entry.bucket = index;
+			entry.position = size;
+			size++;
+		}
+
+		/**
+		 * Remove the given entry by moving the last entry
+		 * into its position.
+		 */
+		private void remove(Entry<E> entry) {
+			Entry<E> last = get(--size);
+			entries[entry.position] = last;
+			last.position = entry.position;
+			entries[size] = null;
+		}
+
+		private void clear() {
+			Arrays.fill(entries, 0, size, null);
+			size = 0;
+		}
+
+	}
+
+	private static class Entry<E> implements Handle<E> {
+
+		private Object owner;
+		private E data;
+		private double key;
+		private long bits;
+		private int bucket;
+		private int position;
+
+		private Entry(Object owner, E data, double key, long bits) {
+			this.owner = owner;
+			this.data = data;
+			this.key = key;
+			this.bits = bits;
+		}
+
+		@Override
+		public E getData() {
+			return data;
+		}
+
+		@Override
+		public void setData(E data) {
+			this.data = data;
+		}
+
+		@Override
+		public double getKey() {
+			return key;
+		}
+
+	}
+
+}
@@ -0,0 +1,178 @@
+package roborally.util;
+
+import roborally.Vector;
+
+/**
+ * A set of grid cells stored as bits in square chunks.
+ *
+ * <p>Only chunks containing set bits are allocated. Each chunk
+ * holds 64 by 64 cells, with one long word per row. Chunks are
+ * looked up by their chunk coordinates packed into a single long,
+ * as by {@link Vector#pack(long, long)}. Chunks whose coordinates
+ * cannot be packed are kept in a separate two-level map.</p>
+ *
+ * <p>The last released chunk is kept for the next chunk to be
+ * allocated, so a single bit moving between two chunks, like
+ * a robot crossing a chunk border, does not allocate.</p>
+ *
+ * @author	Mattias Buelens
+ * @author	Thomas Goossens
+ * @version	3.0
+ *
+ * @note	This class is part of the 2012 project for
+ * 			the course Object Oriented Programming in
+ * 			the second phase of the Bachelor of Engineering
+ * 			at KU Leuven, Belgium.
+ */
+public class SparseBitGrid {
+
+	/**
+	 * The number of bits in a local coordinate.
+	 */
+	private static final int BITS = 6;
+
+	/**
+	 * The width and height of a chunk.
+	 */
+	private static final int SIZE = 1 << BITS;
+
+	/**
+	 * Map mapping packed chunk coordinates to chunks.
+	 */
+	private final LongHashMap<long[]> chunks = new LongHashMap<long[]>();
+
+	/**
+	 * Map mapping unpackable chunk Y-coordinates to maps
+	 * mapping chunk X-coordinates to chunks.
+	 */
+	private final LongHashMap<LongHashMap<long[]>> farChunks = new LongHashMap<LongHashMap<long[]>>();
+
+	/**
+	 * Variable registering the number of set bits.
+	 */
+	private int cardinality;
+
+	/**
+	 * The last released chunk, with all of its bits cleared,
+	 * or null if there is no such chunk.
+	 */
+	private long[] spareChunk;
+
+	/**
+	 * Get a chunk with all of its bits cleared.
+	 */
+	private long[] newChunk() {
+		long[] chunk = spareChunk;
+		if (chunk == null)
+			return new long[SIZE];
+		spareChunk = null;
+		return chunk;
+	}
+
+	private long[] getChunk(long x, long y, boolean create) {
+		long chunkX = x >> BITS, chunkY = y >> BITS;
+		if (Vector.canPack(chunkX, chunkY)) {
+			long key = Vector.pack(chunkX, chunkY);
+			long[] chunk = chunks.get(key);
+			if (chunk == null && create) {
+				chunk = newChunk();
+				chunks.put(key, chunk);
+			}
+			return chunk;
+		}
+
+		LongHashMap<long[]> row = farChunks.get(chunkY);
+		if (row == null) {
+			if (!create)
+				return null;
+			row = new LongHashMap<long[]>();
+			farChunks.put(chunkY, row);
+		}
+		long[] chunk = row.get(chunkX);
+		if (chunk == null && create) {
+			chunk = newChunk();
+			row.put(chunkX, chunk);
+		}
+		return chunk;
+	}
+
+	private void removeChunk(long x, long y) {
+		long chunkX = x >> BITS, chunkY = y >> BITS;
+		if (Vector.canPack(chunkX, chunkY)) {
+			chunks.remove(Vector.pack(chunkX, chunkY));
+		} else {
+			LongHashMap<long[]> row = farChunks.get(chunkY);
+			row.remove(chunkX);
+			if (row.isEmpty())
+				farChunks.remove(chunkY);
+		}
+	}
+
+	/**
+	 * Check whether the bit for the given cell is set.
+	 */
+	public boolean get(long x, long y) {
+		long[] chunk = getChunk(x, y, false);
+		if (chunk == null)
+			return false;
+		return (chunk[(int) (y & (SIZE - 1))] & (1L << (x & (SIZE - 1)))) != 0;
+	}
+
+	/**
+	 * Set the bit for the given cell.
+	 */
+	public void set(long x, long y) {
+		long[] chunk = getChunk(x, y, true);
+		int row = (int) (y & (SIZE - 1));
+		long mask = 1L << (x & (SIZE - 1));
+		if ((chunk[row] & mask) == 0) {
+			chunk[row] |= mask;
+			cardinality++;
+		}
+	}
+
+	/**
+	 * Clear the bit for the given cell.
+	 */
+	public void clear(long x, long y) {
+		long[] chunk = getChunk(x, y, false);
+		if (chunk == null)
+			return;
+		int row = (int) (y & (SIZE - 1));
+		long mask = 1L << (x & (SIZE - 1));
+		if ((chunk[row] & mask) != 0) {
+			chunk[row] &= ~mask;
+			cardinality--;
+			// Release the chunk when all of its bits are cleared
+			if (isEmpty(chunk)) {
+				removeChunk(x, y);
+				spareChunk = chunk;
+			}
+		}
+	}
+
+	private static boolean isEmpty(long[] chunk) {
+		for (long word : chunk) {
+			if (word != 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the number of set bits.
+	 */
+	public int cardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * Clear all bits.
+	 */
+	public void clear() {
+		chunks.clear();
+		farChunks.clear();
+		cardinality = 0;
+	}
+
+}
@@ -1,11 +1,13 @@
 package roborally.view;
 
 import java.io.Writer;
+import java.util.List;
 import java.util.Set;
 
 import roborally.*;
 import roborally.EnergyAmount.Unit;
 import roborally.program.Program;
+import roborally.program.ProgramScheduler;
 
 public class Facade implements IFacade<Board, Robot, Wall, Battery, RepairKit, SurpriseBox> {
 
@@ -329,7 +331,7 @@ public class Facade implements IFacade<Board, Robot, Wall, Battery, RepairKit, S
 	@Override
 	public void stepn(Robot robot, int n) {
 		try {
-			robot.stepProgram(n);
+			robot.runProgram(n);
 		} catch (IllegalStateException e) {
 			// Silently skip robots with no programs
 		} catch (Exception e) {
@@ -337,6 +339,22 @@ public class Facade implements IFacade<Board, Robot, Wall, Battery, RepairKit, S
 		}
 	}
 
+	@Override
+	public void stepAll(List<Robot> robots, int n) {
+		try {
+			scheduler.step(robots, n);
+		} catch (Exception e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	private final ProgramScheduler scheduler = new ProgramScheduler() {
+		@Override
+		protected void handleFailure(Robot robot, RuntimeException exception) {
+			System.err.println(exception.getMessage());
+		}
+	};
+
 	@Override
 	public Set<Battery> getRobotBatteries(Robot robot) {
 		return robot.getPossessions(Battery.class);
@@ -1,6 +1,7 @@
 package roborally.view;
 
 import java.io.Writer;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -362,6 +363,17 @@ public interface IFacade<Board, Robot, Wall, Battery, RepairKit, SurpriseBox> {
 	 * with the shoot command.</p>
 	 */
 	public void stepn(Robot robot, int n);
+
+	/**
+	 * Execute <code>n</code> rounds on the programs of all <code>robots</code>,
+	 * where every round executes one basic step in the program of each robot.
+	 * 
+	 * <p>In every round, all robots first decide on their next command,
+	 * and only then act in the order of the given list.</p>
+	 * 
+	 * @note This is part of our graphical user interface extensions.
+	 */
+	public void stepAll(List<Robot> robots, int n);
 	
 	/**
 	 * Return the set of batteries possessed by a robot.
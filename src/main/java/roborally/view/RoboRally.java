@@ -416,10 +416,10 @@ public class RoboRally<Board, Robot, Wall, Battery, RepairKit, SurpriseBox> exte
 				out.println("integer expected but found " + words[1]);
 				return;
 			}
+			// Robots act in the order of their names
+			List<Robot> orderedRobots = new ArrayList<Robot>(new TreeMap<String, Robot>(robots).values());
 			while (0 < nbSteps) {
-				for (Robot robot : robots.values()) {
-					facade.stepn(robot, 1);
-				}
+				facade.stepAll(orderedRobots, 1);
 				this.repaint();
 				if (nbSteps != 0) {
 					try {
@@ -0,0 +1,118 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.EnergyAmount.Unit;
+import roborally.path.*;
+
+public class BidirectionalAStarTest {
+
+	@Test
+	public void getCost_SameAsMinimalCostAStar() throws Exception {
+		Random random = new Random(2012);
+		for (int run = 0; run < 20; ++run) {
+			Board board = new Board(25, 18);
+			for (int y = 0; y < board.getHeight(); ++y) {
+				for (int x = 0; x < board.getWidth(); ++x) {
+					if (random.nextInt(4) == 0 && !(x == 3 && y == 2))
+						new Wall().placeOnBoard(board, new Vector(x, y));
+				}
+			}
+			Robot robot = new Robot(Orientation.getByValue(random.nextInt(4)), 20000);
+			robot.placeOnBoard(board, new Vector(3, 2));
+			robot.addAsPossession(new Battery(random.nextInt(4) * 1000, 100));
+
+			for (int i = 0; i < 30; ++i) {
+				Vector target = new Vector(random.nextInt(25), random.nextInt(18));
+				EnergyAmount expected = null, actual = null;
+				try {
+					expected = new PackedMinimalCostAStar(robot, target).getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				try {
+					actual = new PackedBidirectionalAStar(robot, target).getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void getCost_CurrentPosition() throws Exception {
+		Board board = new Board(10, 10);
+		Robot robot = new Robot(Orientation.UP, 1000);
+		robot.placeOnBoard(board, new Vector(4, 4));
+		assertEquals(EnergyAmount.ZERO, new PackedBidirectionalAStar(robot, new Vector(4, 4)).getCost());
+	}
+
+	@Test(expected = UnreachablePositionException.class)
+	public void getCost_Wall() throws Exception {
+		Board board = new Board(10, 10);
+		Robot robot = new Robot(Orientation.UP, 1000);
+		robot.placeOnBoard(board, new Vector(4, 4));
+		new Wall().placeOnBoard(board, new Vector(8, 8));
+		new PackedBidirectionalAStar(robot, new Vector(8, 8)).getCost();
+	}
+
+	@Test
+	public void getMinimalCostToReach_Distant() throws Exception {
+		Board board = new Board(400, 400);
+		Robot robot = new Robot(Orientation.LEFT, 1000);
+		robot.placeOnBoard(board, new Vector(10, 10));
+
+		Vector target = new Vector(380, 20);
+		assertTrue(robot.getPosition().manhattanDistance(target) > Robot.BIDIRECTIONAL_THRESHOLD);
+		PackedBidirectionalAStar bidirectional = new PackedBidirectionalAStar(robot, target);
+		EnergyAmount cost = bidirectional.getCost();
+		assertEquals(new EnergyAmount(380 * 500 + 2 * 100, Unit.WATTSECOND), cost);
+		assertEquals(cost, robot.getMinimalCostToReach(target));
+
+		// Far fewer states than a flood up to the target
+		PackedCostTree tree = new PackedCostTree(robot);
+		assertEquals(cost.getAmount(Unit.WATTSECOND), tree.getCost(target), 0);
+		assertEquals(cost.getMicroWattSeconds(), tree.getMicroWattSeconds(target));
+		assertTrue(bidirectional.getNbExpandedNodes() < tree.getNbExpandedNodes() / 10);
+	}
+
+	@Test
+	public void getMinimalCostToReach_DistantCached() throws Exception {
+		Board board = new Board(400, 400);
+		Robot robot = new Robot(Orientation.LEFT, 1000);
+		robot.placeOnBoard(board, new Vector(10, 10));
+
+		// Repeated queries reuse the cached cost
+		Vector target = new Vector(380, 20);
+		EnergyAmount cost = robot.getMinimalCostToReach(target);
+		assertSame(cost, robot.getMinimalCostToReach(target));
+
+		// Changes to the board discard the cached cost
+		for (int y = 0; y < 390; ++y) {
+			new Wall().placeOnBoard(board, new Vector(200, y));
+		}
+		EnergyAmount blockedCost = robot.getMinimalCostToReach(target);
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), blockedCost);
+		assertTrue(blockedCost.compareTo(cost) > 0);
+	}
+
+	@Test
+	public void getMinimalCostToReach_Barrier() throws Exception {
+		Board board = new Board(400, 400);
+		Robot robot = new Robot(Orientation.LEFT, 1000);
+		robot.placeOnBoard(board, new Vector(10, 10));
+		for (int y = 0; y < 390; ++y) {
+			new Wall().placeOnBoard(board, new Vector(200, y));
+		}
+
+		Vector target = new Vector(380, 20);
+		EnergyAmount cost = new PackedBidirectionalAStar(robot, target).getCost();
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), cost);
+		assertEquals(cost, robot.getMinimalCostToReach(target));
+	}
+
+}
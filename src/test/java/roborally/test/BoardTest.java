@@ -2,6 +2,7 @@ package roborally.test;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -128,6 +129,34 @@ public class BoardTest {
 		assertTrue(noWalls.isEmpty());
 	}
 
+	@Test
+	public void getPieces_LiveView() throws Exception {
+		Set<Wall> walls = batteryBoard.getPieces(Wall.class);
+		Set<Item> items = batteryBoard.getPieces(Item.class);
+		assertTrue(walls.isEmpty());
+		assertEquals(1, items.size());
+
+		Wall wall = new Wall();
+		wall.placeOnBoard(batteryBoard, new Vector(3, 3));
+		RepairKit repairKit = new RepairKit(10, 100);
+		repairKit.placeOnBoard(batteryBoard, Vector.ZERO);
+		assertEquals(1, walls.size());
+		assertTrue(walls.contains(wall));
+		assertEquals(2, items.size());
+		assertTrue(items.contains(repairKit));
+		assertFalse(items.contains(wall));
+
+		wall.terminate();
+		assertTrue(walls.isEmpty());
+		assertFalse(walls.contains(wall));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void getPieces_ReadOnly() {
+		batteryBoard.getPieces().clear();
+		fail();
+	}
+
 	@Test
 	public void getPiecesAt() {
 		Set<Piece> pieces = batteryBoard.getPiecesAt(Vector.ZERO);
@@ -165,6 +194,53 @@ public class BoardTest {
 		assertFalse(batteryBoard.hasPiecesAt(new Vector(2, 2)));
 	}
 
+	@Test
+	public void hasPiecesAt_Coordinates() throws Exception {
+		assertTrue(batteryBoard.hasPiecesAt(0, 0));
+		assertFalse(batteryBoard.hasPiecesAt(2, 2));
+
+		// Cleared only when the last piece leaves the position
+		Piece other = new Battery(1);
+		other.placeOnBoard(batteryBoard, Vector.ZERO);
+		batteryOnBoard.terminate();
+		assertTrue(batteryBoard.hasPiecesAt(0, 0));
+		other.moveOnBoard(new Vector(2, 2));
+		assertFalse(batteryBoard.hasPiecesAt(0, 0));
+		assertTrue(batteryBoard.hasPiecesAt(2, 2));
+	}
+
+	@Test
+	public void hasPiecesAt_AcrossChunks() throws Exception {
+		Board board = new Board(200, 200);
+		Piece piece = new Battery(1);
+		piece.placeOnBoard(board, new Vector(63, 0));
+
+		// Move back and forth over chunk borders
+		Vector[] positions = { new Vector(64, 0), new Vector(64, 130), new Vector(63, 0) };
+		Vector previous = piece.getPosition();
+		for (Vector position : positions) {
+			piece.moveOnBoard(position);
+			assertFalse(board.hasPiecesAt(previous.getX(), previous.getY()));
+			assertTrue(board.hasPiecesAt(position.getX(), position.getY()));
+			previous = position;
+		}
+	}
+
+	@Test
+	public void hasObstacleAt() throws Exception {
+		assertTrue(wallBoard.hasObstacleAt(new Vector(9, 9)));
+		assertFalse(wallBoard.hasObstacleAt(new Vector(8, 9)));
+		assertFalse(batteryBoard.hasObstacleAt(Vector.ZERO));
+
+		assertTrue(wallBoard.hasObstacleAt(9, 9));
+		assertFalse(wallBoard.hasObstacleAt(8, 9));
+
+		wallOnBoard.terminate();
+		assertFalse(wallBoard.hasObstacleAt(new Vector(9, 9)));
+		assertFalse(wallBoard.hasObstacleAt(9, 9));
+		assertTrue(wallBoard.canHavePieceAt(battery, new Vector(9, 9)));
+	}
+
 	@Test
 	public void canHavePieceAt() {
 		assertTrue(board_5x5.canHavePieceAt(battery, Vector.ZERO));
@@ -272,6 +348,55 @@ public class BoardTest {
 		assertFalse(board_5x5.isValidPosition(null));
 	}
 
+	@Test
+	public void getEpoch() throws Exception {
+		long epoch = board_10x10.getEpoch();
+		Wall wall = new Wall();
+		wall.placeOnBoard(board_10x10, new Vector(2, 3));
+		assertTrue(board_10x10.getEpoch() > epoch);
+
+		epoch = board_10x10.getEpoch();
+		wall.moveOnBoard(new Vector(3, 3));
+		assertTrue(board_10x10.getEpoch() > epoch);
+
+		epoch = board_10x10.getEpoch();
+		wall.terminate();
+		assertTrue(board_10x10.getEpoch() > epoch);
+
+		epoch = board_10x10.getEpoch();
+		board_10x10.getPiecesAt(new Vector(3, 3));
+		assertEquals(epoch, board_10x10.getEpoch());
+	}
+
+	@Test
+	public void getChangedPositions() throws Exception {
+		long epoch = board_10x10.getEpoch();
+		Wall wall = new Wall();
+		wall.placeOnBoard(board_10x10, new Vector(2, 3));
+		wall.moveOnBoard(new Vector(3, 3));
+		assertEquals(Arrays.asList(new Vector(2, 3), new Vector(2, 3), new Vector(3, 3)),
+				board_10x10.getChangedPositions(epoch));
+		assertTrue(board_10x10.getChangedPositions(board_10x10.getEpoch()).isEmpty());
+	}
+
+	@Test
+	public void getChangedPositions_Forgotten() throws Exception {
+		long epoch = board_10x10.getEpoch();
+		Wall wall = new Wall();
+		wall.placeOnBoard(board_10x10, new Vector(1, 0));
+		for (int i = 0; i < 2000; ++i) {
+			wall.moveOnBoard(new Vector(i % 2, 0));
+		}
+		assertNull(board_10x10.getChangedPositions(epoch));
+		assertEquals(Arrays.asList(new Vector(0, 0), new Vector(1, 0)),
+				board_10x10.getChangedPositions(board_10x10.getEpoch() - 2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getChangedPositions_FutureEpoch() {
+		board_10x10.getChangedPositions(board_10x10.getEpoch() + 1);
+	}
+
 	@Test
 	public void getNextPosition_NormalCase() {
 		Vector nextPosition = board_10x10.getNextPosition(Vector.ZERO, Orientation.RIGHT);
@@ -284,6 +409,26 @@ public class BoardTest {
 		assertNull(nextPosition);
 	}
 
+	@Test
+	public void getNextOccupiedPosition() throws Exception {
+		Board board = new Board(1000000, 1000000);
+		new Wall().placeOnBoard(board, new Vector(900000, 5));
+		new Wall().placeOnBoard(board, new Vector(10, 5));
+		Battery battery = new Battery(5);
+		battery.placeOnBoard(board, new Vector(10, 700000));
+
+		Vector start = new Vector(10, 5);
+		assertEquals(new Vector(900000, 5), board.getNextOccupiedPosition(start, Orientation.RIGHT));
+		assertNull(board.getNextOccupiedPosition(start, Orientation.LEFT));
+		assertNull(board.getNextOccupiedPosition(start, Orientation.UP));
+		assertEquals(new Vector(10, 700000), board.getNextOccupiedPosition(start, Orientation.DOWN));
+		assertEquals(new Vector(10, 5),
+				board.getNextOccupiedPosition(new Vector(10, 699999), Orientation.UP));
+
+		battery.terminate();
+		assertNull(board.getNextOccupiedPosition(start, Orientation.DOWN));
+	}
+
 	@Test
 	public void terminate_NormalCase() {
 		batteryBoard.terminate();
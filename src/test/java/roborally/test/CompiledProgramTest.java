@@ -0,0 +1,114 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.EnergyAmount.Unit;
+import roborally.program.Parser;
+import roborally.program.Program;
+
+public class CompiledProgramTest {
+
+	// @formatter:off
+	private final String[] sources = {
+		"(move)",
+		"(if (not (true)) (move) (turn counterclockwise))",
+		"(seq (move) (while (not (wall)) (move)) (turn counterclockwise) (shoot))",
+		"(while (energy-at-least 1000) (if (wall) (seq (turn clockwise)) (seq (move) (if (at-item) (seq (pickup-and-use)) (seq)))))",
+		"(while (true) (seq (while (and (not (wall)) (energy-at-least 5000)) (move)) (turn clockwise) (if (can-hit-robot) (seq (shoot)) (seq (move)))))",
+		"(seq (while (true) (seq)) (move) (if (or (wall) (at-item)) (seq) (seq (turn clockwise))))",
+		"(while (true) (while (wall) (turn clockwise)))",
+		"(while (or (not (energy-at-least 3000)) (and (true) (not (wall)))) (seq (move) (seq) (turn counterclockwise) (move) (turn clockwise)))",
+		"(seq (shoot) (while (true) (while (wall) (turn clockwise))) (if (energy-at-least 7000) (turn clockwise) (move)))"
+	};
+	// @formatter:on
+
+	@Test
+	public void runProgram_SameAsStepProgram() throws Exception {
+		Random random = new Random(2012);
+		for (String source : sources) {
+			for (int run = 0; run < 5; ++run) {
+				long seed = random.nextLong();
+				Robot tree = createWorld(seed);
+				Robot compiled = createWorld(seed);
+				tree.setProgram(new Program(new Parser(source).parse()));
+				compiled.setProgram(new Program(new Parser(source).parse()));
+
+				for (int i = 0; i < 50; ++i) {
+					int steps = 1 + random.nextInt(3);
+					tree.stepProgram(steps);
+					compiled.runProgram(steps);
+					assertEquals(source, tree.getPosition(), compiled.getPosition());
+					assertEquals(source, tree.getOrientation(), compiled.getOrientation());
+					assertEquals(source, tree.getEnergyAmount(Unit.WATTSECOND),
+							compiled.getEnergyAmount(Unit.WATTSECOND), 0);
+					assertEquals(source, tree.getNbPossessions(), compiled.getNbPossessions());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void runProgram_SharedProgram() throws Exception {
+		Board board = new Board(20, 20);
+		Program program = new Program(new Parser("(seq (move) (turn clockwise) (move))").parse());
+		Robot first = new Robot(Orientation.RIGHT, 5000);
+		first.placeOnBoard(board, new Vector(2, 2));
+		first.setProgram(program);
+		Robot second = new Robot(Orientation.RIGHT, 5000);
+		second.placeOnBoard(board, new Vector(2, 10));
+		second.setProgram(program);
+
+		first.runProgram(2);
+		second.runProgram(1);
+		assertEquals(new Vector(3, 2), first.getPosition());
+		assertEquals(Orientation.DOWN, first.getOrientation());
+		assertEquals(new Vector(3, 10), second.getPosition());
+		assertEquals(Orientation.RIGHT, second.getOrientation());
+
+		// The program ends after its last command and restarts
+		first.runProgram(5);
+		assertEquals(new Vector(3, 3), first.getPosition());
+		first.runProgram(1);
+		assertEquals(new Vector(3, 4), first.getPosition());
+	}
+
+	@Test
+	public void runProgram_EmptyLoop() throws Exception {
+		Board board = new Board(20, 20);
+		Robot robot = new Robot(Orientation.RIGHT, 5000);
+		robot.placeOnBoard(board, new Vector(2, 2));
+		robot.setProgram(new Program(new Parser("(seq (while (true) (seq)) (move))").parse()));
+
+		robot.runProgram(1);
+		assertEquals(new Vector(3, 2), robot.getPosition());
+	}
+
+	private Robot createWorld(long seed) throws Exception {
+		Random random = new Random(seed);
+		Board board = new Board(20, 15);
+		Vector start = new Vector(3, 4);
+		Vector other = new Vector(12, 4);
+		for (int y = 0; y < board.getHeight(); ++y) {
+			for (int x = 0; x < board.getWidth(); ++x) {
+				Vector position = new Vector(x, y);
+				if (position.equals(start) || position.equals(other))
+					continue;
+				int kind = random.nextInt(10);
+				if (kind == 0)
+					new Wall().placeOnBoard(board, position);
+				else if (kind == 1)
+					new Battery(100, 500).placeOnBoard(board, position);
+			}
+		}
+		new Robot(Orientation.LEFT, 5000).placeOnBoard(board, other);
+		Robot robot = new Robot(Orientation.getByValue(random.nextInt(4)), 20000);
+		robot.placeOnBoard(board, start);
+		return robot;
+	}
+
+}
@@ -0,0 +1,126 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.path.*;
+
+public class DStarLiteTest {
+
+	@Test
+	public void getCost_SameAsMinimalCostAStar() throws Exception {
+		Random random = new Random(2012);
+		for (int run = 0; run < 10; ++run) {
+			Board board = new Board(20, 15);
+			Wall[][] walls = new Wall[20][15];
+			Robot robot = new Robot(Orientation.getByValue(random.nextInt(4)), 20000);
+			robot.placeOnBoard(board, new Vector(3, 2));
+			Robot otherRobot = new Robot(Orientation.UP, 1000);
+			otherRobot.placeOnBoard(board, new Vector(10, 10));
+			Vector target = new Vector(16, 12);
+			DStarLite planner = new DStarLite(robot, target);
+
+			for (int i = 0; i < 60; ++i) {
+				EnergyAmount expected = null, actual = null;
+				try {
+					expected = new PackedMinimalCostAStar(robot, target).getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				try {
+					actual = planner.getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				assertEquals(expected, actual);
+
+				// Toggle a few walls, and move or turn a robot
+				for (int j = 0; j < 3; ++j) {
+					int x = random.nextInt(20), y = random.nextInt(15);
+					Vector position = new Vector(x, y);
+					if (walls[x][y] != null) {
+						walls[x][y].terminate();
+						walls[x][y] = null;
+					} else if (!board.hasPiecesAt(position)) {
+						walls[x][y] = new Wall();
+						walls[x][y].placeOnBoard(board, position);
+					}
+				}
+				Vector next = board.getNextPosition(robot.getPosition(), Orientation.getByValue(random.nextInt(4)));
+				if (next != null && robot.canMoveTo(next))
+					robot.moveOnBoard(next);
+				robot.turn(Rotation.CLOCKWISE);
+				next = board.getNextPosition(otherRobot.getPosition(), Orientation.getByValue(random.nextInt(4)));
+				if (next != null && otherRobot.canMoveTo(next))
+					otherRobot.moveOnBoard(next);
+			}
+		}
+	}
+
+	@Test
+	public void run_OneWallToggled() throws Exception {
+		Board board = new Board(200, 200);
+		for (int y = 0; y < 150; ++y) {
+			new Wall().placeOnBoard(board, new Vector(100, y));
+		}
+		Robot robot = new Robot(Orientation.RIGHT, 20000);
+		robot.placeOnBoard(board, new Vector(10, 10));
+		Vector target = new Vector(190, 10);
+		DStarLite planner = new DStarLite(robot, target);
+		assertTrue(planner.run());
+		int nbInitial = planner.getNbExpandedNodes();
+
+		// Block a position far from the best path
+		Wall wall = new Wall();
+		wall.placeOnBoard(board, new Vector(20, 190));
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), planner.getCost());
+		assertTrue(planner.getNbExpandedNodes() < nbInitial / 100);
+
+		// Block the best path and unblock it again
+		Wall blocking = new Wall();
+		blocking.placeOnBoard(board, new Vector(100, 150));
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), planner.getCost());
+		blocking.terminate();
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), planner.getCost());
+	}
+
+	@Test
+	public void getMinimalCostToReach_Repeated() throws Exception {
+		Board board = new Board(120, 120);
+		for (int y = 0; y < 100; ++y) {
+			new Wall().placeOnBoard(board, new Vector(60, y));
+		}
+		Robot robot = new Robot(Orientation.RIGHT, 20000);
+		robot.placeOnBoard(board, new Vector(10, 10));
+		Vector target = new Vector(110, 10);
+		DStarLite planner = new DStarLite(robot, target);
+		for (int i = 0; i < 5; ++i) {
+			assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), robot.getMinimalCostToReach(target));
+			assertEquals(robot.getMinimalCostToReach(target), planner.getCost());
+			new Wall().placeOnBoard(board, new Vector(60, 100 + i));
+			robot.moveOnBoard(robot.getPosition().add(Orientation.DOWN.getVector()));
+		}
+	}
+
+	@Test
+	public void getCost_CurrentPosition() throws Exception {
+		Board board = new Board(10, 10);
+		Robot robot = new Robot(Orientation.UP, 1000);
+		robot.placeOnBoard(board, new Vector(4, 4));
+		assertEquals(EnergyAmount.ZERO, new DStarLite(robot, new Vector(4, 4)).getCost());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void run_RobotChanged() throws Exception {
+		Board board = new Board(10, 10);
+		Robot robot = new Robot(Orientation.UP, 1000);
+		robot.placeOnBoard(board, new Vector(4, 4));
+		DStarLite planner = new DStarLite(robot, new Vector(8, 8));
+		planner.run();
+		robot.addAsPossession(new Battery(1000, 100));
+		planner.run();
+	}
+
+}
@@ -0,0 +1,116 @@
+package roborally.test;
+
+import java.lang.management.ManagementFactory;
+
+import roborally.*;
+import roborally.Vector;
+
+/**
+ * A benchmark of the bytes allocated by a robot
+ * to move, turn and shoot.
+ *
+ * <p>Energy amounts are cached for whole numbers of watt-seconds,
+ * so paying for these actions should allocate few new amounts.
+ * Allocations are measured per action with the thread allocation
+ * counter of the JVM, which excludes the energy refills and turns
+ * in between. The allocations of a turn may vary between runs,
+ * depending on which allocations the JIT compiler eliminates.
+ * This is not part of the unit tests. Run it with:</p>
+ * <pre>mvn test-compile exec:exec -Dmain.class=roborally.test.EnergyAllocationBenchmark -Dexec.classpathScope=test</pre>
+ */
+public class EnergyAllocationBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		// Warm up before measuring
+		for (int i = 0; i < 3; ++i) {
+			measure(20000, false);
+		}
+		measure(100000, true);
+	}
+
+	private static enum Action {
+		MOVE, TURN, SHOOT
+	}
+
+	private static void measure(int nbActions, boolean print) throws Exception {
+		for (Action action : Action.values()) {
+			double bytes = getAllocatedBytes(action, nbActions);
+			if (print)
+				System.out.printf("%-5s %8.1f bytes/action%n", action.toString().toLowerCase(), bytes);
+		}
+	}
+
+	/**
+	 * Get the average number of bytes allocated
+	 * by a robot to perform the given action.
+	 */
+	private static double getAllocatedBytes(Action action, int nbActions) throws Exception {
+		Board board = new Board(100, 100);
+		Robot robot = new Robot(Orientation.RIGHT, 20000);
+		robot.placeOnBoard(board, new Vector(10, 10));
+		EnergyAmount fullEnergy = robot.getCapacityAmount();
+
+		long overhead = getOverhead();
+		long total = 0;
+		for (int i = 0; i < nbActions; ++i) {
+			// Refill and turn around outside of the measurement
+			if (robot.getEnergyAmount().isLessThan(minimumEnergy))
+				robot.setEnergy(fullEnergy);
+			if (action == Action.MOVE && isAtEdge(robot)) {
+				robot.turn(Rotation.CLOCKWISE);
+				robot.turn(Rotation.CLOCKWISE);
+			}
+
+			long before = getThreadAllocatedBytes();
+			switch (action) {
+			case MOVE:
+				robot.move();
+				break;
+			case TURN:
+				robot.turn(Rotation.CLOCKWISE);
+				break;
+			case SHOOT:
+				robot.shoot();
+				break;
+			}
+			total += getThreadAllocatedBytes() - before - overhead;
+		}
+		return (double) total / nbActions;
+	}
+
+	/**
+	 * Check whether the given robot moving along its row
+	 * should turn around.
+	 */
+	private static boolean isAtEdge(Robot robot) {
+		long x = robot.getPosition().getX();
+		return (x >= 90 && robot.getOrientation() == Orientation.RIGHT)
+				|| (x <= 10 && robot.getOrientation() == Orientation.LEFT);
+	}
+
+	/**
+	 * The energy below which the robot is refilled.
+	 */
+	private static final EnergyAmount minimumEnergy = new EnergyAmount(2000, EnergyAmount.Unit.WATTSECOND);
+
+	/**
+	 * Get the smallest number of bytes allocated
+	 * by measuring the allocated bytes itself.
+	 */
+	private static long getOverhead() {
+		long overhead = Long.MAX_VALUE;
+		for (int i = 0; i < 1000; ++i) {
+			long before = getThreadAllocatedBytes();
+			overhead = Math.min(overhead, getThreadAllocatedBytes() - before);
+		}
+		return overhead;
+	}
+
+	private static long getThreadAllocatedBytes() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+}
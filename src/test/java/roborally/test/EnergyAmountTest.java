@@ -26,4 +26,65 @@ public class EnergyAmountTest {
 		assertEquals(5 / 1000, e.getAmount(Unit.KILOJOULE), 0.1);
 	}
 
+	@Test
+	public void add_NoDrift() {
+		EnergyAmount e = EnergyAmount.ZERO;
+		EnergyAmount tenth = new EnergyAmount(0.1, Unit.WATTSECOND);
+		for (int i = 0; i < 1000; ++i) {
+			e = e.add(tenth);
+		}
+		assertEquals(new EnergyAmount(100, Unit.WATTSECOND), e);
+		for (int i = 0; i < 1000; ++i) {
+			e = e.subtract(tenth);
+		}
+		assertEquals(EnergyAmount.ZERO, e);
+	}
+
+	@Test
+	public void equals_AcrossUnits() {
+		EnergyAmount ws = new EnergyAmount(1500, Unit.WATTSECOND);
+		EnergyAmount kj = new EnergyAmount(1.5, Unit.KILOJOULE);
+		assertEquals(ws, kj);
+		assertEquals(ws.hashCode(), kj.hashCode());
+		assertEquals(1.5, ws.getAmount(Unit.KILOJOULE), 0);
+		assertEquals(1500, kj.getAmount(Unit.WATTSECOND), 0);
+	}
+
+	@Test
+	public void valueOf_Cached() {
+		assertSame(EnergyAmount.ZERO, EnergyAmount.valueOf(0, Unit.WATTSECOND));
+		assertSame(EnergyAmount.valueOf(500, Unit.WATTSECOND), EnergyAmount.valueOf(500, Unit.WATTSECOND));
+		assertSame(EnergyAmount.valueOf(600, Unit.WATTSECOND),
+				EnergyAmount.valueOf(500, Unit.WATTSECOND).add(new EnergyAmount(100, Unit.WATTSECOND)));
+		assertEquals(Unit.KILOJOULE, EnergyAmount.valueOf(1, Unit.KILOJOULE).getUnit());
+	}
+
+	@Test
+	public void add_Clamped() {
+		EnergyAmount max = new EnergyAmount(Double.MAX_VALUE, Unit.WATTSECOND);
+		assertEquals(EnergyAmount.MAXIMUM, max);
+		assertEquals(Double.MAX_VALUE, max.getAmount(Unit.WATTSECOND), 0);
+		assertEquals(Double.MAX_VALUE / 1000, max.getAmount(Unit.KILOJOULE), 0);
+		assertEquals(max, max.add(new EnergyAmount(1, Unit.WATTSECOND)));
+		assertEquals(max, max.subtract(new EnergyAmount(20000, Unit.WATTSECOND)));
+		assertEquals(max, max.multiply(0.5));
+	}
+
+	@Test
+	public void add_LargeFinite() {
+		EnergyAmount large = new EnergyAmount(1e12, Unit.WATTSECOND);
+		EnergyAmount term = new EnergyAmount(1000, Unit.WATTSECOND);
+		assertEquals(1e12 - 1000, large.subtract(term).getAmount(Unit.WATTSECOND), 0);
+
+		// Too large finite amounts are clamped, but remain finite
+		EnergyAmount clamped = new EnergyAmount(1e13, Unit.WATTSECOND);
+		assertEquals(EnergyAmount.LARGEST, clamped);
+		assertFalse(clamped.isUnbounded());
+		assertTrue(clamped.subtract(term).isLessThan(clamped));
+		assertEquals(EnergyAmount.LARGEST, clamped.add(clamped));
+		assertEquals(EnergyAmount.LARGEST, large.multiply(1e7));
+		assertEquals(EnergyAmount.LARGEST.multiply(-1), clamped.multiply(-2));
+		assertFalse(EnergyAmount.ZERO.subtract(EnergyAmount.MAXIMUM).isUnbounded());
+	}
+
 }
@@ -0,0 +1,150 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.Vector;
+import roborally.path.MinimalCostAStar;
+import roborally.path.ReachAStar;
+import roborally.path.ReachNode;
+import roborally.util.AddressableHeap;
+import roborally.util.AddressableHeap.Handle;
+import roborally.util.HeapType;
+import roborally.util.RadixHeap;
+
+public class HeapTest {
+
+	@Test
+	public void removeMin_Sorted() {
+		for (HeapType type : HeapType.values()) {
+			AddressableHeap<Integer> heap = type.create();
+			Random random = new Random(42);
+			List<Double> keys = new ArrayList<Double>();
+			for (int i = 0; i < 500; ++i) {
+				double key = random.nextInt(100) * 50.0;
+				keys.add(key);
+				heap.insert(i, key);
+			}
+			Collections.sort(keys);
+
+			assertEquals(type.name(), keys.size(), heap.size());
+			for (double key : keys) {
+				assertEquals(type.name(), key, heap.min().getKey(), 0);
+				heap.removeMin();
+			}
+			assertTrue(type.name(), heap.isEmpty());
+			assertNull(type.name(), heap.removeMin());
+		}
+	}
+
+	@Test
+	public void decreaseKey_Monotone() {
+		for (HeapType type : HeapType.values()) {
+			AddressableHeap<Integer> heap = type.create();
+			Random random = new Random(7);
+			Map<Integer, Handle<Integer>> handles = new HashMap<Integer, Handle<Integer>>();
+			double last = 0;
+			int next = 0;
+			for (int round = 0; round < 200; ++round) {
+				// Insert new keys above the last minimum
+				for (int i = 0; i < 5; ++i) {
+					handles.put(next, heap.insert(next, last + random.nextInt(1000)));
+					next++;
+				}
+				// Decrease a random key, but not below the last minimum
+				List<Integer> present = new ArrayList<Integer>(handles.keySet());
+				Handle<Integer> handle = handles.get(present.get(random.nextInt(present.size())));
+				double key = last + random.nextInt((int) (handle.getKey() - last) + 1);
+				heap.decreaseKey(handle, key);
+				assertEquals(type.name(), key, handle.getKey(), 0);
+				// Delete a random element
+				present.remove(handle.getData());
+				if (!present.isEmpty()) {
+					Integer deleted = present.get(random.nextInt(present.size()));
+					heap.delete(handles.remove(deleted));
+				}
+				// Remove the minimum and check it is not smaller than any other key
+				Handle<Integer> min = heap.min();
+				for (Handle<Integer> other : handles.values()) {
+					assertTrue(type.name(), min.getKey() <= other.getKey());
+				}
+				assertTrue(type.name(), min.getKey() >= last);
+				last = min.getKey();
+				assertEquals(type.name(), min.getData(), heap.removeMin());
+				handles.remove(min.getData());
+				assertEquals(type.name(), handles.size(), heap.size());
+			}
+		}
+	}
+
+	@Test
+	public void decreaseKey_LargerKey() {
+		for (HeapType type : HeapType.values()) {
+			AddressableHeap<String> heap = type.create();
+			Handle<String> handle = heap.insert("a", 10);
+			try {
+				heap.decreaseKey(handle, 20);
+				fail(type.name());
+			} catch (IllegalArgumentException e) {
+			}
+		}
+	}
+
+	@Test
+	public void delete_RemovedHandle() {
+		for (HeapType type : new HeapType[] { HeapType.BINARY, HeapType.PAIRING, HeapType.RADIX }) {
+			AddressableHeap<String> heap = type.create();
+			Handle<String> handle = heap.insert("a", 10);
+			heap.removeMin();
+			try {
+				heap.delete(handle);
+				fail(type.name());
+			} catch (IllegalArgumentException e) {
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void radixHeap_NonMonotone() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		heap.insert("a", 100);
+		heap.removeMin();
+		heap.insert("b", 50);
+	}
+
+	@Test
+	public void robotAStar_AllHeapTypes() throws Exception {
+		Board board = new Board(9, 7);
+		Random random = new Random(2012);
+		for (int y = 0; y < board.getHeight(); ++y) {
+			for (int x = 0; x < board.getWidth(); ++x) {
+				if (random.nextInt(4) == 0 && !(x == 0 && y == 0))
+					new Wall().placeOnBoard(board, new Vector(x, y));
+			}
+		}
+		Robot robot = new Robot(Orientation.DOWN, 6000);
+		robot.placeOnBoard(board, new Vector(0, 0));
+
+		Map<Vector, ReachNode> expected = new ReachAStar(robot).getReachable();
+		for (HeapType type : HeapType.values()) {
+			ReachAStar astar = new ReachAStar(robot);
+			astar.setHeapType(type);
+			Map<Vector, ReachNode> reachable = astar.getReachable();
+			assertEquals(type.name(), expected.keySet(), reachable.keySet());
+			for (ReachNode node : reachable.values()) {
+				assertEquals(type.name(), expected.get(node.getPosition()).getG(), node.getG());
+			}
+
+			for (Vector position : expected.keySet()) {
+				MinimalCostAStar minimalCost = new MinimalCostAStar(robot, position);
+				minimalCost.setHeapType(type);
+				assertEquals(type.name(), robot.getMinimalCostToReach(position), minimalCost.getCost());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.EnergyAmount.Unit;
+import roborally.path.*;
+
+public class HierarchicalAStarTest {
+
+	@Test
+	public void getCost_SameAsMinimalCostAStar() throws Exception {
+		Random random = new Random(2012);
+		for (int run = 0; run < 20; ++run) {
+			Board board = new Board(25, 18);
+			for (int y = 0; y < board.getHeight(); ++y) {
+				for (int x = 0; x < board.getWidth(); ++x) {
+					if (random.nextInt(4) == 0 && !(x == 3 && y == 2))
+						new Wall().placeOnBoard(board, new Vector(x, y));
+				}
+			}
+			Robot robot = new Robot(Orientation.getByValue(random.nextInt(4)), 20000);
+			robot.placeOnBoard(board, new Vector(3, 2));
+			robot.addAsPossession(new Battery(random.nextInt(4) * 1000, 100));
+			ClusterGraph graph = new ClusterGraph(robot, 1 + random.nextInt(6));
+
+			for (int i = 0; i < 30; ++i) {
+				Vector target = new Vector(random.nextInt(25), random.nextInt(18));
+				EnergyAmount expected = null, actual = null;
+				try {
+					expected = new PackedMinimalCostAStar(robot, target).getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				try {
+					actual = new HierarchicalAStar(graph, target).getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void getPath_Refined() throws Exception {
+		Board board = new Board(40, 40);
+		for (int y = 0; y < 35; ++y) {
+			new Wall().placeOnBoard(board, new Vector(20, y));
+		}
+		Robot robot = new Robot(Orientation.UP, 20000);
+		robot.placeOnBoard(board, new Vector(2, 3));
+		Vector target = new Vector(37, 4);
+
+		HierarchicalAStar search = new HierarchicalAStar(new ClusterGraph(robot, 8), target);
+		EnergyAmount cost = search.getCost();
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), cost);
+
+		// Walk the path and add up its cost
+		List<Vector> path = search.getPath();
+		assertEquals(robot.getPosition(), path.get(0));
+		assertEquals(target, path.get(path.size() - 1));
+		Orientation orientation = robot.getOrientation();
+		double pathCost = 0;
+		for (int i = 1; i < path.size(); ++i) {
+			Vector step = path.get(i).subtract(path.get(i - 1));
+			assertEquals(1, step.manhattanDistance(Vector.ZERO));
+			assertTrue(robot.canMoveTo(path.get(i)));
+			Orientation next = Orientation.fromVector(step);
+			pathCost += 500 + 100 * next.getDifference(orientation);
+			orientation = next;
+		}
+		assertEquals(cost.getAmount(Unit.WATTSECOND), pathCost, 0);
+	}
+
+	@Test
+	public void update_OnlyChangedClusters() throws Exception {
+		Board board = new Board(64, 8);
+		Robot robot = new Robot(Orientation.RIGHT, 20000);
+		robot.placeOnBoard(board, new Vector(1, 1));
+		new Wall().placeOnBoard(board, new Vector(44, 4));
+		Vector target = new Vector(60, 5);
+
+		// Every search crosses all clusters along the corridor
+		ClusterGraph graph = new ClusterGraph(robot, 8);
+		new HierarchicalAStar(graph, target).getCost();
+		int nbComputed = graph.getNbComputedClusters();
+
+		Wall wall = new Wall();
+		wall.placeOnBoard(board, new Vector(30, 3));
+		EnergyAmount cost = new HierarchicalAStar(graph, target).getCost();
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), cost);
+		assertEquals(nbComputed + 1, graph.getNbComputedClusters());
+
+		// Removing the wall makes its cluster empty again
+		wall.terminate();
+		cost = new HierarchicalAStar(graph, target).getCost();
+		assertEquals(new PackedMinimalCostAStar(robot, target).getCost(), cost);
+		assertEquals(nbComputed + 1, graph.getNbComputedClusters());
+	}
+
+	@Test(expected = UnreachablePositionException.class)
+	public void getCost_Enclosed() throws Exception {
+		Board board = new Board(30, 30);
+		Robot robot = new Robot(Orientation.UP, 1000);
+		robot.placeOnBoard(board, new Vector(4, 4));
+		for (int i = 20; i < 24; ++i) {
+			new Wall().placeOnBoard(board, new Vector(i, 20));
+			new Wall().placeOnBoard(board, new Vector(i + 1, 24));
+			new Wall().placeOnBoard(board, new Vector(20, i + 1));
+			new Wall().placeOnBoard(board, new Vector(24, i));
+		}
+		new HierarchicalAStar(new ClusterGraph(robot, 4), new Vector(22, 22)).getCost();
+	}
+
+	@Test
+	public void getMinimalCostToReach_HugeBoard() throws Exception {
+		Board board = new Board(Long.MAX_VALUE, Long.MAX_VALUE);
+		assertFalse(PackedRobotAStar.canSearch(board));
+		Robot robot = new Robot(Orientation.RIGHT, 1000);
+		long x = Long.MAX_VALUE - 1000;
+		robot.placeOnBoard(board, new Vector(x, 500));
+		for (int y = 0; y < 600; ++y) {
+			new Wall().placeOnBoard(board, new Vector(x + 50, y));
+		}
+
+		// Around the end of the wall and back up
+		EnergyAmount cost = robot.getMinimalCostToReach(new Vector(x + 100, 500));
+		assertEquals(new EnergyAmount((100 + 2 * 100) * 500 + 3 * 100, Unit.WATTSECOND), cost);
+
+		// Extending the wall only changes its cluster
+		new Wall().placeOnBoard(board, new Vector(x + 50, 600));
+		cost = robot.getMinimalCostToReach(new Vector(x + 100, 500));
+		assertEquals(new EnergyAmount((100 + 2 * 101) * 500 + 3 * 100, Unit.WATTSECOND), cost);
+	}
+
+}
@@ -0,0 +1,92 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.Vector;
+import roborally.EnergyAmount.Unit;
+import roborally.path.MeetingPointSearch;
+
+public class MeetingPointSearchTest {
+
+	@Test
+	public void run_SameAsBruteForce() {
+		Random random = new Random(2012);
+		for (int run = 0; run < 200; ++run) {
+			int range = 1 + random.nextInt(30);
+			Map<Vector, Double> first = createRandomSet(random, range, 1 + random.nextInt(40));
+			Map<Vector, Double> second = createRandomSet(random, range, 1 + random.nextInt(40));
+
+			MeetingPointSearch search = new MeetingPointSearch();
+			for (Map.Entry<Vector, Double> entry : first.entrySet()) {
+				search.addFirst(entry.getKey(), entry.getValue());
+			}
+			for (Map.Entry<Vector, Double> entry : second.entrySet()) {
+				search.addSecond(entry.getKey(), entry.getValue());
+			}
+
+			// Find the best pair by checking all pairs
+			long bestDistance = Long.MAX_VALUE;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (Map.Entry<Vector, Double> a : first.entrySet()) {
+				for (Map.Entry<Vector, Double> b : second.entrySet()) {
+					long distance = a.getKey().manhattanDistance(b.getKey());
+					double cost = a.getValue() + b.getValue();
+					if (distance == 0)
+						continue;
+					if (distance < bestDistance || (distance == bestDistance && cost < bestCost)) {
+						bestDistance = distance;
+						bestCost = cost;
+					}
+				}
+			}
+
+			assertEquals(bestDistance != Long.MAX_VALUE, search.run());
+			if (search.isFound()) {
+				assertEquals(bestDistance, search.getDistance());
+				assertEquals(bestCost, search.getCost(), 0);
+				Vector firstPosition = search.getFirstPosition(), secondPosition = search.getSecondPosition();
+				assertEquals(bestDistance, firstPosition.manhattanDistance(secondPosition));
+				assertEquals(bestCost, first.get(firstPosition) + second.get(secondPosition), 0);
+			}
+		}
+	}
+
+	@Test
+	public void run_SamePositionOnly() {
+		MeetingPointSearch search = new MeetingPointSearch();
+		search.addFirst(new Vector(3, 4), 0);
+		search.addSecond(new Vector(3, 4), 0);
+		assertFalse(search.run());
+		assertFalse(search.isFound());
+	}
+
+	@Test
+	public void moveNextTo_FarApart() throws Exception {
+		Board board = new Board(1000000, 1000000);
+		Robot robot = new Robot(Orientation.RIGHT, 20000);
+		Robot otherRobot = new Robot(Orientation.LEFT, 20000);
+		robot.placeOnBoard(board, new Vector(10, 500000));
+		otherRobot.placeOnBoard(board, new Vector(900000, 500000));
+
+		robot.moveNextTo(otherRobot);
+		// Both robots move straight towards each other with all their energy
+		assertEquals(new Vector(50, 500000), robot.getPosition());
+		assertEquals(new Vector(899960, 500000), otherRobot.getPosition());
+		assertEquals(0, robot.getEnergyAmount(Unit.WATTSECOND), 0.1);
+		assertEquals(0, otherRobot.getEnergyAmount(Unit.WATTSECOND), 0.1);
+	}
+
+	private static Map<Vector, Double> createRandomSet(Random random, int range, int size) {
+		Map<Vector, Double> set = new HashMap<Vector, Double>();
+		for (int i = 0; i < size; ++i) {
+			set.put(new Vector(random.nextInt(range), random.nextInt(range)), random.nextInt(20) * 100.0);
+		}
+		return set;
+	}
+
+}
@@ -0,0 +1,158 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.path.*;
+
+public class MinimalCostHeuristicTest {
+
+	@Test
+	public void getMinimalTurns() {
+		assertEquals(0, Orientation.UP.getMinimalTurns(0, 0));
+		// Straight line
+		assertEquals(0, Orientation.UP.getMinimalTurns(0, -5));
+		assertEquals(1, Orientation.RIGHT.getMinimalTurns(0, -5));
+		assertEquals(1, Orientation.LEFT.getMinimalTurns(0, -5));
+		assertEquals(2, Orientation.DOWN.getMinimalTurns(0, -5));
+		// Both axes
+		assertEquals(1, Orientation.RIGHT.getMinimalTurns(3, 4));
+		assertEquals(1, Orientation.DOWN.getMinimalTurns(3, 4));
+		assertEquals(2, Orientation.LEFT.getMinimalTurns(3, 4));
+		assertEquals(2, Orientation.UP.getMinimalTurns(3, 4));
+		assertEquals(2, Orientation.UP.getMinimalTurns(new Vector(-3, 4)));
+	}
+
+	@Test
+	public void getMinimalCostToReach_SameAsDijkstra() throws Exception {
+		Random random = new Random(12);
+		for (int run = 0; run < 20; ++run) {
+			Board board = createRandomBoard(15, 11, random);
+			Robot robot = new Robot(Orientation.getByValue(random.nextInt(4)), 20000);
+			robot.placeOnBoard(board, new Vector(0, 0));
+
+			// Flood the board with all reachable positions
+			Map<Vector, ReachNode> reachable = new ReachAStar(robot).getReachable();
+			PackedReachAStar packedReach = new PackedReachAStar(robot);
+			packedReach.run();
+			for (ReachNode node : reachable.values()) {
+				if (!robot.canReach(node.getPosition()))
+					continue;
+				assertEquals(node.getG(), new MinimalCostAStar(robot, node.getPosition()).getCost());
+				assertEquals(node.getG(), new PackedMinimalCostAStar(robot, node.getPosition()).getCost());
+			}
+		}
+	}
+
+	@Test
+	public void benchmark_EmptyBoard() throws Exception {
+		Board board = new Board(200, 200);
+		Robot robot = new Robot(Orientation.UP, 1000);
+		robot.placeOnBoard(board, new Vector(10, 10));
+
+		int[] expanded = compareExpandedNodes(robot, new Vector(180, 150));
+		// The step cost heuristic ties on the whole rectangle between start and target
+		assertTrue(expanded[1] < expanded[0] / 10);
+	}
+
+	@Test
+	public void benchmark_Maze() throws Exception {
+		Board board = createMaze(61, 61, new Random(2012));
+		Robot robot = new Robot(Orientation.LEFT, 1000);
+		robot.placeOnBoard(board, new Vector(1, 1));
+
+		int[] expanded = compareExpandedNodes(robot, new Vector(59, 59));
+		assertTrue(expanded[1] <= expanded[0]);
+	}
+
+	/**
+	 * Compare the number of expanded nodes without and with turn costs
+	 * in the heuristic, checking that both find the same minimal cost.
+	 */
+	private static int[] compareExpandedNodes(Robot robot, Vector target) throws Exception {
+		PackedMinimalCostAStar stepOnly = new StepCostAStar(robot, target);
+		PackedMinimalCostAStar turnAware = new PackedMinimalCostAStar(robot, target);
+		assertEquals(stepOnly.getCost(), turnAware.getCost());
+
+		MinimalCostAStar objectAStar = new MinimalCostAStar(robot, target);
+		assertEquals(turnAware.getCost(), objectAStar.getCost());
+		assertEquals(turnAware.getNbExpandedNodes(), objectAStar.getNbExpandedNodes());
+
+		return new int[] { stepOnly.getNbExpandedNodes(), turnAware.getNbExpandedNodes() };
+	}
+
+	/**
+	 * A minimal cost algorithm which only takes the step cost into account
+	 * in its heuristic.
+	 */
+	private static class StepCostAStar extends PackedMinimalCostAStar {
+
+		public StepCostAStar(Robot robot, Vector target) {
+			super(robot, target);
+		}
+
+		@Override
+		protected long calculateH(long x, long y, Orientation orientation) {
+			long amountOfSteps = Math.abs(getTarget().getX() - x) + Math.abs(getTarget().getY() - y);
+			return getRobot().getStepCost().getMicroWattSeconds() * amountOfSteps;
+		}
+
+	}
+
+	private static Board createRandomBoard(int width, int height, Random random) throws Exception {
+		Board board = new Board(width, height);
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				if (random.nextInt(4) == 0 && !(x == 0 && y == 0))
+					new Wall().placeOnBoard(board, new Vector(x, y));
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Create a maze with corridors on the odd positions,
+	 * carved by a randomized depth-first search.
+	 */
+	private static Board createMaze(int width, int height, Random random) throws Exception {
+		boolean[][] open = new boolean[width][height];
+		int[] stack = new int[width * height];
+		int size = 0;
+		open[1][1] = true;
+		stack[size++] = 1 * height + 1;
+		while (size > 0) {
+			int cell = stack[size - 1];
+			int x = cell / height, y = cell % height;
+			int[][] directions = { { 2, 0 }, { -2, 0 }, { 0, 2 }, { 0, -2 } };
+			int start = random.nextInt(4);
+			boolean carved = false;
+			for (int i = 0; i < 4 && !carved; ++i) {
+				int[] d = directions[(start + i) % 4];
+				int nx = x + d[0], ny = y + d[1];
+				if (nx > 0 && ny > 0 && nx < width - 1 && ny < height - 1 && !open[nx][ny]) {
+					open[x + d[0] / 2][y + d[1] / 2] = true;
+					open[nx][ny] = true;
+					stack[size++] = nx * height + ny;
+					carved = true;
+				}
+			}
+			if (!carved)
+				size--;
+		}
+
+		Board board = new Board(width, height);
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				if (!open[x][y])
+					new Wall().placeOnBoard(board, new Vector(x, y));
+			}
+		}
+		return board;
+	}
+
+}
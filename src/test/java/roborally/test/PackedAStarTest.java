@@ -0,0 +1,102 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import roborally.*;
+import roborally.EnergyAmount.Unit;
+import roborally.path.*;
+
+public class PackedAStarTest {
+
+	Board board;
+	Robot robot;
+
+	@Before
+	public void setUp() throws Exception {
+		board = new Board(12, 9);
+		Random random = new Random(2012);
+		for (int y = 0; y < board.getHeight(); ++y) {
+			for (int x = 0; x < board.getWidth(); ++x) {
+				if (random.nextInt(4) == 0 && !(x == 0 && y == 0))
+					new Wall().placeOnBoard(board, new Vector(x, y));
+			}
+		}
+		robot = new Robot(Orientation.RIGHT, 8000);
+		robot.placeOnBoard(board, new Vector(0, 0));
+		robot.addAsPossession(new Battery(2500, 500));
+	}
+
+	@Test
+	public void canSearch() throws InvalidSizeException {
+		assertTrue(PackedRobotAStar.canSearch(board));
+		assertTrue(PackedRobotAStar.canSearch(new Board(PackedRobotAStar.getMaximumDimension(), 1)));
+		assertFalse(PackedRobotAStar.canSearch(new Board(PackedRobotAStar.getMaximumDimension() + 1, 1)));
+		assertFalse(PackedRobotAStar.canSearch(null));
+	}
+
+	@Test
+	public void getCost_SameAsMinimalCostAStar() {
+		for (int y = 0; y < board.getHeight(); ++y) {
+			for (int x = 0; x < board.getWidth(); ++x) {
+				Vector target = new Vector(x, y);
+				EnergyAmount expected = null, actual = null;
+				try {
+					expected = new MinimalCostAStar(robot, target).getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				try {
+					actual = new PackedMinimalCostAStar(robot, target).getCost();
+				} catch (UnreachablePositionException e) {
+				}
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void getG_SameAsReachAStar() {
+		Map<Vector, ReachNode> expected = new ReachAStar(robot).getReachable();
+		PackedReachAStar astar = new PackedReachAStar(robot);
+		astar.run();
+
+		assertEquals(expected.size(), astar.getNbNodes());
+		for (ReachNode node : expected.values()) {
+			assertEquals(node.getG().getAmount(Unit.WATTSECOND), astar.getG(node.getPosition()), 0);
+		}
+		assertTrue(Double.isInfinite(astar.getG(-1, 0)));
+	}
+
+	@Test
+	public void reconstructPath() {
+		PackedReachAStar astar = new PackedReachAStar(robot);
+		astar.run();
+
+		PackedRobotAStar<ReachNode>.Cursor cursor = astar.cursor();
+		while (cursor.next()) {
+			LinkedList<ReachNode> path = astar.reconstructPath(cursor.getPosition());
+			assertEquals(robot.getPosition(), path.getFirst().getPosition());
+			assertEquals(robot.getOrientation(), path.getFirst().getOrientation());
+			assertEquals(cursor.getPosition(), path.getLast().getPosition());
+			assertEquals(cursor.getG(), path.getLast().getG().getAmount(Unit.WATTSECOND), 0);
+			for (int i = 1; i < path.size(); ++i) {
+				assertSame(path.get(i - 1), path.get(i).getPrevious());
+				assertEquals(1, path.get(i).getPosition().manhattanDistance(path.get(i - 1).getPosition()));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void reconstructPath_Unreached() {
+		PackedMinimalCostAStar astar = new PackedMinimalCostAStar(robot, new Vector(1, 0));
+		astar.run();
+		astar.reconstructPath(new Vector(11, 8));
+	}
+
+}
@@ -2,6 +2,7 @@ package roborally.test;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
 import java.text.ParseException;
 
 import org.junit.Before;
@@ -70,7 +71,7 @@ public class ParserTest {
 	}
 
 	@Test
-	public void parse_Source1() throws ParseException {
+	public void parse_Source1() throws ParseException, IOException {
 		Parser parser = new Parser(source1);
 		Command program = parser.parse();
 		assertNotNull(program);
@@ -98,7 +99,7 @@ public class ParserTest {
 	 * Ws, 1599 Ws and 999 Ws. Program ends.
 	 */
 	@Test
-	public void execute_Source1() throws ParseException {
+	public void execute_Source1() throws ParseException, IOException {
 		Parser parser = new Parser(source1);
 		Command program = parser.parse();
 		assertNotNull(program);
@@ -166,7 +167,7 @@ public class ParserTest {
 	 */
 	@Test
 	public void execute_Source3() throws ParseException, IllegalArgumentException, IllegalStateException,
-			InvalidPositionException {
+			InvalidPositionException, IOException {
 		Parser parser = new Parser(source3);
 		Command program = parser.parse();
 		assertNotNull(program);
@@ -195,7 +196,7 @@ public class ParserTest {
 	 */
 	@Test
 	public void execute_Source4() throws ParseException, IllegalArgumentException, IllegalStateException,
-			InvalidPositionException {
+			InvalidPositionException, IOException {
 		Parser parser = new Parser(source4);
 		Command program = parser.parse();
 		assertNotNull(program);
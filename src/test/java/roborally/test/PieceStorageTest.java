@@ -0,0 +1,121 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import roborally.*;
+import roborally.storage.ChunkedPieceStorage;
+import roborally.storage.HashPieceStorage;
+import roborally.storage.PieceStorage;
+
+public class PieceStorageTest {
+
+	private ChunkedPieceStorage chunked;
+	private PieceStorage hashed;
+
+	@Before
+	public void setUp() {
+		chunked = new ChunkedPieceStorage();
+		hashed = new HashPieceStorage();
+	}
+
+	@Test
+	public void getPiecesAt_SharedPosition() {
+		testSharedPosition(chunked);
+		testSharedPosition(hashed);
+	}
+
+	private void testSharedPosition(PieceStorage storage) {
+		Vector position = new Vector(3, 4);
+		Battery battery = new Battery(10);
+		RepairKit repairKit = new RepairKit(10, 100);
+
+		storage.add(battery, position);
+		storage.add(repairKit, position);
+		assertEquals(2, storage.size());
+		assertEquals(2, storage.getPiecesAt(position).size());
+		assertTrue(storage.hasPiecesAt(position));
+
+		storage.remove(battery, position);
+		assertEquals(1, storage.size());
+		assertEquals(1, storage.getPiecesAt(position).size());
+		assertTrue(storage.getPiecesAt(position).contains(repairKit));
+
+		storage.remove(repairKit, position);
+		assertEquals(0, storage.size());
+		assertFalse(storage.hasPiecesAt(position));
+		assertTrue(storage.getPiecesAt(position).isEmpty());
+	}
+
+	@Test
+	public void add_DenseChunk() {
+		Set<Piece> walls = new HashSet<Piece>();
+		// Fill a complete chunk
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				Wall wall = new Wall();
+				walls.add(wall);
+				chunked.add(wall, new Vector(x, y));
+			}
+		}
+		assertEquals(64 * 64, chunked.size());
+		assertEquals(1, chunked.getNbChunks());
+		assertEquals(1, chunked.getNbDenseChunks());
+		assertEquals(walls, toSet(chunked));
+
+		// Clear the chunk again
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				Vector position = new Vector(x, y);
+				chunked.remove(chunked.getPiecesAt(position).iterator().next(), position);
+			}
+		}
+		assertEquals(0, chunked.size());
+		assertEquals(0, chunked.getNbChunks());
+	}
+
+	@Test
+	public void add_FarChunks() {
+		Wall near = new Wall(), far = new Wall();
+		Vector farPosition = new Vector(Long.MAX_VALUE - 1, Long.MAX_VALUE - 1);
+		chunked.add(near, Vector.ZERO);
+		chunked.add(far, farPosition);
+
+		assertEquals(2, chunked.getNbChunks());
+		assertTrue(chunked.getPiecesAt(farPosition).contains(far));
+		assertFalse(chunked.hasPiecesAt(new Vector(Long.MAX_VALUE - 1, 0)));
+		assertEquals(2, toSet(chunked).size());
+
+		chunked.remove(far, farPosition);
+		assertEquals(1, chunked.getNbChunks());
+	}
+
+	@Test
+	public void board_Storage() throws Exception {
+		Board board = new Board(10, 10, new HashPieceStorage());
+		Wall wall = new Wall();
+		wall.placeOnBoard(board, new Vector(5, 5));
+		assertTrue(board.hasPiecesAt(new Vector(5, 5)));
+		assertTrue(board.hasProperPieces());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void board_NullStorage() throws Exception {
+		new Board(10, 10, null);
+		fail();
+	}
+
+	private static Set<Piece> toSet(Iterable<Piece> pieces) {
+		Set<Piece> result = new HashSet<Piece>();
+		for (Piece piece : pieces) {
+			result.add(piece);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,81 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.channels.Channels;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import roborally.program.Program;
+
+public class ProgramLoadTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final String source = "(while (not (wall)) (seq (move) (turn clockwise)))";
+
+	@Test
+	public void load_File() throws Exception {
+		File file = folder.newFile("program.txt");
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(source + "\n");
+		} finally {
+			writer.close();
+		}
+
+		assertEquals(source, Program.load(file).toSource());
+		assertEquals(source, Program.load(file.getPath()).toSource());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void load_MissingFile() throws Exception {
+		Program.load(new File(folder.getRoot(), "missing.txt"));
+	}
+
+	@Test
+	public void load_Streams() throws Exception {
+		byte[] bytes = source.getBytes();
+		assertEquals(source, Program.load(new ByteArrayInputStream(bytes)).toSource());
+		assertEquals(source, Program.load(Channels.newChannel(new ByteArrayInputStream(bytes))).toSource());
+		assertEquals(source, Program.load(new StringReader(source)).toSource());
+	}
+
+	@Test
+	public void load_LargeReader() throws Exception {
+		// A few megabytes of white space, generated while they are read
+		final String prefix = "(move", suffix = ")";
+		final int length = prefix.length() + (4 << 20) + suffix.length();
+		Reader reader = new Reader() {
+
+			private int index = 0;
+
+			@Override
+			public int read(char[] buffer, int offset, int count) {
+				if (index == length)
+					return -1;
+				int read = 0;
+				for (; read < count && index < length; ++read, ++index) {
+					if (index < prefix.length())
+						buffer[offset + read] = prefix.charAt(index);
+					else if (index >= length - suffix.length())
+						buffer[offset + read] = suffix.charAt(index - length + suffix.length());
+					else
+						buffer[offset + read] = ' ';
+				}
+				return read;
+			}
+
+			@Override
+			public void close() {
+			}
+
+		};
+		assertEquals("(move)", Program.load(reader).toSource());
+	}
+
+}
@@ -0,0 +1,151 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import roborally.*;
+import roborally.EnergyAmount.Unit;
+import roborally.program.Parser;
+import roborally.program.Program;
+import roborally.program.ProgramScheduler;
+
+public class ProgramSchedulerTest {
+
+	// @formatter:off
+	private final String[] sources = {
+		"(while (true) (if (wall) (seq (turn clockwise)) (seq (move))))",
+		"(while (true) (seq (if (can-hit-robot) (seq (shoot)) (seq (move))) (turn counterclockwise)))",
+		"(while (energy-at-least 500) (seq (move) (if (at-item) (seq (pickup-and-use)) (seq (turn clockwise)))))",
+		"(seq (move) (move) (turn clockwise))"
+	};
+	// @formatter:on
+
+	@Test
+	public void step_SameForAnyThreadCount() throws Exception {
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool multiple = new ForkJoinPool(4);
+		try {
+			List<Robot> first = createWorld(2012);
+			List<Robot> second = createWorld(2012);
+			new ProgramScheduler(single).step(first, 40);
+			new ProgramScheduler(multiple).step(second, 40);
+
+			for (int i = 0; i < first.size(); ++i) {
+				Robot expected = first.get(i), actual = second.get(i);
+				assertEquals(expected.isTerminated(), actual.isTerminated());
+				if (expected.isTerminated())
+					continue;
+				assertEquals(expected.getPosition(), actual.getPosition());
+				assertEquals(expected.getOrientation(), actual.getOrientation());
+				assertEquals(expected.getEnergyAmount(Unit.WATTSECOND), actual.getEnergyAmount(Unit.WATTSECOND), 0);
+				assertEquals(expected.getNbPossessions(), actual.getNbPossessions());
+			}
+		} finally {
+			single.shutdown();
+			multiple.shutdown();
+		}
+	}
+
+	@Test
+	public void step_SharedProgram() throws Exception {
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool multiple = new ForkJoinPool(8);
+		try {
+			String source = "(while (true) (seq (turn clockwise) (if (wall) (seq) (seq (move)))))";
+			List<Robot> first = createSharedWorld(new Program(new Parser(source).parse()));
+			List<Robot> second = createSharedWorld(new Program(new Parser(source).parse()));
+			new ProgramScheduler(single).step(first, 20);
+			new ProgramScheduler(multiple).step(second, 20);
+
+			for (int i = 0; i < first.size(); ++i) {
+				Robot expected = first.get(i), actual = second.get(i);
+				assertEquals(expected.getPosition(), actual.getPosition());
+				assertEquals(expected.getOrientation(), actual.getOrientation());
+				assertEquals(expected.getEnergyAmount(Unit.WATTSECOND), actual.getEnergyAmount(Unit.WATTSECOND), 0);
+			}
+		} finally {
+			single.shutdown();
+			multiple.shutdown();
+		}
+	}
+
+	@Test
+	public void step_ConflictingMoves() throws Exception {
+		Board board = new Board(10, 10);
+		Robot left = new Robot(Orientation.RIGHT, 5000);
+		left.placeOnBoard(board, new Vector(1, 1));
+		Robot right = new Robot(Orientation.LEFT, 5000);
+		right.placeOnBoard(board, new Vector(3, 1));
+		Program program = new Program(new Parser("(move)").parse());
+		left.setProgram(program);
+		right.setProgram(program);
+
+		// The first robot in the list wins
+		new ProgramScheduler().step(Arrays.asList(right, left), 1);
+		assertEquals(new Vector(2, 1), right.getPosition());
+		assertEquals(new Vector(1, 1), left.getPosition());
+	}
+
+	@Test
+	public void step_ConditionsBeforeCommands() throws Exception {
+		Board board = new Board(10, 10);
+		Robot mover = new Robot(Orientation.RIGHT, 5000);
+		mover.placeOnBoard(board, new Vector(1, 1));
+		mover.setProgram(new Program(new Parser("(move)").parse()));
+		Robot watcher = new Robot(Orientation.UP, 5000);
+		watcher.placeOnBoard(board, new Vector(2, 2));
+		watcher.setProgram(new Program(new Parser("(if (wall) (seq) (seq (move)))").parse()));
+		new Wall().placeOnBoard(board, new Vector(2, 0));
+
+		// The watcher does not see the mover arrive in front of it
+		new ProgramScheduler().step(Arrays.asList(mover, watcher), 1);
+		assertEquals(new Vector(2, 1), mover.getPosition());
+		assertEquals(new Vector(2, 2), watcher.getPosition());
+		assertEquals(5000, watcher.getEnergyAmount(Unit.WATTSECOND), 0);
+	}
+
+	private List<Robot> createWorld(long seed) throws Exception {
+		Random random = new Random(seed);
+		Board board = new Board(40, 40);
+		List<Robot> robots = new ArrayList<Robot>();
+		for (int y = 0; y < board.getHeight(); ++y) {
+			for (int x = 0; x < board.getWidth(); ++x) {
+				Vector position = new Vector(x, y);
+				int kind = random.nextInt(10);
+				if (kind == 0) {
+					new Wall().placeOnBoard(board, position);
+				} else if (kind == 1) {
+					new Battery(100, 1000).placeOnBoard(board, position);
+				} else if (kind == 2) {
+					Robot robot = new Robot(Orientation.getByValue(random.nextInt(4)), 20000);
+					robot.placeOnBoard(board, position);
+					robot.setProgram(new Program(new Parser(sources[random.nextInt(sources.length)]).parse()));
+					robots.add(robot);
+				}
+			}
+		}
+		return robots;
+	}
+
+	private List<Robot> createSharedWorld(Program program) throws Exception {
+		Board board = new Board(100, 100);
+		List<Robot> robots = new ArrayList<Robot>();
+		for (int y = 0; y < board.getHeight(); y += 2) {
+			for (int x = 0; x < board.getWidth(); x += 2) {
+				Robot robot = new Robot(Orientation.getByValue((x + y) % 4), 20000);
+				robot.placeOnBoard(board, new Vector(x, y));
+				robot.setProgram(program);
+				robots.add(robot);
+			}
+		}
+		return robots;
+	}
+
+}
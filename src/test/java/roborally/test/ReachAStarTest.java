@@ -0,0 +1,120 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import roborally.*;
+import roborally.EnergyAmount.Unit;
+import roborally.path.*;
+
+public class ReachAStarTest {
+
+	Board board;
+	Robot robot;
+
+	@Before
+	public void setUp() throws Exception {
+		board = new Board(1000000, 1000000);
+		robot = new Robot(Orientation.UP, 2000);
+		robot.placeOnBoard(board, new Vector(500000, 500000));
+	}
+
+	@Test
+	public void getReachable_EnergyBounded() {
+		ReachAStar astar = new ReachAStar(robot);
+		Map<Vector, ReachNode> reachable = astar.getReachable();
+		assertFalse(astar.isTruncated());
+		// Only positions within four steps can be reached with 2000 Ws
+		assertTrue(reachable.size() <= 1 + 2 * 4 * 5);
+		for (ReachNode node : reachable.values()) {
+			assertTrue(node.getG().getAmount(Unit.WATTSECOND) <= 2000);
+			assertTrue(node.getPosition().manhattanDistance(robot.getPosition()) <= 4);
+		}
+		assertTrue(reachable.containsKey(new Vector(500000, 499996)));
+		assertFalse(reachable.containsKey(new Vector(500000, 500004)));
+
+		PackedReachAStar packed = new PackedReachAStar(robot);
+		packed.run();
+		assertEquals(reachable.size(), packed.getNbNodes());
+	}
+
+	@Test
+	public void getReachable_NodeBudget() {
+		robot.recharge(new EnergyAmount(18000, Unit.WATTSECOND));
+		Map<Vector, ReachNode> expected = new ReachAStar(robot).getReachable();
+
+		ReachAStar astar = new ReachAStar(robot);
+		astar.setNodeBudget(25);
+		Map<Vector, ReachNode> reachable = astar.getReachable();
+		assertTrue(astar.isTruncated());
+		assertEquals(25, reachable.size());
+		for (ReachNode node : reachable.values()) {
+			assertEquals(expected.get(node.getPosition()).getG(), node.getG());
+		}
+
+		PackedReachAStar packed = new PackedReachAStar(robot);
+		packed.setNodeBudget(25);
+		packed.run();
+		assertTrue(packed.isTruncated());
+		int nbResults = 0;
+		PackedRobotAStar<ReachNode>.Cursor cursor = packed.cursor();
+		while (cursor.next()) {
+			assertEquals(expected.get(cursor.getPosition()).getG().getAmount(Unit.WATTSECOND), cursor.getG(), 0);
+			nbResults++;
+		}
+		assertEquals(25, nbResults);
+	}
+
+	@Test
+	public void getReachable_BudgetNotExhausted() {
+		ReachAStar astar = new ReachAStar(robot);
+		astar.setNodeBudget(1000);
+		astar.getReachable();
+		assertFalse(astar.isTruncated());
+
+		PackedReachAStar packed = new PackedReachAStar(robot);
+		packed.setNodeBudget(1000);
+		packed.run();
+		assertFalse(packed.isTruncated());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setNodeBudget_NotPositive() {
+		new ReachAStar(robot).setNodeBudget(0);
+	}
+
+	@Test
+	public void visitNeighbours_SameAsGetNeighbours() throws Exception {
+		new Wall().placeOnBoard(board, new Vector(500001, 500000));
+		ReachNode start = new ReachNode(robot, robot.getPosition(), Orientation.UP);
+		start.resetG();
+		final List<Node<EnergyAmount>> visited = new ArrayList<Node<EnergyAmount>>();
+		start.visitNeighbours(new NeighbourVisitor<EnergyAmount>() {
+			@Override
+			public boolean accepts(Vector position, double g) {
+				// Reject the neighbour behind the robot
+				return position.getY() <= 500000;
+			}
+
+			@Override
+			public void visit(Node<EnergyAmount> neighbour) {
+				visited.add(neighbour);
+			}
+		});
+		// The wall on the right is never offered to the visitor
+		assertEquals(2, visited.size());
+		for (Node<EnergyAmount> neighbour : visited) {
+			assertTrue(start.getNeighbours().contains(neighbour));
+			assertSame(start, neighbour.getPrevious());
+		}
+		assertEquals(new EnergyAmount(500, Unit.WATTSECOND), visited.get(0).getG());
+		assertEquals(new EnergyAmount(600, Unit.WATTSECOND), visited.get(1).getG());
+	}
+
+}
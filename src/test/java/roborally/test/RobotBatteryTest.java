@@ -1,6 +1,7 @@
 package roborally.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -45,4 +46,20 @@ public class RobotBatteryTest {
 		assertEquals(EnergyAmount.ZERO, batteryCarried.getEnergyAmount());
 	}
 
+	@Test
+	public void use_LargeBattery() throws Exception {
+		// Large finite battery remains finite
+		Battery battery = new Battery(5, 1e13);
+		assertFalse(battery.getEnergyAmount().isUnbounded());
+		battery.placeOnBoard(board, Vector.ZERO);
+		carrierBot.pickUp(battery);
+
+		// Robot is recharged to its capacity, battery is drained
+		EnergyAmount batteryEnergy = battery.getEnergyAmount();
+		EnergyAmount freeEnergy = carrierBot.getCapacityAmount().subtract(carrierBot.getEnergyAmount());
+		carrierBot.use(battery);
+		assertEquals(carrierBot.getCapacityAmount(), carrierBot.getEnergyAmount());
+		assertEquals(batteryEnergy.subtract(freeEnergy), battery.getEnergyAmount());
+	}
+
 }
\ No newline at end of file
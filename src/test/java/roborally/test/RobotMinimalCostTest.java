@@ -85,6 +85,32 @@ public class RobotMinimalCostTest {
 		assertEquals(expectedCost, cost, 0.1);
 	}
 
+	@Test
+	public void getMinimalCostToReach_BoardChanged() throws InvalidPositionException, UnreachablePositionException {
+		assertEquals(getExpectedCost(10, 7), robot.getMinimalCostToReach(new Vector(6, 2)).getAmount(Unit.WATTSECOND),
+				0.1);
+		// Cached costs must not survive changes on the board
+		Robot otherRobot = new Robot(Orientation.UP, 500);
+		otherRobot.placeOnBoard(board, new Vector(3, 2));
+		assertEquals(getExpectedCost(12, 7), robot.getMinimalCostToReach(new Vector(6, 2)).getAmount(Unit.WATTSECOND),
+				0.1);
+		otherRobot.removeFromBoard();
+		assertEquals(getExpectedCost(10, 7), robot.getMinimalCostToReach(new Vector(6, 2)).getAmount(Unit.WATTSECOND),
+				0.1);
+	}
+
+	@Test
+	public void getMinimalCostToReach_RobotChanged() throws InvalidPositionException, UnreachablePositionException {
+		assertEquals(getExpectedCost(2, 1), robot.getMinimalCostToReach(new Vector(0, 2)).getAmount(Unit.WATTSECOND),
+				0.1);
+		// Cached costs must not survive changes of the robot
+		robot.turn(Rotation.CLOCKWISE);
+		assertEquals(getExpectedCost(2, 0), robot.getMinimalCostToReach(new Vector(0, 2)).getAmount(Unit.WATTSECOND),
+				0.1);
+		robot.addAsPossession(new Battery(3000, new EnergyAmount(100, Unit.WATTSECOND)));
+		assertEquals(2 * 650, robot.getMinimalCostToReach(new Vector(0, 2)).getAmount(Unit.WATTSECOND), 0.1);
+	}
+
 	private double getExpectedCost(int expectedSteps, int expectedTurns) {
 		return robot.getStepCost().getAmount(Unit.WATTSECOND) * expectedSteps
 				+ robot.getTurnCost().getAmount(Unit.WATTSECOND) * expectedTurns;
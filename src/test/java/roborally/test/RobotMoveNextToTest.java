@@ -260,6 +260,67 @@ public class RobotMoveNextToTest {
 		robot1.moveNextTo(null);
 	}
 
+	@Test
+	public void moveNextTo_ParallelSameAsSequential() throws Exception {
+		// Packed and unpacked boards
+		long[] widths = { 20, 1L << 40 };
+		for (long width : widths) {
+			for (int seed = 0; seed < 10; ++seed) {
+				Robot[] sequential = createRandomRobots(width, seed);
+				Robot[] parallel = createRandomRobots(width, seed);
+				sequential[0].moveNextTo(sequential[1], false);
+				parallel[0].moveNextTo(parallel[1], true);
+				for (int i = 0; i < 2; ++i) {
+					assertEquals(sequential[i].getPosition(), parallel[i].getPosition());
+					assertEquals(sequential[i].getOrientation(), parallel[i].getOrientation());
+					assertEquals(sequential[i].getEnergyAmount(), parallel[i].getEnergyAmount());
+				}
+				assertFalse(parallel[0].getBoard().isFrozen());
+			}
+		}
+	}
+
+	@Test
+	public void moveNextTo_FrozenBoard() throws Exception {
+		Robot robot1 = new Robot(Orientation.RIGHT, 5000);
+		robot1.placeOnBoard(board, new Vector(0, 0));
+		Robot robot2 = new Robot(Orientation.LEFT, 5000);
+		robot2.placeOnBoard(board, new Vector(5, 0));
+
+		board.freeze();
+		try {
+			new Wall().placeOnBoard(board, new Vector(3, 3));
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		try {
+			robot1.moveNextTo(robot2, true);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		assertEquals(new Vector(0, 0), robot1.getPosition());
+		board.unfreeze();
+
+		robot1.moveNextTo(robot2, true);
+		assertEquals(1, robot1.getPosition().manhattanDistance(robot2.getPosition()));
+	}
+
+	private static Robot[] createRandomRobots(long width, int seed) throws Exception {
+		java.util.Random random = new java.util.Random(seed);
+		Board board = new Board(width, 20);
+		for (int y = 0; y < 20; ++y) {
+			for (int x = 0; x < 20; ++x) {
+				if (random.nextInt(5) == 0 && !(x == 0 && y == 0) && !(x == 19 && y == 19))
+					new Wall().placeOnBoard(board, new Vector(x, y));
+			}
+		}
+		Robot robot = new Robot(Orientation.getByValue(random.nextInt(4)), 2000 + random.nextInt(8000));
+		robot.placeOnBoard(board, new Vector(0, 0));
+		Robot otherRobot = new Robot(Orientation.getByValue(random.nextInt(4)), 2000 + random.nextInt(8000));
+		otherRobot.placeOnBoard(board, new Vector(19, 19));
+		return new Robot[] { robot, otherRobot };
+	}
+
 	private void placeWalls(Board board) throws IllegalArgumentException, IllegalStateException,
 			InvalidPositionException {
 		// @formatter:off
@@ -11,6 +11,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import roborally.*;
+import roborally.EnergyAmount.Unit;
 
 public class RobotPossessionTest {
 
@@ -309,6 +310,27 @@ public class RobotPossessionTest {
 		assertTrue(robot2.getPossessions().containsAll(possessions));
 	}
 
+	@Test
+	public void getPossessionsWeight_Updated() throws Exception {
+		Battery b1 = new Battery(1500);
+		SurpriseBox s1 = new SurpriseBox(2600);
+		robot1.addAsPossession(b1);
+		robot1.addAsPossession(s1);
+		assertEquals(4100, robot1.getPossessionsWeight().intValue());
+		assertEquals(500 + 4 * 50, robot1.getStepCost(Unit.WATTSECOND), 0);
+		assertEquals(robot1.getStepCost().getAmount(Unit.WATTSECOND), robot1.getStepCost(Unit.WATTSECOND), 0);
+
+		robot1.removeAsPossession(s1);
+		assertEquals(1500, robot1.getPossessionsWeight().intValue());
+		assertEquals(500 + 1 * 50, robot1.getStepCost(Unit.WATTSECOND), 0);
+
+		robot1.transferItems(robot2);
+		assertEquals(0, robot1.getPossessionsWeight().intValue());
+		assertEquals(500, robot1.getStepCost(Unit.WATTSECOND), 0);
+		assertEquals(1500, robot2.getPossessionsWeight().intValue());
+		assertEquals(500 + 1 * 50, robot2.getStepCost(Unit.WATTSECOND), 0);
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void transferItems_SelfReference() throws Exception {
 		Battery b1 = new Battery(50);
@@ -28,6 +28,12 @@ public class RobotRepairKitTest {
 
 	}
 
+	@Test
+	public void getMaximumCapacity_Unbounded() {
+		assertEquals(Double.MAX_VALUE, repair.getMaximumCapacity().getAmount(EnergyAmount.Unit.WATTSECOND), 0);
+		assertEquals(EnergyAmount.MAXIMUM, repair.getMaximumCapacity());
+	}
+
 	/*
 	 * Pick up items
 	 */
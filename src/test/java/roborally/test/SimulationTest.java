@@ -0,0 +1,129 @@
+package roborally.test;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.text.ParseException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import roborally.*;
+import roborally.Vector;
+import roborally.batch.Simulation;
+import roborally.program.Program;
+
+public class SimulationTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void load_World() throws Exception {
+		writeFile("move.prog", "(while (true) (move))");
+		Simulation simulation = load("board 20 15", "# robots", "addrobot alpha 1 1 5000", "addrobot beta 1 3",
+				"", "addwall 4 1", "addbattery b 2 3 500 100", "loadprogram alpha move.prog",
+				"loadprogram beta move.prog");
+
+		assertEquals(20, simulation.getBoard().getWidth());
+		assertEquals(15, simulation.getBoard().getHeight());
+		assertEquals(2, simulation.getRobots().size());
+		Robot alpha = simulation.getRobots().get("alpha");
+		Robot beta = simulation.getRobots().get("beta");
+		assertEquals(new Vector(1, 1), alpha.getPosition());
+		assertEquals(Orientation.RIGHT, alpha.getOrientation());
+		// Robots running the same file share the same program
+		assertSame(alpha.getProgram(), beta.getProgram());
+	}
+
+	@Test
+	public void run_Ticks() throws Exception {
+		writeFile("move.prog", "(while (true) (move))");
+		Simulation simulation = load("board 20 15", "addrobot alpha 1 1 5000", "addwall 4 1",
+				"loadprogram alpha move.prog");
+
+		simulation.run(5);
+		assertEquals(5, simulation.getNbTicks());
+		assertEquals(new Vector(3, 1), simulation.getRobots().get("alpha").getPosition());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		simulation.writeStatistics(new PrintStream(bytes, true));
+		String statistics = bytes.toString();
+		assertTrue(statistics.contains("ticks\t5\n"));
+		assertTrue(statistics.contains("alpha\t3\t1\tRIGHT\t"));
+	}
+
+	@Test
+	public void run_SharedProgram() throws Exception {
+		writeFile("wander.prog", "(while (true) (seq (turn clockwise) (if (wall) (seq) (seq (move)))))");
+		File file = new File(folder.getRoot(), "wander.prog");
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool multiple = new ForkJoinPool(8);
+		try {
+			Simulation first = createSharedWorld(Program.load(file), single);
+			Simulation second = createSharedWorld(Program.load(file), multiple);
+			first.run(20);
+			second.run(20);
+
+			assertEquals(0, first.getNbFailures());
+			assertEquals(0, second.getNbFailures());
+			for (String name : first.getRobots().keySet()) {
+				Robot expected = first.getRobots().get(name), actual = second.getRobots().get(name);
+				assertEquals(name, expected.getPosition(), actual.getPosition());
+				assertEquals(name, expected.getOrientation(), actual.getOrientation());
+			}
+		} finally {
+			single.shutdown();
+			multiple.shutdown();
+		}
+	}
+
+	@Test
+	public void load_InvalidLine() throws Exception {
+		try {
+			load("addrobot alpha 1 1", "addwall 1 x");
+			fail();
+		} catch (ParseException e) {
+			assertEquals(2, e.getErrorOffset());
+		}
+	}
+
+	@Test(expected = ParseException.class)
+	public void load_UnknownRobot() throws Exception {
+		writeFile("move.prog", "(move)");
+		load("loadprogram alpha move.prog");
+	}
+
+	private Simulation createSharedWorld(Program program, ForkJoinPool pool) throws Exception {
+		Simulation simulation = new Simulation(new Board(100, 100), pool);
+		for (int y = 0; y < 100; y += 2) {
+			for (int x = 0; x < 100; x += 2) {
+				Robot robot = new Robot(Orientation.getByValue((x + y) % 4), 20000);
+				robot.placeOnBoard(simulation.getBoard(), new Vector(x, y));
+				robot.setProgram(program);
+				simulation.addRobot(String.format("r%05d", 100 * y + x), robot);
+			}
+		}
+		return simulation;
+	}
+
+	private Simulation load(String... lines) throws IOException, ParseException {
+		StringBuilder script = new StringBuilder();
+		for (String line : lines) {
+			script.append(line).append('\n');
+		}
+		return Simulation.load(new StringReader(script.toString()), folder.getRoot());
+	}
+
+	private void writeFile(String name, String contents) throws IOException {
+		Writer writer = new FileWriter(new File(folder.getRoot(), name));
+		try {
+			writer.write(contents);
+		} finally {
+			writer.close();
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package roborally.test;
+
+import java.util.Random;
+
+import roborally.*;
+import roborally.Vector;
+import roborally.path.MinimalCostAStar;
+
+/**
+ * A benchmark of object-based minimal cost searches for a robot
+ * with few and with many possessions.
+ *
+ * <p>Every generated node asks for the step cost of the robot,
+ * so the search time should not grow with its possessions.
+ * This is not part of the unit tests. Run it with:</p>
+ * <pre>mvn test-compile exec:java -Dexec.mainClass=roborally.test.StepCostBenchmark -Dexec.classpathScope=test</pre>
+ */
+public class StepCostBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		Board board = new Board(120, 120);
+		Vector start = new Vector(5, 5), target = new Vector(110, 110);
+		Random random = new Random(2012);
+		for (int i = 0; i < 2000; ++i) {
+			Vector position = new Vector(random.nextInt(120), random.nextInt(120));
+			if (!board.hasPiecesAt(position) && !position.equals(start) && !position.equals(target))
+				new Wall().placeOnBoard(board, position);
+		}
+		Robot robot = new Robot(Orientation.UP, 20000);
+		robot.placeOnBoard(board, start);
+
+		int nbPossessions = 0;
+		for (int amount : new int[] { 0, 100, 1000, 10000 }) {
+			for (; nbPossessions < amount; ++nbPossessions) {
+				robot.addAsPossession(new Battery(1, 0));
+			}
+			long time = timeMinimalCostAStar(robot, target);
+			System.out.printf("%6d possessions: %8.2f ms%n", amount, time / 1e6);
+		}
+	}
+
+	/**
+	 * Get the best time in nanoseconds of a few object-based
+	 * minimal cost searches for the given robot and target.
+	 */
+	private static long timeMinimalCostAStar(Robot robot, Vector target) throws Exception {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 5; ++i) {
+			long start = System.nanoTime();
+			new MinimalCostAStar(robot, target).getCost();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+}
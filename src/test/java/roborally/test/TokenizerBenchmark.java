@@ -0,0 +1,70 @@
+package roborally.test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import roborally.program.EndOfFileToken;
+import roborally.program.Token;
+import roborally.program.Tokenizer;
+
+/**
+ * A benchmark of the tokenizer on generated programs of a few megabytes.
+ *
+ * <p>The time per megabyte should stay the same as the programs grow.
+ * This is not part of the unit tests. Run it with:</p>
+ * <pre>mvn test-compile exec:java -Dexec.mainClass=roborally.test.TokenizerBenchmark -Dexec.classpathScope=test</pre>
+ */
+public class TokenizerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		// Warm up
+		timeTokenize(generateSource(1 << 20));
+
+		for (int length = 1 << 18; length <= 1 << 24; length <<= 2) {
+			String source = generateSource(length);
+			long time = timeTokenize(source);
+			System.out.printf("%9d chars: %8.2f ms, %6.2f ms/MB%n", source.length(), time / 1e6,
+					time / 1e6 / (source.length() / (double) (1 << 20)));
+		}
+	}
+
+	/**
+	 * Generate a program source of at least the given length.
+	 */
+	private static String generateSource(int length) {
+		// @formatter:off
+		String[] commands = {
+			"(move)", "(turn clockwise)", "(shoot)", "(pickup-and-use)",
+			"(if (energy-at-least 1000) (seq (move)) (seq (turn counterclockwise)))",
+			"(while (and (not (wall)) (at-item)) (seq (move) (pickup-and-use)))"
+		};
+		// @formatter:on
+		Random random = new Random(2012);
+		StringBuilder source = new StringBuilder(length + 100);
+		source.append("(seq\n");
+		while (source.length() < length) {
+			source.append("  ").append(commands[random.nextInt(commands.length)]).append('\n');
+		}
+		source.append(")\n");
+		return source.toString();
+	}
+
+	/**
+	 * Get the best time in nanoseconds of a few
+	 * complete tokenizations of the given source.
+	 */
+	private static long timeTokenize(String source) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 3; ++i) {
+			long start = System.nanoTime();
+			Tokenizer tokenizer = new Tokenizer(source);
+			Token token;
+			do {
+				token = tokenizer.nextToken();
+			} while (!(token instanceof EndOfFileToken));
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+}
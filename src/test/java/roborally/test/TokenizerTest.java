@@ -2,9 +2,19 @@ package roborally.test;
 
 import static org.junit.Assert.*;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.junit.Test;
 
 import roborally.program.CloseToken;
+import roborally.program.EndOfFileToken;
 import roborally.program.OpenToken;
 import roborally.program.Token;
 import roborally.program.Tokenizer;
@@ -24,7 +34,7 @@ public class TokenizerTest {
 	// @formatter:on
 
 	@Test
-	public void tokenize_Source1() {
+	public void tokenize_Source1() throws Exception {
 		Tokenizer tokenizer = new Tokenizer(source1);
 
 		// (while
@@ -66,4 +76,154 @@ public class TokenizerTest {
 		assertEquals(CloseToken.class, token.getClass());
 	}
 
+	@Test
+	public void tokenize_SameAsPatterns() throws Exception {
+		// @formatter:off
+		String[] sources = {
+			"", "   ", "(move)", "(move)\n", "  (MOVE )  ", "(turn clockwise)", "(turn  clockwise  )",
+			"(energy-at-least 1000.5)", "(seq\t(move)\r\n(shoot))", "( move)", "(  ( move)", "(1)",
+			"(move))", "((move)", "(a-b-c d e)", "x", "(move) ", "(move) \u0085", "(move)\u0085 "
+		};
+		// @formatter:on
+		for (String source : sources) {
+			assertSameTokens(source);
+		}
+
+		String alphabet = "()() \t\nabcXYZ-019. ";
+		Random random = new Random(2012);
+		for (int i = 0; i < 2000; ++i) {
+			StringBuilder source = new StringBuilder();
+			int length = random.nextInt(30);
+			for (int j = 0; j < length; ++j) {
+				source.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			assertSameTokens(source.toString());
+		}
+	}
+
+	@Test
+	public void tokenize_LongTokensFromReader() throws Exception {
+		// Skip white space and read a value which are both
+		// just longer than the buffer of the tokenizer
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < LONG_TOKEN_LENGTH; ++i) {
+			value.append((char) ('a' + i % 26));
+		}
+		StringBuilder source = new StringBuilder("(turn");
+		for (int i = 0; i < LONG_TOKEN_LENGTH; ++i) {
+			source.append(' ');
+		}
+		source.append(value).append(")\n");
+
+		assertLongTokens(value.toString(), source.length(), new Tokenizer(source));
+		assertLongTokens(value.toString(), source.length(), new Tokenizer(createSlowReader(source.toString())));
+	}
+
+	/**
+	 * A length just over the initial buffer size of a tokenizer.
+	 */
+	private static final int LONG_TOKEN_LENGTH = 8200;
+
+	private static void assertLongTokens(String value, int length, Tokenizer tokenizer) throws IOException {
+		assertEquals("turn", ((OpenToken) tokenizer.nextToken()).getName());
+		assertEquals(5, tokenizer.getLastIndex());
+		assertEquals(value, ((ValueToken) tokenizer.nextToken()).getValue());
+		assertEquals(length - 2, tokenizer.getLastIndex());
+		assertEquals(CloseToken.class, tokenizer.nextToken().getClass());
+		assertEquals(length - 1, tokenizer.getLastIndex());
+		assertEquals(EndOfFileToken.class, tokenizer.nextToken().getClass());
+		assertEquals(length, tokenizer.getLastIndex());
+	}
+
+	@Test
+	public void getLastIndex_BeyondIntegerRange() throws Exception {
+		// Stream white space beyond the range of an int
+		final long nbSpaces = Integer.MAX_VALUE + 10L;
+		Reader reader = new Reader() {
+			private long remaining = nbSpaces;
+			private final Reader tail = new StringReader("(move)");
+
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				if (remaining == 0)
+					return tail.read(buffer, offset, length);
+				int read = (int) Math.min(length, remaining);
+				Arrays.fill(buffer, offset, offset + read, ' ');
+				remaining -= read;
+				return read;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		Tokenizer tokenizer = new Tokenizer(reader);
+		assertEquals("move", ((OpenToken) tokenizer.nextToken()).getName());
+		assertEquals(nbSpaces + 5, tokenizer.getLastIndex());
+		assertEquals(CloseToken.class, tokenizer.nextToken().getClass());
+		assertEquals(nbSpaces + 6, tokenizer.getLastIndex());
+	}
+
+	/**
+	 * Check whether the tokenizer produces the same tokens and indices
+	 * as the regular expressions it replaced, both on the given source
+	 * and on a reader returning one character at a time.
+	 */
+	private static void assertSameTokens(String source) throws IOException {
+		assertSameTokens(source, new Tokenizer(source));
+		assertSameTokens(source, new Tokenizer(createSlowReader(source)));
+	}
+
+	/**
+	 * Create a reader on the given source which returns
+	 * one character at a time.
+	 */
+	private static Reader createSlowReader(String source) {
+		return new FilterReader(new StringReader(source)) {
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				return super.read(buffer, offset, Math.min(length, 1));
+			}
+		};
+	}
+
+	private static void assertSameTokens(String source, Tokenizer tokenizer) throws IOException {
+		int lastIndex = 0;
+		for (int i = 0; i <= source.length() + 1; ++i) {
+			Token expected = null;
+			for (int j = 0; j < patterns.length; ++j) {
+				Matcher matcher = patterns[j].matcher(source);
+				if (matcher.find(lastIndex) && lastIndex == matcher.start()) {
+					if (j == 0)
+						expected = new OpenToken(matcher.group(1).toLowerCase());
+					else if (j == 1)
+						expected = new CloseToken();
+					else if (j == 2)
+						expected = new EndOfFileToken();
+					else
+						expected = new ValueToken(matcher.group(1));
+					lastIndex = matcher.end();
+					break;
+				}
+			}
+
+			Token actual = tokenizer.nextToken();
+			String message = "\"" + source + "\" at " + lastIndex;
+			if (expected == null) {
+				assertNull(message, actual);
+				return;
+			}
+			assertEquals(message, expected.getClass(), actual.getClass());
+			if (expected instanceof OpenToken)
+				assertEquals(message, ((OpenToken) expected).getName(), ((OpenToken) actual).getName());
+			if (expected instanceof ValueToken)
+				assertEquals(message, ((ValueToken) expected).getValue(), ((ValueToken) actual).getValue());
+			assertEquals(message, lastIndex, tokenizer.getLastIndex());
+		}
+	}
+
+	private static final Pattern[] patterns = { Pattern.compile("\\s*\\(([a-z\\-]+)", Pattern.CASE_INSENSITIVE),
+			Pattern.compile("\\s*\\)"), Pattern.compile("\\s*$"), Pattern.compile("\\s*([^\\(\\)]+)") };
+
 }
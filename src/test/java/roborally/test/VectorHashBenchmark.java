@@ -0,0 +1,94 @@
+package roborally.test;
+
+import roborally.Vector;
+
+/**
+ * A benchmark of the bucket sizes of vectors as keys
+ * of a hash map holding a full grid of positions.
+ *
+ * <p>The buckets are computed the way a hash map spreads and masks
+ * hash codes, for the hash code of {@link Vector} and for the former
+ * hash code <code>31 * x + y</code>. The average probe length is the
+ * average number of entries inspected by a successful lookup when all
+ * entries of a bucket are chained. This is not part of the unit tests.
+ * Run it with:</p>
+ * <pre>mvn test-compile exec:exec -Dmain.class=roborally.test.VectorHashBenchmark -Dexec.classpathScope=test</pre>
+ */
+public class VectorHashBenchmark {
+
+	public static void main(String[] args) {
+		measure("100x100", 0, 100);
+		measure("300x300", 0, 300);
+		measure("1000x1000", 0, 1000);
+		measure("300x300 at x = 2^40", 1L << 40, 300);
+	}
+
+	private static void measure(String name, long offsetX, int size) {
+		int nbEntries = size * size;
+		int capacity = getCapacity(nbEntries);
+		int[] oldBuckets = new int[capacity];
+		int[] newBuckets = new int[capacity];
+		for (long x = offsetX; x < offsetX + size; ++x) {
+			for (long y = 0; y < size; ++y) {
+				oldBuckets[getBucket(oldHashCode(x, y), capacity)]++;
+				newBuckets[getBucket(new Vector(x, y).hashCode(), capacity)]++;
+			}
+		}
+		System.out.printf("%-20s old: %6.2f (max %3d)  new: %6.2f (max %3d)%n", name,
+				getAverageProbeLength(oldBuckets, nbEntries), getMaximum(oldBuckets),
+				getAverageProbeLength(newBuckets, nbEntries), getMaximum(newBuckets));
+	}
+
+	/**
+	 * The former hash code of a vector with the given coordinates.
+	 */
+	private static int oldHashCode(long x, long y) {
+		final int prime = 31;
+		int result = 0;
+		result = prime * result + (int) (x ^ (x >>> 32));
+		result = prime * result + (int) (y ^ (y >>> 32));
+		return result;
+	}
+
+	/**
+	 * Get the table size of a hash map with the default load factor
+	 * after adding the given number of entries.
+	 */
+	private static int getCapacity(int nbEntries) {
+		int capacity = 16;
+		while (nbEntries > capacity * 3 / 4) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Get the bucket of the given hash code in a hash map
+	 * with the given table size.
+	 */
+	private static int getBucket(int hashCode, int capacity) {
+		return (hashCode ^ (hashCode >>> 16)) & (capacity - 1);
+	}
+
+	/**
+	 * Get the average number of entries inspected to find
+	 * an entry in the given buckets.
+	 */
+	private static double getAverageProbeLength(int[] buckets, int nbEntries) {
+		long total = 0;
+		for (int bucket : buckets) {
+			// The i-th entry in a bucket takes i inspections
+			total += (long) bucket * (bucket + 1) / 2;
+		}
+		return (double) total / nbEntries;
+	}
+
+	private static int getMaximum(int[] buckets) {
+		int maximum = 0;
+		for (int bucket : buckets) {
+			maximum = Math.max(maximum, bucket);
+		}
+		return maximum;
+	}
+
+}
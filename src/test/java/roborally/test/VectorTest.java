@@ -2,10 +2,15 @@ package roborally.test;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.Test;
 
+import roborally.Board;
 import roborally.Vector;
 
 public class VectorTest {
@@ -28,6 +33,88 @@ public class VectorTest {
 		testGetNeighbours(new Vector(1, 1), 0);
 	}
 
+	@Test
+	public void getRing_SameAsNeighbours() {
+		Vector center = new Vector(5, 7);
+		for (long distance = 0; distance < 6; ++distance) {
+			List<Vector> ring = new ArrayList<Vector>();
+			for (Vector vector : center.getRing(distance)) {
+				ring.add(vector);
+			}
+			assertEquals(center.getNeighbours(distance).size(), ring.size());
+			assertEquals(center.getNeighbours(distance), new HashSet<Vector>(ring));
+		}
+		// Fixed order, starting at the right
+		Iterator<Vector> it = center.getRing(1).iterator();
+		assertEquals(new Vector(6, 7), it.next());
+		assertEquals(new Vector(5, 8), it.next());
+		assertEquals(new Vector(4, 7), it.next());
+		assertEquals(new Vector(5, 6), it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void getRing_Clipped() throws Exception {
+		Board board = new Board(7, 5);
+		for (long x = -3; x < 10; ++x) {
+			for (long y = -3; y < 8; ++y) {
+				Vector center = new Vector(x, y);
+				for (long distance = 0; distance < 8; ++distance) {
+					Set<Vector> expected = new HashSet<Vector>();
+					for (Vector vector : center.getRing(distance)) {
+						if (board.isValidPosition(vector))
+							expected.add(vector);
+					}
+					List<Vector> clipped = new ArrayList<Vector>();
+					for (Vector vector : center.getRing(distance, board)) {
+						clipped.add(vector);
+					}
+					assertEquals(expected.size(), clipped.size());
+					assertEquals(expected, new HashSet<Vector>(clipped));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void pack_RoundTrip() {
+		long max = Vector.MAX_PACKED_COORDINATE;
+		for (Vector vector : new Vector[] { Vector.ZERO, new Vector(3, 7), new Vector(max, 0), new Vector(0, max),
+				new Vector(max, max) }) {
+			assertTrue(vector.canPack());
+			assertEquals(vector, Vector.unpack(vector.pack()));
+		}
+		assertTrue(new Vector(1, 2).pack() != new Vector(2, 1).pack());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void pack_OutOfRange() {
+		assertFalse(Vector.canPack(-1, 0));
+		assertFalse(Vector.canPack(0, Vector.MAX_PACKED_COORDINATE + 1));
+		new Vector(Vector.MAX_PACKED_COORDINATE + 1, 0).pack();
+	}
+
+	@Test
+	public void valueOf_Interned() {
+		assertSame(Vector.valueOf(4, 5), Vector.valueOf(4, 5));
+		assertSame(Vector.valueOf(4, 5), new Vector(3, 5).add(1, 0));
+		assertEquals(new Vector(-4, 5), Vector.valueOf(-4, 5));
+		long outside = Vector.MAX_INTERNED_COORDINATE + 1;
+		assertEquals(new Vector(outside, 0), Vector.valueOf(outside, 0));
+	}
+
+	@Test
+	public void hashCode_NearbyVectors() {
+		// Nearby vectors should rarely share a hash code
+		Set<Integer> hashes = new HashSet<Integer>();
+		for (int x = 0; x < 100; ++x) {
+			for (int y = 0; y < 100; ++y) {
+				hashes.add(new Vector(x, y).hashCode());
+			}
+		}
+		assertEquals(100 * 100, hashes.size());
+	}
+
 	@Test
 	public void getNeighbours_MaxValue() {
 		testGetNeighbours(new Vector(Long.MAX_VALUE, Long.MAX_VALUE), 5);